@@ -0,0 +1,82 @@
+package me.cortex.neovoxy.benchmark;
+
+import me.cortex.neovoxy.client.core.rendering.Viewport;
+import me.cortex.neovoxy.client.core.rendering.hierachical.CpuHierarchicalTraverser;
+import me.cortex.neovoxy.client.core.rendering.hierachical.NodeStore;
+import org.joml.Matrix4f;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One CPU traversal of a node tree, to see how LOD selection scales with the
+ * number of nodes.
+ *
+ * <p>The tree is a square of level 4 roots, two high, around a camera looking
+ * along the horizon. Below the roots every node has a random non-empty set of
+ * children down to level 0, so the node count grows with the square of
+ * {@code rootsPerSide}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CpuTraversalBenchmark {
+
+    private static final int ROOT_LOD = 4;
+
+    @Param({"8", "32", "64"})
+    public int rootsPerSide;
+
+    @Param({"16", "64", "256"})
+    public float subdivisionSize;
+
+    private NodeStore store;
+    private final Viewport viewport = new Viewport();
+    private final CpuHierarchicalTraverser traverser = new CpuHierarchicalTraverser();
+    private int frame;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        store = new NodeStore(NodeStore.MAX_NODES);
+        Random random = new Random(1);
+        int half = rootsPerSide / 2;
+        for (int x = -half; x < half; x++) {
+            for (int z = -half; z < half; z++) {
+                for (int y = -1; y <= 0; y++) {
+                    fill(store.createRoot(ROOT_LOD, x, y, z), random);
+                }
+            }
+        }
+
+        viewport.setProjection(new Matrix4f().perspective((float) Math.toRadians(70), 16f / 9f, 0.05f, 1e6f))
+                .setModelView(new Matrix4f().rotateY(0.3f))
+                .setCameraPosition(13.5, 70.2, -40.7)
+                .setDimensions(1920, 1080);
+    }
+
+    private void fill(int id, Random random) {
+        store.setMesh(id, id);
+        if (store.getLod(id) == 0) {
+            return;
+        }
+        store.setChildren(id, 1 + random.nextInt(255));
+        for (int octant = 0; octant < 8; octant++) {
+            int child = store.getChild(id, octant);
+            if (child != NodeStore.NULL_NODE) {
+                fill(child, random);
+            }
+        }
+    }
+
+    @Benchmark
+    public void traverse(Blackhole bh) {
+        CpuHierarchicalTraverser.Result result = traverser.traverse(store, viewport, subdivisionSize, frame++, false);
+        bh.consume(result.getRenderCount());
+        bh.consume(result.getRequestCount());
+    }
+}
@@ -0,0 +1,66 @@
+package me.cortex.neovoxy.benchmark;
+
+import me.cortex.neovoxy.client.core.rendering.Viewport;
+import me.cortex.neovoxy.client.core.rendering.culling.AabbBatch;
+import me.cortex.neovoxy.client.core.rendering.culling.FrustumCuller;
+import me.cortex.neovoxy.client.core.rendering.culling.ScalarFrustumCuller;
+import org.joml.Matrix4f;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Frustum culling of a batch of node-sized boxes, scalar against Vector API.
+ *
+ * <p>Boxes are random level 0 to 4 cubes within 4096 blocks of a camera
+ * looking along the horizon, so roughly a fifth of them survive. The fork
+ * enables {@code jdk.incubator.vector}; {@code culler=vector} fails setup if
+ * the module is missing rather than silently measuring the scalar path.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "--add-modules=jdk.incubator.vector"})
+public class FrustumCullBenchmark {
+
+    @Param({"scalar", "vector"})
+    public String culler;
+
+    @Param({"65536", "1048576"})
+    public int boxCount;
+
+    private FrustumCuller frustumCuller;
+    private AabbBatch boxes;
+    private float[] planes;
+    private long[] visible;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        frustumCuller = "scalar".equals(culler) ? new ScalarFrustumCuller() : FrustumCuller.create();
+        if (!frustumCuller.name().startsWith(culler)) {
+            throw new IllegalStateException("Requested " + culler + " culler, got " + frustumCuller.name());
+        }
+
+        Random random = new Random(1);
+        boxes = new AabbBatch(boxCount);
+        for (int i = 0; i < boxCount; i++) {
+            boxes.addCube(random.nextFloat() * 8192 - 4096, random.nextFloat() * 512 - 256,
+                    random.nextFloat() * 8192 - 4096, 32 << random.nextInt(5));
+        }
+        visible = new long[FrustumCuller.words(boxCount)];
+
+        Viewport viewport = new Viewport()
+                .setProjection(new Matrix4f().perspective((float) Math.toRadians(70), 16f / 9f, 0.05f, 1e6f))
+                .setModelView(new Matrix4f().rotateY(0.3f))
+                .setDimensions(1920, 1080);
+        planes = viewport.getFrustumPlanes();
+    }
+
+    @Benchmark
+    public int cull() {
+        return frustumCuller.cull(boxes, planes, FrustumCuller.WITHOUT_FAR_PLANE, visible);
+    }
+}
@@ -0,0 +1,131 @@
+package me.cortex.neovoxy.benchmark;
+
+import me.cortex.neovoxy.common.util.TLSFAllocator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Steady-state free + allocate churn on a partly filled geometry buffer.
+ *
+ * <p>{@code FIRST_FIT} is the bitmap scan {@code BasicSectionGeometryData} used
+ * before the TLSF allocator, kept here as the baseline. Units are 1024-quad
+ * blocks of the default 512 MB buffer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeometryAllocatorBenchmark {
+
+    private static final int CAPACITY = 65536;
+
+    public enum Kind {
+        TLSF,
+        FIRST_FIT
+    }
+
+    @Param({"TLSF", "FIRST_FIT"})
+    public Kind kind;
+
+    // Percentage of the buffer in use while churning
+    @Param({"50", "90"})
+    public int fill;
+
+    private TLSFAllocator tlsf;
+    private BitSet bitmap;
+
+    private int[] liveOffsets;
+    private int[] liveSizes;
+    private int liveCount;
+    private Random random;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        random = new Random(42);
+        tlsf = new TLSFAllocator(CAPACITY);
+        bitmap = new BitSet(CAPACITY);
+        liveOffsets = new int[CAPACITY];
+        liveSizes = new int[CAPACITY];
+        liveCount = 0;
+
+        long target = (long) CAPACITY * fill / 100;
+        fillTo(target);
+
+        // Punch holes and refill so free space is fragmented like a long session
+        for (int i = liveCount / 4; i > 0; i--) {
+            freeRandom();
+        }
+        fillTo(target);
+    }
+
+    private void fillTo(long target) {
+        while (usedUnits() < target) {
+            int size = nextSize();
+            int offset = allocate(size);
+            if (offset < 0) break;
+            liveOffsets[liveCount] = offset;
+            liveSizes[liveCount++] = size;
+        }
+    }
+
+    @Benchmark
+    public int churn() {
+        freeRandom();
+        int size = nextSize();
+        int offset = allocate(size);
+        if (offset >= 0) {
+            liveOffsets[liveCount] = offset;
+            liveSizes[liveCount++] = size;
+        }
+        return offset;
+    }
+
+    private long usedUnits() {
+        return kind == Kind.TLSF ? tlsf.getUsedUnits() : bitmap.cardinality();
+    }
+
+    private int nextSize() {
+        // Most sections fit one block, a few span many
+        return random.nextInt(10) == 0 ? 2 + random.nextInt(15) : 1;
+    }
+
+    private void freeRandom() {
+        if (liveCount == 0) return;
+        int i = random.nextInt(liveCount);
+        int offset = liveOffsets[i];
+        int size = liveSizes[i];
+        liveOffsets[i] = liveOffsets[--liveCount];
+        liveSizes[i] = liveSizes[liveCount];
+
+        if (kind == Kind.TLSF) {
+            tlsf.free(offset);
+        } else {
+            bitmap.clear(offset, offset + size);
+        }
+    }
+
+    private int allocate(int size) {
+        if (kind == Kind.TLSF) {
+            return tlsf.allocate(size);
+        }
+
+        int consecutive = 0;
+        for (int i = 0; i < CAPACITY; i++) {
+            if (!bitmap.get(i)) {
+                if (++consecutive >= size) {
+                    int start = i - size + 1;
+                    bitmap.set(start, i + 1);
+                    return start;
+                }
+            } else {
+                consecutive = 0;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,100 @@
+package me.cortex.neovoxy.benchmark;
+
+import me.cortex.neovoxy.client.core.VoxyRenderSystem;
+import me.cortex.neovoxy.client.core.rendering.section.geometry.BasicSectionGeometryData;
+import me.cortex.neovoxy.common.meshing.GreedyMesher;
+import me.cortex.neovoxy.common.meshing.QuadFormat;
+import me.cortex.neovoxy.common.util.SizeClassAllocator;
+import me.cortex.neovoxy.common.util.TLSFAllocator;
+import me.cortex.neovoxy.common.voxelization.SectionBorder;
+import me.cortex.neovoxy.common.voxelization.VoxelizedSection;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counts how many meshed sections fit in the default geometry buffer with the
+ * old 1024-quad blocks and with the current granule allocator.
+ *
+ * <p>Run with {@code ./gradlew geometryCapacityReport}.
+ */
+public final class GeometryCapacityReport {
+
+    private static final int LEGACY_BLOCK_QUADS = 1024;
+    private static final int SEEDS = 64;
+
+    private GeometryCapacityReport() {}
+
+    public static void main(String[] args) {
+        long capacity = VoxyRenderSystem.DEFAULT_GEOMETRY_CAPACITY;
+        System.out.printf("Geometry buffer: %d MB, legacy blocks of %d quads, granules of %d quads%n%n",
+                capacity >> 20, LEGACY_BLOCK_QUADS, BasicSectionGeometryData.GRANULE_QUADS);
+        System.out.printf("%-14s %10s %12s %12s %8s%n", "shape", "avg quads", "legacy fit", "granule fit", "gain");
+
+        List<Integer> mixed = new ArrayList<>();
+        for (SyntheticSections.Shape shape : SyntheticSections.Shape.values()) {
+            List<Integer> counts = quadCounts(shape);
+            report(shape.name(), counts, capacity);
+            if (shape != SyntheticSections.Shape.CHECKERBOARD) {
+                mixed.addAll(counts);
+            }
+        }
+        report("MIXED", mixed, capacity);
+    }
+
+    private static List<Integer> quadCounts(SyntheticSections.Shape shape) {
+        GreedyMesher mesher = new GreedyMesher();
+        SectionBorder[] neighbours = new SectionBorder[6];
+        List<Integer> counts = new ArrayList<>();
+        for (int seed = 0; seed < SEEDS; seed++) {
+            VoxelizedSection section = SyntheticSections.generate(shape, seed);
+            // Continuous terrain: surrounded by copies of itself
+            SectionBorder border = SectionBorder.of(section);
+            for (int face = 0; face < 6; face++) {
+                neighbours[face] = border;
+            }
+            int quads = mesher.meshInto(section, neighbours);
+            if (quads > 0) {
+                counts.add(quads);
+            }
+        }
+        return counts;
+    }
+
+    private static void report(String name, List<Integer> counts, long capacity) {
+        if (counts.isEmpty()) {
+            System.out.printf("%-14s %10s%n", name, "no quads");
+            return;
+        }
+
+        long legacy = fillLegacy(counts, capacity);
+        long granule = fillGranules(counts, capacity);
+        double average = counts.stream().mapToInt(Integer::intValue).average().orElse(0);
+        System.out.printf("%-14s %10.0f %12d %12d %7.1fx%n", name, average, legacy, granule, granule / (double) legacy);
+    }
+
+    private static long fillLegacy(List<Integer> counts, long capacity) {
+        TLSFAllocator allocator = new TLSFAllocator((int) (capacity / ((long) LEGACY_BLOCK_QUADS * QuadFormat.BYTES_PER_QUAD)));
+        long sections = 0;
+        for (int i = 0; ; i++) {
+            int blocks = (counts.get(i % counts.size()) + LEGACY_BLOCK_QUADS - 1) / LEGACY_BLOCK_QUADS;
+            if (allocator.allocate(blocks) < 0) {
+                return sections;
+            }
+            sections++;
+        }
+    }
+
+    private static long fillGranules(List<Integer> counts, long capacity) {
+        int granuleBytes = BasicSectionGeometryData.GRANULE_QUADS * QuadFormat.BYTES_PER_QUAD;
+        SizeClassAllocator allocator = new SizeClassAllocator((int) (capacity / granuleBytes));
+        long sections = 0;
+        for (int i = 0; ; i++) {
+            int granules = BasicSectionGeometryData.granulesFor(counts.get(i % counts.size()));
+            if (allocator.allocate(granules) < 0) {
+                return sections;
+            }
+            sections++;
+        }
+    }
+}
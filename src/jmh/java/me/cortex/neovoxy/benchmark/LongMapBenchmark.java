@@ -0,0 +1,159 @@
+package me.cortex.neovoxy.benchmark;
+
+import me.cortex.neovoxy.common.util.ConcurrentLongSet;
+import me.cortex.neovoxy.common.util.LongIntHashMap;
+import me.cortex.neovoxy.common.voxelization.VoxelizedSection;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookup and churn on node and section indices at the sizes a large render
+ * distance implies, primitive maps against the boxed maps they replaced.
+ *
+ * <p>Keys are packed section positions filling a square around the origin.
+ * Memory use is reported separately by {@link LongMapMemoryReport}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class LongMapBenchmark {
+
+    public enum Kind {
+        PRIMITIVE,
+        BOXED
+    }
+
+    @Param({"PRIMITIVE", "BOXED"})
+    public Kind kind;
+
+    @Param({"1000000", "4000000"})
+    public int entries;
+
+    private LongIntHashMap primitiveMap;
+    private ConcurrentHashMap<Long, Integer> boxedMap;
+    private ConcurrentLongSet primitiveSet;
+    private Set<Long> boxedSet;
+
+    private long[] present;
+    private long[] absent;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        present = sectionKeys(entries, 0);
+        absent = sectionKeys(entries, 64);
+        shuffle(present, 1);
+        shuffle(absent, 2);
+
+        if (kind == Kind.PRIMITIVE) {
+            primitiveMap = new LongIntHashMap(-1);
+            primitiveSet = new ConcurrentLongSet();
+            for (int i = 0; i < entries; i++) {
+                primitiveMap.put(present[i], i);
+                primitiveSet.add(present[i]);
+            }
+        } else {
+            boxedMap = new ConcurrentHashMap<>();
+            boxedSet = Collections.newSetFromMap(new ConcurrentHashMap<>());
+            for (int i = 0; i < entries; i++) {
+                boxedMap.put(present[i], i);
+                boxedSet.add(present[i]);
+            }
+        }
+    }
+
+    private long next(long[] keys) {
+        long key = keys[cursor];
+        cursor = cursor + 1 == keys.length ? 0 : cursor + 1;
+        return key;
+    }
+
+    @Benchmark
+    public int mapGetHit() {
+        long key = next(present);
+        if (kind == Kind.PRIMITIVE) {
+            return primitiveMap.get(key);
+        }
+        Integer value = boxedMap.get(key);
+        return value == null ? -1 : value;
+    }
+
+    @Benchmark
+    public int mapGetMiss() {
+        long key = next(absent);
+        if (kind == Kind.PRIMITIVE) {
+            return primitiveMap.get(key);
+        }
+        Integer value = boxedMap.get(key);
+        return value == null ? -1 : value;
+    }
+
+    /**
+     * Insert a key and remove it again, like a node created and freed as the camera moves.
+     */
+    @Benchmark
+    public int mapPutRemove() {
+        long key = next(absent);
+        if (kind == Kind.PRIMITIVE) {
+            primitiveMap.put(key, 1);
+            return primitiveMap.remove(key);
+        }
+        boxedMap.put(key, 1);
+        return boxedMap.remove(key);
+    }
+
+    @Benchmark
+    public boolean setContains() {
+        long key = next(present);
+        return kind == Kind.PRIMITIVE ? primitiveSet.contains(key) : boxedSet.contains(key);
+    }
+
+    @Benchmark
+    public boolean setAddRemove() {
+        long key = next(absent);
+        if (kind == Kind.PRIMITIVE) {
+            primitiveSet.add(key);
+            return primitiveSet.remove(key);
+        }
+        boxedSet.add(key);
+        return boxedSet.remove(key);
+    }
+
+    /**
+     * Packed positions of {@code count} sections in a square of columns, 16 sections high.
+     *
+     * @param yOffset Section Y to start at, so different offsets give disjoint keys
+     */
+    static long[] sectionKeys(int count, int yOffset) {
+        int columns = (count + 15) / 16;
+        int side = (int) Math.ceil(Math.sqrt(columns));
+        long[] keys = new long[count];
+        int i = 0;
+        for (int x = -side / 2; i < count; x++) {
+            for (int z = -side / 2; z < side - side / 2 && i < count; z++) {
+                for (int y = 0; y < 16 && i < count; y++) {
+                    keys[i++] = VoxelizedSection.packPosition(x, y + yOffset - 8, z);
+                }
+            }
+        }
+        return keys;
+    }
+
+    private static void shuffle(long[] keys, long seed) {
+        Random random = new Random(seed);
+        for (int i = keys.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            long tmp = keys[i];
+            keys[i] = keys[j];
+            keys[j] = tmp;
+        }
+    }
+}
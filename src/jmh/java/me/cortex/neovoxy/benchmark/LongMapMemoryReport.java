@@ -0,0 +1,69 @@
+package me.cortex.neovoxy.benchmark;
+
+import me.cortex.neovoxy.common.util.ConcurrentLongSet;
+import me.cortex.neovoxy.common.util.LongIntHashMap;
+
+import java.lang.ref.Reference;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+/**
+ * Measures retained heap per entry of the node and section indices, primitive
+ * maps against the boxed maps they replaced.
+ *
+ * <p>Run with {@code ./gradlew longMapMemoryReport}. Sizes are heap deltas
+ * around a full collection, so expect a few percent of noise.
+ */
+public final class LongMapMemoryReport {
+
+    private static final int[] SIZES = {1_000_000, 2_000_000, 4_000_000};
+
+    private LongMapMemoryReport() {}
+
+    public static void main(String[] args) {
+        System.out.printf("%-30s %10s %12s %12s%n", "structure", "entries", "heap MB", "bytes/entry");
+        for (int size : SIZES) {
+            long[] keys = LongMapBenchmark.sectionKeys(size, 0);
+            report("ConcurrentHashMap<Long,Int>", size, n -> {
+                ConcurrentHashMap<Long, Integer> map = new ConcurrentHashMap<>();
+                for (int i = 0; i < n; i++) map.put(keys[i], i);
+                return map;
+            });
+            report("LongIntHashMap", size, n -> {
+                LongIntHashMap map = new LongIntHashMap(-1);
+                for (int i = 0; i < n; i++) map.put(keys[i], i);
+                return map;
+            });
+            report("Set<Long> (ConcurrentHashMap)", size, n -> {
+                Set<Long> set = Collections.newSetFromMap(new ConcurrentHashMap<>());
+                for (int i = 0; i < n; i++) set.add(keys[i]);
+                return set;
+            });
+            report("ConcurrentLongSet", size, n -> {
+                ConcurrentLongSet set = new ConcurrentLongSet();
+                for (int i = 0; i < n; i++) set.add(keys[i]);
+                return set;
+            });
+        }
+    }
+
+    private static void report(String name, int entries, IntFunction<Object> build) {
+        long before = usedHeap();
+        Object retained = build.apply(entries);
+        long after = usedHeap();
+        long bytes = after - before;
+        System.out.printf("%-30s %10d %12.1f %12.1f%n", name, entries, bytes / 1048576.0, bytes / (double) entries);
+        // Keep the structure reachable until it has been measured
+        Reference.reachabilityFence(retained);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
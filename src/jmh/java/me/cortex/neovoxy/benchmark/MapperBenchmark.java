@@ -0,0 +1,75 @@
+package me.cortex.neovoxy.benchmark;
+
+import me.cortex.neovoxy.common.world.other.Mapper;
+import net.minecraft.SharedConstants;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Mapper} lookups in both directions over the vanilla block state registry.
+ *
+ * <p>IDs are accessed in a shuffled order that mimics a section with many distinct states.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    private static final int LOOKUPS = 4096;
+
+    private Mapper mapper;
+    private BlockState[] states;
+    private int[] ids;
+
+    @Setup
+    public void setup() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+
+        List<BlockState> all = new ArrayList<>();
+        for (BlockState state : Block.BLOCK_STATE_REGISTRY) {
+            if (!state.isAir()) {
+                all.add(state);
+            }
+        }
+
+        mapper = new Mapper();
+        Random random = new Random(42);
+        states = new BlockState[LOOKUPS];
+        ids = new int[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            states[i] = all.get(random.nextInt(all.size()));
+            ids[i] = mapper.getStateId(states[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int stateToId() {
+        int acc = 0;
+        for (BlockState state : states) {
+            acc += mapper.getStateId(state);
+        }
+        return acc;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public int idToState() {
+        int acc = 0;
+        for (int id : ids) {
+            acc += mapper.getState(id) == null ? 0 : 1;
+        }
+        return acc;
+    }
+}
@@ -0,0 +1,64 @@
+package me.cortex.neovoxy.benchmark;
+
+import me.cortex.neovoxy.common.meshing.GreedyMesher;
+import me.cortex.neovoxy.common.voxelization.SectionBorder;
+import me.cortex.neovoxy.common.voxelization.VoxelizedSection;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meshing throughput per section shape.
+ *
+ * <p>{@code neighbourCulled} runs the same path as
+ * {@code RenderGenerationService.generateQuads}: neighbour borders are
+ * looked up and boundary faces are culled against them.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MeshingBenchmark {
+
+    @Param({"FLAT", "NOISY_TERRAIN", "CAVES", "OCEAN", "CHECKERBOARD", "UNIFORM"})
+    public SyntheticSections.Shape shape;
+
+    private VoxelizedSection section;
+    private SectionBorder[] neighbours;
+    private GreedyMesher mesher;
+
+    @Setup
+    public void setup() {
+        section = SyntheticSections.generate(shape, 42);
+        mesher = new GreedyMesher();
+
+        // Surround the section with copies of itself, as in continuous terrain
+        SectionBorder border = SectionBorder.of(section);
+        neighbours = new SectionBorder[6];
+        for (int face = 0; face < 6; face++) {
+            neighbours[face] = border;
+        }
+    }
+
+    @Benchmark
+    public int meshInto() {
+        return mesher.meshInto(section, null);
+    }
+
+    @Benchmark
+    public long[] meshToArray() {
+        return mesher.mesh(section);
+    }
+
+    @Benchmark
+    public long[] neighbourCulled() {
+        return mesher.mesh(section, neighbours);
+    }
+
+    @Benchmark
+    public SectionBorder extractBorder() {
+        return SectionBorder.of(section);
+    }
+}
@@ -0,0 +1,79 @@
+package me.cortex.neovoxy.benchmark;
+
+import me.cortex.neovoxy.common.thread.ServiceManager;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Task throughput of the {@link ServiceManager} over the thread counts
+ * {@code SERVICE_THREADS} allows, with and without work stealing.
+ *
+ * <p>Each invocation submits {@link #CHAINS} two-stage chains from outside the
+ * pool, like a section being voxelized and then meshed. The second stage is
+ * submitted from the first with the same locality key.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceManagerBenchmark {
+
+    private static final int CHAINS = 4096;
+
+    @Param({"4", "8", "16", "32"})
+    public int threads;
+
+    @Param({"false", "true"})
+    public boolean workStealing;
+
+    // Blackhole tokens burnt per stage, roughly a few microseconds
+    @Param({"2000"})
+    public int work;
+
+    private ServiceManager manager;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        manager = new ServiceManager(threads, workStealing);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        manager.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHAINS * 2)
+    public void chainedTasks() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(CHAINS);
+        for (int i = 0; i < CHAINS; i++) {
+            long key = i;
+            manager.submit(() -> {
+                Blackhole.consumeCPU(work);
+                manager.submit(() -> {
+                    Blackhole.consumeCPU(work);
+                    done.countDown();
+                }, key);
+            }, key);
+        }
+        done.await();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHAINS)
+    public void independentTasks() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(CHAINS);
+        for (int i = 0; i < CHAINS; i++) {
+            manager.submit(() -> {
+                Blackhole.consumeCPU(work);
+                done.countDown();
+            });
+        }
+        done.await();
+    }
+}
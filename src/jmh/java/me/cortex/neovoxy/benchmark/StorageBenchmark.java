@@ -0,0 +1,99 @@
+package me.cortex.neovoxy.benchmark;
+
+import me.cortex.neovoxy.common.storage.impl.LMDBStorageBackend;
+import me.cortex.neovoxy.common.world.storage.StorageBackend;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Put/get latency of both storage backends against a temporary directory.
+ *
+ * <p>{@code WORLD} is the backend used by {@code WorldEngine}, {@code LMDB} is
+ * {@link LMDBStorageBackend}. Both are pre-filled so reads hit existing keys.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StorageBenchmark {
+
+    private static final int KEY_COUNT = 4096;
+
+    public enum Backend { WORLD, LMDB }
+
+    @Param({"WORLD", "LMDB"})
+    public Backend backend;
+
+    @Param({"1024", "16384"})
+    public int payloadBytes;
+
+    private Path directory;
+    private StorageBackend worldStorage;
+    private LMDBStorageBackend lmdbStorage;
+    private long[] keys;
+    private byte[] payload;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("neovoxy-bench");
+        switch (backend) {
+            case WORLD -> worldStorage = new StorageBackend(directory);
+            case LMDB -> lmdbStorage = new LMDBStorageBackend(directory);
+        }
+
+        Random random = new Random(42);
+        payload = new byte[payloadBytes];
+        random.nextBytes(payload);
+
+        keys = new long[KEY_COUNT];
+        for (int i = 0; i < KEY_COUNT; i++) {
+            keys[i] = random.nextLong();
+            put(keys[i]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (worldStorage != null) worldStorage.close();
+        if (lmdbStorage != null) lmdbStorage.close();
+
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public void put() {
+        put(nextKey());
+    }
+
+    @Benchmark
+    public byte[] get() {
+        long key = nextKey();
+        return backend == Backend.WORLD ? worldStorage.getSection(key) : lmdbStorage.get(key);
+    }
+
+    private void put(long key) {
+        if (backend == Backend.WORLD) {
+            worldStorage.putSection(key, payload);
+        } else {
+            lmdbStorage.put(key, payload);
+        }
+    }
+
+    private long nextKey() {
+        long key = keys[cursor];
+        cursor = (cursor + 1) & (KEY_COUNT - 1);
+        return key;
+    }
+}
@@ -0,0 +1,112 @@
+package me.cortex.neovoxy.benchmark;
+
+import me.cortex.neovoxy.common.voxelization.VoxelizedSection;
+
+import java.util.Random;
+
+/**
+ * Deterministic synthetic sections for benchmarking.
+ *
+ * <p>State IDs are plain mapper IDs (0 = air), so no game bootstrap is needed.
+ */
+public final class SyntheticSections {
+
+    public static final int STONE = 1;
+    public static final int DIRT = 2;
+    public static final int GRASS = 3;
+    public static final int SAND = 4;
+    public static final int WATER = 5;
+
+    private SyntheticSections() {}
+
+    /**
+     * Section shapes covering common terrain and the meshing worst case.
+     */
+    public enum Shape {
+        /** Grass over dirt over stone, flat at y = 8. */
+        FLAT,
+        /** Rolling heightmap with mixed surface blocks and biomes. */
+        NOISY_TERRAIN,
+        /** Solid stone carved by random spherical caves. */
+        CAVES,
+        /** Water column over a sand floor. */
+        OCEAN,
+        /** 3D checkerboard, the most quads a section can produce. */
+        CHECKERBOARD,
+        /** Every voxel is stone. */
+        UNIFORM
+    }
+
+    public static VoxelizedSection generate(Shape shape, long seed) {
+        return generate(shape, seed, 0, 0, 0);
+    }
+
+    public static VoxelizedSection generate(Shape shape, long seed, int chunkX, int sectionY, int chunkZ) {
+        int[] states = new int[4096];
+        int[] biomes = new int[4096];
+        int[] light = new int[4096];
+        Random random = new Random(seed);
+
+        switch (shape) {
+            case FLAT -> fill(states, (x, y, z) -> y < 6 ? STONE : y < 8 ? DIRT : y == 8 ? GRASS : 0);
+            case NOISY_TERRAIN -> {
+                int[] heights = new int[256];
+                double px = random.nextDouble() * 8, pz = random.nextDouble() * 8;
+                for (int z = 0; z < 16; z++) {
+                    for (int x = 0; x < 16; x++) {
+                        double h = 8 + 3 * Math.sin(px + x * 0.35) + 3 * Math.cos(pz + z * 0.3) + random.nextInt(3) - 1;
+                        heights[(z << 4) | x] = Math.max(1, Math.min(15, (int) h));
+                    }
+                }
+                fill(states, (x, y, z) -> {
+                    int h = heights[(z << 4) | x];
+                    return y > h ? 0 : y == h ? GRASS : y > h - 3 ? DIRT : STONE;
+                });
+                for (int i = 0; i < 4096; i++) {
+                    biomes[i] = ((i & 15) + ((i >> 4) & 15)) >> 3;
+                }
+            }
+            case CAVES -> {
+                fill(states, (x, y, z) -> STONE);
+                for (int c = 0; c < 6; c++) {
+                    int cx = random.nextInt(16), cy = random.nextInt(16), cz = random.nextInt(16);
+                    int r = 2 + random.nextInt(4);
+                    for (int i = 0; i < 4096; i++) {
+                        int dx = (i & 15) - cx, dz = ((i >> 4) & 15) - cz, dy = (i >> 8) - cy;
+                        if (dx * dx + dy * dy + dz * dz <= r * r) {
+                            states[i] = 0;
+                        }
+                    }
+                }
+            }
+            case OCEAN -> fill(states, (x, y, z) -> y < 3 ? SAND : WATER);
+            case CHECKERBOARD -> fill(states, (x, y, z) -> ((x + y + z) & 1) == 0 ? STONE : 0);
+            case UNIFORM -> fill(states, (x, y, z) -> STONE);
+        }
+
+        int blockCount = 0;
+        for (int i = 0; i < 4096; i++) {
+            if (states[i] != 0) {
+                blockCount++;
+                light[i] = 0xF0;
+            }
+        }
+
+        return new VoxelizedSection(chunkX, sectionY, chunkZ, states, biomes, light, blockCount);
+    }
+
+    private static void fill(int[] states, VoxelFunction function) {
+        for (int y = 0; y < 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    states[(y << 8) | (z << 4) | x] = function.apply(x, y, z);
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface VoxelFunction {
+        int apply(int x, int y, int z);
+    }
+}
@@ -0,0 +1,82 @@
+package me.cortex.neovoxy.benchmark;
+
+import me.cortex.neovoxy.common.voxelization.VoxelizedSection;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Access patterns over {@link VoxelizedSection}.
+ *
+ * <p>The backing arrays are indexed (y, z, x), so {@code yzx} walks memory
+ * linearly while {@code xzy} strides by 256 entries per step.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VoxelizedSectionBenchmark {
+
+    @Param({"NOISY_TERRAIN", "CHECKERBOARD"})
+    public SyntheticSections.Shape shape;
+
+    private VoxelizedSection section;
+
+    @Setup
+    public void setup() {
+        section = SyntheticSections.generate(shape, 42);
+    }
+
+    @Benchmark
+    public int stateIdsYzx() {
+        int sum = 0;
+        for (int y = 0; y < 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    sum += section.getStateId(x, y, z);
+                }
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int stateIdsXzy() {
+        int sum = 0;
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z++) {
+                for (int y = 0; y < 16; y++) {
+                    sum += section.getStateId(x, y, z);
+                }
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int allAttributesYzx() {
+        int sum = 0;
+        for (int y = 0; y < 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    if (section.hasBlock(x, y, z)) {
+                        sum += section.getStateId(x, y, z) ^ section.getBiomeId(x, y, z) ^ section.getLightLevel(x, y, z);
+                    }
+                }
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long packUnpackPosition() {
+        long acc = 0;
+        for (int i = -512; i < 512; i++) {
+            long packed = VoxelizedSection.packPosition(i * 37, i & 31, -i * 11);
+            acc += VoxelizedSection.unpackX(packed) + VoxelizedSection.unpackY(packed) + VoxelizedSection.unpackZ(packed);
+        }
+        return acc;
+    }
+}
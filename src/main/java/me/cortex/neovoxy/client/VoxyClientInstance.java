@@ -4,8 +4,10 @@ import me.cortex.neovoxy.client.config.NeoVoxyConfig;
 import me.cortex.neovoxy.client.core.IGetVoxyRenderSystem;
 import me.cortex.neovoxy.client.core.VoxyRenderSystem;
 import me.cortex.neovoxy.common.Logger;
+import me.cortex.neovoxy.common.metrics.Metrics;
 import me.cortex.neovoxy.common.thread.ServiceManager;
 import me.cortex.neovoxy.common.world.WorldEngine;
+import me.cortex.neovoxy.commonImpl.VoxyCommon;
 import me.cortex.neovoxy.commonImpl.VoxyInstance;
 import me.cortex.neovoxy.commonImpl.WorldIdentifier;
 import net.minecraft.client.Minecraft;
@@ -28,10 +30,14 @@ public class VoxyClientInstance extends VoxyInstance {
         
         // Initialize the service thread pool - use default if config not loaded yet
         int threadCount = getServiceThreadCount();
-        this.serviceManager = new ServiceManager(threadCount);
+        this.serviceManager = new ServiceManager(threadCount, isWorkStealingEnabled());
+        configureAdaptiveScaling(serviceManager);
         
         // Initialize the world engine for LOD storage
         this.worldEngine = new WorldEngine(worldId);
+        worldEngine.setIOExecutor(serviceManager.getIOExecutor());
+
+        Metrics.start(VoxyCommon.getDataPath().resolve("metrics.log"), getMetricsDumpInterval());
         
         Logger.info("VoxyClientInstance created successfully with {} service threads", threadCount);
     }
@@ -49,6 +55,43 @@ public class VoxyClientInstance extends VoxyInstance {
         }
     }
     
+    /**
+     * Safely get the metrics dump interval, disabled if config not loaded.
+     */
+    private static int getMetricsDumpInterval() {
+        try {
+            return NeoVoxyConfig.METRICS_DUMP_INTERVAL.get();
+        } catch (IllegalStateException e) {
+            return 0;
+        }
+    }
+    
+    /**
+     * Safely check if work stealing is enabled, using default if config not loaded.
+     */
+    private static boolean isWorkStealingEnabled() {
+        try {
+            return NeoVoxyConfig.WORK_STEALING.get();
+        } catch (IllegalStateException e) {
+            // Config not loaded yet, default to enabled
+            return true;
+        }
+    }
+    
+    /**
+     * Enable adaptive worker scaling if configured. Left disabled if config not loaded.
+     */
+    private static void configureAdaptiveScaling(ServiceManager serviceManager) {
+        try {
+            if (NeoVoxyConfig.ADAPTIVE_THREADS.get()) {
+                serviceManager.enableAdaptiveScaling(NeoVoxyConfig.MIN_SERVICE_THREADS.get(),
+                        (long) (NeoVoxyConfig.TARGET_FRAME_TIME.get() * 1_000_000));
+            }
+        } catch (IllegalStateException e) {
+            // Config not loaded yet, keep every thread active
+        }
+    }
+    
     /**
      * Create and attach the render system to the level renderer.
      * Called when the level renderer is ready.
@@ -135,6 +178,8 @@ public class VoxyClientInstance extends VoxyInstance {
             }
         }
         
+        Metrics.stop();
+        
         Logger.info("VoxyClientInstance closed");
     }
     
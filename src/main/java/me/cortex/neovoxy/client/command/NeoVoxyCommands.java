@@ -7,6 +7,7 @@ import me.cortex.neovoxy.NeoVoxy;
 import me.cortex.neovoxy.NeoVoxyClient;
 import me.cortex.neovoxy.client.config.NeoVoxyConfig;
 import me.cortex.neovoxy.client.core.VoxyRenderSystem;
+import me.cortex.neovoxy.common.metrics.Metrics;
 import net.minecraft.commands.CommandSourceStack;
 import net.minecraft.commands.Commands;
 import net.minecraft.network.chat.Component;
@@ -117,5 +118,10 @@ public class NeoVoxyCommands {
         if (modelService != null) {
             source.sendSuccess(() -> Component.literal("  Loaded Models: " + modelService.getStore().getModelCount()), false);
         }
+        
+        source.sendSuccess(() -> Component.literal("[NeoVoxy Pipeline]"), false);
+        for (String line : Metrics.formatLines(true)) {
+            source.sendSuccess(() -> Component.literal("  " + line), false);
+        }
     }
 }
@@ -26,12 +26,19 @@ public class NeoVoxyConfig {
     // Performance Settings
     public static final ModConfigSpec.IntValue SECTION_RENDER_DISTANCE;
     public static final ModConfigSpec.IntValue SERVICE_THREADS;
+    public static final ModConfigSpec.BooleanValue WORK_STEALING;
+    public static final ModConfigSpec.BooleanValue ADAPTIVE_THREADS;
+    public static final ModConfigSpec.IntValue MIN_SERVICE_THREADS;
+    public static final ModConfigSpec.DoubleValue TARGET_FRAME_TIME;
     public static final ModConfigSpec.DoubleValue SUBDIVISION_SIZE;
+    public static final ModConfigSpec.IntValue DEFRAG_MOVES_PER_FRAME;
+    public static final ModConfigSpec.IntValue DEFRAG_KB_PER_FRAME;
 
     // Visual Settings
     public static final ModConfigSpec.BooleanValue USE_ENVIRONMENTAL_FOG;
     public static final ModConfigSpec.BooleanValue USE_RENDER_FOG;
     public static final ModConfigSpec.BooleanValue RENDER_STATISTICS;
+    public static final ModConfigSpec.IntValue METRICS_DUMP_INTERVAL;
 
     // Advanced Settings
     public static final ModConfigSpec.BooleanValue USE_EMBEDDIUM_THREADS;
@@ -62,14 +69,42 @@ public class NeoVoxyConfig {
 
         SERVICE_THREADS = BUILDER
                 .comment("Number of threads for background processing",
+                        "Upper limit when adaptive threads are enabled",
                         "Default is based on CPU core count")
                 .defineInRange("serviceThreads", getDefaultThreadCount(), 1, 32);
 
+        WORK_STEALING = BUILDER
+                .comment("Give each background thread its own task queue and let idle threads steal work",
+                        "Keeps work on the same section on one core; requires a world reload")
+                .define("workStealing", true);
+
+        ADAPTIVE_THREADS = BUILDER
+                .comment("Adjust the number of active background threads to frame time and queued work")
+                .define("adaptiveThreads", true);
+
+        MIN_SERVICE_THREADS = BUILDER
+                .comment("Lowest number of active background threads when adaptive threads are enabled")
+                .defineInRange("minServiceThreads", 1, 1, 32);
+
+        TARGET_FRAME_TIME = BUILDER
+                .comment("Frame time (ms) adaptive threads try to stay under",
+                        "Threads are removed above this and added well below it when work is queued")
+                .defineInRange("targetFrameTime", 16.7, 4.0, 100.0);
+
         SUBDIVISION_SIZE = BUILDER
                 .comment("Maximum screen-space size (pixels²) before subdividing to higher LOD",
                         "Lower = higher quality, higher = better performance")
                 .defineInRange("subdivisionSize", 64.0, 16.0, 256.0);
 
+        DEFRAG_MOVES_PER_FRAME = BUILDER
+                .comment("Most geometry ranges moved per frame to defragment the GPU buffer",
+                        "0 disables defragmentation")
+                .defineInRange("defragMovesPerFrame", 8, 0, 256);
+
+        DEFRAG_KB_PER_FRAME = BUILDER
+                .comment("Most geometry (KB) copied per frame to defragment the GPU buffer")
+                .defineInRange("defragKbPerFrame", 2048, 64, 65536);
+
         USE_EMBEDDIUM_THREADS = BUILDER
                 .comment("Use Embeddium's builder threads for LOD generation",
                         "Can reduce stuttering at high render distances")
@@ -89,6 +124,10 @@ public class NeoVoxyConfig {
                 .comment("Show render statistics in F3 debug screen")
                 .define("renderStatistics", true);
 
+        METRICS_DUMP_INTERVAL = BUILDER
+                .comment("Seconds between appending pipeline metrics to voxy/metrics.log, 0 to disable")
+                .defineInRange("metricsDumpInterval", 0, 0, 3600);
+
         BUILDER.pop();
 
         SPEC = BUILDER.build();
@@ -4,15 +4,20 @@ import me.cortex.neovoxy.client.config.NeoVoxyConfig;
 import me.cortex.neovoxy.client.core.gl.GlBuffer;
 import me.cortex.neovoxy.client.core.gl.RenderBindings;
 import me.cortex.neovoxy.client.core.model.ModelBakerySubsystem;
+import me.cortex.neovoxy.client.core.rendering.RenderDistanceTracker;
 import me.cortex.neovoxy.client.core.rendering.Viewport;
 import me.cortex.neovoxy.client.core.rendering.hierachical.AsyncNodeManager;
+import me.cortex.neovoxy.client.core.rendering.hierachical.GeometryEvictionPolicy;
 import me.cortex.neovoxy.client.core.rendering.hierachical.HierarchicalOcclusionTraverser;
 import me.cortex.neovoxy.client.core.rendering.hierachical.NodeCleaner;
+import me.cortex.neovoxy.client.core.rendering.hierachical.RemeshScheduler;
 import me.cortex.neovoxy.client.core.rendering.hierachical.RenderGenerationService;
 import me.cortex.neovoxy.client.core.rendering.section.backend.AbstractSectionRenderer;
 import me.cortex.neovoxy.client.core.rendering.section.backend.mdic.MDICSectionRenderer;
 import me.cortex.neovoxy.client.core.rendering.section.geometry.BasicSectionGeometryData;
 import me.cortex.neovoxy.client.core.rendering.section.geometry.IGeometryData;
+import me.cortex.neovoxy.client.core.rendering.util.GlStagingSink;
+import me.cortex.neovoxy.client.core.rendering.util.UploadStream;
 import me.cortex.neovoxy.common.Logger;
 import me.cortex.neovoxy.common.thread.ServiceManager;
 import me.cortex.neovoxy.common.world.WorldEngine;
@@ -42,7 +47,17 @@ import static org.lwjgl.opengl.GL44.*;
 public class VoxyRenderSystem implements Closeable {
 
     // Default geometry buffer size: 512 MB
-    private static final long DEFAULT_GEOMETRY_CAPACITY = 512L * 1024 * 1024;
+    public static final long DEFAULT_GEOMETRY_CAPACITY = 512L * 1024 * 1024;
+    // Section meshes nodes can point at, one per section metadata slot
+    private static final int MAX_SECTION_MESHES = 1 << 20;
+
+    // Vertical range of 32-block top-level columns, covers the build height of every vanilla dimension
+    private static final int MIN_COLUMN_SECTION_Y = -2;
+    private static final int MAX_COLUMN_SECTION_Y = 9;
+
+    // Staging ring shared by all GPU uploads, and how much of it is copied out per frame
+    private static final int UPLOAD_RING_CAPACITY = 32 * 1024 * 1024;
+    private static final long UPLOAD_BYTES_PER_FRAME = 8L * 1024 * 1024;
 
     private final WorldEngine worldEngine;
     private final ServiceManager serviceManager;
@@ -51,7 +66,10 @@ public class VoxyRenderSystem implements Closeable {
     private final ModelBakerySubsystem modelService;
     private final RenderGenerationService renderGen;
     private final IGeometryData geometryData;
+    private final UploadStream<GlBuffer> uploads;
     private final AsyncNodeManager nodeManager;
+    private final RenderDistanceTracker distanceTracker;
+    private final RemeshScheduler remeshScheduler;
     private final NodeCleaner nodeCleaner;
     private final HierarchicalOcclusionTraverser traversal;
     private final AbstractRenderPipeline pipeline;
@@ -65,6 +83,8 @@ public class VoxyRenderSystem implements Closeable {
 
     private final AtomicInteger frameId = new AtomicInteger(0);
     private int renderDistance;
+    private final int defragMovesPerFrame;
+    private final long defragBytesPerFrame;
     private boolean isInitialized = false;
 
     public VoxyRenderSystem(WorldEngine world, ServiceManager sm) {
@@ -89,21 +109,44 @@ public class VoxyRenderSystem implements Closeable {
             Mapper mapper = new Mapper();
             world.setMapper(mapper);
 
+            // Upload stream, flushed once per frame on the render thread
+            this.uploads = new UploadStream<>(new GlStagingSink(UPLOAD_RING_CAPACITY));
+
             // Model bakery for block state -> quad conversion
-            this.modelService = new ModelBakerySubsystem(mapper);
+            this.modelService = new ModelBakerySubsystem(mapper, uploads);
 
             // Geometry storage on GPU
-            this.geometryData = new BasicSectionGeometryData(1 << 20, DEFAULT_GEOMETRY_CAPACITY);
+            BasicSectionGeometryData basicGeometry = new BasicSectionGeometryData(MAX_SECTION_MESHES, DEFAULT_GEOMETRY_CAPACITY, uploads);
+            this.geometryData = basicGeometry;
 
             // Render generation service (background mesh building)
             this.renderGen = new RenderGenerationService(world, modelService, sm, false);
 
             // Hierarchical node management
-            this.nodeManager = new AsyncNodeManager(1 << 21);
-            this.nodeCleaner = new NodeCleaner(nodeManager);
+            this.nodeManager = new AsyncNodeManager(1 << 21, MAX_SECTION_MESHES, renderGen, geometryData, uploads);
+            this.nodeCleaner = new NodeCleaner(nodeManager, geometryData);
+
+            // Top-level columns follow the camera; sections outside them are not meshed
+            this.distanceTracker = new RenderDistanceTracker(32, MIN_COLUMN_SECTION_Y, MAX_COLUMN_SECTION_Y,
+                    nodeManager::addTopLevels, this::removeColumns);
+
+            // Dirty sections are rebuilt from storage and swapped into their nodes
+            this.remeshScheduler = new RemeshScheduler(nodeManager, world, renderGen, geometryData);
+            nodeManager.setRemeshScheduler(remeshScheduler);
+
+            // Resident geometry follows compaction; evicted geometry is rebuilt like a dirty section when needed again
+            GeometryEvictionPolicy eviction = nodeCleaner.getEvictionPolicy();
+            nodeManager.setEvictionPolicy(eviction);
+            basicGeometry.setRelocationListener((oldOffset, newOffset, length) -> {
+                nodeManager.onGeometryRelocated(oldOffset, newOffset, length);
+                eviction.onRelocated(oldOffset, newOffset, length);
+            });
+            eviction.setReloader(nodeManager::worldEvent);
 
             // GPU-driven traversal
             this.traversal = new HierarchicalOcclusionTraverser(nodeManager, nodeCleaner, renderGen);
+            traversal.setViewport(viewport);
+            traversal.setSubdivisionSize(NeoVoxyConfig.SUBDIVISION_SIZE.get().floatValue());
 
             // Dirty callback for world updates
             world.setDirtyCallback(nodeManager::worldEvent);
@@ -125,6 +168,9 @@ public class VoxyRenderSystem implements Closeable {
             renderGen.start();
 
             this.renderDistance = NeoVoxyConfig.SECTION_RENDER_DISTANCE.get();
+            distanceTracker.setRenderDistance(renderDistance);
+            this.defragMovesPerFrame = NeoVoxyConfig.DEFRAG_MOVES_PER_FRAME.get();
+            this.defragBytesPerFrame = NeoVoxyConfig.DEFRAG_KB_PER_FRAME.get() * 1024L;
             this.isInitialized = true;
 
             Logger.info("VoxyRenderSystem created with {} MB geometry capacity",
@@ -141,6 +187,20 @@ public class VoxyRenderSystem implements Closeable {
         }
     }
 
+    /**
+     * Drop columns that left the render distance, with the section borders
+     * kept for meshing inside them.
+     */
+    private void removeColumns(long[] columns, int count) {
+        nodeManager.removeTopLevels(columns, count);
+        for (int i = 0; i < count; i++) {
+            int chunkX = RenderDistanceTracker.unpackX(columns[i]) * AsyncNodeManager.TOP_LEVEL_CHUNKS;
+            int chunkZ = RenderDistanceTracker.unpackZ(columns[i]) * AsyncNodeManager.TOP_LEVEL_CHUNKS;
+            worldEngine.evictSectionBorders(chunkX, chunkZ,
+                    chunkX + AsyncNodeManager.TOP_LEVEL_CHUNKS - 1, chunkZ + AsyncNodeManager.TOP_LEVEL_CHUNKS - 1);
+        }
+    }
+
     private boolean frexStillHasWork() {
         // For FREX flawless frames support
         return renderGen.getPendingCount() > 0;
@@ -166,9 +226,18 @@ public class VoxyRenderSystem implements Closeable {
 
         // Update scene uniform buffer
         updateSceneUniforms();
+
+        // Add and drop top-level columns around the camera before anything asks for their nodes
+        distanceTracker.update(viewport.getCameraX(), viewport.getCameraZ());
+
+        // Mesh generation and geometry eviction are ordered by distance to this camera
+        renderGen.updateCamera(viewport);
+        nodeCleaner.getEvictionPolicy().setCamera(viewport.getCameraX(), viewport.getCameraY(), viewport.getCameraZ());
     }
 
     private void updateSceneUniforms() {
+        // Geometry shaders place sections in 32-block units; the traversal fills
+        // its own uniform in 16-block node units, see HierarchicalOcclusionTraverser
         // Pack uniform data in std140 layout
         // layout(binding = 0, std140) uniform SceneUniform {
         // mat4 MVP; // 64 bytes
@@ -212,19 +281,29 @@ public class VoxyRenderSystem implements Closeable {
      * Called from RenderLevelStageEvent.
      */
     public void render() {
-        if (!isInitialized || !NeoVoxyConfig.isRenderingEnabled()) {
+        if (!isInitialized) {
+            return;
+        }
+
+        // Swap in rebuilt sections, then copy staged uploads, including this frame's
+        // node changes, before anything reads the buffers
+        remeshScheduler.tick(frameId.get());
+        nodeManager.commitChanges();
+        uploads.flush(UPLOAD_BYTES_PER_FRAME);
+
+        if (!NeoVoxyConfig.isRenderingEnabled()) {
             return;
         }
 
         int frame = frameId.incrementAndGet();
 
+        // Run hierarchical traversal, which binds its own scene uniform
+        traversal.traverse(frame, viewport.getWidth(), viewport.getHeight());
+
         // Bind scene uniforms using centralized RenderBindings
         sceneUniformBuffer.bindBase(GL_UNIFORM_BUFFER,
                 me.cortex.neovoxy.client.core.gl.RenderBindings.SCENE_UNIFORM_BINDING);
 
-        // Run hierarchical traversal
-        traversal.traverse(frame, viewport.getWidth(), viewport.getHeight());
-
         // Tick node cleaner
         nodeCleaner.tick(frame);
 
@@ -236,6 +315,12 @@ public class VoxyRenderSystem implements Closeable {
 
         // Post-render cleanup
         pipeline.postRender();
+
+        // Gather scattered free geometry space a few ranges at a time
+        geometryData.compact(defragMovesPerFrame, defragBytesPerFrame);
+
+        // Frame time drives the number of active background workers
+        serviceManager.onFrame(System.nanoTime());
     }
 
     /**
@@ -243,7 +328,7 @@ public class VoxyRenderSystem implements Closeable {
      */
     public void setRenderDistance(int distance) {
         this.renderDistance = distance;
-        // Update render distance tracker would go here
+        distanceTracker.setRenderDistance(distance);
     }
 
     /**
@@ -267,6 +352,13 @@ public class VoxyRenderSystem implements Closeable {
         return modelService;
     }
 
+    /**
+     * Get the background service manager.
+     */
+    public ServiceManager getServiceManager() {
+        return serviceManager;
+    }
+
     /**
      * Get the node manager.
      */
@@ -330,6 +422,9 @@ public class VoxyRenderSystem implements Closeable {
             Logger.error("Error closing modelService", e);
         }
 
+        if (uploads != null)
+            uploads.close();
+
         if (sceneUniformBuffer != null)
             sceneUniformBuffer.close();
 
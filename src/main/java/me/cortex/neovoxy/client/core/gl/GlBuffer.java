@@ -135,6 +135,24 @@ public class GlBuffer implements AutoCloseable {
         glCopyNamedBufferSubData(source.id, this.id, srcOffset, dstOffset, size);
     }
 
+    /**
+     * Map a range of the buffer into client memory.
+     * Persistent mappings stay valid until {@link #unmap()}.
+     *
+     * @param access GL_MAP_* access flags, compatible with the storage flags
+     */
+    public ByteBuffer map(long offset, long length, int access) {
+        ByteBuffer mapping = glMapNamedBufferRange(id, offset, length, access);
+        if (mapping == null) {
+            throw new IllegalStateException("Failed to map buffer " + id);
+        }
+        return mapping;
+    }
+
+    public void unmap() {
+        glUnmapNamedBuffer(id);
+    }
+
     /**
      * Clear buffer to zero.
      */
@@ -1,5 +1,7 @@
 package me.cortex.neovoxy.client.core.model;
 
+import me.cortex.neovoxy.client.core.gl.GlBuffer;
+import me.cortex.neovoxy.client.core.rendering.util.UploadStream;
 import me.cortex.neovoxy.common.Logger;
 import me.cortex.neovoxy.common.world.other.Mapper;
 import net.minecraft.client.Minecraft;
@@ -28,9 +30,9 @@ public class ModelBakerySubsystem implements AutoCloseable {
 
     private static final RandomSource RANDOM = RandomSource.create();
 
-    public ModelBakerySubsystem(Mapper mapper) {
+    public ModelBakerySubsystem(Mapper mapper, UploadStream<GlBuffer> uploads) {
         this.mapper = mapper;
-        this.store = new ModelStore(1 << 16); // 65536 models max
+        this.store = new ModelStore(1 << 16, uploads); // 65536 models max
 
         Logger.info("ModelBakerySubsystem initialized");
     }
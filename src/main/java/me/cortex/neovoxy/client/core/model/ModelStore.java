@@ -1,6 +1,7 @@
 package me.cortex.neovoxy.client.core.model;
 
 import me.cortex.neovoxy.client.core.gl.GlBuffer;
+import me.cortex.neovoxy.client.core.rendering.util.UploadStream;
 import me.cortex.neovoxy.common.Logger;
 import net.minecraft.world.level.block.state.BlockState;
 
@@ -23,6 +24,7 @@ import static org.lwjgl.opengl.GL44.*;
  * 
  * <p>
  * Model data is stored in a GPU buffer and indexed by model ID in shaders.
+ * Uploads go through the shared {@link UploadStream}, so they can be made from any thread.
  */
 public class ModelStore implements AutoCloseable {
 
@@ -31,14 +33,16 @@ public class ModelStore implements AutoCloseable {
 
     private final GlBuffer modelBuffer;
     private final GlBuffer colourBuffer;
+    private final UploadStream<GlBuffer> uploads;
 
     private final ConcurrentHashMap<BlockState, Integer> stateToId = new ConcurrentHashMap<>();
     private final AtomicInteger nextId = new AtomicInteger(1); // 0 = air/empty
 
     private final int maxModels;
 
-    public ModelStore(int maxModels) {
+    public ModelStore(int maxModels, UploadStream<GlBuffer> uploads) {
         this.maxModels = maxModels;
+        this.uploads = uploads;
 
         // Model data buffer
         this.modelBuffer = new GlBuffer((long) maxModels * MODEL_SIZE, GL_DYNAMIC_STORAGE_BIT);
@@ -76,7 +80,7 @@ public class ModelStore implements AutoCloseable {
             Logger.error("Model data too large for entry: {} > {}", data.length * 4, MODEL_SIZE);
             return;
         }
-        modelBuffer.upload((long) id * MODEL_SIZE, data);
+        uploads.write(modelBuffer, (long) id * MODEL_SIZE, data);
     }
 
     /**
@@ -85,7 +89,7 @@ public class ModelStore implements AutoCloseable {
     public void uploadColour(int modelId, int biomeId, int color) {
         // Color buffer layout: 256 colors per model
         long offset = (long) modelId * 256 * 4 + (long) biomeId * 4;
-        colourBuffer.upload(offset, new int[] { color });
+        uploads.writeInt(colourBuffer, offset, color);
     }
 
     /**
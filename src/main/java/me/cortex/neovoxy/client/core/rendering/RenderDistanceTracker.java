@@ -2,193 +2,427 @@ package me.cortex.neovoxy.client.core.rendering;
 
 import me.cortex.neovoxy.common.Logger;
 
-import java.util.function.BiConsumer;
-
 /**
  * Tracks render distance and manages top-level LOD node creation/removal.
- * 
+ *
  * <p>Divides the world into "sections" around the player and ensures
  * LOD nodes exist for visible regions.
+ *
+ * <p>Tracked sections are one bit each in a toroidal grid: a section's bit
+ * sits at its coordinates modulo the grid size, so the grid never shifts when
+ * the player moves. A move only visits the strips of sections that leave and
+ * enter the range. Changes are reported in batches of packed positions, see
+ * {@link #packPosition}; every removal of a move is reported before its
+ * additions.
+ *
+ * <p>The range is a square or an ellipse, see {@link Shape}. A full reset
+ * (first update, teleport or range change) adds sections nearest first, in
+ * rings of whole-section distance, and at most {@link #setMaxAddsPerTick}
+ * per update; the rest follow on later updates. Sections entering the range
+ * while moving are added at once.
  */
 public class RenderDistanceTracker {
-    
+
+    // Positions buffered before a callback is flushed
+    private static final int BATCH_SIZE = 1024;
+
+    /**
+     * Footprint of the tracked range.
+     */
+    public enum Shape {
+        /** Every section within the distance on both axes. */
+        SQUARE,
+        /**
+         * Sections inside the ellipse with half-axes distance + 0.5; a circle
+         * when both distances are equal. About 21% fewer sections than the square.
+         */
+        ELLIPSE
+    }
+
+    /**
+     * Receives a batch of packed section positions. The array is reused after
+     * the call returns; only the first {@code count} entries are valid.
+     */
+    @FunctionalInterface
+    public interface BatchConsumer {
+        void accept(long[] positions, int count);
+    }
+
     private final int sectionSize; // Size of each section in blocks
     private final int minSectionY;
     private final int maxSectionY;
-    
-    private final BiConsumer<Integer, Integer> addCallback;
-    private final BiConsumer<Integer, Integer> removeCallback;
-    
+
+    private final BatchConsumer addCallback;
+    private final BatchConsumer removeCallback;
+
     private int centerX = Integer.MIN_VALUE;
     private int centerZ = Integer.MIN_VALUE;
-    private int renderDistance;
-    
-    // Tracked sections (simple bit set would be more efficient)
-    private boolean[][] trackedSections;
-    private int trackingSize;
-    
+    private int distanceX;
+    private int distanceZ;
+    private Shape shape = Shape.SQUARE;
+
+    // Footprint: half-width in Z of the row at X offset dx, indexed dx + distanceX
+    private int[] rowHalfWidth;
+    // Last distance ring with sections inside the footprint
+    private int maxRing;
+
+    // Tracked sections, bit (floorMod(x, trackingSizeX) * trackingSizeZ + floorMod(z, trackingSizeZ))
+    private long[] trackedSections;
+    private int trackingSizeX;
+    private int trackingSizeZ;
+
+    // Nearest-first fill after a reset: current ring, row offset and signed Z offset
+    private boolean filling;
+    private int fillRing;
+    private int fillDx;
+    private int fillDz;
+    private int maxAddsPerTick = 4096;
+
+    private final long[] addBatch = new long[BATCH_SIZE];
+    private final long[] removeBatch = new long[BATCH_SIZE];
+    private int addCount;
+    private int removeCount;
+
     public RenderDistanceTracker(int sectionSize, int minSectionY, int maxSectionY,
-                                  BiConsumer<Integer, Integer> addCallback,
-                                  BiConsumer<Integer, Integer> removeCallback) {
+                                  BatchConsumer addCallback,
+                                  BatchConsumer removeCallback) {
         this.sectionSize = sectionSize;
         this.minSectionY = minSectionY;
         this.maxSectionY = maxSectionY;
         this.addCallback = addCallback;
         this.removeCallback = removeCallback;
-        this.renderDistance = 16;
-        
+        this.distanceX = 16;
+        this.distanceZ = 16;
+
         updateTrackingGrid();
     }
-    
+
+    public static long packPosition(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+
+    public static int unpackX(long position) {
+        return (int) (position >> 32);
+    }
+
+    public static int unpackZ(long position) {
+        return (int) position;
+    }
+
     /**
      * Set render distance in sections.
      */
     public void setRenderDistance(int distance) {
-        if (this.renderDistance != distance) {
-            this.renderDistance = distance;
-            updateTrackingGrid();
-            
-            // Force full recalculation
-            centerX = Integer.MIN_VALUE;
+        setRenderDistance(distance, distance);
+    }
+
+    /**
+     * Set render distance in sections per axis, making an ellipse or rectangle.
+     */
+    public void setRenderDistance(int distanceX, int distanceZ) {
+        if (this.distanceX != distanceX || this.distanceZ != distanceZ) {
+            reset(() -> {
+                this.distanceX = distanceX;
+                this.distanceZ = distanceZ;
+            });
+        }
+    }
+
+    /**
+     * Set the footprint of the tracked range.
+     */
+    public void setShape(Shape shape) {
+        if (this.shape != shape) {
+            reset(() -> this.shape = shape);
+        }
+    }
+
+    /**
+     * Set how many sections a reset adds per {@link #update}. Sections entering
+     * the range while moving are not limited.
+     */
+    public void setMaxAddsPerTick(int maxAddsPerTick) {
+        if (maxAddsPerTick <= 0) {
+            throw new IllegalArgumentException("Max adds per tick must be positive, got " + maxAddsPerTick);
+        }
+        this.maxAddsPerTick = maxAddsPerTick;
+    }
+
+    private void reset(Runnable change) {
+        // The grid is indexed by the old range, empty it before resizing
+        if (centerX != Integer.MIN_VALUE) {
+            removeAllTracked();
+            flush();
         }
+        change.run();
+        updateTrackingGrid();
+
+        // Force full recalculation
+        centerX = Integer.MIN_VALUE;
+        filling = false;
     }
-    
+
     private void updateTrackingGrid() {
-        trackingSize = renderDistance * 2 + 1;
-        trackedSections = new boolean[trackingSize][trackingSize];
+        trackingSizeX = distanceX * 2 + 1;
+        trackingSizeZ = distanceZ * 2 + 1;
+        long bits = (long) trackingSizeX * trackingSizeZ;
+        trackedSections = new long[(int) ((bits + 63) >>> 6)];
+
+        rowHalfWidth = new int[trackingSizeX];
+        maxRing = 0;
+        // Ellipse with half-axes d + 0.5, scaled by 2 to stay in integers
+        long ax = trackingSizeX;
+        long az = trackingSizeZ;
+        for (int dx = -distanceX; dx <= distanceX; dx++) {
+            int halfWidth = distanceZ;
+            if (shape == Shape.ELLIPSE) {
+                // Largest dz with 4 dz² ax² + 4 dx² az² <= ax² az²
+                long limit = ax * ax * az * az - 4L * dx * dx * az * az;
+                halfWidth = Math.min(distanceZ, (int) floorSqrt(limit / (4L * ax * ax)));
+            }
+            rowHalfWidth[dx + distanceX] = halfWidth;
+            maxRing = Math.max(maxRing, (int) floorSqrt((long) dx * dx + (long) halfWidth * halfWidth));
+        }
+
+        Logger.debug("Render distance grid {}x{} ({} KiB)", trackingSizeX, trackingSizeZ,
+                trackedSections.length * Long.BYTES / 1024);
     }
-    
+
     /**
      * Update tracking based on player position.
-     * 
+     *
      * @param playerX Player X position
      * @param playerZ Player Z position
      */
     public void update(double playerX, double playerZ) {
         int newCenterX = (int) Math.floor(playerX) >> 5; // /32 for section coords
         int newCenterZ = (int) Math.floor(playerZ) >> 5;
-        
+
         if (newCenterX == centerX && newCenterZ == centerZ) {
+            if (filling) {
+                fillNearestFirst();
+                flush();
+            }
             return; // No change
         }
-        
+
         // Handle movement
         if (centerX == Integer.MIN_VALUE) {
             // First update - add all sections in range
             centerX = newCenterX;
             centerZ = newCenterZ;
-            addAllInRange();
+            startFill(0);
         } else {
             // Incremental update
             int deltaX = newCenterX - centerX;
             int deltaZ = newCenterZ - centerZ;
-            
-            if (Math.abs(deltaX) > renderDistance || Math.abs(deltaZ) > renderDistance) {
+
+            if (Math.abs(deltaX) > distanceX || Math.abs(deltaZ) > distanceZ) {
                 // Moved too far - do full reset
                 removeAllTracked();
                 centerX = newCenterX;
                 centerZ = newCenterZ;
-                addAllInRange();
+                startFill(0);
             } else {
                 // Incremental move
-                incrementalUpdate(deltaX, deltaZ);
+                incrementalUpdate(newCenterX, newCenterZ);
                 centerX = newCenterX;
                 centerZ = newCenterZ;
+                if (filling) {
+                    // Rings the move cannot have uncovered are still complete, see startFill
+                    long distance = (long) deltaX * deltaX + (long) deltaZ * deltaZ;
+                    startFill(fillRing - (int) ceilSqrt(distance));
+                }
             }
         }
+        if (filling) {
+            fillNearestFirst();
+        }
+        flush();
     }
-    
-    private void addAllInRange() {
-        for (int dx = -renderDistance; dx <= renderDistance; dx++) {
-            for (int dz = -renderDistance; dz <= renderDistance; dz++) {
-                int x = centerX + dx;
-                int z = centerZ + dz;
-                
-                addCallback.accept(x, z);
-                
-                int idx = dx + renderDistance;
-                int idz = dz + renderDistance;
-                if (idx >= 0 && idx < trackingSize && idz >= 0 && idz < trackingSize) {
-                    trackedSections[idx][idz] = true;
+
+    /**
+     * Start adding the range ring by ring from {@code firstRing}.
+     *
+     * <p>Restarting after a move of distance d from ring k - d is enough: a
+     * section in a ring below k - d of the new center is less than k from the
+     * old center, so it was already added or is new to the footprint, and
+     * {@link #incrementalUpdate} added those.
+     */
+    private void startFill(int firstRing) {
+        filling = true;
+        fillRing = Math.max(0, firstRing);
+        fillDx = -fillRing;
+        fillDz = Integer.MIN_VALUE;
+    }
+
+    /**
+     * Add sections in order of distance until the per-tick budget is spent.
+     * Ring k holds the sections with k² <= dx² + dz² < (k + 1)².
+     */
+    private void fillNearestFirst() {
+        int added = 0;
+        while (fillRing <= maxRing) {
+            int k = fillRing;
+            long inner = (long) k * k;
+            long outer = (long) (k + 1) * (k + 1) - 1;
+            for (; fillDx <= k; fillDx++, fillDz = Integer.MIN_VALUE) {
+                long dx2 = (long) fillDx * fillDx;
+                int zLow = (int) ceilSqrt(Math.max(0, inner - dx2));
+                int zHigh = (int) floorSqrt(outer - dx2);
+                if (zLow > zHigh) {
+                    continue;
+                }
+                if (fillDz == Integer.MIN_VALUE) {
+                    fillDz = -zHigh;
+                }
+                // Offsets -zHigh..-zLow, then zLow..zHigh
+                for (; fillDz <= zHigh; fillDz = fillDz == -zLow ? Math.max(zLow, fillDz + 1) : fillDz + 1) {
+                    if (added >= maxAddsPerTick) {
+                        return;
+                    }
+                    if (inFootprint(fillDx, fillDz) && add(centerX + fillDx, centerZ + fillDz)) {
+                        added++;
+                    }
                 }
             }
+            fillRing++;
+            fillDx = -fillRing;
+            fillDz = Integer.MIN_VALUE;
         }
+        filling = false;
     }
-    
+
+    private boolean inFootprint(int dx, int dz) {
+        return Math.abs(dx) <= distanceX && Math.abs(dz) <= rowHalfWidth[dx + distanceX];
+    }
+
     private void removeAllTracked() {
-        for (int dx = -renderDistance; dx <= renderDistance; dx++) {
-            for (int dz = -renderDistance; dz <= renderDistance; dz++) {
-                int idx = dx + renderDistance;
-                int idz = dz + renderDistance;
-                
-                if (idx >= 0 && idx < trackingSize && idz >= 0 && idz < trackingSize) {
-                    if (trackedSections[idx][idz]) {
-                        removeCallback.accept(centerX + dx, centerZ + dz);
-                        trackedSections[idx][idz] = false;
-                    }
-                }
+        for (int dx = -distanceX; dx <= distanceX; dx++) {
+            int halfWidth = rowHalfWidth[dx + distanceX];
+            for (int dz = -halfWidth; dz <= halfWidth; dz++) {
+                remove(centerX + dx, centerZ + dz);
             }
         }
     }
-    
-    private void incrementalUpdate(int deltaX, int deltaZ) {
-        // Remove sections that will be out of range
-        for (int dx = -renderDistance; dx <= renderDistance; dx++) {
-            for (int dz = -renderDistance; dz <= renderDistance; dz++) {
-                int newDx = dx - deltaX;
-                int newDz = dz - deltaZ;
-                
-                // Check if this section will be out of range after move
-                if (Math.abs(newDx) > renderDistance || Math.abs(newDz) > renderDistance) {
-                    int idx = dx + renderDistance;
-                    int idz = dz + renderDistance;
-                    
-                    if (idx >= 0 && idx < trackingSize && idz >= 0 && idz < trackingSize) {
-                        if (trackedSections[idx][idz]) {
-                            removeCallback.accept(centerX + dx, centerZ + dz);
-                        }
-                    }
-                }
+
+    private void incrementalUpdate(int newCenterX, int newCenterZ) {
+        // Sections leaving the range, then sections entering it. A leaving and an
+        // entering section can share a bit, so all removals come first.
+        forEachOutside(centerX, centerZ, newCenterX, newCenterZ, false);
+        forEachOutside(newCenterX, newCenterZ, centerX, centerZ, true);
+    }
+
+    /**
+     * Visit the sections of footprint {@code a} that are not in footprint
+     * {@code b}: per row of {@code a}, the part of its Z span outside the span
+     * of the same row of {@code b}.
+     */
+    private void forEachOutside(int aX, int aZ, int bX, int bZ, boolean add) {
+        for (int x = aX - distanceX; x <= aX + distanceX; x++) {
+            int aHalf = rowHalfWidth[x - aX + distanceX];
+            int minZ = aZ - aHalf;
+            int maxZ = aZ + aHalf;
+            int bRow = x - bX + distanceX;
+            if (bRow < 0 || bRow >= trackingSizeX) {
+                forEachInRow(x, minZ, maxZ, add);
+                continue;
             }
+            // Z spans of a before and after the span both rows share
+            int bHalf = rowHalfWidth[bRow];
+            forEachInRow(x, minZ, Math.min(maxZ, bZ - bHalf - 1), add);
+            forEachInRow(x, Math.max(minZ, bZ + bHalf + 1), maxZ, add);
         }
-        
-        // Shift tracking grid
-        boolean[][] newTracked = new boolean[trackingSize][trackingSize];
-        for (int dx = -renderDistance; dx <= renderDistance; dx++) {
-            for (int dz = -renderDistance; dz <= renderDistance; dz++) {
-                int oldDx = dx + deltaX;
-                int oldDz = dz + deltaZ;
-                
-                int idx = dx + renderDistance;
-                int idz = dz + renderDistance;
-                int oldIdx = oldDx + renderDistance;
-                int oldIdz = oldDz + renderDistance;
-                
-                if (oldIdx >= 0 && oldIdx < trackingSize && oldIdz >= 0 && oldIdz < trackingSize) {
-                    newTracked[idx][idz] = trackedSections[oldIdx][oldIdz];
-                }
+    }
+
+    private void forEachInRow(int x, int minZ, int maxZ, boolean add) {
+        for (int z = minZ; z <= maxZ; z++) {
+            if (add) {
+                add(x, z);
+            } else {
+                remove(x, z);
             }
         }
-        trackedSections = newTracked;
-        
-        // Add new sections that are now in range
-        for (int dx = -renderDistance; dx <= renderDistance; dx++) {
-            for (int dz = -renderDistance; dz <= renderDistance; dz++) {
-                int idx = dx + renderDistance;
-                int idz = dz + renderDistance;
-                
-                if (!trackedSections[idx][idz]) {
-                    addCallback.accept(centerX + deltaX + dx, centerZ + deltaZ + dz);
-                    trackedSections[idx][idz] = true;
-                }
-            }
+    }
+
+    private int bitIndex(int x, int z) {
+        return Math.floorMod(x, trackingSizeX) * trackingSizeZ + Math.floorMod(z, trackingSizeZ);
+    }
+
+    /**
+     * @return False if the section was already tracked
+     */
+    private boolean add(int x, int z) {
+        int bit = bitIndex(x, z);
+        long mask = 1L << bit;
+        if ((trackedSections[bit >>> 6] & mask) != 0) {
+            return false;
+        }
+        trackedSections[bit >>> 6] |= mask;
+        if (addCount == BATCH_SIZE) {
+            flushAdds();
+        }
+        addBatch[addCount++] = packPosition(x, z);
+        return true;
+    }
+
+    private void remove(int x, int z) {
+        int bit = bitIndex(x, z);
+        long mask = 1L << bit;
+        if ((trackedSections[bit >>> 6] & mask) == 0) {
+            return;
+        }
+        trackedSections[bit >>> 6] &= ~mask;
+        if (removeCount == BATCH_SIZE) {
+            // Keep removals ahead of any buffered additions
+            flushRemoves();
+        }
+        removeBatch[removeCount++] = packPosition(x, z);
+    }
+
+    private void flush() {
+        flushRemoves();
+        flushAdds();
+    }
+
+    private void flushAdds() {
+        flushRemoves();
+        if (addCount != 0) {
+            addCallback.accept(addBatch, addCount);
+            addCount = 0;
         }
     }
-    
+
+    private void flushRemoves() {
+        if (removeCount != 0) {
+            removeCallback.accept(removeBatch, removeCount);
+            removeCount = 0;
+        }
+    }
+
+    private static long floorSqrt(long n) {
+        long root = (long) Math.sqrt(n);
+        while (root * root > n) root--;
+        while ((root + 1) * (root + 1) <= n) root++;
+        return root;
+    }
+
+    private static long ceilSqrt(long n) {
+        long root = floorSqrt(n);
+        return root * root == n ? root : root + 1;
+    }
+
     /**
-     * Get current render distance.
+     * Get current render distance, the larger of the two axes.
      */
     public int getRenderDistance() {
-        return renderDistance;
+        return Math.max(distanceX, distanceZ);
+    }
+
+    /**
+     * Check if a reset is still adding sections on later updates.
+     */
+    public boolean isFilling() {
+        return filling;
     }
 }
@@ -0,0 +1,113 @@
+package me.cortex.neovoxy.client.core.rendering.culling;
+
+import java.util.Arrays;
+
+/**
+ * Axis-aligned boxes stored as parallel arrays, one per bound, so a
+ * {@link FrustumCuller} can test many of them per instruction.
+ *
+ * <p>Coordinates are relative to the camera, like the frustum planes from
+ * {@code Viewport.getFrustumPlanes()}. Not thread-safe.
+ */
+public final class AabbBatch {
+
+    float[] minX, minY, minZ;
+    float[] maxX, maxY, maxZ;
+    private int size;
+
+    public AabbBatch() {
+        this(256);
+    }
+
+    public AabbBatch(int capacity) {
+        allocate(Math.max(16, capacity));
+    }
+
+    /**
+     * Append a box.
+     *
+     * @return Its index
+     */
+    public int add(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        if (size == this.minX.length) {
+            grow(size + 1);
+        }
+        int index = size++;
+        this.minX[index] = minX;
+        this.minY[index] = minY;
+        this.minZ[index] = minZ;
+        this.maxX[index] = maxX;
+        this.maxY[index] = maxY;
+        this.maxZ[index] = maxZ;
+        return index;
+    }
+
+    /**
+     * Append a cube with its minimum corner at ({@code x}, {@code y}, {@code z}).
+     *
+     * @return Its index
+     */
+    public int addCube(float x, float y, float z, float size) {
+        return add(x, y, z, x + size, y + size, z + size);
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Make room for at least {@code capacity} boxes without further growth.
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity > minX.length) {
+            grow(capacity);
+        }
+    }
+
+    public float getMinX(int index) {
+        return minX[index];
+    }
+
+    public float getMinY(int index) {
+        return minY[index];
+    }
+
+    public float getMinZ(int index) {
+        return minZ[index];
+    }
+
+    public float getMaxX(int index) {
+        return maxX[index];
+    }
+
+    public float getMaxY(int index) {
+        return maxY[index];
+    }
+
+    public float getMaxZ(int index) {
+        return maxZ[index];
+    }
+
+    private void grow(int needed) {
+        int capacity = Math.max(needed, minX.length * 2);
+        minX = Arrays.copyOf(minX, capacity);
+        minY = Arrays.copyOf(minY, capacity);
+        minZ = Arrays.copyOf(minZ, capacity);
+        maxX = Arrays.copyOf(maxX, capacity);
+        maxY = Arrays.copyOf(maxY, capacity);
+        maxZ = Arrays.copyOf(maxZ, capacity);
+    }
+
+    private void allocate(int capacity) {
+        minX = new float[capacity];
+        minY = new float[capacity];
+        minZ = new float[capacity];
+        maxX = new float[capacity];
+        maxY = new float[capacity];
+        maxZ = new float[capacity];
+    }
+}
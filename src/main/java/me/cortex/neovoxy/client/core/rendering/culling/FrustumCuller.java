@@ -0,0 +1,66 @@
+package me.cortex.neovoxy.client.core.rendering.culling;
+
+import me.cortex.neovoxy.common.Logger;
+
+/**
+ * Tests a batch of boxes against frustum planes.
+ *
+ * <p>A box is visible if, for every plane tested, its corner furthest along
+ * the plane normal is on or in front of the plane:
+ * {@code nx * px + ny * py + nz * pz >= -w}. Every implementation evaluates
+ * exactly this expression in this order, so all of them give bit-identical
+ * results; {@link #create()} picks the fastest one the JVM supports.
+ */
+public interface FrustumCuller {
+
+    /**
+     * Planes in {@code Viewport.getFrustumPlanes()} order: left, right, bottom,
+     * top, near, far. The traversal shader skips the far plane.
+     */
+    int ALL_PLANES = 6;
+    int WITHOUT_FAR_PLANE = 5;
+
+    /**
+     * Test every box in a batch.
+     *
+     * @param planes     Camera-relative planes, {@code planeCount} x vec4 (normal, distance)
+     * @param planeCount Number of leading planes to test
+     * @param visible    Receives one bit per box, bit {@code i % 64} of word {@code i / 64};
+     *                   needs at least {@link #words} entries
+     * @return Number of visible boxes
+     */
+    int cull(AabbBatch boxes, float[] planes, int planeCount, long[] visible);
+
+    /**
+     * Get a name for logs and benchmarks.
+     */
+    String name();
+
+    static int words(int boxes) {
+        return (boxes + 63) >>> 6;
+    }
+
+    static boolean isVisible(long[] visible, int index) {
+        return (visible[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Get the Vector API culler if the {@code jdk.incubator.vector} module is
+     * loaded (JVM flag {@code --add-modules=jdk.incubator.vector}), otherwise
+     * the scalar one.
+     */
+    static FrustumCuller create() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                FrustumCuller culler = (FrustumCuller) Class
+                        .forName("me.cortex.neovoxy.client.core.rendering.culling.VectorFrustumCuller")
+                        .getDeclaredConstructor().newInstance();
+                Logger.info("Frustum culling uses the Vector API ({})", culler.name());
+                return culler;
+            } catch (ReflectiveOperationException | LinkageError e) {
+                Logger.warn("Vector API frustum culling unavailable, using scalar code: {}", e.toString());
+            }
+        }
+        return new ScalarFrustumCuller();
+    }
+}
@@ -0,0 +1,42 @@
+package me.cortex.neovoxy.client.core.rendering.culling;
+
+import java.util.Arrays;
+
+/**
+ * Plain Java {@link FrustumCuller}, used when the Vector API is not available.
+ */
+public final class ScalarFrustumCuller implements FrustumCuller {
+
+    @Override
+    public int cull(AabbBatch boxes, float[] planes, int planeCount, long[] visible) {
+        int size = boxes.size();
+        Arrays.fill(visible, 0, FrustumCuller.words(size), 0L);
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (test(boxes, i, planes, planeCount)) {
+                visible[i >>> 6] |= 1L << i;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    static boolean test(AabbBatch boxes, int i, float[] planes, int planeCount) {
+        for (int p = 0; p < planeCount; p++) {
+            int idx = p * 4;
+            float nx = planes[idx], ny = planes[idx + 1], nz = planes[idx + 2];
+            float px = nx < 0 ? boxes.minX[i] : boxes.maxX[i];
+            float py = ny < 0 ? boxes.minY[i] : boxes.maxY[i];
+            float pz = nz < 0 ? boxes.minZ[i] : boxes.maxZ[i];
+            if (!(nx * px + ny * py + nz * pz >= -planes[idx + 3])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,81 @@
+package me.cortex.neovoxy.client.core.rendering.culling;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.Arrays;
+
+/**
+ * {@link FrustumCuller} on the incubating Vector API, testing one box per lane
+ * of the widest float vector the CPU supports.
+ *
+ * <p>A plane's normal is the same for every box, so the corner to test is
+ * chosen once per plane by picking the min or max array, leaving only loads,
+ * multiplies, adds and one compare per plane in the loop. Multiplies and adds
+ * are kept separate (no fused multiply-add) so results match
+ * {@link ScalarFrustumCuller} bit for bit.
+ *
+ * <p>Only loaded by {@link FrustumCuller#create()} after checking the module is present.
+ */
+final class VectorFrustumCuller implements FrustumCuller {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    // Per-plane corner arrays, only set during a call so no batch is kept alive
+    private float[][] cornerX = new float[FrustumCuller.ALL_PLANES][];
+    private float[][] cornerY = new float[FrustumCuller.ALL_PLANES][];
+    private float[][] cornerZ = new float[FrustumCuller.ALL_PLANES][];
+
+    @Override
+    public int cull(AabbBatch boxes, float[] planes, int planeCount, long[] visible) {
+        int size = boxes.size();
+        Arrays.fill(visible, 0, FrustumCuller.words(size), 0L);
+        if (planeCount > cornerX.length) {
+            cornerX = new float[planeCount][];
+            cornerY = new float[planeCount][];
+            cornerZ = new float[planeCount][];
+        }
+        for (int p = 0; p < planeCount; p++) {
+            int idx = p * 4;
+            cornerX[p] = planes[idx] < 0 ? boxes.minX : boxes.maxX;
+            cornerY[p] = planes[idx + 1] < 0 ? boxes.minY : boxes.maxY;
+            cornerZ[p] = planes[idx + 2] < 0 ? boxes.minZ : boxes.maxZ;
+        }
+
+        // Lane counts (4, 8 or 16) divide 64, so a block's mask never straddles two words
+        int lanes = SPECIES.length();
+        int bound = SPECIES.loopBound(size);
+        int count = 0;
+        int i = 0;
+        for (; i < bound; i += lanes) {
+            VectorMask<Float> inside = SPECIES.maskAll(true);
+            for (int p = 0; p < planeCount; p++) {
+                int idx = p * 4;
+                FloatVector distance = FloatVector.fromArray(SPECIES, cornerX[p], i).mul(planes[idx])
+                        .add(FloatVector.fromArray(SPECIES, cornerY[p], i).mul(planes[idx + 1]))
+                        .add(FloatVector.fromArray(SPECIES, cornerZ[p], i).mul(planes[idx + 2]));
+                inside = inside.and(distance.compare(VectorOperators.GE, -planes[idx + 3]));
+            }
+            long bits = inside.toLong();
+            visible[i >>> 6] |= bits << i;
+            count += Long.bitCount(bits);
+        }
+        for (; i < size; i++) {
+            if (ScalarFrustumCuller.test(boxes, i, planes, planeCount)) {
+                visible[i >>> 6] |= 1L << i;
+                count++;
+            }
+        }
+        Arrays.fill(cornerX, 0, planeCount, null);
+        Arrays.fill(cornerY, 0, planeCount, null);
+        Arrays.fill(cornerZ, 0, planeCount, null);
+        return count;
+    }
+
+    @Override
+    public String name() {
+        return "vector x" + SPECIES.length();
+    }
+}
@@ -1,14 +1,18 @@
 package me.cortex.neovoxy.client.core.rendering.hierachical;
 
 import me.cortex.neovoxy.client.core.gl.GlBuffer;
+import me.cortex.neovoxy.client.core.rendering.RenderDistanceTracker;
+import me.cortex.neovoxy.client.core.rendering.util.UploadStream;
 import me.cortex.neovoxy.client.core.rendering.section.geometry.IGeometryData;
 import me.cortex.neovoxy.common.Logger;
+import me.cortex.neovoxy.common.jfr.NodeChangeEvent;
+import me.cortex.neovoxy.common.metrics.Metrics;
+import me.cortex.neovoxy.common.util.ConcurrentLongSet;
+import me.cortex.neovoxy.common.util.LongHashSet;
+import me.cortex.neovoxy.common.util.LongIntHashMap;
+import me.cortex.neovoxy.common.voxelization.VoxelizedSection;
 
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.Arrays;
 
 import static org.lwjgl.opengl.GL43.*;
 import static org.lwjgl.opengl.GL44.*;
@@ -22,40 +26,85 @@ import static org.lwjgl.opengl.GL44.*;
  * on the GPU using compute shaders.
  * 
  * <p>
- * Node structure (GPU):
+ * Node structure (GPU, see {@link NodeStore#encode}):
  * <ul>
  * <li>Position (packed x, y, z, LOD level)</li>
- * <li>AABB (offset and size)</li>
  * <li>Child pointer (index into node buffer)</li>
  * <li>Mesh pointer (index into geometry buffer)</li>
- * <li>Flags (has children, has mesh, etc.)</li>
+ * <li>Flags (requested, child count, etc.)</li>
  * </ul>
+ *
+ * <p>
+ * The tree is kept on the CPU in a {@link NodeStore}. Top-level columns only
+ * mark where nodes may exist; the roots covering a column, one per
+ * {@link #TOP_LEVEL_LOD} cube, are created when a section inside them needs a
+ * node. Changed nodes are uploaded in batches by {@link #commitChanges()}.
+ *
+ * <p>
+ * Level 0 nodes point at section meshes through a {@link SectionMeshTable}.
+ * Dirty sections are rebuilt by a {@link RemeshScheduler} and swapped in with
+ * {@link #swapSectionMesh}; the geometry a node stops pointing at is only freed
+ * after the node change has been queued for upload, so the GPU always sees
+ * either the old mesh or the new one.
  */
 public class AsyncNodeManager implements AutoCloseable {
 
-    // Node size in bytes (8 uints = 32 bytes)
-    private static final int NODE_SIZE = 32;
+    // Node size in bytes (one uvec4, as node.glsl reads it)
+    private static final int NODE_SIZE = NodeStore.INTS_PER_NODE * Integer.BYTES;
+
+    // Width of a top-level node in chunks (32 blocks, the RenderDistanceTracker cell size)
+    public static final int TOP_LEVEL_CHUNKS = 2;
+    // LOD level of the roots: level 0 is one section, each level doubles the size
+    public static final int TOP_LEVEL_LOD = 1;
 
     private final GlBuffer nodeBuffer;
     private final GlBuffer visibilityBuffer;
     private final GlBuffer renderTrackerBuffer;
+    private final RenderTrackerReadback renderTrackerReadback;
+
+    private final RenderGenerationService renderGen;
+    private final IGeometryData geometryData;
+    private final UploadStream<GlBuffer> uploads;
+    private volatile RemeshScheduler remeshScheduler;
+    private volatile GeometryEvictionPolicy evictionPolicy;
 
-    private final ConcurrentHashMap<Long, Integer> positionToNode = new ConcurrentHashMap<>();
-    private final AtomicInteger nextNodeId = new AtomicInteger(0);
-    private final int maxNodes;
+    // Guarded by the store's monitor
+    private final NodeStore store;
+    // Root cube position (packed like a section position) -> root node ID, guarded by the store
+    private final LongIntHashMap positionToNode = new LongIntHashMap(-1);
+    // Top-level columns currently in range
+    private final ConcurrentLongSet activeColumns = new ConcurrentLongSet();
+    private int minRootY = Integer.MAX_VALUE;
+    private int maxRootY = Integer.MIN_VALUE;
 
-    private final BlockingQueue<Long> nodeCleanupQueue = new LinkedBlockingQueue<>();
+    // Section meshes, guarded by the store
+    private final SectionMeshTable meshes;
+    // Meshes no node points at any more, freed on the next commit
+    private int[] retiredMeshes = new int[64];
+    private int retiredCount;
+    // Dirty timestamps of swaps waiting for the next commit
+    private long[] swapDirtySince = new long[64];
+    private int swapCount;
+    // Sections drawn and wanted this frame, render thread only
+    private long[] drawnScratch = new long[256];
+    private long[] wantedScratch = new long[256];
 
-    private Thread uploadThread;
     private volatile boolean isRunning = false;
 
-    public AsyncNodeManager(int maxNodes) {
-        this.maxNodes = maxNodes;
+    public AsyncNodeManager(int maxNodes, int maxMeshes, RenderGenerationService renderGen,
+            IGeometryData geometryData, UploadStream<GlBuffer> uploads) {
+        this.store = new NodeStore(maxNodes);
+        this.meshes = new SectionMeshTable(maxMeshes);
+        this.renderGen = renderGen;
+        this.geometryData = geometryData;
+        this.uploads = uploads;
 
         // Allocate GPU buffers
         this.nodeBuffer = new GlBuffer((long) maxNodes * NODE_SIZE, GL_DYNAMIC_STORAGE_BIT);
         this.visibilityBuffer = new GlBuffer((long) maxNodes * 4, GL_DYNAMIC_STORAGE_BIT);
         this.renderTrackerBuffer = new GlBuffer((long) maxNodes * 4, GL_DYNAMIC_STORAGE_BIT);
+        this.renderTrackerBuffer.clear();
+        this.renderTrackerReadback = new RenderTrackerReadback(maxNodes);
 
         Logger.info("AsyncNodeManager created for {} nodes", maxNodes);
     }
@@ -77,54 +126,413 @@ public class AsyncNodeManager implements AutoCloseable {
     }
 
     /**
-     * Add a top-level node for a world region.
+     * Add a top-level column for a world region.
+     * Sections parked by the remesh scheduler inside it are rebuilt.
      */
     public void addTopLevel(int x, int z) {
-        long key = ((long) x << 32) | (z & 0xFFFFFFFFL);
+        activateColumn(x, z);
+        RemeshScheduler scheduler = remeshScheduler;
+        if (scheduler != null) {
+            scheduler.onColumnsAdded(new long[] { columnKey(x, z) }, 1);
+        }
+    }
+
+    private void activateColumn(int x, int z) {
+        NodeChangeEvent event = new NodeChangeEvent();
+        event.begin();
+        long start = Metrics.start();
+        boolean added = activeColumns.add(columnKey(x, z));
+        Metrics.record(Metrics.Stage.NODE_UPDATE, start);
+        if (event.shouldCommit()) {
+            event.x = x;
+            event.z = z;
+            event.rootsFreed = added ? 0 : -1;
+            event.added = true;
+            event.commit();
+        }
+    }
+
+    /**
+     * Remove a top-level column and free every node inside it.
+     * Pending mesh generation inside the column is dropped before it runs, and
+     * the sections that had meshes are parked with the remesh scheduler until
+     * the column is added again.
+     */
+    public void removeTopLevel(int x, int z) {
+        LongHashSet meshSections = new LongHashSet();
+        deactivateColumn(x, z, meshSections);
+        columnsRemoved(new long[] { columnKey(x, z) }, 1, meshSections);
+    }
 
-        positionToNode.computeIfAbsent(key, k -> {
-            int nodeId = nextNodeId.getAndIncrement();
-            if (nodeId >= maxNodes) {
-                Logger.error("Node capacity exceeded!");
-                return -1;
+    private void deactivateColumn(int x, int z, LongHashSet meshSections) {
+        NodeChangeEvent event = new NodeChangeEvent();
+        event.begin();
+        long start = Metrics.start();
+        boolean removed = activeColumns.remove(columnKey(x, z));
+
+        if (renderGen != null) {
+            int minChunkX = x * TOP_LEVEL_CHUNKS;
+            int minChunkZ = z * TOP_LEVEL_CHUNKS;
+            renderGen.cancelColumns(minChunkX, minChunkZ,
+                    minChunkX + TOP_LEVEL_CHUNKS - 1, minChunkZ + TOP_LEVEL_CHUNKS - 1);
+        }
+
+        int freed = 0;
+        synchronized (store) {
+            for (int y = minRootY; y <= maxRootY; y++) {
+                int root = positionToNode.remove(VoxelizedSection.packPosition(x, y, z));
+                if (root >= 0) {
+                    freed++;
+                    retireSubtree(root, meshSections);
+                    store.freeRoot(root);
+                }
             }
+        }
+        Metrics.record(Metrics.Stage.NODE_UPDATE, start);
+        if (event.shouldCommit()) {
+            event.x = x;
+            event.z = z;
+            event.rootsFreed = removed ? freed : -1;
+            event.added = false;
+            event.commit();
+        }
+    }
 
-            // Upload node data to GPU
-            // Layout (uvec4): [x, z, lodLevel, padding/metadata]
-            // We use 16-byte alignment (vec4)
-            java.nio.IntBuffer nodeData = org.lwjgl.BufferUtils.createIntBuffer(4);
-            nodeData.put(x << 5); // Base section X
-            nodeData.put(z << 5); // Base section Z
-            nodeData.put(0); // LOD Level (Top level is 0 for LOD0, or max for highest)
-            nodeData.put(0); // Padding
-            nodeData.flip();
+    private void columnsRemoved(long[] columns, int count, LongHashSet meshSections) {
+        GeometryEvictionPolicy policy = evictionPolicy;
+        if (policy != null) {
+            meshSections.forEach(policy::onRemoved);
+        }
+        RemeshScheduler scheduler = remeshScheduler;
+        if (scheduler != null) {
+            scheduler.onColumnsRemoved(columns, count, meshSections);
+        }
+    }
 
-            nodeBuffer.upload((long) nodeId * NODE_SIZE, nodeData);
+    /**
+     * Add a batch of top-level columns, see {@link RenderDistanceTracker.BatchConsumer}.
+     */
+    public void addTopLevels(long[] columns, int count) {
+        for (int i = 0; i < count; i++) {
+            activateColumn(RenderDistanceTracker.unpackX(columns[i]), RenderDistanceTracker.unpackZ(columns[i]));
+        }
+        RemeshScheduler scheduler = remeshScheduler;
+        if (scheduler != null) {
+            scheduler.onColumnsAdded(columns, count);
+        }
+    }
 
-            return nodeId;
-        });
+    /**
+     * Remove a batch of top-level columns, see {@link RenderDistanceTracker.BatchConsumer}.
+     */
+    public void removeTopLevels(long[] columns, int count) {
+        LongHashSet meshSections = new LongHashSet();
+        for (int i = 0; i < count; i++) {
+            deactivateColumn(RenderDistanceTracker.unpackX(columns[i]), RenderDistanceTracker.unpackZ(columns[i]),
+                    meshSections);
+        }
+        columnsRemoved(columns, count, meshSections);
     }
 
     /**
-     * Remove a top-level node.
+     * Check whether the top-level column holding a section is in range.
      */
-    public void removeTopLevel(int x, int z) {
-        long key = ((long) x << 32) | (z & 0xFFFFFFFFL);
-        Integer nodeId = positionToNode.remove(key);
+    public boolean isColumnActive(long sectionPos) {
+        return activeColumns.contains(columnOf(sectionPos));
+    }
+
+    /**
+     * Get the top-level column key of a section, packed like
+     * {@link RenderDistanceTracker#packPosition}.
+     */
+    static long columnOf(long sectionPos) {
+        return columnKey(VoxelizedSection.unpackX(sectionPos) >> TOP_LEVEL_LOD,
+                VoxelizedSection.unpackZ(sectionPos) >> TOP_LEVEL_LOD);
+    }
 
-        if (nodeId != null) {
-            // Mark node as free in GPU buffer (optional: clear data)
-            java.nio.IntBuffer empty = org.lwjgl.BufferUtils.createIntBuffer(4);
-            empty.put(0).put(0).put(0).put(0).flip();
-            nodeBuffer.upload((long) nodeId * NODE_SIZE, empty);
+    /**
+     * Get the level 0 node for a section, creating it and its ancestors as needed.
+     *
+     * @param sectionPos Packed section position
+     * @return Node ID, or -1 if the section is outside the active columns or the store is full
+     */
+    public int getOrCreateSectionNode(long sectionPos) {
+        return findSectionNode(sectionPos, true);
+    }
+
+    private int findSectionNode(long sectionPos, boolean create) {
+        int sx = VoxelizedSection.unpackX(sectionPos);
+        int sy = VoxelizedSection.unpackY(sectionPos);
+        int sz = VoxelizedSection.unpackZ(sectionPos);
+        int rx = sx >> TOP_LEVEL_LOD;
+        int ry = sy >> TOP_LEVEL_LOD;
+        int rz = sz >> TOP_LEVEL_LOD;
+        if (!activeColumns.contains(columnKey(rx, rz))) {
+            return -1;
+        }
+
+        synchronized (store) {
+            long rootKey = VoxelizedSection.packPosition(rx, ry, rz);
+            int root = positionToNode.get(rootKey);
+            if (root < 0) {
+                if (!create) {
+                    return -1;
+                }
+                root = store.createRoot(TOP_LEVEL_LOD, rx, ry, rz);
+                if (root < 0) {
+                    Logger.error("Node capacity exceeded!");
+                    return -1;
+                }
+                positionToNode.put(rootKey, root);
+                minRootY = Math.min(minRootY, ry);
+                maxRootY = Math.max(maxRootY, ry);
+            }
+
+            int node = root;
+            for (int lod = TOP_LEVEL_LOD - 1; lod >= 0; lod--) {
+                int octant = (sx >> lod & 1) | (sy >> lod & 1) << 1 | (sz >> lod & 1) << 2;
+                int child = store.getChild(node, octant);
+                if (child == NodeStore.NULL_NODE) {
+                    if (!create) {
+                        return -1;
+                    }
+                    if (!store.setChildren(node, store.getChildMask(node) | 1 << octant)) {
+                        Logger.error("Node capacity exceeded!");
+                        return -1;
+                    }
+                    child = store.getChild(node, octant);
+                }
+                node = child;
+            }
+            return node;
         }
     }
 
+    /**
+     * Map a dirty section to its node, creating it and the ancestors down from
+     * its root as needed. Only level 0 nodes carry meshes, so the ancestors have
+     * no geometry of their own to rebuild.
+     *
+     * @return False if the section is outside the active columns or the store is full
+     */
+    public boolean markSectionDirty(long sectionPos) {
+        return findSectionNode(sectionPos, true) >= 0;
+    }
+
+    /**
+     * Point a section's node at freshly uploaded geometry, replacing its mesh.
+     * The replaced geometry is freed on the next {@link #commitChanges()}, after
+     * the node change has been queued behind the new geometry's upload.
+     *
+     * @param offset     Geometry offset, ignored if {@code quadCount} is 0
+     * @param quadCount  Quads uploaded at {@code offset}, 0 if the section has nothing to draw
+     * @param dirtySince {@link Metrics#start()} time of the dirty event, reported when the swap is committed
+     * @param frame      Current frame, for the eviction policy
+     * @return False if the section has no node; the geometry then still belongs to the caller
+     */
+    public boolean swapSectionMesh(long sectionPos, long offset, int quadCount, long dirtySince, int frame) {
+        synchronized (store) {
+            int node = findSectionNode(sectionPos, true);
+            if (node < 0) {
+                return false;
+            }
+            int mesh = NodeStore.EMPTY_MESH;
+            if (quadCount > 0) {
+                mesh = meshes.add(sectionPos, offset, quadCount);
+                if (mesh < 0) {
+                    Logger.error("Section mesh capacity exceeded!");
+                    return false;
+                }
+            }
+            retire(store.getMesh(node));
+            store.setMesh(node, mesh);
+            store.setFlags(node, 0, NodeStore.FLAG_REQUESTED);
+
+            if (swapCount == swapDirtySince.length) {
+                swapDirtySince = Arrays.copyOf(swapDirtySince, swapCount * 2);
+            }
+            swapDirtySince[swapCount++] = dirtySince;
+        }
+
+        GeometryEvictionPolicy policy = evictionPolicy;
+        if (policy != null) {
+            if (quadCount > 0) {
+                policy.onResident(sectionPos, offset, quadCount, geometryData.allocationBytes(quadCount), frame);
+            } else {
+                policy.onRemoved(sectionPos);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Drop a section's mesh so its node has none, freeing the geometry on the
+     * next commit. Used by the eviction policy, which has already stopped
+     * tracking the section.
+     */
+    public void evictSectionMesh(long sectionPos) {
+        synchronized (store) {
+            int node = findSectionNode(sectionPos, false);
+            if (node < 0 || !SectionMeshTable.isMesh(store.getMesh(node))) {
+                return;
+            }
+            retire(store.getMesh(node));
+            store.setMesh(node, NodeStore.NULL_MESH);
+        }
+    }
+
+    /**
+     * Read back which nodes the traversal drew and report them with
+     * {@link #recordDrawn}. Called once per frame on the render thread, after
+     * the traversal.
+     */
+    public void pollRenderTracker(int frame) {
+        int count = renderTrackerReadback.poll();
+        if (count > 0) {
+            recordDrawn(renderTrackerReadback.getNodes(), count, renderTrackerReadback.getFrame());
+        }
+        renderTrackerReadback.tick(renderTrackerBuffer, getNodeCount(), frame);
+    }
+
+    /**
+     * Report level 0 nodes the traversal selected to the eviction policy. Nodes
+     * with a mesh count as drawn at {@code frame}; nodes without one are
+     * requested, which reloads them if the policy evicted their geometry.
+     */
+    public void recordDrawn(int[] nodes, int count, int frame) {
+        GeometryEvictionPolicy policy = evictionPolicy;
+        if (policy == null) {
+            return;
+        }
+        if (drawnScratch.length < count) {
+            drawnScratch = new long[Math.max(count, drawnScratch.length * 2)];
+            wantedScratch = new long[drawnScratch.length];
+        }
+        long[] drawn = drawnScratch;
+        int drawnCount = 0;
+        long[] wanted = wantedScratch;
+        int wantedCount = 0;
+        synchronized (store) {
+            int limit = store.getIdLimit();
+            for (int i = 0; i < count; i++) {
+                int id = nodes[i];
+                if (id >= limit || !store.isAlive(id) || store.getLod(id) != 0) {
+                    continue;
+                }
+                int mesh = store.getMesh(id);
+                if (SectionMeshTable.isMesh(mesh)) {
+                    drawn[drawnCount++] = meshes.getSectionPos(mesh);
+                } else if (mesh == NodeStore.NULL_MESH) {
+                    wanted[wantedCount++] = VoxelizedSection.packPosition(store.getX(id), store.getY(id), store.getZ(id));
+                }
+            }
+        }
+        // Outside the store lock: a reload calls back into this manager
+        for (int i = 0; i < drawnCount; i++) {
+            policy.onDrawn(drawn[i], frame);
+        }
+        for (int i = 0; i < wantedCount; i++) {
+            policy.request(wanted[i]);
+        }
+    }
+
+    /**
+     * Follow geometry moved by compaction.
+     * Matches {@code BasicSectionGeometryData.RelocationListener}.
+     */
+    public void onGeometryRelocated(long oldOffset, long newOffset, long length) {
+        synchronized (store) {
+            meshes.onRelocated(oldOffset, newOffset, length);
+        }
+    }
+
+    /**
+     * Queue every changed node for upload and free the geometry of replaced
+     * meshes. Called once per frame.
+     *
+     * @return Number of nodes uploaded
+     */
+    public int commitChanges() {
+        synchronized (store) {
+            int count = store.drainChanges((firstId, packed) ->
+                    uploads.write(nodeBuffer, (long) firstId * NODE_SIZE, packed));
+
+            // No uploaded node points at these any more, and new data written to
+            // their space is copied after the node changes above
+            for (int i = 0; i < retiredCount; i++) {
+                int mesh = retiredMeshes[i];
+                geometryData.free(meshes.getOffset(mesh), meshes.getQuadCount(mesh));
+                meshes.remove(mesh);
+            }
+            retiredCount = 0;
+
+            long now = System.nanoTime();
+            for (int i = 0; i < swapCount; i++) {
+                if (swapDirtySince[i] != 0) {
+                    Metrics.recordDuration(Metrics.Stage.REMESH, now - swapDirtySince[i]);
+                }
+            }
+            swapCount = 0;
+            return count;
+        }
+    }
+
+    private void retire(int mesh) {
+        if (!SectionMeshTable.isMesh(mesh)) {
+            return;
+        }
+        if (retiredCount == retiredMeshes.length) {
+            retiredMeshes = Arrays.copyOf(retiredMeshes, retiredCount * 2);
+        }
+        retiredMeshes[retiredCount++] = mesh;
+    }
+
+    private void retireSubtree(int id, LongHashSet sections) {
+        int mesh = store.getMesh(id);
+        if (SectionMeshTable.isMesh(mesh)) {
+            sections.add(meshes.getSectionPos(mesh));
+            retire(mesh);
+        }
+        int first = store.getChildPtr(id);
+        for (int i = store.getChildCount(id) - 1; i >= 0; i--) {
+            retireSubtree(first + i, sections);
+        }
+    }
+
+    /**
+     * Get the node tree. Callers must synchronize on it.
+     */
+    public NodeStore getStore() {
+        return store;
+    }
+
+    private static long columnKey(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Set the scheduler that rebuilds dirty sections.
+     */
+    public void setRemeshScheduler(RemeshScheduler remeshScheduler) {
+        this.remeshScheduler = remeshScheduler;
+    }
+
+    /**
+     * Set the policy told about section geometry as it is swapped in and out.
+     */
+    public void setEvictionPolicy(GeometryEvictionPolicy evictionPolicy) {
+        this.evictionPolicy = evictionPolicy;
+    }
+
     /**
      * Handle world event (section dirty).
+     * The section is rebuilt from storage and swapped in by the remesh scheduler.
      */
     public void worldEvent(long sectionPos) {
-        // TODO: Queue section for mesh regeneration
+        RemeshScheduler scheduler = remeshScheduler;
+        if (scheduler != null) {
+            scheduler.markDirty(sectionPos);
+        }
     }
 
     /**
@@ -158,10 +566,12 @@ public class AsyncNodeManager implements AutoCloseable {
     }
 
     /**
-     * Get current node count.
+     * Get the node ID range the traversal has to cover.
      */
     public int getNodeCount() {
-        return nextNodeId.get();
+        synchronized (store) {
+            return store.getIdLimit();
+        }
     }
 
     @Override
@@ -169,6 +579,7 @@ public class AsyncNodeManager implements AutoCloseable {
         stop();
         nodeBuffer.close();
         visibilityBuffer.close();
+        renderTrackerReadback.close();
         renderTrackerBuffer.close();
         Logger.info("AsyncNodeManager closed");
     }
@@ -0,0 +1,340 @@
+package me.cortex.neovoxy.client.core.rendering.hierachical;
+
+import me.cortex.neovoxy.client.core.rendering.Viewport;
+import me.cortex.neovoxy.client.core.rendering.culling.AabbBatch;
+import me.cortex.neovoxy.client.core.rendering.culling.FrustumCuller;
+import org.joml.Matrix4f;
+
+import java.util.Arrays;
+
+/**
+ * CPU version of the hierarchical traversal in {@code traversal_dev.comp}.
+ *
+ * <p>
+ * Walks a {@link NodeStore} level by level from its roots, making the same
+ * decisions as the shader: nodes outside the frustum (far plane excluded) are
+ * dropped, nodes whose projected size is above the subdivision threshold
+ * descend into their children or request them, and everything else is drawn
+ * with its own mesh. Box placement, the screen-space size metric and the queue
+ * limits follow {@code screenspace.glsl}, with level 0 one 16-block section.
+ * HiZ occlusion has no CPU counterpart; nodes are treated as unoccluded, as the
+ * shader does against an empty depth pyramid.
+ *
+ * <p>
+ * The output matches the shader's render and request queues as sets; the
+ * shader fills them from many threads, so only the order differs. The walk is
+ * single-threaded and deterministic, which makes it usable as a test oracle, a
+ * fallback when compute shaders are unavailable and a headless benchmark of
+ * how traversal cost grows with the tree. Each pass frustum culls its whole
+ * queue at once with a {@link FrustumCuller}.
+ *
+ * <p>
+ * Not thread-safe; callers must hold the store's monitor while traversing.
+ */
+public class CpuHierarchicalTraverser {
+
+    private final int maxRender;
+    private final int maxRequests;
+    private final FrustumCuller culler;
+
+    private final Result result = new Result();
+    private final int[] encoded = new int[NodeStore.INTS_PER_NODE];
+    private int[] queue = new int[256];
+    private int[] nextQueue = new int[256];
+    private final float[] vp = new float[16];
+    private final AabbBatch bounds = new AabbBatch();
+    private long[] visible = new long[4];
+
+    // Camera, split like the traversal scene uniform: 16-block section plus offset inside it
+    private int camCellX, camCellY, camCellZ;
+    private float camSubX, camSubY, camSubZ;
+
+    public CpuHierarchicalTraverser() {
+        this(HierarchicalOcclusionTraverser.MAX_RENDER, HierarchicalOcclusionTraverser.MAX_REQUESTS,
+                FrustumCuller.create());
+    }
+
+    /**
+     * @param maxRender   Render queue capacity ({@code renderQueueMaxSize})
+     * @param maxRequests Request queue capacity ({@code requestQueueSize})
+     */
+    public CpuHierarchicalTraverser(int maxRender, int maxRequests, FrustumCuller culler) {
+        this.maxRender = maxRender;
+        this.maxRequests = Math.min(maxRequests, HierarchicalOcclusionTraverser.MAX_REQUESTS);
+        this.culler = culler;
+    }
+
+    /**
+     * Select the meshes to draw for a viewport.
+     *
+     * @param subdivisionSize Projected size in pixels² above which a node descends,
+     *                        see {@code NeoVoxyConfig.SUBDIVISION_SIZE}
+     * @param frame           Frame ID recorded for every node drawn
+     * @param markRequested   Set {@link NodeStore#FLAG_REQUESTED} on requested nodes, as the shader does
+     * @return The traversal output, reused by the next call
+     */
+    public Result traverse(NodeStore store, Viewport viewport, float subdivisionSize, int frame, boolean markRequested) {
+        result.reset(frame);
+        if (viewport.getWidth() <= 0 || viewport.getHeight() <= 0) {
+            return result;
+        }
+        // The shader measures size as a fraction of the screen
+        float minScreenSize = subdivisionSize / ((float) viewport.getWidth() * viewport.getHeight());
+        float[] planes = viewport.getFrustumPlanes();
+        setCamera(viewport);
+
+        int count = 0;
+        for (int id = 0, limit = store.getIdLimit(); id < limit; id++) {
+            if (store.isAlive(id) && store.getParent(id) == NodeStore.NULL_NODE) {
+                queue = grow(queue, count + 1);
+                queue[count++] = id;
+            }
+        }
+
+        for (int iteration = 0; iteration < HierarchicalOcclusionTraverser.MAX_ITERATIONS && count > 0; iteration++) {
+            // Node origins relative to the camera, as in setupScreenspace
+            bounds.clear();
+            bounds.ensureCapacity(count);
+            for (int i = 0; i < count; i++) {
+                int id = queue[i];
+                int lod = store.getLod(id);
+                bounds.addCube(((store.getX(id) << lod) - camCellX << 4) - camSubX,
+                        ((store.getY(id) << lod) - camCellY << 4) - camSubY,
+                        ((store.getZ(id) << lod) - camCellZ << 4) - camSubZ,
+                        16 << lod);
+            }
+            if (visible.length < FrustumCuller.words(count)) {
+                visible = new long[FrustumCuller.words(count) * 2];
+            }
+            culler.cull(bounds, planes, FrustumCuller.WITHOUT_FAR_PLANE, visible);
+
+            int nextCount = 0;
+            for (int i = 0; i < count; i++) {
+                result.visitedPerLod[store.getLod(queue[i])]++;
+                if (FrustumCuller.isVisible(visible, i)) {
+                    nextCount = visit(store, queue[i], i, minScreenSize, markRequested, nextCount);
+                }
+            }
+            int[] swap = queue;
+            queue = nextQueue;
+            nextQueue = swap;
+            count = nextCount;
+        }
+        return result;
+    }
+
+    /**
+     * @return Number of nodes queued for the next pass
+     */
+    private int visit(NodeStore store, int id, int box, float minScreenSize, boolean markRequested, int nextCount) {
+        int lod = store.getLod(id);
+        float size = 16 << lod;
+        float baseX = bounds.getMinX(box);
+        float baseY = bounds.getMinY(box);
+        float baseZ = bounds.getMinZ(box);
+
+        int flags = store.getFlags(id);
+        int mesh = store.getMesh(id);
+        int childPtr = store.getChildPtr(id);
+        if (lod != 0 && screenSize(baseX, baseY, baseZ, size) > minScreenSize) {
+            if (childPtr != NodeStore.NULL_NODE) {
+                return enqueueChildren(store, id, nextCount);
+            }
+            addRequest(store, id, flags, markRequested);
+            enqueueForRender(id, lod, mesh);
+        } else if (mesh != NodeStore.NULL_MESH) {
+            enqueueForRender(id, lod, mesh);
+        } else if (lod != 0) {
+            if (childPtr != NodeStore.NULL_NODE) {
+                return enqueueChildren(store, id, nextCount);
+            }
+        } else {
+            // Wanted but without a mesh; the shader marks it in lastRenderFrame so it is reloaded
+            result.drawnNodes = grow(result.drawnNodes, result.drawnCount + 1);
+            result.drawnNodes[result.drawnCount++] = id;
+        }
+        return nextCount;
+    }
+
+    private int enqueueChildren(NodeStore store, int id, int nextCount) {
+        int first = store.getChildPtr(id);
+        int children = store.getChildCount(id);
+        nextQueue = grow(nextQueue, nextCount + children);
+        for (int i = 0; i < children; i++) {
+            nextQueue[nextCount++] = first + i;
+        }
+        return nextCount;
+    }
+
+    private void addRequest(NodeStore store, int id, int flags, boolean markRequested) {
+        if ((flags & NodeStore.FLAG_REQUESTED) != 0 || result.requestCount >= maxRequests) {
+            return;
+        }
+        store.encode(id, encoded, 0);
+        // uvec2(word0, word1) read back as one little-endian long
+        result.requests = grow(result.requests, result.requestCount + 1);
+        result.requests[result.requestCount++] = (encoded[0] & 0xFFFFFFFFL) | (long) encoded[1] << 32;
+        if (markRequested) {
+            store.setFlags(id, NodeStore.FLAG_REQUESTED, 0);
+        }
+    }
+
+    private void enqueueForRender(int id, int lod, int mesh) {
+        if (result.renderCount >= maxRender) {
+            return;
+        }
+        result.drawnNodes = grow(result.drawnNodes, result.drawnCount + 1);
+        result.drawnNodes[result.drawnCount++] = id;
+        if (mesh != NodeStore.EMPTY_MESH) {
+            result.meshes = grow(result.meshes, result.renderCount + 1);
+            result.meshes[result.renderCount++] = mesh;
+            result.renderedPerLod[lod]++;
+        }
+    }
+
+    private void setCamera(Viewport viewport) {
+        camCellX = (int) Math.floor(viewport.getCameraX()) >> 4;
+        camCellY = (int) Math.floor(viewport.getCameraY()) >> 4;
+        camCellZ = (int) Math.floor(viewport.getCameraZ()) >> 4;
+        camSubX = (float) (viewport.getCameraX() - (camCellX << 4));
+        camSubY = (float) (viewport.getCameraY() - (camCellY << 4));
+        camSubZ = (float) (viewport.getCameraZ() - (camCellZ << 4));
+        Matrix4f mvp = viewport.getMVP();
+        mvp.get(vp);
+    }
+
+    /**
+     * Projected area of the box's faces as a fraction of the screen, half the
+     * sum over the three faces at each of two opposite corners.
+     */
+    private float screenSize(float x, float y, float z, float size) {
+        float[] m = vp;
+        // Clip space corner and axes, column-major like mat4 VP
+        float cx = m[0] * x + m[4] * y + m[8] * z + m[12];
+        float cy = m[1] * x + m[5] * y + m[9] * z + m[13];
+        float cw = m[3] * x + m[7] * y + m[11] * z + m[15];
+        float ax = m[0] * size, ay = m[1] * size, aw = m[3] * size;
+        float bx = m[4] * size, by = m[5] * size, bw = m[7] * size;
+        float dx = m[8] * size, dy = m[9] * size, dw = m[11] * size;
+
+        // Corners named after their offsets along x, y, z
+        float p000x = ndc(cx, cw), p000y = ndc(cy, cw);
+        float p100x = ndc(cx + ax, cw + aw), p100y = ndc(cy + ay, cw + aw);
+        float p010x = ndc(cx + bx, cw + bw), p010y = ndc(cy + by, cw + bw);
+        float p001x = ndc(cx + dx, cw + dw), p001y = ndc(cy + dy, cw + dw);
+        float p111x = ndc(cx + ax + bx + dx, cw + aw + bw + dw), p111y = ndc(cy + ay + by + dy, cw + aw + bw + dw);
+        float p011x = ndc(cx + bx + dx, cw + bw + dw), p011y = ndc(cy + by + dy, cw + bw + dw);
+        float p101x = ndc(cx + ax + dx, cw + aw + dw), p101y = ndc(cy + ay + dy, cw + aw + dw);
+        float p110x = ndc(cx + ax + bx, cw + aw + bw), p110y = ndc(cy + ay + by, cw + aw + bw);
+
+        float size0;
+        {
+            float ax0 = p100x - p000x, ay0 = p100y - p000y;
+            float bx0 = p010x - p000x, by0 = p010y - p000y;
+            float cx0 = p001x - p000x, cy0 = p001y - p000y;
+            size0 = crossMag(ax0, ay0, bx0, by0) + crossMag(ax0, ay0, cx0, cy0) + crossMag(cx0, cy0, bx0, by0);
+        }
+        float size1;
+        {
+            float ax1 = p011x - p111x, ay1 = p011y - p111y;
+            float bx1 = p101x - p111x, by1 = p101y - p111y;
+            float cx1 = p110x - p111x, cy1 = p110y - p111y;
+            size1 = crossMag(ax1, ay1, bx1, by1) + crossMag(ax1, ay1, cx1, cy1) + crossMag(cx1, cy1, bx1, by1);
+        }
+        return (size0 + size1) * 0.5f;
+    }
+
+    private static float ndc(float v, float w) {
+        return (v / w) * 0.5f + 0.5f;
+    }
+
+    private static float crossMag(float ax, float ay, float bx, float by) {
+        return Math.abs(ax * by - bx * ay);
+    }
+
+    private static int[] grow(int[] array, int needed) {
+        return needed <= array.length ? array : Arrays.copyOf(array, Math.max(needed, array.length * 2));
+    }
+
+    private static long[] grow(long[] array, int needed) {
+        return needed <= array.length ? array : Arrays.copyOf(array, Math.max(needed, array.length * 2));
+    }
+
+    /**
+     * Output of one traversal. Arrays are only valid up to their counts and
+     * are overwritten by the next traversal.
+     */
+    public static final class Result {
+        private int frame;
+        private int[] meshes = new int[256];
+        private int renderCount;
+        private long[] requests = new long[64];
+        private int requestCount;
+        private int[] drawnNodes = new int[256];
+        private int drawnCount;
+        private final int[] visitedPerLod = new int[NodeStore.MAX_LOD + 1];
+        private final int[] renderedPerLod = new int[NodeStore.MAX_LOD + 1];
+
+        private void reset(int frame) {
+            this.frame = frame;
+            renderCount = 0;
+            requestCount = 0;
+            drawnCount = 0;
+            Arrays.fill(visitedPerLod, 0);
+            Arrays.fill(renderedPerLod, 0);
+        }
+
+        public int getFrame() {
+            return frame;
+        }
+
+        /**
+         * Mesh IDs to draw, the contents of {@code renderQueue}.
+         */
+        public int[] getMeshes() {
+            return meshes;
+        }
+
+        public int getRenderCount() {
+            return renderCount;
+        }
+
+        /**
+         * Raw positions of nodes whose children are needed, the contents of {@code requestQueue}.
+         */
+        public long[] getRequests() {
+            return requests;
+        }
+
+        public int getRequestCount() {
+            return requestCount;
+        }
+
+        /**
+         * Nodes whose {@code lastRenderFrame} the shader sets to this frame,
+         * including nodes with an empty mesh and level 0 nodes that were
+         * selected while they have no mesh.
+         */
+        public int[] getDrawnNodes() {
+            return drawnNodes;
+        }
+
+        public int getDrawnCount() {
+            return drawnCount;
+        }
+
+        /**
+         * Nodes visited per LOD level, the shader's {@code traversalCounts}.
+         */
+        public int[] getVisitedPerLod() {
+            return visitedPerLod;
+        }
+
+        /**
+         * Meshes queued per LOD level, the shader's {@code renderCounts}.
+         */
+        public int[] getRenderedPerLod() {
+            return renderedPerLod;
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package me.cortex.neovoxy.client.core.rendering.hierachical;
+
+import me.cortex.neovoxy.common.voxelization.VoxelizedSection;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pending mesh generation work, ordered by distance to the camera.
+ *
+ * <p>
+ * Priority is the squared distance from the camera to the section centre,
+ * scaled down for sections inside the view frustum so visible work runs first,
+ * and again for remeshes of sections that already have geometry on screen.
+ * Priorities are computed on insertion. Once the camera has moved further than
+ * {@link #REPRIORITIZE_DISTANCE} blocks the heap is set aside as stale, in O(1),
+ * and each camera update moves at most {@link #RESCORE_BATCH} of its entries,
+ * nearest to the old camera first, back into the live heap with fresh
+ * priorities. Polling takes the best head across the live and stale heaps, so
+ * the render thread never re-sorts the whole queue under the workers' lock.
+ *
+ * <p>
+ * At most one task is pending per section position. Queueing a section that is
+ * already pending replaces its data but keeps its place in line. Replaced and
+ * cancelled entries are left in the heap and skipped when they surface.
+ */
+class GenerationQueue {
+
+    // Camera movement (blocks) before queued priorities are recomputed
+    static final double REPRIORITIZE_DISTANCE = 32.0;
+    // Stale entries re-prioritized per camera update
+    static final int RESCORE_BATCH = 512;
+    // Stale heaps kept apart before the newest is folded into the previous one
+    private static final int MAX_STALE_HEAPS = 4;
+    private static final Comparator<Entry> ORDER =
+            Comparator.comparingDouble(Entry::priority).thenComparingLong(Entry::sequence);
+    // Multiplier applied to the squared distance of sections in the frustum
+    private static final double FRUSTUM_BONUS = 0.25;
+    // Multiplier applied to the squared distance of remesh tasks
+    private static final double REMESH_BONUS = 0.25;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // Entries prioritized against the current camera
+    private PriorityQueue<Entry> queue = new PriorityQueue<>(ORDER);
+    // Heaps prioritized against earlier cameras, oldest first, drained into queue
+    private final ArrayDeque<PriorityQueue<Entry>> staleQueues = new ArrayDeque<>();
+
+    // Live entry per packed section position
+    private final HashMap<Long, Entry> pending = new HashMap<>();
+    // Live entry count per chunk column, lets column cancels skip the scan
+    private final HashMap<Long, Integer> pendingColumns = new HashMap<>();
+
+    private long nextSequence = 0;
+
+    // Camera state, guarded by lock
+    private double cameraX, cameraY, cameraZ;
+    private double lastX = Double.NaN, lastY, lastZ;
+    private float[] frustumPlanes;
+
+    /**
+     * Add a task, computing its priority against the current camera.
+     * Replaces any task already pending for the same section.
+     *
+     * @return True if the section was not already pending
+     */
+    boolean offer(RenderGenerationService.GenerationTask task) {
+        long pos = task.section().getPackedPosition();
+        lock.lock();
+        try {
+            Entry previous = pending.get(pos);
+            long sequence = previous != null ? previous.sequence() : nextSequence++;
+            Entry entry = new Entry(task, priority(task), sequence);
+
+            pending.put(pos, entry);
+            if (previous == null) {
+                pendingColumns.merge(columnKey(task.section()), 1, Integer::sum);
+            }
+            queue.add(entry);
+            compactIfNeeded();
+            return previous == null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Take the highest priority task.
+     *
+     * @return The task, or null if nothing is pending
+     */
+    RenderGenerationService.GenerationTask poll() {
+        lock.lock();
+        try {
+            while (true) {
+                Entry entry = pollBest();
+                if (entry == null) {
+                    return null;
+                }
+
+                long pos = entry.task().section().getPackedPosition();
+                if (pending.get(pos) != entry) {
+                    continue; // Replaced or cancelled
+                }
+                pending.remove(pos);
+                decrementColumn(entry.task().section());
+                return entry.task();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Entry pollBest() {
+        PriorityQueue<Entry> best = queue;
+        for (PriorityQueue<Entry> stale : staleQueues) {
+            Entry head = stale.peek();
+            if (head != null && (best.isEmpty() || ORDER.compare(head, best.peek()) < 0)) {
+                best = stale;
+            }
+        }
+        Entry entry = best.poll();
+        if (best != queue && best.isEmpty()) {
+            staleQueues.remove(best);
+        }
+        return entry;
+    }
+
+    /**
+     * Drop the pending task for a section, if any.
+     *
+     * @return True if a task was cancelled
+     */
+    boolean cancel(long sectionPos) {
+        lock.lock();
+        try {
+            Entry entry = pending.remove(sectionPos);
+            if (entry == null) {
+                return false;
+            }
+            decrementColumn(entry.task().section());
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drop all pending tasks whose chunk column lies in the given inclusive range.
+     *
+     * @return Number of tasks cancelled
+     */
+    int cancelColumns(int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+        lock.lock();
+        try {
+            if (!anyColumnPending(minChunkX, minChunkZ, maxChunkX, maxChunkZ)) {
+                return 0;
+            }
+
+            int cancelled = 0;
+            Iterator<Entry> it = pending.values().iterator();
+            while (it.hasNext()) {
+                VoxelizedSection section = it.next().task().section();
+                int cx = section.getChunkX(), cz = section.getChunkZ();
+                if (cx >= minChunkX && cx <= maxChunkX && cz >= minChunkZ && cz <= maxChunkZ) {
+                    it.remove();
+                    decrementColumn(section);
+                    cancelled++;
+                }
+            }
+            return cancelled;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean anyColumnPending(int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+        long area = (long) (maxChunkX - minChunkX + 1) * (maxChunkZ - minChunkZ + 1);
+        if (area > pendingColumns.size()) {
+            return !pendingColumns.isEmpty();
+        }
+        for (int x = minChunkX; x <= maxChunkX; x++) {
+            for (int z = minChunkZ; z <= maxChunkZ; z++) {
+                if (pendingColumns.containsKey(columnKey(x, z))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Update the camera used for prioritization. Called once per frame.
+     * Once the camera has moved far enough the queued priorities are marked stale,
+     * and every call re-prioritizes a bounded batch of stale entries.
+     *
+     * @param frustumPlanes Camera-relative frustum planes (6 x vec4), or null to disable the bonus
+     */
+    void updateCamera(double x, double y, double z, float[] frustumPlanes) {
+        lock.lock();
+        try {
+            cameraX = x;
+            cameraY = y;
+            cameraZ = z;
+            if (frustumPlanes != null) {
+                if (this.frustumPlanes == null) {
+                    this.frustumPlanes = new float[24];
+                }
+                System.arraycopy(frustumPlanes, 0, this.frustumPlanes, 0, 24);
+            } else {
+                this.frustumPlanes = null;
+            }
+
+            double dx = x - lastX, dy = y - lastY, dz = z - lastZ;
+            if (Double.isNaN(lastX) || dx * dx + dy * dy + dz * dz > REPRIORITIZE_DISTANCE * REPRIORITIZE_DISTANCE) {
+                lastX = x;
+                lastY = y;
+                lastZ = z;
+                markStale();
+            }
+            rescore(RESCORE_BATCH);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void markStale() {
+        if (queue.isEmpty()) {
+            return;
+        }
+        if (staleQueues.size() < MAX_STALE_HEAPS) {
+            staleQueues.addLast(queue);
+        } else {
+            // Camera outran the batches; the entries prioritized since the last move are few
+            staleQueues.peekLast().addAll(queue);
+        }
+        queue = new PriorityQueue<>(ORDER);
+    }
+
+    /**
+     * Move up to {@code budget} live entries from the stale heaps into the live heap
+     * with priorities against the current camera.
+     */
+    private void rescore(int budget) {
+        while (budget > 0 && !staleQueues.isEmpty()) {
+            PriorityQueue<Entry> stale = staleQueues.peekFirst();
+            Entry entry = stale.poll();
+            if (entry == null) {
+                staleQueues.pollFirst();
+                continue;
+            }
+            long pos = entry.task().section().getPackedPosition();
+            if (pending.get(pos) != entry) {
+                continue; // Replaced or cancelled, costs no priority computation
+            }
+            Entry rescored = new Entry(entry.task(), priority(entry.task()), entry.sequence());
+            pending.put(pos, rescored);
+            queue.add(rescored);
+            budget--;
+        }
+    }
+
+    private void compactIfNeeded() {
+        // Replaced and cancelled entries are only dropped lazily, bound how many can pile up
+        int queued = queue.size();
+        for (PriorityQueue<Entry> stale : staleQueues) {
+            queued += stale.size();
+        }
+        if (queued > 64 && queued > pending.size() * 2) {
+            queue.removeIf(this::isDead);
+            for (Iterator<PriorityQueue<Entry>> it = staleQueues.iterator(); it.hasNext();) {
+                PriorityQueue<Entry> stale = it.next();
+                stale.removeIf(this::isDead);
+                if (stale.isEmpty()) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    private boolean isDead(Entry entry) {
+        return pending.get(entry.task().section().getPackedPosition()) != entry;
+    }
+
+    private double priority(RenderGenerationService.GenerationTask task) {
+        VoxelizedSection section = task.section();
+        // Section centre relative to the camera
+        double rx = (section.getChunkX() << 4) + 8 - cameraX;
+        double ry = (section.getSectionY() << 4) + 8 - cameraY;
+        double rz = (section.getChunkZ() << 4) + 8 - cameraZ;
+
+        double distanceSq = rx * rx + ry * ry + rz * rz;
+        if (frustumPlanes != null && inFrustum(rx - 8, ry - 8, rz - 8, rx + 8, ry + 8, rz + 8)) {
+            distanceSq *= FRUSTUM_BONUS;
+        }
+        if (task.remesh()) {
+            distanceSq *= REMESH_BONUS;
+        }
+        return distanceSq;
+    }
+
+    private boolean inFrustum(double minX, double minY, double minZ, double maxX, double maxY, double maxZ) {
+        for (int i = 0; i < 6; i++) {
+            int idx = i * 4;
+            float nx = frustumPlanes[idx], ny = frustumPlanes[idx + 1], nz = frustumPlanes[idx + 2];
+            // Corner furthest along the plane normal
+            double px = nx >= 0 ? maxX : minX;
+            double py = ny >= 0 ? maxY : minY;
+            double pz = nz >= 0 ? maxZ : minZ;
+            if (nx * px + ny * py + nz * pz + frustumPlanes[idx + 3] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void decrementColumn(VoxelizedSection section) {
+        pendingColumns.computeIfPresent(columnKey(section), (k, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private static long columnKey(VoxelizedSection section) {
+        return columnKey(section.getChunkX(), section.getChunkZ());
+    }
+
+    private static long columnKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    int size() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void clear() {
+        lock.lock();
+        try {
+            queue.clear();
+            staleQueues.clear();
+            pending.clear();
+            pendingColumns.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private record Entry(RenderGenerationService.GenerationTask task, double priority, long sequence) {
+    }
+}
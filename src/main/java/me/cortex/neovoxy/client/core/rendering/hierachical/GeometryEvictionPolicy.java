@@ -0,0 +1,309 @@
+package me.cortex.neovoxy.client.core.rendering.hierachical;
+
+import me.cortex.neovoxy.common.meshing.QuadFormat;
+import me.cortex.neovoxy.common.util.LongHashSet;
+import me.cortex.neovoxy.common.util.LongIntHashMap;
+import me.cortex.neovoxy.common.voxelization.VoxelizedSection;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Chooses which resident section geometry to free when the geometry buffer fills up.
+ *
+ * <p>Every resident section is tracked with its allocation and the last frame
+ * it was drawn. Once usage passes the high-water mark, sections are freed from
+ * the least valuable up until usage is back under the low-water mark. Value
+ * falls with the frames since a section was last drawn and with its distance
+ * from the camera. Sections drawn within the last {@code minIdleFrames} frames
+ * are never evicted.
+ *
+ * <p>Evicted sections are remembered; the first {@link #request} for one hands
+ * it to the reload hook so its geometry can be rebuilt from storage.
+ *
+ * <p>Works on plain numbers only, so it can be driven by a simulated camera.
+ */
+public class GeometryEvictionPolicy {
+
+    public static final double DEFAULT_HIGH_WATER = 0.90;
+    public static final double DEFAULT_LOW_WATER = 0.75;
+    public static final int DEFAULT_MIN_IDLE_FRAMES = 30;
+
+    // Idle frames one section (16 blocks) of camera distance is worth
+    private static final double FRAMES_PER_SECTION = 8.0;
+
+    /**
+     * Frees the geometry of an evicted section.
+     */
+    @FunctionalInterface
+    public interface Evictor {
+        void evict(long sectionPos, long offset, int quadCount);
+    }
+
+    private final double highWater;
+    private final double lowWater;
+    private final int minIdleFrames;
+
+    // Resident sections live in parallel slot arrays; both maps point at slots
+    private final LongIntHashMap slotByPos = new LongIntHashMap(-1);
+    // Geometry offset -> slot, for following relocations
+    private final LongIntHashMap slotByOffset = new LongIntHashMap(-1);
+    private long[] slotPos = new long[256];
+    private long[] slotOffset = new long[256];
+    private long[] slotBytes = new long[256];
+    private int[] slotQuads = new int[256];
+    private int[] slotDrawn = new int[256];
+    private boolean[] slotLive = new boolean[256];
+    private int slotLimit;
+    private int[] freeSlots = new int[64];
+    private int freeCount;
+
+    private final LongHashSet evicted = new LongHashSet();
+    private LongConsumer reloader = pos -> {};
+
+    // Scratch reused across calls, grown as needed
+    private long[] candidateKeys = new long[256];
+    private int[] movedSlots = new int[16];
+
+    private double cameraX;
+    private double cameraY;
+    private double cameraZ;
+
+    private long evictionCount;
+    private long reloadCount;
+
+    public GeometryEvictionPolicy() {
+        this(DEFAULT_HIGH_WATER, DEFAULT_LOW_WATER, DEFAULT_MIN_IDLE_FRAMES);
+    }
+
+    /**
+     * @param highWater     Share of capacity in use that starts eviction
+     * @param lowWater      Share of capacity eviction brings usage down to
+     * @param minIdleFrames Frames since last drawn before a section may be evicted
+     */
+    public GeometryEvictionPolicy(double highWater, double lowWater, int minIdleFrames) {
+        if (!(lowWater > 0 && lowWater <= highWater && highWater <= 1)) {
+            throw new IllegalArgumentException("Need 0 < lowWater <= highWater <= 1, got " + lowWater + ", " + highWater);
+        }
+        this.highWater = highWater;
+        this.lowWater = lowWater;
+        this.minIdleFrames = Math.max(0, minIdleFrames);
+    }
+
+    /**
+     * Set the hook that reloads an evicted section from storage.
+     */
+    public synchronized void setReloader(LongConsumer reloader) {
+        this.reloader = reloader;
+    }
+
+    public synchronized void setCamera(double x, double y, double z) {
+        this.cameraX = x;
+        this.cameraY = y;
+        this.cameraZ = z;
+    }
+
+    /**
+     * Track geometry that was just allocated for a section, replacing any earlier entry.
+     *
+     * @param bytes Bytes the allocation takes from the buffer
+     */
+    public synchronized void onResident(long sectionPos, long offset, int quadCount, long bytes, int frame) {
+        evicted.remove(sectionPos);
+        int slot = slotByPos.get(sectionPos);
+        if (slot < 0) {
+            slot = allocateSlot();
+            slotByPos.put(sectionPos, slot);
+        } else {
+            slotByOffset.remove(slotOffset[slot]);
+        }
+        slotPos[slot] = sectionPos;
+        slotOffset[slot] = offset;
+        slotBytes[slot] = bytes;
+        slotQuads[slot] = quadCount;
+        slotDrawn[slot] = frame;
+        slotByOffset.put(offset, slot);
+    }
+
+    /**
+     * Stop tracking a section whose geometry was freed by its owner.
+     */
+    public synchronized void onRemoved(long sectionPos) {
+        int slot = slotByPos.remove(sectionPos);
+        if (slot >= 0) {
+            freeSlot(slot);
+        }
+        evicted.remove(sectionPos);
+    }
+
+    /**
+     * Follow geometry that was moved inside the buffer.
+     * Matches {@code BasicSectionGeometryData.RelocationListener}.
+     *
+     * <p>Allocations in a moved range sit back to back, so the range is walked
+     * from one tracked allocation to the next rather than searched.
+     */
+    public synchronized void onRelocated(long oldOffset, long newOffset, long length) {
+        int moved = 0;
+        long end = oldOffset + length;
+        for (long cursor = oldOffset; cursor < end; ) {
+            int slot = slotByOffset.get(cursor);
+            if (slot < 0) {
+                // Untracked space, offsets are always whole quads
+                cursor += QuadFormat.BYTES_PER_QUAD;
+                continue;
+            }
+            if (moved == movedSlots.length) {
+                movedSlots = Arrays.copyOf(movedSlots, moved * 2);
+            }
+            movedSlots[moved++] = slot;
+            cursor += Math.max(slotBytes[slot], QuadFormat.BYTES_PER_QUAD);
+        }
+        // Unlink everything first, the new range may overlap the old one
+        for (int i = 0; i < moved; i++) {
+            slotByOffset.remove(slotOffset[movedSlots[i]]);
+        }
+        for (int i = 0; i < moved; i++) {
+            int slot = movedSlots[i];
+            slotOffset[slot] += newOffset - oldOffset;
+            slotByOffset.put(slotOffset[slot], slot);
+        }
+    }
+
+    public synchronized void onDrawn(long sectionPos, int frame) {
+        int slot = slotByPos.get(sectionPos);
+        if (slot >= 0) {
+            slotDrawn[slot] = frame;
+        }
+    }
+
+    /**
+     * Note that a section is needed, reloading it if it was evicted.
+     *
+     * @return True if a reload was started
+     */
+    public synchronized boolean request(long sectionPos) {
+        if (!evicted.remove(sectionPos)) {
+            return false;
+        }
+        reloadCount++;
+        reloader.accept(sectionPos);
+        return true;
+    }
+
+    public boolean needsEviction(long usage, long capacity) {
+        return usage > capacity * highWater;
+    }
+
+    /**
+     * Evict sections if usage is above the high-water mark.
+     *
+     * @param usage    Bytes in use
+     * @param capacity Buffer size in bytes
+     * @return Bytes freed
+     */
+    public synchronized long evict(long usage, long capacity, int frame, Evictor evictor) {
+        if (!needsEviction(usage, capacity) || slotByPos.isEmpty()) {
+            return 0;
+        }
+        long toFree = usage - (long) (capacity * lowWater);
+
+        // Pack (score, slot) so a single primitive sort orders candidates
+        if (candidateKeys.length < slotLimit) {
+            candidateKeys = new long[Math.max(slotLimit, candidateKeys.length * 2)];
+        }
+        long[] keys = candidateKeys;
+        int candidates = 0;
+        for (int slot = 0; slot < slotLimit; slot++) {
+            if (!slotLive[slot]) {
+                continue;
+            }
+            int idle = frame - slotDrawn[slot];
+            if (idle < minIdleFrames) {
+                continue;
+            }
+            double score = idle + distanceInSections(slotPos[slot]) * FRAMES_PER_SECTION;
+            keys[candidates++] = ((long) Math.min(score, Integer.MAX_VALUE) << 32) | slot;
+        }
+        Arrays.sort(keys, 0, candidates);
+
+        long freed = 0;
+        for (int i = candidates - 1; i >= 0 && freed < toFree; i--) {
+            int slot = (int) keys[i];
+            long pos = slotPos[slot];
+            long offset = slotOffset[slot];
+            int quadCount = slotQuads[slot];
+            freed += slotBytes[slot];
+            slotByPos.remove(pos);
+            freeSlot(slot);
+            evictor.evict(pos, offset, quadCount);
+            evicted.add(pos);
+            evictionCount++;
+        }
+        return freed;
+    }
+
+    private int allocateSlot() {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (slotLimit == slotPos.length) {
+                int size = slotLimit * 2;
+                slotPos = Arrays.copyOf(slotPos, size);
+                slotOffset = Arrays.copyOf(slotOffset, size);
+                slotBytes = Arrays.copyOf(slotBytes, size);
+                slotQuads = Arrays.copyOf(slotQuads, size);
+                slotDrawn = Arrays.copyOf(slotDrawn, size);
+                slotLive = Arrays.copyOf(slotLive, size);
+            }
+            slot = slotLimit++;
+        }
+        slotLive[slot] = true;
+        return slot;
+    }
+
+    /**
+     * Return a slot whose position mapping is already gone.
+     */
+    private void freeSlot(int slot) {
+        if (slotByOffset.get(slotOffset[slot]) == slot) {
+            slotByOffset.remove(slotOffset[slot]);
+        }
+        slotLive[slot] = false;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    private double distanceInSections(long sectionPos) {
+        double dx = VoxelizedSection.unpackX(sectionPos) * 16 + 8 - cameraX;
+        double dy = VoxelizedSection.unpackY(sectionPos) * 16 + 8 - cameraY;
+        double dz = VoxelizedSection.unpackZ(sectionPos) * 16 + 8 - cameraZ;
+        return Math.sqrt(dx * dx + dy * dy + dz * dz) / 16;
+    }
+
+    public synchronized int getResidentCount() {
+        return slotByPos.size();
+    }
+
+    public synchronized int getEvictedCount() {
+        return evicted.size();
+    }
+
+    public synchronized boolean isEvicted(long sectionPos) {
+        return evicted.contains(sectionPos);
+    }
+
+    /**
+     * Get the total number of evictions and reloads started.
+     */
+    public synchronized long getEvictionTotal() {
+        return evictionCount;
+    }
+
+    public synchronized long getReloadTotal() {
+        return reloadCount;
+    }
+}
@@ -4,6 +4,9 @@ import me.cortex.neovoxy.client.core.gl.GlBuffer;
 import me.cortex.neovoxy.client.core.gl.GlShader;
 import me.cortex.neovoxy.client.core.rendering.Viewport;
 import me.cortex.neovoxy.common.Logger;
+import org.lwjgl.BufferUtils;
+
+import java.nio.ByteBuffer;
 
 import static org.lwjgl.opengl.GL43.*;
 
@@ -19,17 +22,41 @@ import static org.lwjgl.opengl.GL43.*;
  * </ul>
  * 
  * <p>
- * Outputs a list of visible sections to render.
+ * Outputs a list of visible sections to render. {@link CpuHierarchicalTraverser}
+ * runs the same selection on the CPU.
+ *
+ * <p>
+ * Node positions are in the units of their level, level 0 being one 16-block
+ * section, so the traversal has its own scene uniform with the camera split
+ * into a 16-block section and an offset inside it. The geometry shaders keep
+ * their 32-block scene uniform.
  */
 public class HierarchicalOcclusionTraverser implements AutoCloseable {
 
     private static final int LOCAL_SIZE = 128;
-    private static final int MAX_ITERATIONS = 10;
+    // Traversal passes, one per tree level below the roots; shared with CpuHierarchicalTraverser
+    static final int MAX_ITERATIONS = 10;
+    // Queue capacities, MAX_REQUESTS is the shader's hard request limit
+    static final int MAX_REQUESTS = 1 << 16;
+    static final int MAX_RENDER = 1 << 20;
+
+    // Binding points, shared by the shader defines and the binds in traverse
+    private static final int SCENE_UNIFORM_BINDING = 0;
+    private static final int NODE_DATA_BINDING = 4;
+    private static final int REQUEST_QUEUE_BINDING = 6;
+    private static final int RENDER_QUEUE_BINDING = 7;
+    private static final int RENDER_TRACKER_BINDING = 8;
+    // Not read by traversal_dev.comp, bound clear of the bindings above
+    private static final int VISIBILITY_BINDING = 9;
+
+    // SceneUniform in traversal_dev.comp, std140
+    private static final int SCENE_UNIFORM_SIZE = 208;
 
     private final AsyncNodeManager nodeManager;
     private final NodeCleaner nodeCleaner;
     private final RenderGenerationService renderGen;
     private Viewport viewport;
+    private float subdivisionSize = 64.0f;
 
     // Compute shaders
     private GlShader traversalShader;
@@ -38,6 +65,9 @@ public class HierarchicalOcclusionTraverser implements AutoCloseable {
     private GlBuffer requestQueue;
     private GlBuffer renderQueue;
 
+    private GlBuffer sceneUniform;
+    private final ByteBuffer sceneData = BufferUtils.createByteBuffer(SCENE_UNIFORM_SIZE);
+
     private boolean isInitialized = false;
 
     public HierarchicalOcclusionTraverser(AsyncNodeManager nodeManager,
@@ -56,6 +86,14 @@ public class HierarchicalOcclusionTraverser implements AutoCloseable {
         return viewport;
     }
 
+    /**
+     * Set the projected size in pixels² above which a node descends,
+     * see {@code NeoVoxyConfig.SUBDIVISION_SIZE}.
+     */
+    public void setSubdivisionSize(float subdivisionSize) {
+        this.subdivisionSize = subdivisionSize;
+    }
+
     /**
      * Initialize traversal shaders and buffers.
      */
@@ -72,27 +110,25 @@ public class HierarchicalOcclusionTraverser implements AutoCloseable {
                     .define("LOCAL_SIZE_BITS", 7) // 128 threads
                     .define("MAX_ITERATIONS", MAX_ITERATIONS)
                     // Binding point defines required by shaders
-                    .define("SCENE_UNIFORM_BINDING", 0)
+                    .define("SCENE_UNIFORM_BINDING", SCENE_UNIFORM_BINDING)
                     .define("NODE_QUEUE_INDEX_BINDING", 0) // uniform location
                     .define("NODE_QUEUE_META_BINDING", 1)
                     .define("NODE_QUEUE_SOURCE_BINDING", 2)
                     .define("NODE_QUEUE_SINK_BINDING", 3)
-                    .define("NODE_DATA_BINDING", 4)
+                    .define("NODE_DATA_BINDING", NODE_DATA_BINDING)
                     .define("HIZ_BINDING", 5)
-                    .define("REQUEST_QUEUE_BINDING", 6)
-                    .define("RENDER_QUEUE_BINDING", 7)
-                    .define("RENDER_TRACKER_BINDING", 8)
-                    .define("MAX_REQUEST_QUEUE_SIZE", "65536") // Use string value
+                    .define("REQUEST_QUEUE_BINDING", REQUEST_QUEUE_BINDING)
+                    .define("RENDER_QUEUE_BINDING", RENDER_QUEUE_BINDING)
+                    .define("RENDER_TRACKER_BINDING", RENDER_TRACKER_BINDING)
+                    .define("MAX_REQUEST_QUEUE_SIZE", String.valueOf(MAX_REQUESTS)) // Use string value
                     .build();
 
             // Allocate queue buffers
-            int maxRequests = 1 << 16;
-            int maxRender = 1 << 20;
-
-            requestQueue = new GlBuffer((long) maxRequests * 8 + 8,
+            requestQueue = new GlBuffer((long) MAX_REQUESTS * 8 + 8,
                     org.lwjgl.opengl.GL44.GL_DYNAMIC_STORAGE_BIT);
-            renderQueue = new GlBuffer((long) maxRender * 4 + 4,
+            renderQueue = new GlBuffer((long) MAX_RENDER * 4 + 4,
                     org.lwjgl.opengl.GL44.GL_DYNAMIC_STORAGE_BIT);
+            sceneUniform = new GlBuffer(SCENE_UNIFORM_SIZE, org.lwjgl.opengl.GL44.GL_DYNAMIC_STORAGE_BIT);
 
             isInitialized = true;
             Logger.info("HierarchicalOcclusionTraverser initialized");
@@ -116,15 +152,19 @@ public class HierarchicalOcclusionTraverser implements AutoCloseable {
                 return;
         }
 
-        // TODO: Set up uniform buffer with frustum, camera, etc.
+        if (viewport == null || viewportWidth <= 0 || viewportHeight <= 0) {
+            return;
+        }
+        updateSceneUniform(frameId, viewportWidth, viewportHeight);
 
         // Clear render queue counter
         renderQueue.upload(0, new int[] { 0 });
 
         // Bind buffers
-        requestQueue.bindBase(GL_SHADER_STORAGE_BUFFER, 0);
-        renderQueue.bindBase(GL_SHADER_STORAGE_BUFFER, 1);
-        nodeManager.bindForTraversal(2, 3, 4);
+        sceneUniform.bindBase(GL_UNIFORM_BUFFER, SCENE_UNIFORM_BINDING);
+        requestQueue.bindBase(GL_SHADER_STORAGE_BUFFER, REQUEST_QUEUE_BINDING);
+        renderQueue.bindBase(GL_SHADER_STORAGE_BUFFER, RENDER_QUEUE_BINDING);
+        nodeManager.bindForTraversal(NODE_DATA_BINDING, VISIBILITY_BINDING, RENDER_TRACKER_BINDING);
 
         // Use traversal shader
         traversalShader.use();
@@ -141,6 +181,37 @@ public class HierarchicalOcclusionTraverser implements AutoCloseable {
         GlShader.unbind();
     }
 
+    private void updateSceneUniform(int frameId, int width, int height) {
+        ByteBuffer buffer = sceneData.clear();
+
+        // mat4 VP
+        viewport.getMVP().get(0, buffer);
+        buffer.position(64);
+
+        // ivec3 camSecPos in 16-block sections, uint packedHizSize
+        int secX = (int) Math.floor(viewport.getCameraX()) >> 4;
+        int secY = (int) Math.floor(viewport.getCameraY()) >> 4;
+        int secZ = (int) Math.floor(viewport.getCameraZ()) >> 4;
+        buffer.putInt(secX).putInt(secY).putInt(secZ);
+        buffer.putInt(width << 16 | height & 0xFFFF);
+
+        // vec3 camSubSecPos, float minSSS as a fraction of the screen
+        buffer.putFloat((float) (viewport.getCameraX() - (secX << 4)));
+        buffer.putFloat((float) (viewport.getCameraY() - (secY << 4)));
+        buffer.putFloat((float) (viewport.getCameraZ() - (secZ << 4)));
+        buffer.putFloat(subdivisionSize / ((float) width * height));
+
+        // Frustum planes, then the queue limits and frame
+        buffer.asFloatBuffer().put(viewport.getFrustumPlanes(), 0, 24);
+        buffer.position(192);
+        buffer.putInt(MAX_RENDER);
+        buffer.putInt(frameId);
+        buffer.putInt(MAX_REQUESTS);
+
+        buffer.position(0);
+        sceneUniform.upload(0, buffer);
+    }
+
     /**
      * Get the render queue buffer for indirect rendering.
      */
@@ -159,6 +230,9 @@ public class HierarchicalOcclusionTraverser implements AutoCloseable {
         if (renderQueue != null) {
             renderQueue.close();
         }
+        if (sceneUniform != null) {
+            sceneUniform.close();
+        }
         isInitialized = false;
         Logger.info("HierarchicalOcclusionTraverser closed");
     }
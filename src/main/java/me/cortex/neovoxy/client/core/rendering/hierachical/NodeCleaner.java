@@ -1,31 +1,43 @@
 package me.cortex.neovoxy.client.core.rendering.hierachical;
 
+import me.cortex.neovoxy.client.core.rendering.section.geometry.IGeometryData;
 import me.cortex.neovoxy.common.Logger;
 
 /**
  * Cleans up stale nodes that haven't been rendered recently.
  * 
  * <p>Runs periodically to free GPU memory for nodes that are
- * no longer visible or needed.
+ * no longer visible or needed. Section geometry is evicted by a
+ * {@link GeometryEvictionPolicy} whenever the geometry buffer passes its
+ * high-water mark, without waiting for the next periodic cleanup.
  */
 public class NodeCleaner {
     
     private final AsyncNodeManager nodeManager;
+    private final IGeometryData geometryData;
+    private final GeometryEvictionPolicy evictionPolicy = new GeometryEvictionPolicy();
     
     private int cleanupFrameInterval = 60; // Clean every 60 frames
+    // Frames between cleanups while the geometry buffer is over its high-water mark
+    private static final int PRESSURE_CLEANUP_FRAMES = 5;
     private int frameCounter = 0;
     
-    public NodeCleaner(AsyncNodeManager nodeManager) {
+    public NodeCleaner(AsyncNodeManager nodeManager, IGeometryData geometryData) {
         this.nodeManager = nodeManager;
+        this.geometryData = geometryData;
     }
     
     /**
      * Called each frame to potentially trigger cleanup.
      */
     public void tick(int currentFrame) {
+        // Keeps the policy's draw frames current, and reloads evicted sections the traversal wants
+        nodeManager.pollRenderTracker(currentFrame);
+
         frameCounter++;
         
-        if (frameCounter >= cleanupFrameInterval) {
+        if (frameCounter >= cleanupFrameInterval || frameCounter >= PRESSURE_CLEANUP_FRAMES
+                && evictionPolicy.needsEviction(geometryData.usage(), geometryData.capacity())) {
             frameCounter = 0;
             performCleanup(currentFrame);
         }
@@ -40,11 +52,19 @@ public class NodeCleaner {
     }
     
     private void performCleanup(int currentFrame) {
-        // TODO: Scan render tracker buffer for stale nodes
-        // Nodes not rendered in the last N frames can have their
-        // mesh data freed
-        
-        // This is done on GPU via compute shader in the original
+        long usage = geometryData.usage();
+        long freed = evictionPolicy.evict(usage, geometryData.capacity(), currentFrame,
+                (sectionPos, offset, quadCount) -> nodeManager.evictSectionMesh(sectionPos));
+        if (freed > 0) {
+            Logger.debug("Evicted {} KB of section geometry ({} MB was in use)", freed / 1024, usage / (1024 * 1024));
+        }
+    }
+    
+    /**
+     * Get the policy tracking resident section geometry.
+     */
+    public GeometryEvictionPolicy getEvictionPolicy() {
+        return evictionPolicy;
     }
     
     /**
@@ -0,0 +1,476 @@
+package me.cortex.neovoxy.client.core.rendering.hierachical;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * CPU copy of the hierarchical LOD node tree, laid out for upload.
+ *
+ * <p>A node at LOD level {@code L} covers a cube of {@code 16 << L} blocks;
+ * level 0 is a single 16³ section. Each node has up to eight children one
+ * level down, stored next to each other in octant order so the GPU can reach
+ * all of them from one child pointer, as {@code node.glsl} expects.
+ *
+ * <p>Fields are kept as parallel arrays holding the four words of the GPU
+ * {@code uvec4} node ({@link #encode}), plus CPU-only parent links and child
+ * masks. Every mutation marks the node changed; {@link #drainChanges} hands
+ * out the changed nodes as runs of consecutive IDs ready to upload.
+ *
+ * <p>IDs are handed out in blocks of 1 to 8 (a root or a child list). Freed
+ * blocks merge with free neighbours into runs that any smaller block can be
+ * cut from, and a run reaching the top lowers {@link #getIdLimit}. Not
+ * thread-safe.
+ */
+public final class NodeStore {
+
+    // Sentinels shared with node.glsl
+    public static final int NULL_NODE = (1 << 24) - 1;
+    public static final int NULL_MESH = (1 << 24) - 1;
+    public static final int EMPTY_MESH = (1 << 24) - 2;
+    public static final int MAX_NODES = (1 << 24) - 2;
+
+    public static final int MAX_LOD = 15;
+
+    // Flag bits, the low 8 travel in word 2 and the high 8 in word 3
+    public static final int FLAG_REQUESTED = 1;
+    private static final int CHILD_COUNT_SHIFT = 2;
+    private static final int CHILD_COUNT_MASK = 7 << CHILD_COUNT_SHIFT;
+
+    public static final int INTS_PER_NODE = 4;
+
+    /**
+     * Receives changed nodes, {@link #INTS_PER_NODE} ints each.
+     */
+    @FunctionalInterface
+    public interface ChangeConsumer {
+        void accept(int firstId, int[] packedNodes);
+    }
+
+    private final int capacity;
+
+    // GPU words 0 and 1: LOD level and position
+    private final int[] position0;
+    private final int[] position1;
+    private final int[] meshPtr;
+    private final int[] childPtr;
+    private final int[] flags;
+
+    // CPU only
+    private final int[] parent;
+    private final byte[] childMask;
+    private final BitSet alive;
+
+    // Free ID runs by length (index 1..8, 8 also holds longer runs), each a
+    // stack of first IDs. Free IDs are the dead ones below idLimit, so entries
+    // are checked against the alive bits when popped; runs merged into a
+    // neighbour or trimmed off the top simply go stale.
+    private final int[][] freeRuns = new int[9][];
+    private final int[] freeRunCount = new int[9];
+    private int idLimit;
+    private int liveCount;
+
+    private int[] changed = new int[256];
+    private int changedCount;
+    private final BitSet changedSet;
+
+    public NodeStore(int capacity) {
+        if (capacity <= 0 || capacity > MAX_NODES) {
+            throw new IllegalArgumentException("Node capacity must be in 1.." + MAX_NODES + ", got " + capacity);
+        }
+        this.capacity = capacity;
+        this.position0 = new int[capacity];
+        this.position1 = new int[capacity];
+        this.meshPtr = new int[capacity];
+        this.childPtr = new int[capacity];
+        this.flags = new int[capacity];
+        this.parent = new int[capacity];
+        this.childMask = new byte[capacity];
+        this.alive = new BitSet(capacity);
+        this.changedSet = new BitSet(capacity);
+        for (int size = 1; size <= 8; size++) {
+            freeRuns[size] = new int[16];
+        }
+    }
+
+    /**
+     * Create a node without a parent.
+     *
+     * @return Node ID, or -1 if the store is full
+     */
+    public int createRoot(int lod, int x, int y, int z) {
+        int id = allocateIds(1);
+        if (id < 0) {
+            return -1;
+        }
+        init(id, lod, x, y, z, NULL_NODE);
+        return id;
+    }
+
+    /**
+     * Free a root node and everything below it.
+     */
+    public void freeRoot(int id) {
+        checkAlive(id);
+        if (parent[id] != NULL_NODE) {
+            throw new IllegalArgumentException("Node " + id + " is not a root");
+        }
+        freeSubtree(id);
+        releaseIds(id, 1);
+    }
+
+    /**
+     * Set which octants of a node have children. Children that stay keep
+     * their data and subtrees, removed ones are freed with their subtrees and
+     * new ones start without a mesh or children. The child list may move to
+     * new IDs.
+     *
+     * @param mask Bit {@code i} for octant {@code i} = {@code dx | dy << 1 | dz << 2}
+     * @return False if the store is full; the node is then unchanged
+     */
+    public boolean setChildren(int id, int mask) {
+        checkAlive(id);
+        mask &= 0xFF;
+        int oldMask = childMask[id] & 0xFF;
+        if (mask == oldMask) {
+            return true;
+        }
+        int lod = getLod(id);
+        if (mask != 0 && lod == 0) {
+            throw new IllegalArgumentException("Level 0 nodes cannot have children");
+        }
+
+        int oldFirst = childPtr[id];
+        int oldCount = Integer.bitCount(oldMask);
+        int newFirst = NULL_NODE;
+        if (mask != 0) {
+            newFirst = allocateIds(Integer.bitCount(mask));
+            if (newFirst < 0) {
+                return false;
+            }
+        }
+
+        int x = getX(id);
+        int y = getY(id);
+        int z = getZ(id);
+        int oldIndex = 0;
+        int newIndex = 0;
+        for (int octant = 0; octant < 8; octant++) {
+            boolean had = (oldMask & (1 << octant)) != 0;
+            boolean has = (mask & (1 << octant)) != 0;
+            if (had && has) {
+                moveNode(oldFirst + oldIndex, newFirst + newIndex);
+            } else if (has) {
+                init(newFirst + newIndex, lod - 1,
+                        x * 2 + (octant & 1), y * 2 + (octant >> 1 & 1), z * 2 + (octant >> 2 & 1), id);
+            }
+            if (had) oldIndex++;
+            if (has) newIndex++;
+        }
+        // Free removed subtrees only once the new list is alive, so their IDs
+        // cannot merge with the new list's
+        oldIndex = 0;
+        for (int octant = 0; octant < 8; octant++) {
+            if ((oldMask & (1 << octant)) == 0) {
+                continue;
+            }
+            if ((mask & (1 << octant)) == 0) {
+                freeSubtree(oldFirst + oldIndex);
+            }
+            oldIndex++;
+        }
+        if (oldCount != 0) {
+            releaseIds(oldFirst, oldCount);
+        }
+
+        childMask[id] = (byte) mask;
+        childPtr[id] = newFirst;
+        flags[id] = (flags[id] & ~CHILD_COUNT_MASK) | (mask == 0 ? 0 : (Integer.bitCount(mask) - 1) << CHILD_COUNT_SHIFT);
+        markChanged(id);
+        return true;
+    }
+
+    /**
+     * Get the child in an octant.
+     *
+     * @return Child ID, or {@link #NULL_NODE} if there is none
+     */
+    public int getChild(int id, int octant) {
+        int mask = childMask[id] & 0xFF;
+        if ((mask & (1 << octant)) == 0) {
+            return NULL_NODE;
+        }
+        return childPtr[id] + Integer.bitCount(mask & ((1 << octant) - 1));
+    }
+
+    public void setMesh(int id, int mesh) {
+        checkAlive(id);
+        meshPtr[id] = mesh & NULL_MESH;
+        markChanged(id);
+    }
+
+    public void setFlags(int id, int set, int clear) {
+        checkAlive(id);
+        int protectedBits = CHILD_COUNT_MASK;
+        flags[id] = (flags[id] & ~(clear & ~protectedBits)) | (set & ~protectedBits & 0xFFFF);
+        markChanged(id);
+    }
+
+    public boolean isAlive(int id) {
+        return id >= 0 && id < idLimit && alive.get(id);
+    }
+
+    public int getLod(int id) {
+        return position0[id] >>> 28;
+    }
+
+    public int getX(int id) {
+        return (position1[id] << 4) >> 8;
+    }
+
+    public int getY(int id) {
+        return (position0[id] << 4) >> 24;
+    }
+
+    public int getZ(int id) {
+        int z = ((position0[id] & 0xFFFFF) << 4) | (position1[id] >>> 28);
+        return (z << 8) >> 8;
+    }
+
+    public int getMesh(int id) {
+        return meshPtr[id];
+    }
+
+    public int getParent(int id) {
+        return parent[id];
+    }
+
+    public int getChildPtr(int id) {
+        return childPtr[id];
+    }
+
+    public int getChildMask(int id) {
+        return childMask[id] & 0xFF;
+    }
+
+    public int getChildCount(int id) {
+        return Integer.bitCount(childMask[id] & 0xFF);
+    }
+
+    public int getFlags(int id) {
+        return flags[id];
+    }
+
+    /**
+     * Get one more than the highest ID in use; the GPU traversal covers this range.
+     */
+    public int getIdLimit() {
+        return idLimit;
+    }
+
+    public int getLiveCount() {
+        return liveCount;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getPendingChangeCount() {
+        return changedCount;
+    }
+
+    /**
+     * Write a node in GPU layout. Free IDs encode as a node with no mesh or children.
+     */
+    public void encode(int id, int[] out, int offset) {
+        out[offset] = position0[id];
+        out[offset + 1] = position1[id];
+        out[offset + 2] = (meshPtr[id] & 0xFFFFFF) | (flags[id] & 0xFF) << 24;
+        out[offset + 3] = (childPtr[id] & 0xFFFFFF) | (flags[id] >> 8 & 0xFF) << 24;
+    }
+
+    /**
+     * Hand every node changed since the last call to {@code consumer}, as runs
+     * of consecutive IDs in ascending order.
+     *
+     * @return Number of nodes handed out
+     */
+    public int drainChanges(ChangeConsumer consumer) {
+        int count = changedCount;
+        if (count == 0) {
+            return 0;
+        }
+        Arrays.sort(changed, 0, count);
+        int runStart = 0;
+        for (int i = 1; i <= count; i++) {
+            if (i == count || changed[i] != changed[i - 1] + 1) {
+                int first = changed[runStart];
+                int[] packed = new int[(i - runStart) * INTS_PER_NODE];
+                for (int j = runStart; j < i; j++) {
+                    encode(changed[j], packed, (j - runStart) * INTS_PER_NODE);
+                }
+                consumer.accept(first, packed);
+                runStart = i;
+            }
+        }
+        changedSet.clear();
+        changedCount = 0;
+        return count;
+    }
+
+    private void init(int id, int lod, int x, int y, int z, int parentId) {
+        if (lod < 0 || lod > MAX_LOD) {
+            throw new IllegalArgumentException("LOD level out of range: " + lod);
+        }
+        position0[id] = lod << 28 | (y & 0xFF) << 20 | (z >> 4 & 0xFFFFF);
+        position1[id] = (x & 0xFFFFFF) << 4 | (z & 0xF) << 28;
+        meshPtr[id] = NULL_MESH;
+        childPtr[id] = NULL_NODE;
+        flags[id] = 0;
+        parent[id] = parentId;
+        childMask[id] = 0;
+        alive.set(id);
+        liveCount++;
+        markChanged(id);
+    }
+
+    private void moveNode(int from, int to) {
+        position0[to] = position0[from];
+        position1[to] = position1[from];
+        meshPtr[to] = meshPtr[from];
+        childPtr[to] = childPtr[from];
+        flags[to] = flags[from];
+        parent[to] = parent[from];
+        childMask[to] = childMask[from];
+        alive.set(to);
+        markChanged(to);
+
+        int count = Integer.bitCount(childMask[to] & 0xFF);
+        for (int i = 0; i < count; i++) {
+            parent[childPtr[to] + i] = to;
+        }
+        clear(from);
+    }
+
+    private void freeSubtree(int id) {
+        int count = Integer.bitCount(childMask[id] & 0xFF);
+        if (count != 0) {
+            int first = childPtr[id];
+            for (int i = 0; i < count; i++) {
+                freeSubtree(first + i);
+            }
+            releaseIds(first, count);
+        }
+        clear(id);
+        liveCount--;
+    }
+
+    private void clear(int id) {
+        position0[id] = 0;
+        position1[id] = 0;
+        meshPtr[id] = NULL_MESH;
+        childPtr[id] = NULL_NODE;
+        flags[id] = 0;
+        parent[id] = NULL_NODE;
+        childMask[id] = 0;
+        alive.clear(id);
+        markChanged(id);
+    }
+
+    private int allocateIds(int size) {
+        for (int list = size; list <= 8; list++) {
+            while (freeRunCount[list] > 0) {
+                int first = freeRuns[list][--freeRunCount[list]];
+                int length = freeRunLength(first);
+                if (length >= size) {
+                    if (length > size) {
+                        pushFreeRun(first + size, length - size);
+                    }
+                    return first;
+                }
+                if (length > 0) {
+                    // Shorter than its list says, file it where it belongs
+                    pushFreeRun(first, length);
+                }
+            }
+        }
+        if (idLimit + size > capacity) {
+            return -1;
+        }
+        int first = idLimit;
+        idLimit += size;
+        return first;
+    }
+
+    private void releaseIds(int first, int size) {
+        int start = first == 0 ? 0 : alive.previousSetBit(first - 1) + 1;
+        int end = alive.nextSetBit(first + size);
+        if (end < 0 || end > idLimit) {
+            end = idLimit;
+        }
+        if (end == idLimit) {
+            idLimit = start;
+            return;
+        }
+        int listed = 0;
+        for (int list = 1; list <= 8; list++) {
+            listed += freeRunCount[list];
+        }
+        if (listed > 2 * (idLimit - liveCount) + 64) {
+            rebuildFreeRuns();
+        } else {
+            pushFreeRun(start, end - start);
+        }
+    }
+
+    /**
+     * @return Length of the free run starting at {@code first}, or 0 if no run starts there
+     */
+    private int freeRunLength(int first) {
+        if (first >= idLimit || alive.get(first) || (first > 0 && !alive.get(first - 1))) {
+            return 0;
+        }
+        int end = alive.nextSetBit(first);
+        return (end < 0 || end > idLimit ? idLimit : end) - first;
+    }
+
+    private void pushFreeRun(int first, int length) {
+        int list = Math.min(length, 8);
+        if (freeRunCount[list] == freeRuns[list].length) {
+            freeRuns[list] = Arrays.copyOf(freeRuns[list], freeRuns[list].length * 2);
+        }
+        freeRuns[list][freeRunCount[list]++] = first;
+    }
+
+    /**
+     * Drop stale entries by listing every free run afresh.
+     */
+    private void rebuildFreeRuns() {
+        Arrays.fill(freeRunCount, 0);
+        for (int first = alive.nextClearBit(0); first < idLimit; ) {
+            int end = alive.nextSetBit(first);
+            if (end < 0 || end > idLimit) {
+                end = idLimit;
+            }
+            pushFreeRun(first, end - first);
+            first = alive.nextClearBit(end);
+        }
+    }
+
+    private void markChanged(int id) {
+        if (changedSet.get(id)) {
+            return;
+        }
+        changedSet.set(id);
+        if (changedCount == changed.length) {
+            changed = Arrays.copyOf(changed, changed.length * 2);
+        }
+        changed[changedCount++] = id;
+    }
+
+    private void checkAlive(int id) {
+        if (!isAlive(id)) {
+            throw new IllegalArgumentException("Node " + id + " is not allocated");
+        }
+    }
+}
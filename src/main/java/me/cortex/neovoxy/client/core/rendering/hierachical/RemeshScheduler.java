@@ -0,0 +1,287 @@
+package me.cortex.neovoxy.client.core.rendering.hierachical;
+
+import me.cortex.neovoxy.client.core.rendering.section.geometry.IGeometryData;
+import me.cortex.neovoxy.common.Logger;
+import me.cortex.neovoxy.common.metrics.Metrics;
+import me.cortex.neovoxy.common.util.LongHashSet;
+import me.cortex.neovoxy.common.util.LongIntHashMap;
+import me.cortex.neovoxy.common.world.WorldEngine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Rebuilds the geometry of sections reported dirty by the world.
+ *
+ * <p>
+ * Dirty events are coalesced until the next {@link #tick}: a section dirtied
+ * many times in one frame is rebuilt once, timed from its first event. Each
+ * tick maps the batch onto the node tree, loads the sections from storage and
+ * queues them for meshing ahead of first-time work at the same distance.
+ * Finished meshes are uploaded and swapped into their nodes on the render
+ * thread, so allocation never races with geometry compaction.
+ *
+ * <p>
+ * Only the latest rebuild of a section is applied; results of earlier rebuilds
+ * that finish late are dropped. The time from the first dirty event to the
+ * committed node change is reported as {@link Metrics.Stage#REMESH}.
+ *
+ * <p>
+ * Sections outside the active top-level columns are parked: dirty sections
+ * that fall outside them, and sections whose column is removed while they
+ * have a mesh or a rebuild in flight. They are kept per column, so adding a
+ * column marks its parked sections dirty again, timed from that moment,
+ * without visiting any other. At most {@link #MAX_PARKED_SECTIONS} are kept;
+ * past that, the columns parked longest ago are forgotten and their sections
+ * are only rebuilt once the world dirties them again.
+ */
+public class RemeshScheduler {
+
+    // Finished meshes swapped in per tick, bounds the upload work one frame takes on
+    private static final int MAX_SWAPS_PER_TICK = 256;
+    // Bound on parked sections across all columns, a few MB of tables
+    static final int MAX_PARKED_SECTIONS = 1 << 18;
+
+    private final AsyncNodeManager nodeManager;
+    private final WorldEngine worldEngine;
+    private final RenderGenerationService renderGen;
+    private final IGeometryData geometryData;
+
+    // Sections dirtied since the last tick, guarded by this
+    private final LongIntHashMap dirtySlots = new LongIntHashMap(-1);
+    private long[] dirtyPositions = new long[256];
+    private long[] dirtySince = new long[256];
+    private int dirtyCount;
+
+    // Sections waiting for their column to be added, by column key from least to most
+    // recently parked, guarded by this. Few columns change per frame, so boxed keys are fine
+    private final LinkedHashMap<Long, LongHashSet> parked = new LinkedHashMap<>();
+    private int parkedCount;
+
+    // Latest rebuild per section in flight, render thread only
+    private final LongIntHashMap latestRebuild = new LongIntHashMap(-1);
+    private int nextRebuild;
+
+    private final ConcurrentLinkedQueue<Result> finished = new ConcurrentLinkedQueue<>();
+
+    public RemeshScheduler(AsyncNodeManager nodeManager, WorldEngine worldEngine,
+            RenderGenerationService renderGen, IGeometryData geometryData) {
+        this.nodeManager = nodeManager;
+        this.worldEngine = worldEngine;
+        this.renderGen = renderGen;
+        this.geometryData = geometryData;
+    }
+
+    /**
+     * Note that a section changed. Safe to call from any thread.
+     */
+    public synchronized void markDirty(long sectionPos) {
+        if (dirtySlots.containsKey(sectionPos)) {
+            return; // Keeps the time of the first event
+        }
+        if (dirtyCount == dirtyPositions.length) {
+            dirtyPositions = Arrays.copyOf(dirtyPositions, dirtyCount * 2);
+            dirtySince = Arrays.copyOf(dirtySince, dirtyCount * 2);
+        }
+        dirtySlots.put(sectionPos, dirtyCount);
+        dirtyPositions[dirtyCount] = sectionPos;
+        dirtySince[dirtyCount++] = Metrics.start();
+    }
+
+    /**
+     * Start rebuilding this tick's dirty sections and swap in finished meshes.
+     * Called once per frame on the render thread, before node changes are committed.
+     */
+    public void tick(int frame) {
+        long[] positions;
+        long[] since;
+        int count;
+        synchronized (this) {
+            positions = dirtyPositions;
+            since = dirtySince;
+            count = dirtyCount;
+            if (count != 0) {
+                dirtyPositions = new long[positions.length];
+                dirtySince = new long[since.length];
+                dirtyCount = 0;
+                dirtySlots.clear();
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            // Columns only change on the render thread, so a parked section cannot miss its column
+            if (!nodeManager.isColumnActive(positions[i])) {
+                park(positions[i]);
+            } else if (nodeManager.markSectionDirty(positions[i])) {
+                rebuild(positions[i], since[i]);
+            }
+        }
+
+        List<Result> deferred = null;
+        Result result;
+        for (int swaps = 0; swaps < MAX_SWAPS_PER_TICK && (result = finished.poll()) != null; swaps++) {
+            if (!apply(result, frame)) {
+                if (deferred == null) {
+                    deferred = new ArrayList<>();
+                }
+                deferred.add(result);
+            }
+        }
+        if (deferred != null) {
+            finished.addAll(deferred);
+        }
+    }
+
+    private void rebuild(long sectionPos, long since) {
+        int rebuild = nextRebuild++;
+        latestRebuild.put(sectionPos, rebuild);
+        worldEngine.loadVoxelizedAsync(sectionPos).thenAccept(section -> {
+            if (section == null || section.isEmpty()) {
+                finished.add(new Result(sectionPos, rebuild, since, new long[0]));
+                return;
+            }
+            renderGen.queueGeneration(section,
+                    (meshed, quads) -> finished.add(new Result(sectionPos, rebuild, since, quads)), true);
+        }).exceptionally(e -> {
+            Logger.error("Failed to load section {} for remeshing", sectionPos, e);
+            finished.add(new Result(sectionPos, rebuild, since, null));
+            return null;
+        });
+    }
+
+    private synchronized void park(long sectionPos) {
+        addParked(sectionPos);
+        trimParked();
+    }
+
+    /**
+     * Get the parked sections of a column, moving it to the most recently parked end.
+     */
+    private LongHashSet parkedSections(long column) {
+        LongHashSet sections = parked.remove(column);
+        if (sections == null) {
+            sections = new LongHashSet();
+        }
+        parked.put(column, sections);
+        return sections;
+    }
+
+    private void addParked(long sectionPos) {
+        if (parkedSections(AsyncNodeManager.columnOf(sectionPos)).add(sectionPos)) {
+            parkedCount++;
+        }
+    }
+
+    private void trimParked() {
+        Iterator<LongHashSet> oldest = parked.values().iterator();
+        while (parkedCount > MAX_PARKED_SECTIONS && oldest.hasNext()) {
+            parkedCount -= oldest.next().size();
+            oldest.remove();
+        }
+    }
+
+    /**
+     * Mark the parked sections inside newly added columns dirty.
+     *
+     * @param columns Column keys, packed like {@link me.cortex.neovoxy.client.core.rendering.RenderDistanceTracker#packPosition}
+     */
+    public synchronized void onColumnsAdded(long[] columns, int count) {
+        if (parked.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            LongHashSet sections = parked.remove(columns[i]);
+            if (sections != null) {
+                parkedCount -= sections.size();
+                sections.forEach(this::markDirty);
+            }
+        }
+    }
+
+    /**
+     * Park the sections of removed columns and forget their rebuilds in flight,
+     * whose generation tasks have been cancelled. Render thread only.
+     *
+     * @param meshSections Sections that had a mesh in the removed columns
+     */
+    public void onColumnsRemoved(long[] columns, int count, LongHashSet meshSections) {
+        LongHashSet removed = new LongHashSet(count);
+        for (int i = 0; i < count; i++) {
+            removed.add(columns[i]);
+        }
+        LongHashSet cancelled = new LongHashSet();
+        latestRebuild.forEach((pos, rebuild) -> {
+            if (removed.contains(AsyncNodeManager.columnOf(pos))) {
+                cancelled.add(pos);
+            }
+        });
+        // Late results of these find no entry and are dropped as superseded
+        cancelled.forEach(latestRebuild::remove);
+
+        synchronized (this) {
+            meshSections.forEach(this::addParked);
+            cancelled.forEach(this::addParked);
+            trimParked();
+        }
+    }
+
+    /**
+     * @return False if the geometry buffer is full and the result should be retried next tick
+     */
+    private boolean apply(Result result, int frame) {
+        if (latestRebuild.get(result.sectionPos()) != result.rebuild()) {
+            return true; // Superseded by a newer rebuild
+        }
+        long[] quads = result.quads();
+        if (quads == null) {
+            latestRebuild.remove(result.sectionPos()); // Failed to load, already logged
+            return true;
+        }
+
+        long offset = -1;
+        if (quads.length > 0) {
+            offset = geometryData.allocate(quads.length);
+            if (offset < 0) {
+                // Eviction and compaction make room over the next frames
+                return false;
+            }
+            geometryData.upload(offset, quads);
+        }
+        latestRebuild.remove(result.sectionPos());
+        if (nodeManager.swapSectionMesh(result.sectionPos(), offset, quads.length, result.since(), frame)) {
+            worldEngine.getSectionTracker().clearDirty(result.sectionPos());
+        } else if (offset >= 0) {
+            geometryData.free(offset, quads.length);
+        }
+        return true;
+    }
+
+    /**
+     * Get the number of sections waiting for the next tick.
+     */
+    public synchronized int getDirtyCount() {
+        return dirtyCount;
+    }
+
+    /**
+     * Get the number of sections waiting for their column to be added.
+     */
+    public synchronized int getParkedCount() {
+        return parkedCount;
+    }
+
+    /**
+     * Get the number of sections being loaded or meshed. Render thread only.
+     */
+    public int getInFlightCount() {
+        return latestRebuild.size();
+    }
+
+    // Quads are null if the section failed to load
+    private record Result(long sectionPos, int rebuild, long since, long[] quads) {
+    }
+}
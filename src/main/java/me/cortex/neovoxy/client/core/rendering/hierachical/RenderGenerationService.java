@@ -1,13 +1,18 @@
 package me.cortex.neovoxy.client.core.rendering.hierachical;
 
 import me.cortex.neovoxy.client.core.model.ModelBakerySubsystem;
+import me.cortex.neovoxy.client.core.rendering.Viewport;
 import me.cortex.neovoxy.common.Logger;
+import me.cortex.neovoxy.common.jfr.MeshEvent;
+import me.cortex.neovoxy.common.metrics.Metrics;
+import me.cortex.neovoxy.common.meshing.GreedyMesher;
+import me.cortex.neovoxy.common.thread.Service;
 import me.cortex.neovoxy.common.thread.ServiceManager;
+import me.cortex.neovoxy.common.voxelization.SectionBorder;
 import me.cortex.neovoxy.common.voxelization.VoxelizedSection;
 import me.cortex.neovoxy.common.world.WorldEngine;
 
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -16,16 +21,33 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * <p>
  * Runs on background threads and converts VoxelizedSection data
  * into quad geometry suitable for GPU rendering.
+ *
+ * <p>
+ * Pending sections are meshed nearest-first relative to the camera, with
+ * sections inside the view frustum taking precedence (see {@link GenerationQueue}).
+ * Meshing runs as a {@link Service} on the shared {@link ServiceManager} workers,
+ * one job per queued section. In work-stealing mode the finished mesh is handed
+ * to its callback as a task with the section as locality hint, so it stays on
+ * the worker that meshed it.
  */
 public class RenderGenerationService {
 
+    // Share of worker time relative to other services (general tasks are 1)
+    private static final int SERVICE_WEIGHT = 4;
+
+    // Meshers keep reusable scratch buffers, one per worker thread
+    private static final ThreadLocal<GreedyMesher> MESHER = ThreadLocal.withInitial(GreedyMesher::new);
+    private static final ThreadLocal<SectionBorder[]> NEIGHBOURS = ThreadLocal.withInitial(() -> new SectionBorder[6]);
+    private static final long[] NO_QUADS = new long[0];
+
     private final WorldEngine worldEngine;
     private final ModelBakerySubsystem modelBakery;
     private final ServiceManager serviceManager;
     private final boolean useMeshlets;
 
-    private final BlockingQueue<GenerationTask> taskQueue = new LinkedBlockingQueue<>();
+    private final GenerationQueue taskQueue = new GenerationQueue();
     private final AtomicBoolean isRunning = new AtomicBoolean(false);
+    private volatile Service service;
 
     public RenderGenerationService(WorldEngine worldEngine, ModelBakerySubsystem modelBakery,
             ServiceManager serviceManager, boolean useMeshlets) {
@@ -41,15 +63,14 @@ public class RenderGenerationService {
      * Start the generation service.
      */
     public void start() {
-        isRunning.set(true);
+        if (isRunning.get())
+            return;
 
-        // Start worker threads
-        int workerCount = Math.max(1, serviceManager.getThreadCount() / 2);
-        for (int i = 0; i < workerCount; i++) {
-            serviceManager.submit(this::workerLoop);
-        }
+        service = serviceManager.createService("RenderGeneration", SERVICE_WEIGHT, this::runJob);
+        Metrics.registerQueue("mesh", taskQueue::size);
+        isRunning.set(true);
 
-        Logger.info("RenderGenerationService started with {} workers", workerCount);
+        Logger.info("RenderGenerationService started");
     }
 
     /**
@@ -57,32 +78,80 @@ public class RenderGenerationService {
      */
     public void stop() {
         isRunning.set(false);
+        if (service != null) {
+            service.shutdown();
+        }
+        Metrics.unregisterQueue("mesh");
         taskQueue.clear();
     }
 
     /**
      * Queue a section for mesh generation.
+     * Replaces the data of a task already pending for the same section.
      */
     public void queueGeneration(VoxelizedSection section, GenerationCallback callback) {
+        queueGeneration(section, callback, false);
+    }
+
+    /**
+     * Queue a section for mesh generation.
+     * Replaces the data of a task already pending for the same section.
+     *
+     * @param remesh True if the section already has geometry that is now out of date;
+     *               such sections are meshed ahead of others at the same distance
+     */
+    public void queueGeneration(VoxelizedSection section, GenerationCallback callback, boolean remesh) {
         if (!isRunning.get())
             return;
 
-        taskQueue.offer(new GenerationTask(section, callback));
+        // Only a newly pending section needs a job, replacements reuse the existing one
+        if (taskQueue.offer(new GenerationTask(section, callback, remesh))) {
+            service.execute();
+        }
     }
 
-    private void workerLoop() {
-        while (isRunning.get()) {
-            try {
-                GenerationTask task = taskQueue.poll(100, java.util.concurrent.TimeUnit.MILLISECONDS);
-                if (task != null) {
-                    processTask(task);
-                }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                break;
-            } catch (Exception e) {
-                Logger.error("Error in render generation worker", e);
-            }
+    /**
+     * Cancel pending generation for a section.
+     *
+     * @param sectionPos Packed section position
+     * @return True if a pending task was dropped
+     */
+    public boolean cancel(long sectionPos) {
+        return taskQueue.cancel(sectionPos);
+    }
+
+    /**
+     * Cancel pending generation for every section in a range of chunk columns (inclusive).
+     * Used when a region leaves the render distance.
+     *
+     * @return Number of pending tasks dropped
+     */
+    public int cancelColumns(int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+        return taskQueue.cancelColumns(minChunkX, minChunkZ, maxChunkX, maxChunkZ);
+    }
+
+    /**
+     * Update the camera used to prioritize pending work. Called once per frame.
+     * Once the camera moves far enough, queued sections are re-prioritized a bounded batch per call.
+     */
+    public void updateCamera(Viewport viewport) {
+        taskQueue.updateCamera(viewport.getCameraX(), viewport.getCameraY(), viewport.getCameraZ(),
+                viewport.getFrustumPlanes());
+    }
+
+    private void runJob() {
+        if (!isRunning.get())
+            return;
+
+        // May be empty if the section was cancelled after its job was signalled
+        GenerationTask task = taskQueue.poll();
+        if (task == null)
+            return;
+
+        try {
+            processTask(task);
+        } catch (Exception e) {
+            Logger.error("Error in render generation worker", e);
         }
     }
 
@@ -90,159 +159,44 @@ public class RenderGenerationService {
         VoxelizedSection section = task.section();
 
         // Generate quads using greedy meshing
+        MeshEvent event = new MeshEvent();
+        event.begin();
+        long start = Metrics.start();
         long[] quads = generateQuads(section);
+        Metrics.record(Metrics.Stage.MESH, start);
+        if (event.shouldCommit()) {
+            event.x = section.getChunkX();
+            event.y = section.getSectionY();
+            event.z = section.getChunkZ();
+            event.quadCount = quads.length;
+            event.commit();
+        }
 
-        if (quads.length > 0) {
+        if (serviceManager.isWorkStealing()) {
+            // The upload hand-off stays on this worker, which has the quads in its cache,
+            // and leaves the mesh queue to the next job
+            serviceManager.submit(() -> task.callback().onComplete(section, quads), section.getPackedPosition());
+        } else {
             task.callback().onComplete(section, quads);
         }
     }
 
     /**
-     * Generate quads from voxelized section using greedy meshing.
+     * Generate quads from voxelized section using the worker's greedy mesher.
+     * Boundary faces are culled against the neighbouring sections known to the world engine.
+     *
+     * <p>
+     * The mesher's buffer is reused for the worker's next section, while the quads
+     * are only uploaded once the render thread has allocated geometry space for them
+     * (allocation must not race compaction). The result is therefore copied once,
+     * trimmed to the quad count; sections with no visible faces share an empty array.
      */
     private long[] generateQuads(VoxelizedSection section) {
-        if (section.isEmpty()) {
-            return new long[0];
-        }
-
-        java.util.List<Long> quads = new java.util.ArrayList<>();
-
-        // Iterate over 6 directions
-        for (int face = 0; face < 6; face++) {
-            int axis = face / 2; // 0:Y, 1:Z, 2:X
-            int direction = (face % 2) == 0 ? -1 : 1;
-
-            for (int s = 0; s < 16; s++) {
-                // mask[u][v] stores properties of visible face
-                long[] mask = new long[16 * 16];
-                boolean hasAny = false;
-
-                for (int u = 0; u < 16; u++) {
-                    for (int v = 0; v < 16; v++) {
-                        int x, y, z;
-                        if (axis == 0) { // Y-axis slice
-                            x = u;
-                            y = s;
-                            z = v;
-                        } else if (axis == 1) { // Z-axis slice
-                            x = u;
-                            y = v;
-                            z = s;
-                        } else { // X-axis slice
-                            x = s;
-                            y = u;
-                            z = v;
-                        }
-
-                        int stateId = section.getStateId(x, y, z);
-                        if (stateId == 0)
-                            continue;
-
-                        // Check if face is visible (neighbor is air or out of bounds)
-                        int nx = x + (axis == 2 ? direction : 0);
-                        int ny = y + (axis == 0 ? direction : 0);
-                        int nz = z + (axis == 1 ? direction : 0);
-
-                        boolean visible = false;
-                        if (nx < 0 || nx >= 16 || ny < 0 || ny >= 16 || nz < 0 || nz >= 16) {
-                            visible = true; // Section boundary
-                        } else {
-                            if (!section.hasBlock(nx, ny, nz)) {
-                                visible = true;
-                            }
-                        }
-
-                        if (visible) {
-                            int biomeId = section.getBiomeId(x, y, z);
-                            int lightId = section.getLightLevel(x, y, z);
-                            // Combine properties into a single key for greedy matching
-                            mask[u << 4 | v] = ((long) stateId << 32) | ((long) biomeId << 16) | lightId;
-                            hasAny = true;
-                        }
-                    }
-                }
-
-                if (!hasAny)
-                    continue;
-
-                // Greedy meshing on the 16x16 mask
-                boolean[] visited = new boolean[16 * 16];
-                for (int u = 0; u < 16; u++) {
-                    for (int v = 0; v < 16; v++) {
-                        int idx = u << 4 | v;
-                        if (mask[idx] != 0 && !visited[idx]) {
-                            long key = mask[idx];
-                            int w = 1, h = 1;
-
-                            // Expand width
-                            for (int wu = u + 1; wu < 16; wu++) {
-                                int nidx = wu << 4 | v;
-                                if (mask[nidx] == key && !visited[nidx])
-                                    w++;
-                                else
-                                    break;
-                            }
-
-                            // Expand height
-                            outer: for (int hv = v + 1; hv < 16; hv++) {
-                                for (int wu = u; wu < u + w; wu++) {
-                                    int nidx = wu << 4 | hv;
-                                    if (mask[nidx] != key || visited[nidx])
-                                        break outer;
-                                }
-                                h++;
-                            }
-
-                            // Mark as visited
-                            for (int hv = v; hv < v + h; hv++) {
-                                for (int wu = u; wu < u + w; wu++) {
-                                    visited[wu << 4 | hv] = true;
-                                }
-                            }
-
-                            // Output quad
-                            int stateId = (int) (key >> 32);
-                            int biomeId = (int) ((key >> 16) & 0xFFFF);
-                            int lightId = (int) (key & 0xFFFF);
-
-                            // Re-calculate local coords based on axis
-                            int qx, qy, qz;
-                            if (axis == 0) {
-                                qx = u;
-                                qy = s;
-                                qz = v;
-                            } else if (axis == 1) {
-                                qx = u;
-                                qy = v;
-                                qz = s;
-                            } else {
-                                qx = s;
-                                qy = u;
-                                qz = v;
-                            }
-
-                            quads.add(packQuad(face, w, h, qx, qy, qz, stateId, biomeId, lightId));
-                        }
-                    }
-                }
-            }
-        }
-
-        return quads.stream().mapToLong(Long::longValue).toArray();
-    }
-
-    private long packQuad(int face, int sx, int sy, int x, int y, int z, int stateId, int biomeId, int lightId) {
-        long quad = 0;
-        quad |= (face & 0x7L); // 0-2
-        quad |= ((sx - 1) & 0xFL) << 3; // 3-6
-        quad |= ((sy - 1) & 0xFL) << 7; // 7-10
-        quad |= (z & 0x1FL) << 11; // 11-15
-        quad |= (y & 0x1FL) << 16; // 16-20
-        quad |= (x & 0x1FL) << 21; // 21-25
-        quad |= (stateId & 0xFFFFFL) << 26; // 26-45 (20 bits)
-        quad |= (biomeId & 0x1FFL) << 46; // 46-54 (9 bits)
-        quad |= (lightId & 0xFFL) << 55; // 55-62 (8 bits)
-        return quad;
+        SectionBorder[] neighbours = NEIGHBOURS.get();
+        worldEngine.getNeighbourBorders(section.getPackedPosition(), neighbours);
+        GreedyMesher mesher = MESHER.get();
+        int count = mesher.meshInto(section, neighbours);
+        return count == 0 ? NO_QUADS : Arrays.copyOf(mesher.getQuads(), count);
     }
 
     /**
@@ -255,11 +209,12 @@ public class RenderGenerationService {
     /**
      * Task for mesh generation.
      */
-    private record GenerationTask(VoxelizedSection section, GenerationCallback callback) {
+    record GenerationTask(VoxelizedSection section, GenerationCallback callback, boolean remesh) {
     }
 
     /**
      * Callback for completed mesh generation.
+     * Called for every generated section, with no quads if nothing is visible.
      */
     @FunctionalInterface
     public interface GenerationCallback {
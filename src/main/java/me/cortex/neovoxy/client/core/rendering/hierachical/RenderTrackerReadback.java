@@ -0,0 +1,128 @@
+package me.cortex.neovoxy.client.core.rendering.hierachical;
+
+import me.cortex.neovoxy.client.core.gl.GlBuffer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+import static org.lwjgl.opengl.GL30.*;
+import static org.lwjgl.opengl.GL32.*;
+import static org.lwjgl.opengl.GL42.*;
+import static org.lwjgl.opengl.GL44.*;
+
+/**
+ * Reads the traversal's {@code lastRenderFrame} array back to the CPU.
+ *
+ * <p>Every {@link #INTERVAL} frames the tracker is copied into a persistently
+ * mapped buffer behind a fence. Once the fence signals, the nodes written
+ * since the previous readback are handed out. Node IDs freed and reused in
+ * the meantime may be reported for their new node; the eviction policy only
+ * uses them as hints.
+ *
+ * <p>Render thread only.
+ */
+final class RenderTrackerReadback implements AutoCloseable {
+
+    // Frames between copies
+    static final int INTERVAL = 10;
+
+    private static final int MAP_FLAGS = GL_MAP_READ_BIT | GL_MAP_PERSISTENT_BIT | GL_MAP_COHERENT_BIT;
+
+    private final GlBuffer readBuffer;
+    private final IntBuffer frames;
+
+    private long fence;
+    private int copiedNodes;
+    private int copiedFrame;
+    // Nodes written up to this frame have been reported
+    private int reportedFrame;
+    private int framesSinceCopy;
+
+    private int[] nodes = new int[1024];
+
+    RenderTrackerReadback(int maxNodes) {
+        long size = (long) maxNodes * Integer.BYTES;
+        this.readBuffer = new GlBuffer.Builder()
+                .size(size)
+                .mapRead()
+                .mapPersistent()
+                .mapCoherent()
+                .clientStorage()
+                .build();
+        ByteBuffer mapping = readBuffer.map(0, size, MAP_FLAGS);
+        this.frames = mapping.order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+
+    /**
+     * Copy the tracker if it is time to, after the traversal of {@code frame}.
+     */
+    void tick(GlBuffer tracker, int nodeCount, int frame) {
+        if (fence != 0 || ++framesSinceCopy < INTERVAL || nodeCount == 0) {
+            return;
+        }
+        framesSinceCopy = 0;
+        // The traversal wrote the tracker from a shader
+        glMemoryBarrier(GL_BUFFER_UPDATE_BARRIER_BIT);
+        readBuffer.copyFrom(tracker, 0, 0, (long) nodeCount * Integer.BYTES);
+        fence = glFenceSync(GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+        copiedNodes = nodeCount;
+        copiedFrame = frame;
+    }
+
+    /**
+     * Collect the nodes written since the last readback, if the copy in flight has landed.
+     *
+     * @return Number of nodes in {@link #getNodes()}, or -1 if nothing is ready
+     */
+    int poll() {
+        if (fence == 0) {
+            return -1;
+        }
+        int status = glClientWaitSync(fence, 0, 0);
+        if (status != GL_ALREADY_SIGNALED && status != GL_CONDITION_SATISFIED) {
+            return -1;
+        }
+        glDeleteSync(fence);
+        fence = 0;
+
+        int count = 0;
+        for (int id = 0; id < copiedNodes; id++) {
+            int frame = frames.get(id);
+            // Frame IDs start at 1, so never drawn reads as 0
+            if (frame > reportedFrame && frame <= copiedFrame) {
+                if (count == nodes.length) {
+                    nodes = Arrays.copyOf(nodes, count * 2);
+                }
+                nodes[count++] = id;
+            }
+        }
+        reportedFrame = copiedFrame;
+        return count;
+    }
+
+    /**
+     * Nodes collected by the last {@link #poll()}.
+     */
+    int[] getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Frame of the copy the last {@link #poll()} read.
+     */
+    int getFrame() {
+        return copiedFrame;
+    }
+
+    @Override
+    public void close() {
+        if (fence != 0) {
+            glDeleteSync(fence);
+            fence = 0;
+        }
+        readBuffer.unmap();
+        readBuffer.close();
+    }
+}
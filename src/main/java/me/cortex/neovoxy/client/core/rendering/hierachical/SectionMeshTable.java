@@ -0,0 +1,103 @@
+package me.cortex.neovoxy.client.core.rendering.hierachical;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Section meshes referenced by node mesh pointers.
+ *
+ * <p>A node's mesh pointer is a mesh ID from this table rather than a buffer
+ * offset, so geometry can move during compaction without touching the nodes
+ * that use it. Each entry records the section it was built for and where its
+ * quads live in the geometry buffer. Not thread-safe.
+ */
+final class SectionMeshTable {
+
+    private final int capacity;
+    private final long[] sectionPos;
+    private final long[] offset;
+    private final int[] quadCount;
+
+    // Geometry offset -> mesh ID, for following relocations
+    private final TreeMap<Long, Integer> byOffset = new TreeMap<>();
+
+    private int[] freeIds = new int[64];
+    private int freeCount;
+    private int idLimit;
+
+    SectionMeshTable(int capacity) {
+        if (capacity <= 0 || capacity >= NodeStore.EMPTY_MESH) {
+            throw new IllegalArgumentException("Mesh capacity must be in 1.." + (NodeStore.EMPTY_MESH - 1) + ", got " + capacity);
+        }
+        this.capacity = capacity;
+        this.sectionPos = new long[capacity];
+        this.offset = new long[capacity];
+        this.quadCount = new int[capacity];
+    }
+
+    /**
+     * @return Mesh ID, or -1 if the table is full
+     */
+    int add(long pos, long geometryOffset, int quads) {
+        int id;
+        if (freeCount > 0) {
+            id = freeIds[--freeCount];
+        } else if (idLimit < capacity) {
+            id = idLimit++;
+        } else {
+            return -1;
+        }
+        sectionPos[id] = pos;
+        offset[id] = geometryOffset;
+        quadCount[id] = quads;
+        byOffset.put(geometryOffset, id);
+        return id;
+    }
+
+    void remove(int id) {
+        byOffset.remove(offset[id]);
+        quadCount[id] = 0;
+        if (freeCount == freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, freeIds.length * 2);
+        }
+        freeIds[freeCount++] = id;
+    }
+
+    /**
+     * Follow geometry moved inside the buffer, see
+     * {@code BasicSectionGeometryData.RelocationListener}.
+     */
+    void onRelocated(long oldOffset, long newOffset, long length) {
+        Map<Long, Integer> moved = byOffset.subMap(oldOffset, oldOffset + length);
+        if (moved.isEmpty()) {
+            return;
+        }
+        Integer[] ids = moved.values().toArray(new Integer[0]);
+        moved.clear();
+        for (int id : ids) {
+            offset[id] += newOffset - oldOffset;
+            byOffset.put(offset[id], id);
+        }
+    }
+
+    static boolean isMesh(int meshPtr) {
+        return meshPtr < NodeStore.EMPTY_MESH;
+    }
+
+    long getSectionPos(int id) {
+        return sectionPos[id];
+    }
+
+    long getOffset(int id) {
+        return offset[id];
+    }
+
+    int getQuadCount(int id) {
+        return quadCount[id];
+    }
+
+    int size() {
+        return byOffset.size();
+    }
+}
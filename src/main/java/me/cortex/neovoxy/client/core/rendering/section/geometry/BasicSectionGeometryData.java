@@ -1,61 +1,92 @@
 package me.cortex.neovoxy.client.core.rendering.section.geometry;
 
 import me.cortex.neovoxy.client.core.gl.GlBuffer;
+import me.cortex.neovoxy.client.core.rendering.util.UploadStream;
 import me.cortex.neovoxy.common.Logger;
+import me.cortex.neovoxy.common.jfr.GeometryAllocationEvent;
+import me.cortex.neovoxy.common.meshing.QuadFormat;
+import me.cortex.neovoxy.common.metrics.Metrics;
+import me.cortex.neovoxy.common.util.DefragPlanner;
+import me.cortex.neovoxy.common.util.SizeClassAllocator;
 
-import java.util.BitSet;
+import java.util.List;
 import java.util.concurrent.locks.ReentrantLock;
 
 import static org.lwjgl.opengl.GL43.*;
 import static org.lwjgl.opengl.GL44.*;
 
 /**
- * Basic implementation of section geometry data using a linear allocator.
+ * Basic implementation of section geometry data.
  * 
- * <p>Each quad is 8 bytes (64 bits) packed as:
- * <ul>
- *   <li>Bits 0-2: Face (6 directions)</li>
- *   <li>Bits 3-6: Width (0-15, +1)</li>
- *   <li>Bits 7-10: Height (0-15, +1)</li>
- *   <li>Bits 11-25: Position (5 bits each for x, y, z)</li>
- *   <li>Bits 26-45: State ID (20 bits)</li>
- *   <li>Bits 46-54: Biome ID (9 bits)</li>
- *   <li>Bits 55-62: Light level (8 bits)</li>
- * </ul>
+ * <p>Each quad is 8 bytes (64 bits), encoded as described by {@link QuadFormat}.
+ * Space is handed out in granules of {@link #GRANULE_QUADS} quads by a
+ * {@link SizeClassAllocator}: typical sections take a slot in a slab of equally
+ * sized allocations and large ones fall back to the general TLSF allocator, so
+ * allocation cost does not grow with the size or fill level of the buffer.
+ *
+ * <p>Free space that ends up scattered is gathered again by {@link #compact},
+ * which moves a few ranges per frame toward the start of the buffer.
  */
 public class BasicSectionGeometryData implements IGeometryData {
     
-    // 8 bytes per quad
-    private static final int BYTES_PER_QUAD = 8;
+    private static final int BYTES_PER_QUAD = QuadFormat.BYTES_PER_QUAD;
     
-    // Allocation block size (in quads)
-    private static final int BLOCK_SIZE = 1024;
+    // Allocation granularity (in quads)
+    public static final int GRANULE_QUADS = 16;
+    private static final int GRANULE_BYTES = GRANULE_QUADS * BYTES_PER_QUAD;
+    
+    // Compact while at least this share of free space is outside the largest free range
+    private static final double COMPACT_FRAGMENTATION = 0.5;
+    
+    /**
+     * Notified after geometry was moved, so section metadata can point at the new offset.
+     */
+    @FunctionalInterface
+    public interface RelocationListener {
+        /**
+         * Every allocation in {@code [oldOffset, oldOffset + length)} now starts
+         * {@code newOffset - oldOffset} bytes further along.
+         */
+        void onRelocated(long oldOffset, long newOffset, long length);
+    }
     
     private final GlBuffer quadBuffer;
+    private final UploadStream<GlBuffer> uploads;
     private final long capacity;
-    private final int maxBlocks;
+    private final int maxGranules;
     
-    // Simple bitmap allocator
-    private final BitSet allocatedBlocks;
+    // Offsets and sizes are in granules, guarded by allocLock
+    private final SizeClassAllocator allocator;
     private final ReentrantLock allocLock = new ReentrantLock();
     
     private long currentUsage = 0;
     
+    // Set when an allocation fails, cleared once compaction has nothing left to move
+    private boolean compactionRequested;
+    // Set when planning found no move; the layout can only change again after a free
+    // or a failed allocation, so compaction skips collecting the ranges until then
+    private boolean compactionStalled;
+    private int[] rangeOffsets = new int[0];
+    private int[] rangeSizes = new int[0];
+    private RelocationListener relocationListener;
+    
     /**
      * Create geometry data storage.
      * 
      * @param maxSections Maximum number of sections to support
      * @param capacityBytes Total GPU memory capacity for quads
+     * @param uploads Stream quad data is uploaded through
      */
-    public BasicSectionGeometryData(int maxSections, long capacityBytes) {
+    public BasicSectionGeometryData(int maxSections, long capacityBytes, UploadStream<GlBuffer> uploads) {
         this.capacity = capacityBytes;
-        this.maxBlocks = (int) (capacityBytes / (BLOCK_SIZE * BYTES_PER_QUAD));
+        this.uploads = uploads;
+        this.maxGranules = (int) (capacityBytes / GRANULE_BYTES);
         
         this.quadBuffer = new GlBuffer(capacityBytes, GL_DYNAMIC_STORAGE_BIT);
-        this.allocatedBlocks = new BitSet(maxBlocks);
+        this.allocator = new SizeClassAllocator(maxGranules);
         
-        Logger.info("BasicSectionGeometryData created: {} MB capacity, {} blocks", 
-                    capacityBytes / (1024 * 1024), maxBlocks);
+        Logger.info("BasicSectionGeometryData created: {} MB capacity, {} granules of {} quads", 
+                    capacityBytes / (1024 * 1024), maxGranules, GRANULE_QUADS);
     }
     
     @Override
@@ -77,69 +108,184 @@ public class BasicSectionGeometryData implements IGeometryData {
     public long allocate(int quadCount) {
         if (quadCount <= 0) return -1;
         
-        // Calculate blocks needed
-        int blocksNeeded = (quadCount + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        GeometryAllocationEvent event = new GeometryAllocationEvent();
+        event.begin();
+        long offset = allocateGranules(quadCount);
+        if (event.shouldCommit()) {
+            event.quadCount = quadCount;
+            event.offset = offset;
+            event.usage = currentUsage;
+            event.commit();
+        }
+        return offset;
+    }
+    
+    private long allocateGranules(int quadCount) {
+        int granules = granulesFor(quadCount);
         
         allocLock.lock();
         try {
-            // Find contiguous free blocks
-            int startBlock = findFreeBlocks(blocksNeeded);
-            if (startBlock < 0) {
-                Logger.warn("Failed to allocate {} blocks for {} quads", blocksNeeded, quadCount);
+            int start = allocator.allocate(granules);
+            if (start < 0) {
+                compactionRequested = true;
+                compactionStalled = false;
+                Logger.warn("Failed to allocate {} granules for {} quads ({} granules reserved, largest free {})",
+                        granules, quadCount, allocator.getReservedUnits(), allocator.getLargestFreeBlock());
                 return -1;
             }
             
-            // Mark blocks as allocated
-            allocatedBlocks.set(startBlock, startBlock + blocksNeeded);
-            currentUsage += (long) blocksNeeded * BLOCK_SIZE * BYTES_PER_QUAD;
+            currentUsage += (long) granules * GRANULE_BYTES;
             
-            return (long) startBlock * BLOCK_SIZE * BYTES_PER_QUAD;
+            return (long) start * GRANULE_BYTES;
         } finally {
             allocLock.unlock();
         }
     }
     
-    private int findFreeBlocks(int count) {
-        int consecutive = 0;
-        int startBlock = -1;
-        
-        for (int i = 0; i < maxBlocks; i++) {
-            if (!allocatedBlocks.get(i)) {
-                if (consecutive == 0) {
-                    startBlock = i;
-                }
-                consecutive++;
-                if (consecutive >= count) {
-                    return startBlock;
-                }
-            } else {
-                consecutive = 0;
-                startBlock = -1;
-            }
-        }
-        
-        return -1;
+    @Override
+    public long allocationBytes(int quadCount) {
+        return (long) granulesFor(quadCount) * GRANULE_BYTES;
     }
     
     @Override
     public void free(long offset, int quadCount) {
         if (offset < 0 || quadCount <= 0) return;
         
-        int startBlock = (int) (offset / (BLOCK_SIZE * BYTES_PER_QUAD));
-        int blocksToFree = (quadCount + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        int start = (int) (offset / GRANULE_BYTES);
+        int granules = granulesFor(quadCount);
+        
+        allocLock.lock();
+        try {
+            if (!allocator.free(start, granules)) {
+                Logger.warn("Freeing unallocated geometry at offset {} ({} quads)", offset, quadCount);
+                return;
+            }
+            currentUsage -= (long) granules * GRANULE_BYTES;
+            compactionStalled = false;
+        } finally {
+            allocLock.unlock();
+        }
+    }
+    
+    public void setRelocationListener(RelocationListener listener) {
+        this.relocationListener = listener;
+    }
+    
+    /**
+     * Move at most {@code maxMoves} ranges totalling at most {@code maxBytes}
+     * toward the start of the buffer. Does nothing unless the buffer is
+     * fragmented or an allocation has failed since the last compaction, and
+     * nothing after finding no move until geometry is freed or an allocation
+     * fails. Must be called on the render thread.
+     */
+    @Override
+    public int compact(int maxMoves, long maxBytes) {
+        if (maxMoves <= 0 || maxBytes < GRANULE_BYTES) return 0;
         
         allocLock.lock();
         try {
-            allocatedBlocks.clear(startBlock, startBlock + blocksToFree);
-            currentUsage -= (long) blocksToFree * BLOCK_SIZE * BYTES_PER_QUAD;
+            if (compactionStalled
+                    || (!compactionRequested && allocator.getFragmentation() < COMPACT_FRAGMENTATION)) {
+                return 0;
+            }
+            
+            int ranges = allocator.getRangeCount();
+            if (rangeOffsets.length < ranges) {
+                rangeOffsets = new int[ranges + ranges / 2];
+                rangeSizes = new int[rangeOffsets.length];
+            }
+            ranges = allocator.collectRanges(rangeOffsets, rangeSizes);
+            
+            List<DefragPlanner.Move> moves = DefragPlanner.plan(
+                    rangeOffsets, rangeSizes, ranges, maxMoves, maxBytes / GRANULE_BYTES);
+            if (moves.isEmpty()) {
+                compactionRequested = false;
+                compactionStalled = true;
+                return 0;
+            }
+            
+            for (DefragPlanner.Move move : moves) {
+                if (!allocator.relocate(move.from(), move.to())) {
+                    Logger.warn("Geometry relocation from granule {} to {} rejected", move.from(), move.to());
+                    continue;
+                }
+                long from = (long) move.from() * GRANULE_BYTES;
+                long to = (long) move.to() * GRANULE_BYTES;
+                long length = (long) move.size() * GRANULE_BYTES;
+                // Uploads still queued for the old range must land at the new one
+                uploads.retarget(quadBuffer, from, to, length);
+                // Destinations always lie below their source, so the copy never overlaps
+                quadBuffer.copyFrom(quadBuffer, from, to, length);
+                if (relocationListener != null) {
+                    relocationListener.onRelocated(from, to, length);
+                }
+            }
+            return moves.size();
         } finally {
             allocLock.unlock();
         }
     }
     
+    /**
+     * Get the share of free space outside the largest free range, in [0, 1].
+     */
+    public double getFragmentation() {
+        allocLock.lock();
+        try {
+            return allocator.getFragmentation();
+        } finally {
+            allocLock.unlock();
+        }
+    }
+    
+    /**
+     * Get the size in bytes of the largest allocation that can currently succeed.
+     */
+    public long getLargestFreeBytes() {
+        allocLock.lock();
+        try {
+            return (long) allocator.getLargestFreeBlock() * GRANULE_BYTES;
+        } finally {
+            allocLock.unlock();
+        }
+    }
+    
+    /**
+     * Get the number of free ranges in the buffer.
+     */
+    public int getFreeRangeCount() {
+        allocLock.lock();
+        try {
+            return allocator.getFreeRangeCount();
+        } finally {
+            allocLock.unlock();
+        }
+    }
+    
+    /**
+     * Get the bytes taken from the buffer, including unused slots of partly filled slabs.
+     */
+    public long getReservedBytes() {
+        allocLock.lock();
+        try {
+            return allocator.getReservedUnits() * GRANULE_BYTES;
+        } finally {
+            allocLock.unlock();
+        }
+    }
+    
+    /**
+     * Number of granules an allocation of {@code quadCount} quads takes.
+     */
+    public static int granulesFor(int quadCount) {
+        return (quadCount + GRANULE_QUADS - 1) / GRANULE_QUADS;
+    }
+    
     @Override
     public void upload(long offset, long[] data) {
-        quadBuffer.upload(offset, data);
+        long start = Metrics.start();
+        uploads.write(quadBuffer, offset, data);
+        Metrics.record(Metrics.Stage.UPLOAD, start);
     }
     
     @Override
@@ -29,6 +29,13 @@ public interface IGeometryData extends AutoCloseable {
      */
     long allocate(int quadCount);
     
+    /**
+     * Get the bytes an allocation of {@code quadCount} quads takes from the buffer.
+     */
+    default long allocationBytes(int quadCount) {
+        return (long) quadCount * 8;
+    }
+    
     /**
      * Free previously allocated section geometry.
      * 
@@ -37,6 +44,15 @@ public interface IGeometryData extends AutoCloseable {
      */
     void free(long offset, int quadCount);
     
+    /**
+     * Move a bounded amount of geometry to reduce fragmentation.
+     * 
+     * @param maxMoves Most ranges to move
+     * @param maxBytes Most bytes to copy
+     * @return Number of ranges moved
+     */
+    int compact(int maxMoves, long maxBytes);
+    
     /**
      * Upload quad data to allocated region.
      * 
@@ -0,0 +1,64 @@
+package me.cortex.neovoxy.client.core.rendering.util;
+
+import me.cortex.neovoxy.client.core.gl.GlBuffer;
+
+import java.nio.ByteBuffer;
+
+import static org.lwjgl.opengl.GL30.*;
+import static org.lwjgl.opengl.GL32.*;
+import static org.lwjgl.opengl.GL44.*;
+
+/**
+ * Staging sink backed by a persistently mapped, coherent GL buffer.
+ * Writes through the mapping are visible to copies issued afterwards
+ * without explicit flushing.
+ */
+public class GlStagingSink implements StagingSink<GlBuffer> {
+
+    private static final int MAP_FLAGS = GL_MAP_WRITE_BIT | GL_MAP_PERSISTENT_BIT | GL_MAP_COHERENT_BIT;
+
+    private final GlBuffer staging;
+    private final ByteBuffer memory;
+
+    public GlStagingSink(int capacity) {
+        this.staging = new GlBuffer.Builder()
+                .size(capacity)
+                .mapWrite()
+                .mapPersistent()
+                .mapCoherent()
+                .build();
+        this.memory = staging.map(0, capacity, MAP_FLAGS);
+    }
+
+    @Override
+    public ByteBuffer memory() {
+        return memory;
+    }
+
+    @Override
+    public void copy(GlBuffer target, long stagingOffset, long targetOffset, long size) {
+        target.copyFrom(staging, stagingOffset, targetOffset, size);
+    }
+
+    @Override
+    public long fence() {
+        return glFenceSync(GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+    }
+
+    @Override
+    public boolean isSignalled(long fence) {
+        int status = glClientWaitSync(fence, 0, 0);
+        return status == GL_ALREADY_SIGNALED || status == GL_CONDITION_SATISFIED;
+    }
+
+    @Override
+    public void deleteFence(long fence) {
+        glDeleteSync(fence);
+    }
+
+    @Override
+    public void close() {
+        staging.unmap();
+        staging.close();
+    }
+}
@@ -0,0 +1,41 @@
+package me.cortex.neovoxy.client.core.rendering.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Staging memory and the copy and fence operations {@link UploadStream} needs.
+ *
+ * <p>The GL implementation is {@link GlStagingSink}; anything else can stand
+ * in for it to drive the stream without a GPU.
+ *
+ * @param <T> Destination buffer type
+ */
+public interface StagingSink<T> extends AutoCloseable {
+
+    /**
+     * Get the staging memory. It stays valid and writable until {@link #close()}.
+     */
+    ByteBuffer memory();
+
+    /**
+     * Queue a copy from staging memory into a destination buffer.
+     */
+    void copy(T target, long stagingOffset, long targetOffset, long size);
+
+    /**
+     * Insert a fence after all copies queued so far.
+     *
+     * @return Fence handle
+     */
+    long fence();
+
+    /**
+     * Check without blocking whether the copies before a fence have completed.
+     */
+    boolean isSignalled(long fence);
+
+    void deleteFence(long fence);
+
+    @Override
+    void close();
+}
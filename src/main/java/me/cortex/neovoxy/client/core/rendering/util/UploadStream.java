@@ -0,0 +1,299 @@
+package me.cortex.neovoxy.client.core.rendering.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Single upload path from any thread to GPU buffers through a staging ring.
+ *
+ * <p>Producers copy their data into the ring and queue a copy to the
+ * destination; they never touch GL. The render thread calls {@link #flush}
+ * once per frame, which issues the queued copies up to a byte budget, merging
+ * copies that are contiguous in both the ring and the destination, and puts a
+ * fence after them. Ring space is reused once that fence has signalled.
+ *
+ * <p>When the ring is full, writes are kept on the heap and staged by later
+ * flushes, so producers never block. Copies are always issued in write order.
+ *
+ * @param <T> Destination buffer type
+ */
+public class UploadStream<T> implements AutoCloseable {
+
+    // Ring offsets are aligned so long data stays naturally aligned
+    private static final int ALIGNMENT = 16;
+
+    private final StagingSink<T> sink;
+    private final ByteBuffer memory;
+    private final int capacity;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Monotonic ring positions: everything before tail may be overwritten
+    private long head;
+    private long tail;
+
+    // Staged copies not issued yet, in ring order
+    private final ArrayDeque<Copy<T>> pending = new ArrayDeque<>();
+    // Writes that did not fit in the ring, all newer than every pending copy
+    private final ArrayDeque<Overflow<T>> overflow = new ArrayDeque<>();
+    // Issued batches: fence handle and the ring position it releases
+    private final ArrayDeque<long[]> inFlight = new ArrayDeque<>();
+
+    private long pendingBytes;
+
+    public UploadStream(StagingSink<T> sink) {
+        this.sink = sink;
+        this.memory = sink.memory();
+        this.capacity = memory.capacity() & -ALIGNMENT;
+    }
+
+    /**
+     * Queue an upload of ints to {@code offset} bytes into {@code target}.
+     */
+    public void write(T target, long offset, int[] data) {
+        lock.lock();
+        try {
+            reserve(target, offset, data.length * Integer.BYTES).asIntBuffer().put(data);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Queue an upload of longs to {@code offset} bytes into {@code target}.
+     */
+    public void write(T target, long offset, long[] data) {
+        lock.lock();
+        try {
+            reserve(target, offset, data.length * Long.BYTES).asLongBuffer().put(data);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Queue an upload of a single int.
+     */
+    public void writeInt(T target, long offset, int value) {
+        lock.lock();
+        try {
+            reserve(target, offset, Integer.BYTES).putInt(0, value);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Issue queued copies. Render thread only.
+     *
+     * @param maxBytes Bytes to copy this call; at least one copy is issued if any is queued
+     * @return Number of copy calls issued
+     */
+    public int flush(long maxBytes) {
+        lock.lock();
+        try {
+            retire();
+            stageOverflow();
+
+            int calls = 0;
+            long flushed = 0;
+            long end = -1;
+            Copy<T> batch = null;
+            while (!pending.isEmpty() && (flushed == 0 || flushed + pending.peek().size <= maxBytes)) {
+                Copy<T> copy = pending.poll();
+                flushed += copy.size;
+                end = copy.ringEnd;
+                if (batch != null && batch.target == copy.target
+                        && batch.stagingOffset + batch.size == copy.stagingOffset
+                        && batch.targetOffset + batch.size == copy.targetOffset) {
+                    batch.size += copy.size;
+                    continue;
+                }
+                if (batch != null) {
+                    sink.copy(batch.target, batch.stagingOffset, batch.targetOffset, batch.size);
+                    calls++;
+                }
+                batch = copy;
+            }
+            if (batch != null) {
+                sink.copy(batch.target, batch.stagingOffset, batch.targetOffset, batch.size);
+                calls++;
+                inFlight.add(new long[] { sink.fence(), end });
+            }
+            pendingBytes -= flushed;
+            return calls;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Move queued uploads into {@code [from, from + length)} of {@code target}
+     * along with data that was relocated inside the buffer. Render thread only,
+     * before the relocating copy is issued.
+     */
+    public void retarget(T target, long from, long to, long length) {
+        lock.lock();
+        try {
+            for (Copy<T> copy : pending) {
+                if (copy.target == target && copy.targetOffset >= from && copy.targetOffset < from + length) {
+                    copy.targetOffset += to - from;
+                }
+            }
+            for (Overflow<T> entry : overflow) {
+                if (entry.target == target && entry.targetOffset >= from && entry.targetOffset < from + length) {
+                    entry.targetOffset += to - from;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the bytes written but not yet issued to the GPU.
+     */
+    public long getPendingBytes() {
+        lock.lock();
+        try {
+            return pendingBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the ring bytes still waiting on the GPU or queued.
+     */
+    public long getRingUsage() {
+        lock.lock();
+        try {
+            return head - tail;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private ByteBuffer reserve(T target, long offset, int bytes) {
+        pendingBytes += bytes;
+        long position = overflow.isEmpty() ? allocate(bytes) : -1;
+        if (position < 0) {
+            ByteBuffer heap = ByteBuffer.allocate(bytes).order(ByteOrder.nativeOrder());
+            overflow.add(new Overflow<>(target, offset, heap));
+            return heap;
+        }
+
+        int stagingOffset = (int) (position % capacity);
+        pending.add(new Copy<>(target, stagingOffset, offset, bytes, position + align(bytes)));
+        return memory.slice(stagingOffset, bytes).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Take ring space, skipping the end of the ring if the range would wrap.
+     *
+     * @return Ring position, or -1 if there is not enough space
+     */
+    private long allocate(int bytes) {
+        int size = align(bytes);
+        long position = head;
+        int wrapped = (int) (position % capacity);
+        if (wrapped + size > capacity) {
+            position += capacity - wrapped;
+        }
+        if (position + size - tail > capacity) {
+            return -1;
+        }
+        head = position + size;
+        return position;
+    }
+
+    private void retire() {
+        while (!inFlight.isEmpty() && sink.isSignalled(inFlight.peek()[0])) {
+            long[] fence = inFlight.poll();
+            sink.deleteFence(fence[0]);
+            tail = fence[1];
+        }
+        if (inFlight.isEmpty() && pending.isEmpty()) {
+            // Nothing references the ring, start over at the front
+            tail = head;
+        }
+    }
+
+    private void stageOverflow() {
+        // Large writes go through in chunks so they never need the whole ring
+        int maxChunk = Math.max(ALIGNMENT, capacity / 4 & -ALIGNMENT);
+        while (!overflow.isEmpty()) {
+            Overflow<T> entry = overflow.peek();
+            int remaining = entry.data.capacity() - entry.staged;
+            int chunk = Math.min(remaining, maxChunk);
+            long position = allocate(chunk);
+            if (position < 0) {
+                return;
+            }
+
+            int stagingOffset = (int) (position % capacity);
+            memory.put(stagingOffset, entry.data, entry.staged, chunk);
+            pending.add(new Copy<>(entry.target, stagingOffset, entry.targetOffset + entry.staged, chunk,
+                    position + align(chunk)));
+            entry.staged += chunk;
+            if (entry.staged == entry.data.capacity()) {
+                overflow.poll();
+            }
+        }
+    }
+
+    private static int align(int bytes) {
+        return (bytes + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            for (long[] fence : inFlight) {
+                sink.deleteFence(fence[0]);
+            }
+            inFlight.clear();
+            pending.clear();
+            overflow.clear();
+            sink.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class Copy<T> {
+        final T target;
+        final long stagingOffset;
+        long targetOffset;
+        long size;
+        // Ring position after this copy's range
+        final long ringEnd;
+
+        Copy(T target, long stagingOffset, long targetOffset, long size, long ringEnd) {
+            this.target = target;
+            this.stagingOffset = stagingOffset;
+            this.targetOffset = targetOffset;
+            this.size = size;
+            this.ringEnd = ringEnd;
+        }
+    }
+
+    private static final class Overflow<T> {
+        final T target;
+        final ByteBuffer data;
+        long targetOffset;
+        int staged;
+
+        Overflow(T target, long targetOffset, ByteBuffer data) {
+            this.target = target;
+            this.targetOffset = targetOffset;
+            this.data = data;
+        }
+    }
+}
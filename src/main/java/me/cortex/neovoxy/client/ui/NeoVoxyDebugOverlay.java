@@ -4,6 +4,7 @@ import me.cortex.neovoxy.NeoVoxy;
 import me.cortex.neovoxy.NeoVoxyClient;
 import me.cortex.neovoxy.client.config.NeoVoxyConfig;
 import me.cortex.neovoxy.client.core.VoxyRenderSystem;
+import me.cortex.neovoxy.common.metrics.Metrics;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.Font;
 import net.minecraft.client.gui.GuiGraphics;
@@ -74,11 +75,24 @@ public class NeoVoxyDebugOverlay {
             lines.add("Nodes: " + nodeManager.getNodeCount());
         }
         
+        var serviceManager = renderSystem.getServiceManager();
+        if (serviceManager != null) {
+            var scaler = serviceManager.getScaler();
+            String workers = "Workers: " + serviceManager.getActiveWorkerCount() + "/" + serviceManager.getThreadCount()
+                    + ", queued " + serviceManager.getPendingJobCount();
+            if (scaler != null) {
+                workers += String.format(" (%s, %.1f ms)", scaler.getState().name().toLowerCase(), scaler.getFrameTimeMillis());
+            }
+            lines.add(workers);
+        }
+        
         var modelService = renderSystem.getModelService();
         if (modelService != null) {
             lines.add("Models: " + modelService.getStore().getModelCount());
         }
         
+        lines.addAll(Metrics.formatLines(false));
+        
         lines.add("Status: Rendering");
         return lines;
     }
@@ -0,0 +1,26 @@
+package me.cortex.neovoxy.common.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Allocation of space for a section's quads in the geometry buffer.
+ */
+@Name("neovoxy.GeometryAllocation")
+@Label("Geometry Allocation")
+@Category({"NeoVoxy", "Geometry"})
+@Enabled(false)
+@StackTrace(false)
+public class GeometryAllocationEvent extends Event {
+
+    @Label("Quad Count")
+    public int quadCount;
+
+    @Label("Offset")
+    @Description("Byte offset of the allocation, -1 if it failed")
+    public long offset;
+
+    @Label("Usage")
+    @Description("Bytes in use after the allocation")
+    @DataAmount
+    public long usage;
+}
@@ -0,0 +1,26 @@
+package me.cortex.neovoxy.common.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Greedy meshing of one voxelized section.
+ */
+@Name("neovoxy.Mesh")
+@Label("Mesh Section")
+@Category({"NeoVoxy", "Pipeline"})
+@Enabled(false)
+@StackTrace(false)
+public class MeshEvent extends Event {
+
+    @Label("Section X")
+    public int x;
+
+    @Label("Section Y")
+    public int y;
+
+    @Label("Section Z")
+    public int z;
+
+    @Label("Quad Count")
+    public int quadCount;
+}
@@ -0,0 +1,28 @@
+package me.cortex.neovoxy.common.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Addition or removal of a top-level column.
+ */
+@Name("neovoxy.NodeChange")
+@Label("Node Change")
+@Category({"NeoVoxy", "Nodes"})
+@Enabled(false)
+@StackTrace(false)
+public class NodeChangeEvent extends Event {
+
+    @Label("Column X")
+    public int x;
+
+    @Label("Column Z")
+    public int z;
+
+    @Label("Roots Freed")
+    @Description("Root nodes freed by a removal, -1 if the column was already in that state")
+    public int rootsFreed;
+
+    @Label("Added")
+    @Description("True for an addition, false for a removal")
+    public boolean added;
+}
@@ -0,0 +1,24 @@
+package me.cortex.neovoxy.common.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Read of one section from LMDB. The event duration is the read latency.
+ */
+@Name("neovoxy.StorageRead")
+@Label("Storage Read")
+@Category({"NeoVoxy", "Storage"})
+@Enabled(false)
+@StackTrace(false)
+public class StorageReadEvent extends Event {
+
+    @Label("Section Position")
+    public long sectionPos;
+
+    @Label("Bytes")
+    @DataAmount
+    public int bytes;
+
+    @Label("Found")
+    public boolean found;
+}
@@ -0,0 +1,24 @@
+package me.cortex.neovoxy.common.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Write of one section to LMDB, including the commit. The event duration is the write latency.
+ */
+@Name("neovoxy.StorageWrite")
+@Label("Storage Write")
+@Category({"NeoVoxy", "Storage"})
+@Enabled(false)
+@StackTrace(false)
+public class StorageWriteEvent extends Event {
+
+    @Label("Section Position")
+    public long sectionPos;
+
+    @Label("Bytes")
+    @DataAmount
+    public int bytes;
+
+    @Label("Success")
+    public boolean success;
+}
@@ -0,0 +1,27 @@
+package me.cortex.neovoxy.common.jfr;
+
+import jdk.jfr.*;
+
+/**
+ * Conversion of one chunk section to voxel data.
+ */
+@Name("neovoxy.Voxelize")
+@Label("Voxelize Section")
+@Category({"NeoVoxy", "Pipeline"})
+@Enabled(false)
+@StackTrace(false)
+public class VoxelizeEvent extends Event {
+
+    @Label("Section X")
+    public int x;
+
+    @Label("Section Y")
+    public int y;
+
+    @Label("Section Z")
+    public int z;
+
+    @Label("Empty")
+    @Description("The section had no solid voxels")
+    public boolean empty;
+}
@@ -1,189 +1,239 @@
 package me.cortex.neovoxy.common.meshing;
 
+import me.cortex.neovoxy.common.voxelization.SectionBorder;
 import me.cortex.neovoxy.common.voxelization.VoxelizedSection;
-import net.minecraft.core.Direction;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 /**
  * Greedy mesher for generating optimized LOD quads.
- * 
+ *
  * <p>Merges adjacent faces with identical properties (block state, biome, light)
  * into larger quads, reducing vertex count significantly.
+ *
+ * <p>Occupancy is held as 16-bit row bitfields. Face visibility for a whole row is
+ * computed with a single AND against the neighbouring slice, and merging walks the
+ * set bits with trailing-zero counts. All scratch state and the output buffer are
+ * reused between sections, so an instance is not thread-safe; keep one per worker.
+ *
+ * <p>Faces on the section boundary are culled against the border layers of the
+ * neighbouring sections when they are supplied; missing neighbours count as air.
  */
 public class GreedyMesher {
-    
-    // Quad packed format:
-    // Bits 0-2: Face (0-5)
-    // Bits 3-7: Width-1 (0-31)
-    // Bits 8-12: Height-1 (0-31)
-    // Bits 13-17: X position (0-31)
-    // Bits 18-22: Y position (0-31)
-    // Bits 23-27: Z position (0-31)
-    // Bits 28-47: State ID (20 bits)
-    // Bits 48-56: Biome ID (9 bits)
-    // Bits 57-64: Light level (8 bits)
-    
+
+    // Quads are packed with QuadFormat.
+    // Face axis is face >> 1: 0 = Y (u = x, v = z), 1 = Z (u = x, v = y), 2 = X (u = y, v = z)
+
+    private static final int ROW_MASK = 0xFFFF;
+
+    // Rows of solid voxels along X, indexed by (y << 4) | z
+    private final int[] rowsAlongX = new int[256];
+    // Rows of solid voxels along Y, indexed by (x << 4) | z
+    private final int[] rowsAlongY = new int[256];
+    // Merge key per voxel (state | biome | light), only valid where solid
+    private final long[] keys = new long[4096];
+    // Visible faces of the slice currently being merged, one row per v
+    private final int[] faceRows = new int[16];
+
+    private long[] quads = new long[4096];
+    private int quadCount;
+
     /**
      * Generate quads from a voxelized section.
-     * 
+     *
      * @param section Voxelized section data
      * @return Array of packed 64-bit quads
      */
     public long[] mesh(VoxelizedSection section) {
+        return mesh(section, null);
+    }
+
+    /**
+     * Generate quads from a voxelized section, culling boundary faces against its neighbours.
+     *
+     * @param section Voxelized section data
+     * @param neighbours Borders of the adjacent sections indexed by face, or null
+     * @return Array of packed 64-bit quads
+     */
+    public long[] mesh(VoxelizedSection section, SectionBorder[] neighbours) {
+        int count = meshInto(section, neighbours);
+        return Arrays.copyOf(quads, count);
+    }
+
+    /**
+     * Generate quads into the reusable quad buffer.
+     *
+     * @param section Voxelized section data
+     * @param neighbours Borders of the adjacent sections indexed by face, or null
+     * @return Number of quads written to {@link #getQuads()}
+     */
+    public int meshInto(VoxelizedSection section, SectionBorder[] neighbours) {
+        quadCount = 0;
         if (section.isEmpty()) {
-            return new long[0];
+            return 0;
+        }
+
+        buildRows(section);
+
+        for (int face = 0; face < 6; face++) {
+            meshFace(face, neighbours == null ? null : neighbours[face]);
         }
-        
-        List<Long> quads = new ArrayList<>();
-        
-        // Process each face direction
-        for (Direction face : Direction.values()) {
-            meshFace(section, face, quads);
+
+        return quadCount;
+    }
+
+    /**
+     * Get the quad buffer written by the last call to {@link #meshInto}.
+     * Only the first {@link #getQuadCount()} entries are valid.
+     */
+    public long[] getQuads() {
+        return quads;
+    }
+
+    /**
+     * Get the number of quads produced by the last mesh call.
+     */
+    public int getQuadCount() {
+        return quadCount;
+    }
+
+    private void buildRows(VoxelizedSection section) {
+        Arrays.fill(rowsAlongX, 0);
+        Arrays.fill(rowsAlongY, 0);
+
+        for (int y = 0; y < 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                int row = 0;
+                for (int x = 0; x < 16; x++) {
+                    int stateId = section.getStateId(x, y, z);
+                    if (stateId == 0) continue;
+
+                    row |= 1 << x;
+                    rowsAlongY[(x << 4) | z] |= 1 << y;
+                    keys[(y << 8) | (z << 4) | x] = packKey(stateId,
+                        section.getBiomeId(x, y, z), section.getLightLevel(x, y, z));
+                }
+                rowsAlongX[(y << 4) | z] = row;
+            }
         }
-        
-        return quads.stream().mapToLong(Long::longValue).toArray();
     }
-    
-    private void meshFace(VoxelizedSection section, Direction face, List<Long> quads) {
-        int axis = face.getAxis().ordinal();
-        boolean positive = face.getAxisDirection() == Direction.AxisDirection.POSITIVE;
-        
-        // Create visited mask
-        boolean[][][] visited = new boolean[16][16][16];
-        
-        // Iterate along the face axis
+
+    private void meshFace(int face, SectionBorder neighbourBorder) {
+        int axis = face >> 1;
+        int step = (face & 1) == 0 ? -1 : 1;
+        int opposite = face ^ 1;
+
         for (int d = 0; d < 16; d++) {
+            int nd = d + step;
+            boolean boundary = nd < 0 || nd >= 16;
+
+            int any = 0;
             for (int v = 0; v < 16; v++) {
-                for (int u = 0; u < 16; u++) {
-                    int x, y, z;
-                    
-                    // Convert uvd coordinates to xyz based on face
-                    switch (axis) {
-                        case 0 -> { // X axis (EAST/WEST)
-                            x = positive ? d : 15 - d;
-                            y = v;
-                            z = u;
-                        }
-                        case 1 -> { // Y axis (UP/DOWN)
-                            x = u;
-                            y = positive ? d : 15 - d;
-                            z = v;
-                        }
-                        default -> { // Z axis (SOUTH/NORTH)
-                            x = u;
-                            y = v;
-                            z = positive ? d : 15 - d;
-                        }
-                    }
-                    
-                    if (visited[x][y][z]) continue;
-                    if (!section.hasBlock(x, y, z)) continue;
-                    
-                    // Check if face is exposed
-                    if (!isFaceExposed(section, x, y, z, face)) continue;
-                    
-                    int stateId = section.getStateId(x, y, z);
-                    int biomeId = section.getBiomeId(x, y, z);
-                    int light = section.getLightLevel(x, y, z);
-                    
-                    // Find maximum quad size with greedy expansion
-                    int width = 1;
-                    int height = 1;
-                    
-                    // Expand along u axis
-                    while (u + width < 16) {
-                        int nx, ny, nz;
-                        switch (axis) {
-                            case 0 -> { nx = x; ny = y; nz = z + width; }
-                            case 1 -> { nx = x + width; ny = y; nz = z; }
-                            default -> { nx = x + width; ny = y; nz = z; }
-                        }
-                        
-                        if (canMerge(section, visited, nx, ny, nz, face, stateId, biomeId, light)) {
-                            width++;
-                        } else {
-                            break;
-                        }
-                    }
-                    
-                    // Expand along v axis
-                    outer:
-                    while (v + height < 16) {
-                        for (int wu = 0; wu < width; wu++) {
-                            int nx, ny, nz;
-                            switch (axis) {
-                                case 0 -> { nx = x; ny = y + height; nz = z + wu; }
-                                case 1 -> { nx = x + wu; ny = y; nz = z + height; }
-                                default -> { nx = x + wu; ny = y + height; nz = z; }
-                            }
-                            
-                            if (!canMerge(section, visited, nx, ny, nz, face, stateId, biomeId, light)) {
-                                break outer;
-                            }
-                        }
-                        height++;
-                    }
-                    
-                    // Mark visited
-                    for (int vy = 0; vy < height; vy++) {
-                        for (int vx = 0; vx < width; vx++) {
-                            int mx, my, mz;
-                            switch (axis) {
-                                case 0 -> { mx = x; my = y + vy; mz = z + vx; }
-                                case 1 -> { mx = x + vx; my = y; mz = z + vy; }
-                                default -> { mx = x + vx; my = y + vy; mz = z; }
-                            }
-                            visited[mx][my][mz] = true;
+                int neighbour;
+                if (boundary) {
+                    // Cull against the touching layer of the neighbour section, if known
+                    neighbour = neighbourBorder == null ? 0 : neighbourBorder.row(opposite, v);
+                } else {
+                    neighbour = row(axis, nd, v);
+                }
+                int visible = row(axis, d, v) & ~neighbour;
+                faceRows[v] = visible;
+                any |= visible;
+            }
+
+            if (any != 0) {
+                mergeSlice(face, axis, d);
+            }
+        }
+    }
+
+    private void mergeSlice(int face, int axis, int d) {
+        for (int v = 0; v < 16; v++) {
+            int bits = faceRows[v];
+            while (bits != 0) {
+                int u = Integer.numberOfTrailingZeros(bits);
+                long key = keys[index(axis, d, u, v)];
+
+                // Widest run of set bits starting at u, clipped to matching keys
+                int run = Integer.numberOfTrailingZeros(~(bits >>> u));
+                int width = 1;
+                while (width < run && keys[index(axis, d, u + width, v)] == key) {
+                    width++;
+                }
+                int runMask = (ROW_MASK >>> (16 - width)) << u;
+
+                int height = 1;
+                outer:
+                while (v + height < 16) {
+                    int next = faceRows[v + height];
+                    if ((next & runMask) != runMask) break;
+                    for (int wu = 0; wu < width; wu++) {
+                        if (keys[index(axis, d, u + wu, v + height)] != key) {
+                            break outer;
                         }
                     }
-                    
-                    // Pack quad
-                    long quad = packQuad(face.ordinal(), width, height, x, y, z, stateId, biomeId, light);
-                    quads.add(quad);
+                    height++;
+                }
+
+                for (int hv = 0; hv < height; hv++) {
+                    faceRows[v + hv] &= ~runMask;
                 }
+                bits = faceRows[v];
+
+                emit(face, axis, d, u, v, width, height, key);
             }
         }
     }
-    
-    private boolean isFaceExposed(VoxelizedSection section, int x, int y, int z, Direction face) {
-        int nx = x + face.getStepX();
-        int ny = y + face.getStepY();
-        int nz = z + face.getStepZ();
-        
-        // Face at section boundary is exposed (neighbor section handles occlusion)
-        if (nx < 0 || nx >= 16 || ny < 0 || ny >= 16 || nz < 0 || nz >= 16) {
-            return true;
+
+    private void emit(int face, int axis, int d, int u, int v, int width, int height, long key) {
+        int x, y, z;
+        switch (axis) {
+            case 0 -> { x = u; y = d; z = v; }
+            case 1 -> { x = u; y = v; z = d; }
+            default -> { x = d; y = u; z = v; }
         }
-        
-        // Face is exposed if neighbor is air
-        return !section.hasBlock(nx, ny, nz);
+
+        if (quadCount == quads.length) {
+            quads = Arrays.copyOf(quads, quads.length * 2);
+        }
+        quads[quadCount++] = QuadFormat.pack(face, width, height, x, y, z,
+            keyState(key), keyBiome(key), keyLight(key));
     }
-    
-    private boolean canMerge(VoxelizedSection section, boolean[][][] visited,
-                             int x, int y, int z, Direction face,
-                             int stateId, int biomeId, int light) {
-        if (x < 0 || x >= 16 || y < 0 || y >= 16 || z < 0 || z >= 16) return false;
-        if (visited[x][y][z]) return false;
-        if (!section.hasBlock(x, y, z)) return false;
-        if (!isFaceExposed(section, x, y, z, face)) return false;
-        
-        return section.getStateId(x, y, z) == stateId
-            && section.getBiomeId(x, y, z) == biomeId
-            && section.getLightLevel(x, y, z) == light;
+
+    /**
+     * Row of solid voxels in slice {@code d} at row {@code v}, one bit per u.
+     */
+    private int row(int axis, int d, int v) {
+        return switch (axis) {
+            case 0 -> rowsAlongX[(d << 4) | v];
+            case 1 -> rowsAlongX[(v << 4) | d];
+            default -> rowsAlongY[(d << 4) | v];
+        };
     }
-    
-    private long packQuad(int face, int width, int height, int x, int y, int z,
-                          int stateId, int biomeId, int light) {
-        return (long)(face & 0x7)
-             | ((long)(width - 1) & 0x1F) << 3
-             | ((long)(height - 1) & 0x1F) << 8
-             | ((long)(x & 0x1F)) << 13
-             | ((long)(y & 0x1F)) << 18
-             | ((long)(z & 0x1F)) << 23
-             | ((long)(stateId & 0xFFFFF)) << 28
-             | ((long)(biomeId & 0x1FF)) << 48
-             | ((long)(light & 0xFF)) << 57;
+
+    private static int index(int axis, int d, int u, int v) {
+        return switch (axis) {
+            case 0 -> (d << 8) | (v << 4) | u;
+            case 1 -> (v << 8) | (d << 4) | u;
+            default -> (u << 8) | (v << 4) | d;
+        };
+    }
+
+    private static long packKey(int stateId, int biomeId, int light) {
+        return ((long) stateId & 0xFFFFF)
+             | ((long) biomeId & 0x1FF) << 20
+             | ((long) light & 0xFF) << 29;
+    }
+
+    private static int keyState(long key) {
+        return (int) (key & 0xFFFFF);
+    }
+
+    private static int keyBiome(long key) {
+        return (int) ((key >>> 20) & 0x1FF);
+    }
+
+    private static int keyLight(long key) {
+        return (int) ((key >>> 29) & 0xFF);
     }
 }
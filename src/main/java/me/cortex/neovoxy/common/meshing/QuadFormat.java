@@ -0,0 +1,131 @@
+package me.cortex.neovoxy.common.meshing;
+
+/**
+ * Canonical 64-bit quad encoding shared by the meshers, the geometry buffers
+ * and the shaders.
+ *
+ * <p>Layout (must stay in sync with {@code lod/quad_format.glsl}):
+ * <ul>
+ *   <li>Bits 0-2: Face (0-5, Direction ordinal, axis = face &gt;&gt; 1)</li>
+ *   <li>Bits 3-6: Width - 1 (0-15)</li>
+ *   <li>Bits 7-10: Height - 1 (0-15)</li>
+ *   <li>Bits 11-15: Z position (0-31)</li>
+ *   <li>Bits 16-20: Y position (0-31)</li>
+ *   <li>Bits 21-25: X position (0-31)</li>
+ *   <li>Bits 26-45: State ID (20 bits)</li>
+ *   <li>Bits 46-54: Biome ID (9 bits)</li>
+ *   <li>Bits 55-62: Light level (8 bits)</li>
+ * </ul>
+ *
+ * <p>Width runs along the face's u axis and height along its v axis:
+ * Y faces use (x, z), Z faces use (x, y) and X faces use (y, z).
+ */
+public final class QuadFormat {
+
+    public static final int BYTES_PER_QUAD = 8;
+
+    public static final int FACE_SHIFT = 0;
+    public static final int WIDTH_SHIFT = 3;
+    public static final int HEIGHT_SHIFT = 7;
+    public static final int Z_SHIFT = 11;
+    public static final int Y_SHIFT = 16;
+    public static final int X_SHIFT = 21;
+    public static final int STATE_SHIFT = 26;
+    public static final int BIOME_SHIFT = 46;
+    public static final int LIGHT_SHIFT = 55;
+
+    public static final int FACE_BITS = 3;
+    public static final int SIZE_BITS = 4;
+    public static final int POSITION_BITS = 5;
+    public static final int STATE_BITS = 20;
+    public static final int BIOME_BITS = 9;
+    public static final int LIGHT_BITS = 8;
+
+    /** Largest width or height a single quad can span. */
+    public static final int MAX_SIZE = 1 << SIZE_BITS;
+
+    private QuadFormat() {}
+
+    /**
+     * Pack a quad.
+     *
+     * @param face Face index (0-5)
+     * @param width Quad width along u (1-16)
+     * @param height Quad height along v (1-16)
+     */
+    public static long pack(int face, int width, int height, int x, int y, int z,
+                            int stateId, int biomeId, int light) {
+        return field(face, FACE_BITS, FACE_SHIFT)
+             | field(width - 1, SIZE_BITS, WIDTH_SHIFT)
+             | field(height - 1, SIZE_BITS, HEIGHT_SHIFT)
+             | field(z, POSITION_BITS, Z_SHIFT)
+             | field(y, POSITION_BITS, Y_SHIFT)
+             | field(x, POSITION_BITS, X_SHIFT)
+             | field(stateId, STATE_BITS, STATE_SHIFT)
+             | field(biomeId, BIOME_BITS, BIOME_SHIFT)
+             | field(light, LIGHT_BITS, LIGHT_SHIFT);
+    }
+
+    public static int getFace(long quad) {
+        return extract(quad, FACE_BITS, FACE_SHIFT);
+    }
+
+    public static int getWidth(long quad) {
+        return extract(quad, SIZE_BITS, WIDTH_SHIFT) + 1;
+    }
+
+    public static int getHeight(long quad) {
+        return extract(quad, SIZE_BITS, HEIGHT_SHIFT) + 1;
+    }
+
+    public static int getX(long quad) {
+        return extract(quad, POSITION_BITS, X_SHIFT);
+    }
+
+    public static int getY(long quad) {
+        return extract(quad, POSITION_BITS, Y_SHIFT);
+    }
+
+    public static int getZ(long quad) {
+        return extract(quad, POSITION_BITS, Z_SHIFT);
+    }
+
+    public static int getStateId(long quad) {
+        return extract(quad, STATE_BITS, STATE_SHIFT);
+    }
+
+    public static int getBiomeId(long quad) {
+        return extract(quad, BIOME_BITS, BIOME_SHIFT);
+    }
+
+    public static int getLight(long quad) {
+        return extract(quad, LIGHT_BITS, LIGHT_SHIFT);
+    }
+
+    /**
+     * Get the axis of a face (0 = Y, 1 = Z, 2 = X).
+     */
+    public static int getAxis(long quad) {
+        return getFace(quad) >> 1;
+    }
+
+    /**
+     * Describe a quad for logging and debugging.
+     */
+    public static String toString(long quad) {
+        return "Quad[face=" + getFace(quad)
+             + ", size=" + getWidth(quad) + "x" + getHeight(quad)
+             + ", pos=(" + getX(quad) + ", " + getY(quad) + ", " + getZ(quad) + ")"
+             + ", state=" + getStateId(quad)
+             + ", biome=" + getBiomeId(quad)
+             + ", light=" + getLight(quad) + "]";
+    }
+
+    private static long field(int value, int bits, int shift) {
+        return ((long) value & ((1L << bits) - 1)) << shift;
+    }
+
+    private static int extract(long quad, int bits, int shift) {
+        return (int) ((quad >>> shift) & ((1L << bits) - 1));
+    }
+}
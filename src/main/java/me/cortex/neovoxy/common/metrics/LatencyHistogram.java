@@ -0,0 +1,111 @@
+package me.cortex.neovoxy.common.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with HDR-style log-linear buckets.
+ *
+ * <p>Values below {@link #SUB_BUCKETS} get one bucket each; above that every
+ * power of two is split into {@link #SUB_BUCKETS} linear buckets, so any
+ * recorded value is reported within about 3% of its true value. Values are in
+ * nanoseconds and clamp at about 18 minutes.
+ *
+ * <p>Recording is a few atomic increments and safe from any thread.
+ * {@link #drainTo(long[])} moves the counts out for reporting.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Highest power of two tracked
+    private static final int MAX_EXPONENT = 40;
+    public static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Record one value in nanoseconds.
+     */
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        buckets.incrementAndGet(bucketIndex(nanos));
+        count.increment();
+        if (nanos > max.get()) {
+            max.accumulateAndGet(nanos, Math::max);
+        }
+    }
+
+    /**
+     * Move the bucket counts into {@code out} and reset them.
+     *
+     * @param out Array of {@link #BUCKET_COUNT} entries, overwritten
+     * @return Largest value recorded since the last drain
+     */
+    public long drainTo(long[] out) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            out[i] = buckets.getAndSet(i, 0);
+        }
+        count.reset();
+        return max.getAndSet(0);
+    }
+
+    /**
+     * Get the number of values recorded since the last drain.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Smallest value that falls into a bucket.
+     */
+    static long bucketLowerBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int sub = index % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS | sub) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    /**
+     * Value at a percentile of drained bucket counts.
+     *
+     * @param counts     Drained bucket counts
+     * @param total      Sum of {@code counts}
+     * @param percentile Percentile in [0, 100]
+     * @return Middle of the bucket holding the percentile, or 0 if empty
+     */
+    public static long valueAtPercentile(long[] counts, long total, double percentile) {
+        if (total <= 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                long low = bucketLowerBound(i);
+                long high = i + 1 < BUCKET_COUNT ? bucketLowerBound(i + 1) : low;
+                return low + (high - low) / 2;
+            }
+        }
+        return bucketLowerBound(BUCKET_COUNT - 1);
+    }
+}
@@ -0,0 +1,252 @@
+package me.cortex.neovoxy.common.metrics;
+
+import me.cortex.neovoxy.common.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Process-wide metrics for the background pipeline.
+ *
+ * <p>Each {@link Stage} has a total counter and a {@link LatencyHistogram}.
+ * Call sites time a stage with:
+ * <pre>{@code
+ * long start = Metrics.start();
+ * ...
+ * Metrics.record(Metrics.Stage.MESH, start);
+ * }</pre>
+ * Subsystems with a work queue register its depth with {@link #registerQueue}.
+ *
+ * <p>Once {@link #start} has been called, a background thread closes a window
+ * every second. Rates and percentiles reported by {@link #getStageSnapshots()}
+ * are from the last complete window. With a dump file set, the report is also
+ * appended to it at a fixed interval.
+ */
+public final class Metrics {
+
+    private static final long WINDOW_NANOS = 1_000_000_000L;
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    public enum Stage {
+        INGEST("ingest"),
+        VOXELIZE("voxelize"),
+        STORE_PUT("store put"),
+        STORE_GET("store get"),
+        MESH("mesh"),
+        UPLOAD("upload"),
+        NODE_UPDATE("node update"),
+        REMESH("remesh latency");
+
+        private final String label;
+
+        Stage(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    /**
+     * Stage figures from the last complete window. Latencies are in nanoseconds.
+     */
+    public record StageSnapshot(Stage stage, long total, double perSecond, long p50, long p99, long max) {
+    }
+
+    private static final class StageMetrics {
+        final LongAdder total = new LongAdder();
+        final LatencyHistogram histogram = new LatencyHistogram();
+        // Scratch for draining, only touched by the window thread
+        final long[] drained = new long[LatencyHistogram.BUCKET_COUNT];
+        volatile StageSnapshot snapshot;
+    }
+
+    private static final StageMetrics[] STAGES = new StageMetrics[Stage.values().length];
+    private static final Map<String, IntSupplier> QUEUES = new ConcurrentSkipListMap<>();
+
+    private static ScheduledExecutorService scheduler;
+    private static long lastWindowTime;
+
+    static {
+        for (Stage stage : Stage.values()) {
+            StageMetrics metrics = new StageMetrics();
+            metrics.snapshot = new StageSnapshot(stage, 0, 0, 0, 0, 0);
+            STAGES[stage.ordinal()] = metrics;
+        }
+    }
+
+    private Metrics() {}
+
+    /**
+     * Timestamp to pass to {@link #record(Stage, long)}.
+     */
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Record one completed unit of a stage that began at {@code startNanos}.
+     */
+    public static void record(Stage stage, long startNanos) {
+        recordDuration(stage, System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Record one completed unit of a stage that took {@code nanos}.
+     */
+    public static void recordDuration(Stage stage, long nanos) {
+        StageMetrics metrics = STAGES[stage.ordinal()];
+        metrics.total.increment();
+        metrics.histogram.record(nanos);
+    }
+
+    /**
+     * Register a queue whose depth is reported under {@code name}.
+     * Replaces a queue already registered under the same name.
+     */
+    public static void registerQueue(String name, IntSupplier depth) {
+        QUEUES.put(name, depth);
+    }
+
+    public static void unregisterQueue(String name) {
+        QUEUES.remove(name);
+    }
+
+    /**
+     * Start closing a window every second.
+     *
+     * @param dumpFile            File the report is appended to, or null for no dump
+     * @param dumpIntervalSeconds Seconds between dumps, 0 for no dump
+     */
+    public static synchronized void start(Path dumpFile, int dumpIntervalSeconds) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "NeoVoxy-Metrics");
+            t.setDaemon(true);
+            return t;
+        });
+        lastWindowTime = System.nanoTime();
+        scheduler.scheduleAtFixedRate(Metrics::closeWindow, 1, 1, TimeUnit.SECONDS);
+
+        if (dumpFile != null && dumpIntervalSeconds > 0) {
+            scheduler.scheduleAtFixedRate(() -> dump(dumpFile),
+                    dumpIntervalSeconds, dumpIntervalSeconds, TimeUnit.SECONDS);
+            Logger.info("Dumping metrics to {} every {} s", dumpFile, dumpIntervalSeconds);
+        }
+    }
+
+    /**
+     * Stop the window thread. Totals are kept.
+     */
+    public static synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdownNow();
+        scheduler = null;
+    }
+
+    private static void closeWindow() {
+        long now = System.nanoTime();
+        double seconds = Math.max(1, now - lastWindowTime) / (double) WINDOW_NANOS;
+        lastWindowTime = now;
+
+        for (StageMetrics metrics : STAGES) {
+            long max = metrics.histogram.drainTo(metrics.drained);
+            long count = 0;
+            for (long bucket : metrics.drained) {
+                count += bucket;
+            }
+            metrics.snapshot = new StageSnapshot(metrics.snapshot.stage(), metrics.total.sum(), count / seconds,
+                    LatencyHistogram.valueAtPercentile(metrics.drained, count, 50),
+                    LatencyHistogram.valueAtPercentile(metrics.drained, count, 99),
+                    max);
+        }
+    }
+
+    /**
+     * Get the figures of every stage from the last complete window.
+     */
+    public static List<StageSnapshot> getStageSnapshots() {
+        List<StageSnapshot> snapshots = new ArrayList<>(STAGES.length);
+        for (StageMetrics metrics : STAGES) {
+            snapshots.add(metrics.snapshot);
+        }
+        return snapshots;
+    }
+
+    /**
+     * Get the current depth of every registered queue, by name.
+     */
+    public static Map<String, Integer> getQueueDepths() {
+        Map<String, Integer> depths = new LinkedHashMap<>();
+        for (var entry : QUEUES.entrySet()) {
+            depths.put(entry.getKey(), entry.getValue().getAsInt());
+        }
+        return depths;
+    }
+
+    /**
+     * Format the report, one line per active stage and one for queue depths.
+     *
+     * @param includeIdle Also list stages that have never run
+     */
+    public static List<String> formatLines(boolean includeIdle) {
+        List<String> lines = new ArrayList<>();
+        for (StageSnapshot snapshot : getStageSnapshots()) {
+            if (!includeIdle && snapshot.total() == 0) continue;
+            lines.add(String.format("%s: %.0f/s, p50 %s, p99 %s, max %s (total %d)",
+                    snapshot.stage().getLabel(), snapshot.perSecond(),
+                    formatNanos(snapshot.p50()), formatNanos(snapshot.p99()), formatNanos(snapshot.max()),
+                    snapshot.total()));
+        }
+
+        Map<String, Integer> depths = getQueueDepths();
+        if (!depths.isEmpty()) {
+            StringBuilder queues = new StringBuilder("queues:");
+            for (var entry : depths.entrySet()) {
+                queues.append(' ').append(entry.getKey()).append('=').append(entry.getValue());
+            }
+            lines.add(queues.toString());
+        }
+        return lines;
+    }
+
+    private static String formatNanos(long nanos) {
+        if (nanos < 1_000) return nanos + "ns";
+        if (nanos < 1_000_000) return String.format("%.1fus", nanos / 1_000.0);
+        return String.format("%.2fms", nanos / 1_000_000.0);
+    }
+
+    private static void dump(Path file) {
+        StringBuilder report = new StringBuilder();
+        report.append('[').append(LocalDateTime.now().format(TIMESTAMP)).append(']').append(System.lineSeparator());
+        for (String line : formatLines(true)) {
+            report.append("  ").append(line).append(System.lineSeparator());
+        }
+
+        try {
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, report, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            Logger.warn("Failed to write metrics to {}: {}", file, e.getMessage());
+        }
+    }
+}
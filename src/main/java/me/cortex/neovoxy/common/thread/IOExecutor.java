@@ -0,0 +1,93 @@
+package me.cortex.neovoxy.common.thread;
+
+import me.cortex.neovoxy.common.Logger;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor for blocking storage and file I/O.
+ *
+ * <p>Every task runs on its own virtual thread, so a task waiting on disk parks
+ * its virtual thread instead of holding one of the {@link ServiceManager}'s
+ * platform workers. CPU-bound work such as meshing belongs on the service
+ * workers, not here.
+ *
+ * <p>Tasks must not hold monitors or native locks across blocking calls, as that
+ * pins the carrier thread; limit concurrency into native code with a
+ * {@link Semaphore} instead (see {@code StorageBackend}).
+ */
+public class IOExecutor {
+
+    private final ExecutorService executor;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile boolean isShutdown = false;
+
+    public IOExecutor() {
+        this.executor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("NeoVoxy-IO-", 0).factory());
+    }
+
+    /**
+     * Run a blocking task on a virtual thread.
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        if (isShutdown) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("IOExecutor is shut down"));
+        }
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+        inFlight.incrementAndGet();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(task.call());
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.decrementAndGet();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Run a blocking task without a result on a virtual thread.
+     */
+    public CompletableFuture<Void> submit(Runnable task) {
+        return submit(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Get the number of submitted tasks that have not finished.
+     */
+    public int getInFlightCount() {
+        return inFlight.get();
+    }
+
+    /**
+     * Stop accepting tasks and wait for running ones to finish.
+     */
+    public void shutdown() {
+        if (isShutdown) return;
+        isShutdown = true;
+
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                Logger.error("IOExecutor did not finish {} tasks", inFlight.get());
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
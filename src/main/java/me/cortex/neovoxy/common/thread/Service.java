@@ -0,0 +1,78 @@
+package me.cortex.neovoxy.common.thread;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A job type registered with the {@link ServiceManager}.
+ *
+ * <p>A service owns its own queue of work. Each call to {@link #execute()} tells
+ * the manager that one more job is available; a worker will later call the
+ * service's job runner exactly once for it. The runner should take one item
+ * from the service's queue and tolerate finding it empty (e.g. after a cancel).
+ */
+public final class Service {
+
+    private final ServiceManager manager;
+    private final String name;
+    private final int weight;
+    private final Runnable jobRunner;
+
+    // Jobs signalled but not yet claimed by a worker
+    final AtomicInteger available = new AtomicInteger();
+    // Stride scheduling pass value, guarded by the manager's scheduling lock
+    long pass;
+
+    private volatile boolean isShutdown = false;
+
+    Service(ServiceManager manager, String name, int weight, Runnable jobRunner) {
+        this.manager = manager;
+        this.name = name;
+        this.weight = weight;
+        this.jobRunner = jobRunner;
+    }
+
+    /**
+     * Signal that one more job is available for this service.
+     */
+    public void execute() {
+        if (isShutdown) {
+            return;
+        }
+        available.incrementAndGet();
+        manager.jobAvailable();
+    }
+
+    /**
+     * Get the number of jobs signalled but not yet started.
+     */
+    public int getPendingCount() {
+        return available.get();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    boolean isShutdown() {
+        return isShutdown;
+    }
+
+    void runJob() {
+        jobRunner.run();
+    }
+
+    /**
+     * Stop scheduling this service and drop its outstanding jobs.
+     */
+    public void shutdown() {
+        if (isShutdown) {
+            return;
+        }
+        isShutdown = true;
+        manager.removeService(this);
+    }
+}
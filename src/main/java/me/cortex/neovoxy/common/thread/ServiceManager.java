@@ -1,89 +1,495 @@
 package me.cortex.neovoxy.common.thread;
 
 import me.cortex.neovoxy.common.Logger;
+import me.cortex.neovoxy.common.metrics.Metrics;
 
+import java.util.Queue;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Thread pool manager for Voxy background services.
- * 
+ * Job system for Voxy background services.
+ *
  * <p>Manages worker threads for:
  * <ul>
  *   <li>Chunk voxelization</li>
  *   <li>LOD mesh generation</li>
  *   <li>Storage I/O</li>
  * </ul>
+ *
+ * <p>Subsystems register a {@link Service} with a weight and signal jobs on it.
+ * Workers park on a semaphore until a job is signalled, then pick the service with
+ * work under stride scheduling, so each busy service gets CPU time proportional to
+ * its weight and no thread is ever dedicated to a single service.
+ *
+ * <p>In work-stealing mode each worker also owns a deque of submitted tasks.
+ * Tasks submitted from a worker go to its own deque, and tasks submitted from
+ * outside with a locality hint go to the deque of the worker the hint maps to,
+ * so a chain of work on one section (voxelize, mesh, upload) stays on one core.
+ * Owners take their newest task first; idle workers steal the oldest task of
+ * another worker. Neither takes the scheduling lock.
+ *
+ * <p>Only the first {@link #getActiveWorkerCount()} workers take jobs; the rest
+ * stay parked. With adaptive scaling a {@link ThreadScaler} moves that count
+ * between a minimum and the thread count based on frame time and backlog.
+ *
+ * <p>Blocking I/O does not run on these workers; it goes to the virtual threads
+ * of {@link #getIOExecutor()}.
  */
 public class ServiceManager {
-    
-    private final ExecutorService executor;
+
+    // Pass increment for a service of weight 1
+    private static final long STRIDE = 1 << 20;
+
+    private final WorkerThread[] workers;
     private final int threadCount;
+    private final boolean workStealing;
     private volatile boolean isShutdown = false;
-    
+
+    // One permit per signalled job across all services
+    private final Semaphore jobPermits = new Semaphore(0);
+    private final Object scheduleLock = new Object();
+    private final CopyOnWriteArrayList<Service> services = new CopyOnWriteArrayList<>();
+    private long globalPass = 0;
+
+    // Backs submit() for one-off tasks
+    private final ConcurrentLinkedQueue<Runnable> generalQueue = new ConcurrentLinkedQueue<>();
+    private final Service generalService;
+
+    // Per-worker deques, only used in work-stealing mode
+    private final ConcurrentLinkedDeque<Runnable>[] localQueues;
+    // Tasks pushed to a local deque but not yet taken
+    private final AtomicInteger localTaskCount = new AtomicInteger();
+
+    // Workers with an index at or above this park until it grows
+    private volatile int activeWorkers;
+    private final Object activeLock = new Object();
+    private volatile ThreadScaler scaler;
+
+    private final IOExecutor ioExecutor = new IOExecutor();
+
     public ServiceManager(int threadCount) {
+        this(threadCount, false);
+    }
+
+    /**
+     * @param threadCount  Number of worker threads
+     * @param workStealing Give each worker its own task deque and honour locality hints
+     */
+    @SuppressWarnings("unchecked")
+    public ServiceManager(int threadCount, boolean workStealing) {
         this.threadCount = threadCount;
-        
-        AtomicInteger threadId = new AtomicInteger(0);
-        this.executor = Executors.newFixedThreadPool(threadCount, r -> {
-            Thread t = new Thread(r, "NeoVoxy-Worker-" + threadId.getAndIncrement());
+        this.workStealing = workStealing;
+        this.activeWorkers = threadCount;
+        this.generalService = createService("General", 1, () -> {
+            Runnable task = generalQueue.poll();
+            if (task != null) {
+                task.run();
+            }
+        });
+
+        this.localQueues = new ConcurrentLinkedDeque[workStealing ? threadCount : 0];
+        for (int i = 0; i < localQueues.length; i++) {
+            localQueues[i] = new ConcurrentLinkedDeque<>();
+        }
+
+        this.workers = new WorkerThread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            WorkerThread t = new WorkerThread(this, i);
             t.setDaemon(true);
             t.setPriority(Thread.NORM_PRIORITY - 1);
-            return t;
-        });
-        
-        Logger.info("ServiceManager created with {} threads", threadCount);
+            workers[i] = t;
+            t.start();
+        }
+
+        Metrics.registerQueue("jobs", this::getPendingJobCount);
+        Metrics.registerQueue("io", ioExecutor::getInFlightCount);
+
+        Logger.info("ServiceManager created with {} threads (work stealing {})",
+                threadCount, workStealing ? "enabled" : "disabled");
     }
-    
+
     /**
-     * Submit a task for execution.
+     * Register a service.
+     *
+     * @param name      Name used in logs and statistics
+     * @param weight    Relative share of worker time when services compete (>= 1)
+     * @param jobRunner Runs one job of the service; called once per {@link Service#execute()}
      */
-    public Future<?> submit(Runnable task) {
+    public Service createService(String name, int weight, Runnable jobRunner) {
         if (isShutdown) {
             throw new RejectedExecutionException("ServiceManager is shut down");
         }
-        return executor.submit(task);
+        Service service = new Service(this, name, Math.max(1, weight), jobRunner);
+        synchronized (scheduleLock) {
+            service.pass = globalPass;
+            services.add(service);
+        }
+        Logger.info("Service '{}' registered with weight {}", name, service.getWeight());
+        return service;
+    }
+
+    void removeService(Service service) {
+        synchronized (scheduleLock) {
+            services.remove(service);
+        }
+        // Permits already released for its jobs only cause spurious wakeups
+        service.available.set(0);
+    }
+
+    void jobAvailable() {
+        jobPermits.release();
+    }
+
+    /**
+     * Submit a task for execution.
+     * In work-stealing mode a task submitted from a worker runs on that worker unless stolen.
+     */
+    public Future<?> submit(Runnable task) {
+        return submitTask(new FutureTask<>(task, null), currentWorkerIndex());
     }
-    
+
     /**
      * Submit a task with result.
      */
     public <T> Future<T> submit(Callable<T> task) {
+        return submitTask(new FutureTask<>(task), currentWorkerIndex());
+    }
+
+    /**
+     * Submit a task that prefers the worker associated with a locality key.
+     * From outside the pool, tasks with the same key (e.g. a packed section
+     * position) land on the same worker; from a worker, the task stays on that
+     * worker, which already has the section's data in its cache. Without work
+     * stealing the hint is ignored.
+     */
+    public Future<?> submit(Runnable task, long localityKey) {
+        return submitTask(new FutureTask<>(task, null), workerFor(localityKey));
+    }
+
+    /**
+     * Submit a task with result that prefers the worker associated with a locality key.
+     */
+    public <T> Future<T> submit(Callable<T> task, long localityKey) {
+        return submitTask(new FutureTask<>(task), workerFor(localityKey));
+    }
+
+    private <T> FutureTask<T> submitTask(FutureTask<T> task, int worker) {
         if (isShutdown) {
             throw new RejectedExecutionException("ServiceManager is shut down");
         }
-        return executor.submit(task);
+        if (workStealing && worker >= 0) {
+            localQueues[worker].addLast(task);
+            localTaskCount.incrementAndGet();
+            jobAvailable();
+        } else {
+            generalQueue.add(task);
+            generalService.execute();
+        }
+        return task;
+    }
+
+    private int workerFor(long localityKey) {
+        if (!workStealing) {
+            return -1;
+        }
+        int current = currentWorkerIndex();
+        if (current >= 0) {
+            return current;
+        }
+        // Mix the key so neighbouring positions spread over the active workers
+        long h = localityKey * 0x9E3779B97F4A7C15L;
+        return (int) Math.floorMod(h ^ (h >>> 32), (long) activeWorkers);
+    }
+
+    private int currentWorkerIndex() {
+        if (Thread.currentThread() instanceof WorkerThread worker && worker.manager == this) {
+            return worker.index;
+        }
+        return -1;
+    }
+
+    private void workerLoop(int index) {
+        while (!isShutdown) {
+            try {
+                awaitActive(index);
+                if (isShutdown) {
+                    break;
+                }
+                jobPermits.acquire();
+            } catch (InterruptedException e) {
+                break;
+            }
+
+            // The permit stands for one job somewhere, but a steal can take the task it was
+            // released for after this worker's scan passed the deque holding another one. Look
+            // once more, then hand the permit back instead of spinning while local tasks remain.
+            // Otherwise the permit is dropped, as for the jobs of a removed service
+            if (!runOneJob(index) && !runOneJob(index) && localTaskCount.get() > 0 && !isShutdown) {
+                jobPermits.release();
+                Thread.yield();
+            }
+        }
+    }
+
+    private void awaitActive(int index) throws InterruptedException {
+        if (index < activeWorkers) {
+            return;
+        }
+        synchronized (activeLock) {
+            while (index >= activeWorkers && !isShutdown) {
+                activeLock.wait();
+            }
+        }
     }
-    
+
+    /**
+     * Run one job: own deque first, then service jobs, then steal from another worker.
+     *
+     * @return False if no job could be found
+     */
+    private boolean runOneJob(int index) {
+        if (workStealing) {
+            Runnable task = localQueues[index].pollLast();
+            if (task != null) {
+                localTaskCount.decrementAndGet();
+                runTask(task);
+                return true;
+            }
+        }
+
+        Service service = claimNextJob();
+        if (service != null) {
+            try {
+                service.runJob();
+            } catch (Throwable t) {
+                Logger.error("Error in service '" + service.getName() + "'", t);
+            }
+            return true;
+        }
+
+        if (workStealing) {
+            for (int i = 1; i < threadCount; i++) {
+                Runnable task = localQueues[(index + i) % threadCount].pollFirst();
+                if (task != null) {
+                    localTaskCount.decrementAndGet();
+                    runTask(task);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void runTask(Runnable task) {
+        try {
+            task.run();
+        } catch (Throwable t) {
+            Logger.error("Error in submitted task", t);
+        }
+    }
+
+    /**
+     * Pick the service with the lowest pass that has work and claim one of its jobs.
+     */
+    private Service claimNextJob() {
+        // Only take the lock if some service has work, so idle scans and stealing stay lock-free
+        boolean any = false;
+        for (Service service : services) {
+            if (service.available.get() > 0) {
+                any = true;
+                break;
+            }
+        }
+        if (!any) {
+            return null;
+        }
+        synchronized (scheduleLock) {
+            Service best = null;
+            for (Service service : services) {
+                if (service.available.get() <= 0 || service.isShutdown()) continue;
+
+                // Services that sat idle do not bank credit
+                if (service.pass < globalPass) {
+                    service.pass = globalPass;
+                }
+                if (best == null || service.pass < best.pass) {
+                    best = service;
+                }
+            }
+
+            if (best == null) {
+                return null;
+            }
+
+            best.available.decrementAndGet();
+            globalPass = best.pass;
+            best.pass += STRIDE / best.getWeight();
+            return best;
+        }
+    }
+
     /**
      * Get the number of worker threads.
      */
     public int getThreadCount() {
         return threadCount;
     }
-    
+
+    /**
+     * Get the executor for blocking storage and file I/O.
+     */
+    public IOExecutor getIOExecutor() {
+        return ioExecutor;
+    }
+
+    /**
+     * Get the number of workers currently allowed to take jobs.
+     */
+    public int getActiveWorkerCount() {
+        return activeWorkers;
+    }
+
+    /**
+     * Set the number of workers allowed to take jobs, clamped to [1, thread count].
+     * Deactivated workers finish their current job and park; their queued tasks
+     * are stolen by the remaining workers.
+     */
+    public void setActiveWorkerCount(int count) {
+        synchronized (activeLock) {
+            activeWorkers = Math.max(1, Math.min(count, threadCount));
+            activeLock.notifyAll();
+        }
+    }
+
+    /**
+     * Let the active worker count follow frame time and backlog.
+     * The render thread must then call {@link #onFrame(long)} once per frame.
+     *
+     * @param minWorkers       Lowest number of active workers
+     * @param targetFrameNanos Frame time the scaler tries to stay under
+     */
+    public void enableAdaptiveScaling(int minWorkers, long targetFrameNanos) {
+        scaler = new ThreadScaler(this, minWorkers, threadCount, targetFrameNanos);
+        Logger.info("Adaptive service scaling enabled ({} to {} workers, target {} ms)",
+                scaler.getMinWorkers(), threadCount, targetFrameNanos / 1_000_000.0);
+    }
+
+    /**
+     * Report the end of a render frame; does nothing without adaptive scaling.
+     */
+    public void onFrame(long nowNanos) {
+        ThreadScaler scaler = this.scaler;
+        if (scaler != null) {
+            scaler.onFrame(nowNanos);
+        }
+    }
+
+    /**
+     * Get the adaptive scaler, or null if scaling is disabled.
+     */
+    public ThreadScaler getScaler() {
+        return scaler;
+    }
+
+    /**
+     * Check whether per-worker deques and locality hints are in use.
+     */
+    public boolean isWorkStealing() {
+        return workStealing;
+    }
+
+    /**
+     * Get the number of jobs signalled across all services but not yet started.
+     */
+    public int getPendingJobCount() {
+        int total = Math.max(0, localTaskCount.get());
+        for (Service service : services) {
+            total += service.getPendingCount();
+        }
+        return total;
+    }
+
     /**
      * Shutdown the service manager.
      */
     public void shutdown() {
         if (isShutdown) return;
         isShutdown = true;
-        
+
         Logger.info("Shutting down ServiceManager...");
-        
-        executor.shutdown();
+
+        // Wake every parked worker so it can observe the shutdown flag
+        synchronized (activeLock) {
+            activeLock.notifyAll();
+        }
+        jobPermits.release(threadCount);
+
         try {
-            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
-                executor.shutdownNow();
-                if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+            if (!awaitWorkers(5000)) {
+                for (Thread worker : workers) {
+                    worker.interrupt();
+                }
+                if (!awaitWorkers(5000)) {
                     Logger.error("ServiceManager did not terminate cleanly");
                 }
             }
         } catch (InterruptedException e) {
-            executor.shutdownNow();
+            for (Thread worker : workers) {
+                worker.interrupt();
+            }
             Thread.currentThread().interrupt();
         }
-        
+
+        ioExecutor.shutdown();
+        Metrics.unregisterQueue("jobs");
+        Metrics.unregisterQueue("io");
+
+        // Anything still queued will never run
+        cancelAll(generalQueue);
+        for (ConcurrentLinkedDeque<Runnable> queue : localQueues) {
+            cancelAll(queue);
+        }
+
         Logger.info("ServiceManager shut down");
     }
+
+    private static void cancelAll(Queue<Runnable> queue) {
+        Runnable task;
+        while ((task = queue.poll()) != null) {
+            if (task instanceof Future<?> future) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    private boolean awaitWorkers(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        for (Thread worker : workers) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining > 0) {
+                worker.join(remaining);
+            }
+            if (worker.isAlive()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class WorkerThread extends Thread {
+        private final ServiceManager manager;
+        private final int index;
+
+        WorkerThread(ServiceManager manager, int index) {
+            super("NeoVoxy-Worker-" + index);
+            this.manager = manager;
+            this.index = index;
+        }
+
+        @Override
+        public void run() {
+            manager.workerLoop(index);
+        }
+    }
 }
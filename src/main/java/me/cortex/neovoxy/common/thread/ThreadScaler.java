@@ -0,0 +1,149 @@
+package me.cortex.neovoxy.common.thread;
+
+import me.cortex.neovoxy.common.Logger;
+
+/**
+ * Grows and shrinks the active worker count of a {@link ServiceManager}.
+ *
+ * <p>The render thread reports every frame. Frame time is smoothed with an
+ * exponential moving average and checked against a target twice a second:
+ * <ul>
+ *   <li>Frames over budget remove a worker, giving the core back to the render thread</li>
+ *   <li>Frames comfortably under budget with a job backlog add a worker</li>
+ * </ul>
+ * Over and under budget thresholds are apart, a decision has to hold for
+ * several checks in a row and every change is followed by a cooldown, so the
+ * worker count does not flap around the target.
+ */
+public class ThreadScaler {
+
+    // Weight of the newest frame in the moving average
+    private static final double FRAME_EMA_ALPHA = 0.1;
+    // Frames longer than this are pauses (loading, alt-tab), not load
+    private static final long MAX_FRAME_NANOS = 1_000_000_000L;
+    private static final long EVALUATE_INTERVAL_NANOS = 500_000_000L;
+    private static final long COOLDOWN_NANOS = 2_000_000_000L;
+
+    // Hysteresis band around the target frame time
+    private static final double SHRINK_THRESHOLD = 1.15;
+    private static final double GROW_THRESHOLD = 0.85;
+    // Consecutive checks a decision must hold before acting
+    private static final int REQUIRED_CHECKS = 3;
+    // Pending jobs per active worker that count as a backlog
+    private static final int BACKLOG_PER_WORKER = 8;
+
+    public enum State {
+        HOLDING,
+        GROWING,
+        SHRINKING
+    }
+
+    private final ServiceManager manager;
+    private final int minWorkers;
+    private final int maxWorkers;
+    private final long targetFrameNanos;
+
+    // Only touched from the render thread
+    private long lastFrameTime = -1;
+    private long lastEvaluateTime;
+    private long lastChangeTime;
+    private int growChecks;
+    private int shrinkChecks;
+
+    private volatile double frameTimeEma = 0;
+    private volatile State state = State.HOLDING;
+
+    ThreadScaler(ServiceManager manager, int minWorkers, int maxWorkers, long targetFrameNanos) {
+        this.manager = manager;
+        this.minWorkers = Math.max(1, Math.min(minWorkers, maxWorkers));
+        this.maxWorkers = maxWorkers;
+        this.targetFrameNanos = targetFrameNanos;
+    }
+
+    /**
+     * Record the end of a frame on the render thread.
+     *
+     * @param nowNanos Current {@link System#nanoTime()}
+     */
+    public void onFrame(long nowNanos) {
+        if (lastFrameTime < 0) {
+            lastFrameTime = nowNanos;
+            lastEvaluateTime = nowNanos;
+            lastChangeTime = nowNanos;
+            return;
+        }
+
+        long frameNanos = nowNanos - lastFrameTime;
+        lastFrameTime = nowNanos;
+        if (frameNanos <= 0 || frameNanos > MAX_FRAME_NANOS) {
+            return;
+        }
+
+        double ema = frameTimeEma;
+        frameTimeEma = ema == 0 ? frameNanos : ema + (frameNanos - ema) * FRAME_EMA_ALPHA;
+
+        if (nowNanos - lastEvaluateTime >= EVALUATE_INTERVAL_NANOS) {
+            lastEvaluateTime = nowNanos;
+            evaluate(nowNanos);
+        }
+    }
+
+    private void evaluate(long nowNanos) {
+        int active = manager.getActiveWorkerCount();
+        double ema = frameTimeEma;
+
+        if (ema > targetFrameNanos * SHRINK_THRESHOLD && active > minWorkers) {
+            shrinkChecks++;
+            growChecks = 0;
+            state = State.SHRINKING;
+        } else if (ema < targetFrameNanos * GROW_THRESHOLD && active < maxWorkers
+                && manager.getPendingJobCount() > active * BACKLOG_PER_WORKER) {
+            growChecks++;
+            shrinkChecks = 0;
+            state = State.GROWING;
+        } else {
+            growChecks = 0;
+            shrinkChecks = 0;
+            state = State.HOLDING;
+            return;
+        }
+
+        if (nowNanos - lastChangeTime < COOLDOWN_NANOS) {
+            return;
+        }
+
+        if (shrinkChecks >= REQUIRED_CHECKS) {
+            setActive(active - 1, nowNanos);
+        } else if (growChecks >= REQUIRED_CHECKS) {
+            setActive(active + 1, nowNanos);
+        }
+    }
+
+    private void setActive(int workers, long nowNanos) {
+        manager.setActiveWorkerCount(workers);
+        lastChangeTime = nowNanos;
+        growChecks = 0;
+        shrinkChecks = 0;
+        Logger.debug("Service workers scaled to {} (frame time {} ms)", workers,
+                String.format("%.1f", getFrameTimeMillis()));
+    }
+
+    /**
+     * Get the smoothed frame time in milliseconds.
+     */
+    public double getFrameTimeMillis() {
+        return frameTimeEma / 1_000_000.0;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public int getMinWorkers() {
+        return minWorkers;
+    }
+
+    public int getMaxWorkers() {
+        return maxWorkers;
+    }
+}
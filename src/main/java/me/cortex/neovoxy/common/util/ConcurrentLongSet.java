@@ -0,0 +1,131 @@
+package me.cortex.neovoxy.common.util;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Thread-safe set of longs split into independently locked {@link LongHashSet} stripes.
+ *
+ * <p>A key's stripe comes from the high bits of its hash, so unrelated
+ * sections rarely contend. Operations on one key are atomic; {@link #size()},
+ * {@link #toArray()} and {@link #forEach} visit the stripes one at a time
+ * and are only consistent per stripe.
+ */
+public class ConcurrentLongSet {
+
+    private static final int DEFAULT_STRIPES = 32;
+
+    private final LongHashSet[] stripes;
+    private final int stripeShift;
+
+    public ConcurrentLongSet() {
+        this(DEFAULT_STRIPES);
+    }
+
+    /**
+     * @param stripes Number of stripes, rounded up to a power of two
+     */
+    public ConcurrentLongSet(int stripes) {
+        int count = Integer.highestOneBit(Math.max(1, stripes));
+        if (count < stripes) {
+            count <<= 1;
+        }
+        this.stripes = new LongHashSet[count];
+        for (int i = 0; i < count; i++) {
+            this.stripes[i] = new LongHashSet();
+        }
+        this.stripeShift = 32 - Integer.numberOfTrailingZeros(count);
+    }
+
+    public boolean add(long key) {
+        LongHashSet stripe = stripeFor(key);
+        synchronized (stripe) {
+            return stripe.add(key);
+        }
+    }
+
+    public boolean remove(long key) {
+        LongHashSet stripe = stripeFor(key);
+        synchronized (stripe) {
+            return stripe.remove(key);
+        }
+    }
+
+    public boolean contains(long key) {
+        LongHashSet stripe = stripeFor(key);
+        synchronized (stripe) {
+            return stripe.contains(key);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (LongHashSet stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void clear() {
+        for (LongHashSet stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+    }
+
+    /**
+     * Visit every key while holding the lock of its stripe.
+     * The consumer must not modify this set.
+     */
+    public void forEach(LongConsumer consumer) {
+        for (LongHashSet stripe : stripes) {
+            synchronized (stripe) {
+                stripe.forEach(consumer);
+            }
+        }
+    }
+
+    /**
+     * Get a snapshot of the keys.
+     */
+    public long[] toArray() {
+        long[] out = new long[0];
+        int count = 0;
+        for (LongHashSet stripe : stripes) {
+            synchronized (stripe) {
+                if (count + stripe.size() > out.length) {
+                    out = Arrays.copyOf(out, Math.max(out.length * 2, count + stripe.size()));
+                }
+                count = stripe.copyTo(out, count);
+            }
+        }
+        return count == out.length ? out : Arrays.copyOf(out, count);
+    }
+
+    /**
+     * Get the bytes held by the stripe tables.
+     */
+    public long getTableBytes() {
+        long bytes = 0;
+        for (LongHashSet stripe : stripes) {
+            synchronized (stripe) {
+                bytes += stripe.getTableBytes();
+            }
+        }
+        return bytes;
+    }
+
+    private LongHashSet stripeFor(long key) {
+        if (stripes.length == 1) {
+            return stripes[0];
+        }
+        return stripes[LongIntHashMap.mix(key) * 0x9E3779B9 >>> stripeShift];
+    }
+}
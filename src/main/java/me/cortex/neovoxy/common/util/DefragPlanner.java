@@ -0,0 +1,88 @@
+package me.cortex.neovoxy.common.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plans a bounded batch of moves that compacts live ranges toward offset 0.
+ *
+ * <p>Ranges are taken from the highest offset down and moved into the lowest
+ * free hole that fits entirely below them, so free space gathers at the top of
+ * the buffer and merges into large ranges. Space vacated by a move is not
+ * reused within the same plan and every destination lies below its source, so
+ * no move overlaps another move's source or destination and the moves can be
+ * executed in any order.
+ *
+ * <p>The planner only does arithmetic on offsets and is deterministic: the
+ * same ranges and budget always give the same plan.
+ */
+public final class DefragPlanner {
+
+    /**
+     * Move {@code size} units from {@code from} to {@code to}.
+     */
+    public record Move(int from, int to, int size) {
+    }
+
+    // Ranges looked at per planned move before giving up on the batch
+    private static final int CANDIDATES_PER_MOVE = 16;
+
+    private DefragPlanner() {}
+
+    /**
+     * Plan moves for live ranges sorted by offset.
+     *
+     * @param offsets  Start offsets of the live ranges, ascending
+     * @param sizes    Sizes of the live ranges
+     * @param count    Number of live ranges
+     * @param maxMoves Most moves to plan
+     * @param maxUnits Most units to move in total
+     */
+    public static List<Move> plan(int[] offsets, int[] sizes, int count, int maxMoves, long maxUnits) {
+        List<Move> moves = new ArrayList<>();
+        if (count == 0 || maxMoves <= 0 || maxUnits <= 0) {
+            return moves;
+        }
+
+        // Holes between live ranges, ascending
+        int[] holeStart = new int[count];
+        int[] holeSize = new int[count];
+        int holes = 0;
+        int end = 0;
+        for (int i = 0; i < count; i++) {
+            if (offsets[i] > end) {
+                holeStart[holes] = end;
+                holeSize[holes++] = offsets[i] - end;
+            }
+            end = offsets[i] + sizes[i];
+        }
+        if (holes == 0) {
+            return moves;
+        }
+
+        long unitsLeft = maxUnits;
+        int candidatesLeft = maxMoves * CANDIDATES_PER_MOVE;
+        for (int i = count - 1; i >= 0 && moves.size() < maxMoves && candidatesLeft-- > 0; i--) {
+            int from = offsets[i];
+            int size = sizes[i];
+            if (holeStart[0] >= from) {
+                // Everything below is packed
+                break;
+            }
+            if (size > unitsLeft) {
+                continue;
+            }
+
+            for (int h = 0; h < holes && holeStart[h] < from; h++) {
+                if (holeSize[h] >= size && holeStart[h] + size <= from) {
+                    moves.add(new Move(from, holeStart[h], size));
+                    holeStart[h] += size;
+                    holeSize[h] -= size;
+                    unitsLeft -= size;
+                    break;
+                }
+            }
+        }
+        return moves;
+    }
+}
@@ -0,0 +1,172 @@
+package me.cortex.neovoxy.common.util;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Open-addressing set of longs with linear probing and backward-shift deletion.
+ *
+ * <p>A slot is 8 bytes and the table is kept between 3/8 and 3/4 full, so an
+ * entry costs 11 to 22 bytes, with no boxing. Key 0 is tracked outside the
+ * table because 0 marks empty slots.
+ *
+ * <p>Not thread-safe, see {@link ConcurrentLongSet} for a shared set.
+ */
+public class LongHashSet {
+
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private long[] keys;
+    private int size;
+    private int resizeAt;
+    private boolean hasZero;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    public LongHashSet(int expectedSize) {
+        allocate(LongIntHashMap.tableSizeFor(expectedSize));
+    }
+
+    public int size() {
+        return size + (hasZero ? 1 : 0);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public boolean contains(long key) {
+        if (key == 0) {
+            return hasZero;
+        }
+        int mask = keys.length - 1;
+        for (int i = LongIntHashMap.mix(key) & mask; ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == key) return true;
+            if (k == 0) return false;
+        }
+    }
+
+    /**
+     * @return True if the key was not already present
+     */
+    public boolean add(long key) {
+        if (key == 0) {
+            boolean added = !hasZero;
+            hasZero = true;
+            return added;
+        }
+        int mask = keys.length - 1;
+        int i = LongIntHashMap.mix(key) & mask;
+        for (long k; (k = keys[i]) != 0; i = (i + 1) & mask) {
+            if (k == key) return false;
+        }
+        keys[i] = key;
+        if (++size > resizeAt) {
+            rehash(keys.length * 2);
+        }
+        return true;
+    }
+
+    /**
+     * @return True if the key was present
+     */
+    public boolean remove(long key) {
+        if (key == 0) {
+            boolean removed = hasZero;
+            hasZero = false;
+            return removed;
+        }
+        int mask = keys.length - 1;
+        int i = LongIntHashMap.mix(key) & mask;
+        while (keys[i] != key) {
+            if (keys[i] == 0) return false;
+            i = (i + 1) & mask;
+        }
+        size--;
+
+        // Shift following entries of the probe run back into the hole
+        int hole = i;
+        for (int j = (i + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+            int home = LongIntHashMap.mix(keys[j]) & mask;
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                hole = j;
+            }
+        }
+        keys[hole] = 0;
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        size = 0;
+        hasZero = false;
+    }
+
+    /**
+     * Visit every key. The set must not be modified during the visit.
+     */
+    public void forEach(LongConsumer consumer) {
+        if (hasZero) {
+            consumer.accept(0);
+        }
+        for (long key : keys) {
+            if (key != 0) {
+                consumer.accept(key);
+            }
+        }
+    }
+
+    /**
+     * Copy the keys into {@code out} starting at {@code offset}.
+     *
+     * @return Offset after the last key written
+     */
+    public int copyTo(long[] out, int offset) {
+        if (hasZero) {
+            out[offset++] = 0;
+        }
+        for (long key : keys) {
+            if (key != 0) {
+                out[offset++] = key;
+            }
+        }
+        return offset;
+    }
+
+    public long[] toArray() {
+        long[] out = new long[size()];
+        copyTo(out, 0);
+        return out;
+    }
+
+    /**
+     * Get the bytes held by the table array.
+     */
+    public long getTableBytes() {
+        return (long) keys.length * Long.BYTES;
+    }
+
+    private void allocate(int tableSize) {
+        keys = new long[tableSize];
+        resizeAt = (int) (tableSize * LOAD_FACTOR);
+    }
+
+    private void rehash(int tableSize) {
+        long[] oldKeys = keys;
+        allocate(tableSize);
+        int mask = tableSize - 1;
+        for (long key : oldKeys) {
+            if (key != 0) {
+                int i = LongIntHashMap.mix(key) & mask;
+                while (keys[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = key;
+            }
+        }
+    }
+}
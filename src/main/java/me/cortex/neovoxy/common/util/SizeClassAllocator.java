@@ -0,0 +1,319 @@
+package me.cortex.neovoxy.common.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Range allocator that serves small requests from per-size slabs.
+ *
+ * <p>Requests of up to {@link #MAX_SMALL_UNITS} units get a slot in a slab
+ * holding only allocations of exactly that size. Slabs are carved out of a
+ * {@link TLSFAllocator}, which also serves larger requests directly. Keeping
+ * the many small allocations packed together stops them from splitting the
+ * large free ranges that big requests need. A fully emptied slab is returned to
+ * the general allocator, except for one kept per size to avoid churn.
+ *
+ * <p>Callers must pass the same size to {@link #free} as to {@link #allocate}.
+ * Each slab tracks its free slots in a bitmap, so freeing a slot twice is
+ * rejected instead of handing the slot out to two callers. Not thread-safe.
+ */
+public class SizeClassAllocator {
+
+    public static final int MAX_SMALL_UNITS = 32;
+    // Slab size for a given slot size, aimed at roughly this many units
+    private static final int SLAB_TARGET_UNITS = 1024;
+
+    private final TLSFAllocator general;
+    private final SizeClass[] classes = new SizeClass[MAX_SMALL_UNITS + 1];
+
+    // Units handed to callers, excluding unused slab slots
+    private long allocatedUnits;
+
+    public SizeClassAllocator(int capacity) {
+        this.general = new TLSFAllocator(capacity);
+        for (int size = 1; size <= MAX_SMALL_UNITS; size++) {
+            classes[size] = new SizeClass(size, Math.max(1, SLAB_TARGET_UNITS / size));
+        }
+    }
+
+    /**
+     * Allocate a range of units.
+     *
+     * @return Offset of the range, or -1 if it does not fit
+     */
+    public int allocate(int size) {
+        if (size <= 0) {
+            return -1;
+        }
+
+        int offset;
+        if (size <= MAX_SMALL_UNITS) {
+            offset = classes[size].allocate();
+            if (offset < 0) {
+                // No room for another slab, try an exact fit in what is left
+                offset = general.allocate(size);
+            }
+        } else {
+            offset = general.allocate(size);
+        }
+
+        if (offset >= 0) {
+            allocatedUnits += size;
+        }
+        return offset;
+    }
+
+    /**
+     * Free a range returned by {@link #allocate}.
+     *
+     * @param size Size passed to {@link #allocate}
+     * @return False if nothing of that size was allocated at the offset
+     */
+    public boolean free(int offset, int size) {
+        boolean freed;
+        if (size <= 0) {
+            return false;
+        } else if (size <= MAX_SMALL_UNITS && classes[size].owns(offset)) {
+            // Slab slots are never general allocations, a rejected slot free stays rejected
+            freed = classes[size].free(offset);
+        } else {
+            freed = general.sizeOf(offset) == size && general.free(offset) == size;
+        }
+
+        if (freed) {
+            allocatedUnits -= size;
+        }
+        return freed;
+    }
+
+    /**
+     * Get the number of ranges taken from the general allocator, counting each slab once.
+     */
+    public int getRangeCount() {
+        return general.getAllocationCount();
+    }
+
+    /**
+     * Write the ranges taken from the general allocator in offset order.
+     * A slab is one range covering all of its slots.
+     *
+     * @return Number of ranges written
+     * @see #getRangeCount()
+     */
+    public int collectRanges(int[] offsets, int[] sizes) {
+        return general.collectAllocations(offsets, sizes);
+    }
+
+    /**
+     * Move a range reported by {@link #collectRanges} to the start of a free range.
+     * Every allocation inside it moves by the same distance.
+     *
+     * @return False if no range starts at {@code from} or it does not fit at {@code to}
+     */
+    public boolean relocate(int from, int to) {
+        SizeClass owner = null;
+        for (int size = 1; size <= MAX_SMALL_UNITS && owner == null; size++) {
+            if (classes[size].indexOf(from) >= 0) {
+                owner = classes[size];
+            }
+        }
+        if (!general.relocate(from, to)) {
+            return false;
+        }
+        if (owner != null) {
+            owner.moveSlab(from, to);
+        }
+        return true;
+    }
+
+    public int getCapacity() {
+        return general.getCapacity();
+    }
+
+    /**
+     * Get the units handed out to callers.
+     */
+    public long getAllocatedUnits() {
+        return allocatedUnits;
+    }
+
+    /**
+     * Get the units taken from the general allocator, including unused slab slots.
+     */
+    public long getReservedUnits() {
+        return general.getUsedUnits();
+    }
+
+    /**
+     * Get the size of the largest request that is sure to succeed.
+     */
+    public int getLargestFreeBlock() {
+        return general.getLargestFreeBlock();
+    }
+
+    public int getFreeRangeCount() {
+        return general.getFreeBlockCount();
+    }
+
+    /**
+     * Get the share of unreserved space outside the largest free range, in [0, 1].
+     */
+    public double getFragmentation() {
+        return general.getFragmentation();
+    }
+
+    private static final class Slab {
+        int start;
+        final int[] freeSlots;
+        int freeCount;
+        // Bit per slot, set while the slot is free
+        final long[] freeBits;
+
+        Slab(int start, int slots) {
+            this.start = start;
+            this.freeSlots = new int[slots];
+            // Hand out low slots first
+            for (int i = 0; i < slots; i++) {
+                freeSlots[i] = slots - 1 - i;
+            }
+            this.freeCount = slots;
+            this.freeBits = new long[(slots + 63) >>> 6];
+            for (int i = 0; i < slots; i++) {
+                freeBits[i >>> 6] |= 1L << i;
+            }
+        }
+
+        boolean isFree(int slot) {
+            return (freeBits[slot >>> 6] & (1L << slot)) != 0;
+        }
+
+        void setFree(int slot, boolean free) {
+            if (free) {
+                freeBits[slot >>> 6] |= 1L << slot;
+            } else {
+                freeBits[slot >>> 6] &= ~(1L << slot);
+            }
+        }
+    }
+
+    private final class SizeClass {
+        final int slotUnits;
+        final int slotsPerSlab;
+        final int slabUnits;
+
+        // Slabs ordered by start offset, for lookup on free
+        int[] slabStarts = new int[4];
+        final ArrayList<Slab> slabs = new ArrayList<>();
+        // Slabs with at least one free slot
+        final ArrayList<Slab> available = new ArrayList<>();
+
+        SizeClass(int slotUnits, int slotsPerSlab) {
+            this.slotUnits = slotUnits;
+            this.slotsPerSlab = slotsPerSlab;
+            this.slabUnits = slotUnits * slotsPerSlab;
+        }
+
+        int allocate() {
+            if (available.isEmpty() && !addSlab()) {
+                return -1;
+            }
+            Slab slab = available.get(available.size() - 1);
+            int slot = slab.freeSlots[--slab.freeCount];
+            slab.setFree(slot, false);
+            if (slab.freeCount == 0) {
+                available.remove(available.size() - 1);
+            }
+            return slab.start + slot * slotUnits;
+        }
+
+        /**
+         * @return True if the offset lies inside one of this class's slabs
+         */
+        boolean owns(int offset) {
+            return slabContaining(offset) >= 0;
+        }
+
+        boolean free(int offset) {
+            int index = slabContaining(offset);
+            if (index < 0) {
+                return false;
+            }
+            Slab slab = slabs.get(index);
+            int relative = offset - slab.start;
+            if (relative % slotUnits != 0) {
+                return false;
+            }
+            int slot = relative / slotUnits;
+            if (slab.isFree(slot)) {
+                return false; // Double free
+            }
+
+            if (slab.freeCount == 0) {
+                available.add(slab);
+            }
+            slab.setFree(slot, true);
+            slab.freeSlots[slab.freeCount++] = slot;
+
+            if (slab.freeCount == slotsPerSlab && available.size() > 1) {
+                removeSlab(index, slab);
+            }
+            return true;
+        }
+
+        private int slabContaining(int offset) {
+            int index = Arrays.binarySearch(slabStarts, 0, slabs.size(), offset);
+            if (index < 0) {
+                index = -index - 2;
+            }
+            if (index < 0 || offset - slabs.get(index).start >= slabUnits) {
+                return -1;
+            }
+            return index;
+        }
+
+        int indexOf(int start) {
+            int index = Arrays.binarySearch(slabStarts, 0, slabs.size(), start);
+            return index >= 0 && slabs.get(index).start == start ? index : -1;
+        }
+
+        void moveSlab(int from, int to) {
+            int index = indexOf(from);
+            Slab slab = slabs.get(index);
+            unlinkSlab(index);
+            slab.start = to;
+            linkSlab(slab);
+        }
+
+        private boolean addSlab() {
+            int start = general.allocate(slabUnits);
+            if (start < 0) {
+                return false;
+            }
+            Slab slab = new Slab(start, slotsPerSlab);
+            linkSlab(slab);
+            available.add(slab);
+            return true;
+        }
+
+        private void removeSlab(int index, Slab slab) {
+            unlinkSlab(index);
+            available.remove(slab);
+            general.free(slab.start);
+        }
+
+        private void linkSlab(Slab slab) {
+            int index = -Arrays.binarySearch(slabStarts, 0, slabs.size(), slab.start) - 1;
+            if (slabs.size() == slabStarts.length) {
+                slabStarts = Arrays.copyOf(slabStarts, slabStarts.length * 2);
+            }
+            System.arraycopy(slabStarts, index, slabStarts, index + 1, slabs.size() - index);
+            slabStarts[index] = slab.start;
+            slabs.add(index, slab);
+        }
+
+        private void unlinkSlab(int index) {
+            System.arraycopy(slabStarts, index + 1, slabStarts, index, slabs.size() - index - 1);
+            slabs.remove(index);
+        }
+    }
+}
@@ -0,0 +1,487 @@
+package me.cortex.neovoxy.common.util;
+
+import java.util.Arrays;
+
+/**
+ * Two-level segregated fit (TLSF) range allocator.
+ *
+ * <p>Hands out ranges of abstract units inside {@code [0, capacity)} and only
+ * tracks offsets; the caller maps units onto real memory. Free ranges are kept
+ * in lists segregated first by power of two and then linearly into
+ * {@link #SL_COUNT} sub-ranges, with a bitmap per level, so both
+ * {@link #allocate} and {@link #free} are O(1) apart from the offset lookup.
+ * Freed ranges are merged with free physical neighbours immediately.
+ *
+ * <p>Allocation rounds the request up to the next list boundary before
+ * searching, so any block found is large enough (good fit, not best fit).
+ * Only when that finds nothing is the request's own list scanned for a block
+ * that happens to fit, so a request fails only if no free range can hold it.
+ *
+ * <p>Not thread-safe.
+ */
+public class TLSFAllocator {
+
+    private static final int SL_BITS = 4;
+    public static final int SL_COUNT = 1 << SL_BITS;
+    // First level 0 holds the sizes below SL_COUNT linearly
+    private static final int FL_COUNT = 32 - SL_BITS;
+    private static final int NONE = -1;
+
+    private final int capacity;
+
+    // Block pool, structure of arrays indexed by block id
+    private int[] blockOffset;
+    private int[] blockSize;
+    private int[] physPrev;
+    private int[] physNext;
+    private int[] freePrev;
+    private int[] freeNext;
+    private boolean[] blockFree;
+    private int poolSize;
+    private int[] recycled;
+    private int recycledCount;
+
+    // Segregated free lists
+    private int flBitmap;
+    private final int[] slBitmaps = new int[FL_COUNT];
+    private final int[] freeHeads = new int[FL_COUNT * SL_COUNT];
+
+    // Start offset -> block id of live allocations and of free blocks
+    private final IntIntMap allocations = new IntIntMap();
+    private final IntIntMap freeStarts = new IntIntMap();
+    // The block at offset 0 keeps its id through splits and merges
+    private final int firstBlock;
+
+    private long usedUnits;
+    private int freeBlockCount;
+
+    /**
+     * @param capacity Number of allocatable units
+     */
+    public TLSFAllocator(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+
+        int initial = 64;
+        blockOffset = new int[initial];
+        blockSize = new int[initial];
+        physPrev = new int[initial];
+        physNext = new int[initial];
+        freePrev = new int[initial];
+        freeNext = new int[initial];
+        blockFree = new boolean[initial];
+        recycled = new int[initial];
+        Arrays.fill(freeHeads, NONE);
+
+        int block = newBlock(0, capacity);
+        physPrev[block] = NONE;
+        physNext[block] = NONE;
+        insertFree(block);
+        this.firstBlock = block;
+    }
+
+    /**
+     * Allocate a range of units.
+     *
+     * @param size Number of units (> 0)
+     * @return Offset of the range, or -1 if no free range is large enough
+     */
+    public int allocate(int size) {
+        if (size <= 0 || size > capacity) {
+            return -1;
+        }
+
+        int block = findFree(size);
+        if (block == NONE) {
+            block = findFreeInOwnList(size);
+            if (block == NONE) {
+                return -1;
+            }
+        }
+        return take(block, size);
+    }
+
+    /**
+     * Allocate a range at a fixed offset that is the start of a free range.
+     *
+     * @return False if no free range starts at the offset or it is too small
+     */
+    public boolean allocateAt(int offset, int size) {
+        int block = freeStarts.get(offset);
+        if (block == NONE || size <= 0 || blockSize[block] < size) {
+            return false;
+        }
+        take(block, size);
+        return true;
+    }
+
+    /**
+     * Move a live allocation to the start of a free range.
+     * The old range is freed after the new one is taken, so they must not overlap.
+     *
+     * @return False if nothing is allocated at {@code from} or {@code to} cannot hold it
+     */
+    public boolean relocate(int from, int to) {
+        int size = sizeOf(from);
+        if (size < 0 || to < from + size && to + size > from) {
+            return false;
+        }
+        if (!allocateAt(to, size)) {
+            return false;
+        }
+        free(from);
+        return true;
+    }
+
+    /**
+     * Write the live allocations in offset order.
+     *
+     * @param offsets Receives start offsets, at least {@link #getAllocationCount()} long
+     * @param sizes   Receives sizes, same length
+     * @return Number of allocations written
+     */
+    public int collectAllocations(int[] offsets, int[] sizes) {
+        int count = 0;
+        for (int block = firstBlock; block != NONE; block = physNext[block]) {
+            if (!blockFree[block]) {
+                offsets[count] = blockOffset[block];
+                sizes[count++] = blockSize[block];
+            }
+        }
+        return count;
+    }
+
+    private int take(int block, int size) {
+        removeFree(block);
+
+        // Return the tail to the free lists
+        int remainder = blockSize[block] - size;
+        if (remainder > 0) {
+            int tail = newBlock(blockOffset[block] + size, remainder);
+            int next = physNext[block];
+            physPrev[tail] = block;
+            physNext[tail] = next;
+            if (next != NONE) {
+                physPrev[next] = tail;
+            }
+            physNext[block] = tail;
+            blockSize[block] = size;
+            insertFree(tail);
+        }
+
+        allocations.put(blockOffset[block], block);
+        usedUnits += size;
+        return blockOffset[block];
+    }
+
+    /**
+     * Free a range returned by {@link #allocate}.
+     *
+     * @return Size of the freed range, or -1 if nothing is allocated at the offset
+     */
+    public int free(int offset) {
+        int block = allocations.remove(offset);
+        if (block == NONE) {
+            return -1;
+        }
+        int size = blockSize[block];
+        usedUnits -= size;
+
+        int next = physNext[block];
+        if (next != NONE && blockFree[next]) {
+            removeFree(next);
+            block = merge(block, next);
+        }
+        int prev = physPrev[block];
+        if (prev != NONE && blockFree[prev]) {
+            removeFree(prev);
+            block = merge(prev, block);
+        }
+        insertFree(block);
+        return size;
+    }
+
+    /**
+     * Get the size of the live allocation at an offset, or -1 if there is none.
+     */
+    public int sizeOf(int offset) {
+        int block = allocations.get(offset);
+        return block == NONE ? -1 : blockSize[block];
+    }
+
+    private int findFree(int size) {
+        // Round up so every block in the chosen list is large enough
+        int search = size;
+        if (size >= SL_COUNT) {
+            search += (1 << (log2(size) - SL_BITS)) - 1;
+            if (search < 0) {
+                search = Integer.MAX_VALUE;
+            }
+        }
+        int fl = firstLevel(search);
+        int sl = secondLevel(search, fl);
+
+        int slMap = fl < FL_COUNT ? slBitmaps[fl] & (~0 << sl) : 0;
+        if (slMap == 0) {
+            int flMap = fl + 1 < FL_COUNT ? flBitmap & (~0 << (fl + 1)) : 0;
+            if (flMap == 0) {
+                return NONE;
+            }
+            fl = Integer.numberOfTrailingZeros(flMap);
+            slMap = slBitmaps[fl];
+        }
+        sl = Integer.numberOfTrailingZeros(slMap);
+        return freeHeads[fl * SL_COUNT + sl];
+    }
+
+    private int findFreeInOwnList(int size) {
+        int fl = firstLevel(size);
+        for (int block = freeHeads[fl * SL_COUNT + secondLevel(size, fl)]; block != NONE; block = freeNext[block]) {
+            if (blockSize[block] >= size) {
+                return block;
+            }
+        }
+        return NONE;
+    }
+
+    private int merge(int first, int second) {
+        blockSize[first] += blockSize[second];
+        int next = physNext[second];
+        physNext[first] = next;
+        if (next != NONE) {
+            physPrev[next] = first;
+        }
+        releaseBlock(second);
+        return first;
+    }
+
+    private void insertFree(int block) {
+        int size = blockSize[block];
+        int fl = firstLevel(size);
+        int sl = secondLevel(size, fl);
+        int list = fl * SL_COUNT + sl;
+
+        int head = freeHeads[list];
+        freePrev[block] = NONE;
+        freeNext[block] = head;
+        if (head != NONE) {
+            freePrev[head] = block;
+        }
+        freeHeads[list] = block;
+        flBitmap |= 1 << fl;
+        slBitmaps[fl] |= 1 << sl;
+
+        blockFree[block] = true;
+        freeStarts.put(blockOffset[block], block);
+        freeBlockCount++;
+    }
+
+    private void removeFree(int block) {
+        int size = blockSize[block];
+        int fl = firstLevel(size);
+        int sl = secondLevel(size, fl);
+        int list = fl * SL_COUNT + sl;
+
+        int prev = freePrev[block];
+        int next = freeNext[block];
+        if (prev != NONE) {
+            freeNext[prev] = next;
+        } else {
+            freeHeads[list] = next;
+            if (next == NONE) {
+                slBitmaps[fl] &= ~(1 << sl);
+                if (slBitmaps[fl] == 0) {
+                    flBitmap &= ~(1 << fl);
+                }
+            }
+        }
+        if (next != NONE) {
+            freePrev[next] = prev;
+        }
+
+        blockFree[block] = false;
+        freeStarts.remove(blockOffset[block]);
+        freeBlockCount--;
+    }
+
+    private static int log2(int value) {
+        return 31 - Integer.numberOfLeadingZeros(value);
+    }
+
+    private static int firstLevel(int size) {
+        return size < SL_COUNT ? 0 : log2(size) - SL_BITS + 1;
+    }
+
+    private static int secondLevel(int size, int fl) {
+        return fl == 0 ? size : (size >>> (fl - 1)) ^ SL_COUNT;
+    }
+
+    private int newBlock(int offset, int size) {
+        int block;
+        if (recycledCount > 0) {
+            block = recycled[--recycledCount];
+        } else {
+            if (poolSize == blockOffset.length) {
+                growPool();
+            }
+            block = poolSize++;
+        }
+        blockOffset[block] = offset;
+        blockSize[block] = size;
+        blockFree[block] = false;
+        return block;
+    }
+
+    private void releaseBlock(int block) {
+        if (recycledCount == recycled.length) {
+            recycled = Arrays.copyOf(recycled, recycled.length * 2);
+        }
+        recycled[recycledCount++] = block;
+    }
+
+    private void growPool() {
+        int size = blockOffset.length * 2;
+        blockOffset = Arrays.copyOf(blockOffset, size);
+        blockSize = Arrays.copyOf(blockSize, size);
+        physPrev = Arrays.copyOf(physPrev, size);
+        physNext = Arrays.copyOf(physNext, size);
+        freePrev = Arrays.copyOf(freePrev, size);
+        freeNext = Arrays.copyOf(freeNext, size);
+        blockFree = Arrays.copyOf(blockFree, size);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getUsedUnits() {
+        return usedUnits;
+    }
+
+    public long getFreeUnits() {
+        return capacity - usedUnits;
+    }
+
+    public int getAllocationCount() {
+        return allocations.size();
+    }
+
+    public int getFreeBlockCount() {
+        return freeBlockCount;
+    }
+
+    /**
+     * Get the size of the largest free range.
+     * Only the highest non-empty list is scanned.
+     */
+    public int getLargestFreeBlock() {
+        if (flBitmap == 0) {
+            return 0;
+        }
+        int fl = 31 - Integer.numberOfLeadingZeros(flBitmap);
+        int sl = 31 - Integer.numberOfLeadingZeros(slBitmaps[fl]);
+        int largest = 0;
+        for (int block = freeHeads[fl * SL_COUNT + sl]; block != NONE; block = freeNext[block]) {
+            largest = Math.max(largest, blockSize[block]);
+        }
+        return largest;
+    }
+
+    /**
+     * Get the share of free space outside the largest free range, in [0, 1].
+     * 0 means all free space is one contiguous range.
+     */
+    public double getFragmentation() {
+        long free = getFreeUnits();
+        return free == 0 ? 0 : 1.0 - getLargestFreeBlock() / (double) free;
+    }
+
+    /**
+     * Open-addressing int to int map with linear probing and backward-shift deletion.
+     */
+    private static final class IntIntMap {
+        private static final int EMPTY = -1;
+
+        private int[] keys = new int[64];
+        private int[] values = new int[64];
+        private int size;
+
+        IntIntMap() {
+            Arrays.fill(keys, EMPTY);
+        }
+
+        int size() {
+            return size;
+        }
+
+        int get(int key) {
+            int mask = keys.length - 1;
+            for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+                int k = keys[i];
+                if (k == key) return values[i];
+                if (k == EMPTY) return NONE;
+            }
+        }
+
+        void put(int key, int value) {
+            if ((size + 1) * 2 > keys.length) {
+                rehash(keys.length * 2);
+            }
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            while (keys[i] != EMPTY && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if (keys[i] == EMPTY) {
+                size++;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        int remove(int key) {
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            while (keys[i] != key) {
+                if (keys[i] == EMPTY) return NONE;
+                i = (i + 1) & mask;
+            }
+            int value = values[i];
+            size--;
+
+            // Shift following entries of the probe run back into the hole
+            int hole = i;
+            for (int j = (i + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+                int home = hash(keys[j]) & mask;
+                if (((j - home) & mask) >= ((j - hole) & mask)) {
+                    keys[hole] = keys[j];
+                    values[hole] = values[j];
+                    hole = j;
+                }
+            }
+            keys[hole] = EMPTY;
+            return value;
+        }
+
+        private void rehash(int newSize) {
+            int[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new int[newSize];
+            values = new int[newSize];
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int hash(int key) {
+            int h = key * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package me.cortex.neovoxy.common.voxelization;
+
+import java.util.Arrays;
+
+/**
+ * Occupancy of the six outer voxel layers of a section.
+ *
+ * <p>Each face is stored as 16 rows of 16 bits using the same (u, v) convention
+ * as the meshers: Y faces use (x, z), Z faces use (x, y) and X faces use (y, z),
+ * with bit u of row v set when that voxel is solid. Faces are indexed by
+ * Direction ordinal, so the layer touching the section across face {@code f}
+ * is the neighbour's face {@code f ^ 1}.
+ */
+public final class SectionBorder {
+
+    public static final SectionBorder EMPTY = new SectionBorder(new int[6 * 16]);
+
+    private final int[] rows;
+
+    private SectionBorder(int[] rows) {
+        this.rows = rows;
+    }
+
+    /**
+     * Extract the border layers of a voxelized section.
+     */
+    public static SectionBorder of(VoxelizedSection section) {
+        if (section.isEmpty()) {
+            return EMPTY;
+        }
+
+        int[] rows = new int[6 * 16];
+        for (int face = 0; face < 6; face++) {
+            int axis = face >> 1;
+            int d = (face & 1) == 0 ? 0 : 15;
+            for (int v = 0; v < 16; v++) {
+                int row = 0;
+                for (int u = 0; u < 16; u++) {
+                    boolean solid = switch (axis) {
+                        case 0 -> section.hasBlock(u, d, v);
+                        case 1 -> section.hasBlock(u, v, d);
+                        default -> section.hasBlock(d, u, v);
+                    };
+                    if (solid) {
+                        row |= 1 << u;
+                    }
+                }
+                rows[face * 16 + v] = row;
+            }
+        }
+        return new SectionBorder(rows);
+    }
+
+    /**
+     * Get row {@code v} of the layer on {@code face}, one bit per u.
+     */
+    public int row(int face, int v) {
+        return rows[face * 16 + v];
+    }
+
+    /**
+     * Check whether any voxel on a face is solid.
+     */
+    public boolean isFaceEmpty(int face) {
+        for (int v = 0; v < 16; v++) {
+            if (rows[face * 16 + v] != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Check whether a face has the same occupancy in both borders.
+     * A null border is treated as all air.
+     */
+    public static boolean faceEquals(SectionBorder a, SectionBorder b, int face) {
+        if (a == b) return true;
+        if (a == null) return b.isFaceEmpty(face);
+        if (b == null) return a.isFaceEmpty(face);
+        return Arrays.equals(a.rows, face * 16, face * 16 + 16, b.rows, face * 16, face * 16 + 16);
+    }
+}
@@ -0,0 +1,106 @@
+package me.cortex.neovoxy.common.voxelization;
+
+import me.cortex.neovoxy.common.util.LongIntHashMap;
+
+import java.util.Arrays;
+
+/**
+ * Borders of known non-empty sections, by packed section position.
+ *
+ * <p>Positions map to slots of a plain border array through a
+ * {@link LongIntHashMap}, so lookups never box; freed slots are reused.
+ * Ranges of chunk columns are dropped with {@link #removeColumns}, which only
+ * visits the section heights seen so far. Thread-safe.
+ */
+public final class SectionBorderTable {
+
+    private final LongIntHashMap slots = new LongIntHashMap(-1);
+    private SectionBorder[] borders = new SectionBorder[256];
+    private int slotLimit;
+    private int[] freeSlots = new int[64];
+    private int freeCount;
+
+    // Section Y range of every border added so far
+    private int minY = Integer.MAX_VALUE;
+    private int maxY = Integer.MIN_VALUE;
+
+    /**
+     * @return The border of a section, or null if it is unknown or empty
+     */
+    public synchronized SectionBorder get(long sectionPos) {
+        int slot = slots.get(sectionPos);
+        return slot < 0 ? null : borders[slot];
+    }
+
+    public synchronized boolean contains(long sectionPos) {
+        return slots.containsKey(sectionPos);
+    }
+
+    /**
+     * @return The border replaced, or null if the section had none
+     */
+    public synchronized SectionBorder put(long sectionPos, SectionBorder border) {
+        int slot = slots.get(sectionPos);
+        if (slot >= 0) {
+            SectionBorder previous = borders[slot];
+            borders[slot] = border;
+            return previous;
+        }
+
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (slotLimit == borders.length) {
+                borders = Arrays.copyOf(borders, slotLimit * 2);
+            }
+            slot = slotLimit++;
+        }
+        borders[slot] = border;
+        slots.put(sectionPos, slot);
+
+        int y = VoxelizedSection.unpackY(sectionPos);
+        minY = Math.min(minY, y);
+        maxY = Math.max(maxY, y);
+        return null;
+    }
+
+    /**
+     * @return The border removed, or null if the section had none
+     */
+    public synchronized SectionBorder remove(long sectionPos) {
+        int slot = slots.remove(sectionPos);
+        if (slot < 0) {
+            return null;
+        }
+        SectionBorder previous = borders[slot];
+        borders[slot] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+        return previous;
+    }
+
+    /**
+     * Drop the borders of every section in a range of chunk columns, bounds inclusive.
+     *
+     * @return Number of borders removed
+     */
+    public synchronized int removeColumns(int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+        int removed = 0;
+        for (int x = minChunkX; x <= maxChunkX; x++) {
+            for (int z = minChunkZ; z <= maxChunkZ; z++) {
+                for (int y = minY; y <= maxY; y++) {
+                    if (remove(VoxelizedSection.packPosition(x, y, z)) != null) {
+                        removed++;
+                    }
+                }
+            }
+        }
+        return removed;
+    }
+
+    public synchronized int size() {
+        return slots.size();
+    }
+}
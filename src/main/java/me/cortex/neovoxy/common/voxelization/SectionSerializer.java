@@ -0,0 +1,151 @@
+package me.cortex.neovoxy.common.voxelization;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Converts voxelized sections to and from the byte format kept in storage.
+ *
+ * <p>Each of the three per-voxel arrays (block states, biomes, light) is
+ * written as a palette of its distinct values followed by the 4096 palette
+ * indices, bit-packed into longs with as few bits as the palette needs.
+ * A uniform array takes no index bits at all. Voxels are written in
+ * {@code (y << 8) | (z << 4) | x} order. The section position is not part of
+ * the data; it is the storage key.
+ */
+public final class SectionSerializer {
+
+    private static final byte FORMAT_VERSION = 1;
+    private static final int VOXELS = 16 * 16 * 16;
+
+    private SectionSerializer() {}
+
+    public static byte[] serialize(VoxelizedSection section) {
+        int[] states = new int[VOXELS];
+        int[] biomes = new int[VOXELS];
+        int[] light = new int[VOXELS];
+        for (int y = 0; y < 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    int index = (y << 8) | (z << 4) | x;
+                    states[index] = section.getStateId(x, y, z);
+                    biomes[index] = section.getBiomeId(x, y, z);
+                    light[index] = section.getLightLevel(x, y, z);
+                }
+            }
+        }
+
+        PackedArray packedStates = PackedArray.of(states);
+        PackedArray packedBiomes = PackedArray.of(biomes);
+        PackedArray packedLight = PackedArray.of(light);
+
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 4
+                + packedStates.byteSize() + packedBiomes.byteSize() + packedLight.byteSize());
+        buffer.put(FORMAT_VERSION);
+        buffer.putInt(section.getBlockCount());
+        packedStates.write(buffer);
+        packedBiomes.write(buffer);
+        packedLight.write(buffer);
+        return buffer.array();
+    }
+
+    /**
+     * Rebuild a section from stored data.
+     *
+     * @throws IllegalArgumentException If the data is not in a known format
+     */
+    public static VoxelizedSection deserialize(long sectionPos, byte[] data) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        try {
+            byte version = buffer.get();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unknown section format version " + version);
+            }
+            int blockCount = buffer.getInt();
+            int[] states = PackedArray.read(buffer);
+            int[] biomes = PackedArray.read(buffer);
+            int[] light = PackedArray.read(buffer);
+            return new VoxelizedSection(VoxelizedSection.unpackX(sectionPos), VoxelizedSection.unpackY(sectionPos),
+                    VoxelizedSection.unpackZ(sectionPos), states, biomes, light, blockCount);
+        } catch (java.nio.BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated section data (" + data.length + " bytes)", e);
+        }
+    }
+
+    private record PackedArray(int[] palette, int bits, long[] words) {
+
+        static PackedArray of(int[] values) {
+            int[] sorted = values.clone();
+            Arrays.sort(sorted);
+            int distinct = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                if (i == 0 || sorted[i] != sorted[i - 1]) {
+                    sorted[distinct++] = sorted[i];
+                }
+            }
+            int[] palette = Arrays.copyOf(sorted, distinct);
+            int bits = distinct == 1 ? 0 : 32 - Integer.numberOfLeadingZeros(distinct - 1);
+            if (bits == 0) {
+                return new PackedArray(palette, 0, new long[0]);
+            }
+
+            int perWord = 64 / bits;
+            long[] words = new long[(VOXELS + perWord - 1) / perWord];
+            for (int i = 0; i < VOXELS; i++) {
+                long index = Arrays.binarySearch(palette, values[i]);
+                words[i / perWord] |= index << (i % perWord * bits);
+            }
+            return new PackedArray(palette, bits, words);
+        }
+
+        static int[] read(ByteBuffer buffer) {
+            int paletteSize = buffer.getShort() & 0xFFFF;
+            if (paletteSize == 0 || paletteSize > VOXELS) {
+                throw new IllegalArgumentException("Invalid palette size " + paletteSize);
+            }
+            int[] palette = new int[paletteSize];
+            for (int i = 0; i < paletteSize; i++) {
+                palette[i] = buffer.getInt();
+            }
+            int bits = buffer.get();
+            int[] values = new int[VOXELS];
+            if (bits == 0) {
+                Arrays.fill(values, palette[0]);
+                return values;
+            }
+            if (bits < 0 || bits > 12) {
+                throw new IllegalArgumentException("Invalid index width " + bits);
+            }
+
+            int perWord = 64 / bits;
+            long mask = (1L << bits) - 1;
+            long word = 0;
+            for (int i = 0; i < VOXELS; i++) {
+                if (i % perWord == 0) {
+                    word = buffer.getLong();
+                }
+                int index = (int) (word >>> (i % perWord * bits) & mask);
+                if (index >= paletteSize) {
+                    throw new IllegalArgumentException("Palette index " + index + " out of range");
+                }
+                values[i] = palette[index];
+            }
+            return values;
+        }
+
+        int byteSize() {
+            return 2 + palette.length * 4 + 1 + words.length * 8;
+        }
+
+        void write(ByteBuffer buffer) {
+            buffer.putShort((short) palette.length);
+            for (int value : palette) {
+                buffer.putInt(value);
+            }
+            buffer.put((byte) bits);
+            for (long word : words) {
+                buffer.putLong(word);
+            }
+        }
+    }
+}
@@ -1,13 +1,21 @@
 package me.cortex.neovoxy.common.world;
 
 import me.cortex.neovoxy.common.Logger;
+import me.cortex.neovoxy.common.thread.IOExecutor;
+import me.cortex.neovoxy.common.voxelization.SectionBorder;
+import me.cortex.neovoxy.common.voxelization.SectionBorderTable;
+import me.cortex.neovoxy.common.voxelization.SectionSerializer;
+import me.cortex.neovoxy.common.voxelization.VoxelizedSection;
 import me.cortex.neovoxy.common.world.other.Mapper;
 import me.cortex.neovoxy.commonImpl.VoxyCommon;
 import me.cortex.neovoxy.commonImpl.WorldIdentifier;
 
 import java.io.Closeable;
 import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Core engine managing LOD data for a world.
@@ -18,11 +26,17 @@ import java.util.concurrent.atomic.AtomicInteger;
  * <li>Section storage and retrieval</li>
  * <li>Block state to ID mapping</li>
  * <li>Dirty section tracking for updates</li>
+ * <li>Section border occupancy for cross-section face culling</li>
  * <li>Reference counting for safe cleanup</li>
  * </ul>
  */
 public class WorldEngine implements Closeable {
 
+    // Section offsets across each face, indexed by Direction ordinal
+    private static final int[][] FACE_OFFSETS = {
+            { 0, -1, 0 }, { 0, 1, 0 }, { 0, 0, -1 }, { 0, 0, 1 }, { -1, 0, 0 }, { 1, 0, 0 }
+    };
+
     private final WorldIdentifier worldId;
     private final Path storagePath;
     private final AtomicInteger refCount = new AtomicInteger(0);
@@ -33,6 +47,18 @@ public class WorldEngine implements Closeable {
     private final me.cortex.neovoxy.common.world.storage.StorageBackend storage;
     private final me.cortex.neovoxy.common.world.storage.ActiveSectionTracker sectionTracker;
 
+    // Outer voxel layers of known non-empty sections, dropped when their columns leave the render distance
+    private final SectionBorderTable sectionBorders = new SectionBorderTable();
+
+    // Serialized sections whose write has not finished yet, served to loads in the meantime
+    private final ConcurrentHashMap<Long, byte[]> pendingWrites = new ConcurrentHashMap<>();
+    // Serializes the writes of each section, striped by position. Locks rather than
+    // monitors, so a write blocked on disk does not pin its virtual thread
+    private final ReentrantLock[] writeLocks = new ReentrantLock[64];
+
+    // Runs storage calls off the service workers, null runs them on the caller
+    private volatile IOExecutor ioExecutor;
+
     private volatile boolean isClosed = false;
 
     public WorldEngine(WorldIdentifier worldId) {
@@ -48,6 +74,9 @@ public class WorldEngine implements Closeable {
         }
 
         this.sectionTracker = new me.cortex.neovoxy.common.world.storage.ActiveSectionTracker();
+        for (int i = 0; i < writeLocks.length; i++) {
+            writeLocks[i] = new ReentrantLock();
+        }
 
         // Load mapper data
         try {
@@ -79,6 +108,127 @@ public class WorldEngine implements Closeable {
         return storage;
     }
 
+    /**
+     * Set the executor used for asynchronous storage access.
+     */
+    public void setIOExecutor(IOExecutor ioExecutor) {
+        this.ioExecutor = ioExecutor;
+    }
+
+    /**
+     * Read a stored section on the I/O executor.
+     *
+     * @return Future completing with the stored data, or null if the section is not stored
+     */
+    public CompletableFuture<byte[]> loadSectionAsync(long sectionPos) {
+        IOExecutor io = ioExecutor;
+        if (io == null) {
+            return CompletableFuture.completedFuture(storage.getSection(sectionPos));
+        }
+        return io.submit(() -> storage.getSection(sectionPos));
+    }
+
+    /**
+     * Write a section to storage on the I/O executor.
+     */
+    public CompletableFuture<Void> saveSectionAsync(long sectionPos, byte[] data) {
+        IOExecutor io = ioExecutor;
+        if (io == null) {
+            storage.putSection(sectionPos, data);
+            return CompletableFuture.completedFuture(null);
+        }
+        return io.submit(() -> storage.putSection(sectionPos, data));
+    }
+
+    /**
+     * Serialize a section and write it to storage on the I/O executor.
+     * Loads issued before the write finishes see the new data.
+     *
+     * <p>Writes of one section may start in any order, so each writes whatever
+     * data is newest when it gets the section's lock; a write that finds its
+     * data already stored by a later one does nothing.
+     */
+    public CompletableFuture<Void> storeSection(VoxelizedSection section) {
+        long sectionPos = section.getPackedPosition();
+        byte[] data = SectionSerializer.serialize(section);
+        pendingWrites.put(sectionPos, data);
+
+        IOExecutor io = ioExecutor;
+        if (io == null) {
+            writeLatest(sectionPos);
+            return CompletableFuture.completedFuture(null);
+        }
+        return io.submit(() -> writeLatest(sectionPos)).whenComplete((ignored, error) -> {
+            if (error != null) {
+                Logger.error("Failed to store section {}", sectionPos, error);
+            }
+        });
+    }
+
+    private void writeLatest(long sectionPos) {
+        ReentrantLock lock = writeLocks[Long.hashCode(sectionPos * 0x9E3779B97F4A7C15L) & (writeLocks.length - 1)];
+        lock.lock();
+        try {
+            byte[] latest = pendingWrites.get(sectionPos);
+            if (latest == null) {
+                return; // Stored by a later write
+            }
+            try {
+                storage.putSection(sectionPos, latest);
+            } finally {
+                pendingWrites.remove(sectionPos, latest);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Read and deserialize a stored section on the I/O executor.
+     *
+     * @return Future completing with the section, or null if it is not stored or unreadable
+     */
+    public CompletableFuture<VoxelizedSection> loadVoxelizedAsync(long sectionPos) {
+        byte[] pending = pendingWrites.get(sectionPos);
+        CompletableFuture<byte[]> data = pending != null
+                ? CompletableFuture.completedFuture(pending)
+                : loadSectionAsync(sectionPos);
+        return data.thenApply(bytes -> {
+            if (bytes == null) {
+                return null;
+            }
+            try {
+                return SectionSerializer.deserialize(sectionPos, bytes);
+            } catch (IllegalArgumentException e) {
+                Logger.error("Discarding unreadable section {}", sectionPos, e);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Save the mapper on the I/O executor.
+     */
+    public CompletableFuture<Void> saveMapperAsync() {
+        Mapper mapper = this.mapper;
+        if (mapper == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        Runnable save = () -> {
+            try {
+                mapper.save(storagePath.resolve("mapper.bin"));
+            } catch (java.io.IOException e) {
+                Logger.error("Failed to save mapper data", e);
+            }
+        };
+        IOExecutor io = ioExecutor;
+        if (io == null) {
+            save.run();
+            return CompletableFuture.completedFuture(null);
+        }
+        return io.submit(save);
+    }
+
     /**
      * Get the active section tracker.
      */
@@ -133,6 +283,60 @@ public class WorldEngine implements Closeable {
         }
     }
 
+    /**
+     * Record the border layers of a freshly voxelized section.
+     * Neighbours whose touching face changed are marked dirty so they get re-meshed.
+     *
+     * @param sectionPos Packed section position
+     * @param section    Voxelized data, or null if the section is now empty
+     */
+    public void updateSectionBorder(long sectionPos, VoxelizedSection section) {
+        SectionBorder border = section == null || section.isEmpty() ? null : SectionBorder.of(section);
+        SectionBorder previous = border == null
+                ? sectionBorders.remove(sectionPos)
+                : sectionBorders.put(sectionPos, border);
+
+        for (int face = 0; face < 6; face++) {
+            if (SectionBorder.faceEquals(previous, border, face)) {
+                continue;
+            }
+            long neighbourPos = neighbourPosition(sectionPos, face);
+            if (sectionBorders.contains(neighbourPos)) {
+                notifySectionDirty(neighbourPos);
+            }
+        }
+    }
+
+    /**
+     * Fill {@code out} with the borders of the six sections adjacent to a section.
+     * Entries are null where the neighbour is unknown or empty.
+     *
+     * @param sectionPos Packed section position
+     * @param out        Array of at least 6 entries, indexed by face
+     */
+    public void getNeighbourBorders(long sectionPos, SectionBorder[] out) {
+        for (int face = 0; face < 6; face++) {
+            out[face] = sectionBorders.get(neighbourPosition(sectionPos, face));
+        }
+    }
+
+    /**
+     * Forget the borders of every section in a range of chunk columns, bounds
+     * inclusive. Called when the columns leave the render distance; sections
+     * meshed later against them treat the missing borders as empty.
+     */
+    public void evictSectionBorders(int minChunkX, int minChunkZ, int maxChunkX, int maxChunkZ) {
+        sectionBorders.removeColumns(minChunkX, minChunkZ, maxChunkX, maxChunkZ);
+    }
+
+    private static long neighbourPosition(long sectionPos, int face) {
+        int[] offset = FACE_OFFSETS[face];
+        return VoxelizedSection.packPosition(
+                VoxelizedSection.unpackX(sectionPos) + offset[0],
+                VoxelizedSection.unpackY(sectionPos) + offset[1],
+                VoxelizedSection.unpackZ(sectionPos) + offset[2]);
+    }
+
     @Override
     public void close() {
         if (isClosed)
@@ -146,10 +350,8 @@ public class WorldEngine implements Closeable {
             storage.flush();
             storage.close();
 
-            // Save mapper data
-            if (mapper != null) {
-                mapper.save(storagePath.resolve("mapper.bin"));
-            }
+            // Save mapper data, waiting so it is on disk before the executor shuts down
+            saveMapperAsync().join();
         } catch (Exception e) {
             Logger.error("Error during WorldEngine shutdown", e);
         }
@@ -2,10 +2,15 @@ package me.cortex.neovoxy.common.world.other;
 
 import me.cortex.neovoxy.common.Logger;
 import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.state.BlockState;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.Consumer;
 
 /**
@@ -14,18 +19,32 @@ import java.util.function.Consumer;
  * <p>
  * Block state IDs are used in the 64-bit quad format (20 bits).
  * Biome IDs are used for color tinting (9 bits).
+ *
+ * <p>
+ * Lookups by ID are served from copy-on-grow arrays published through
+ * volatile fields, so the hot paths never box or hash. State to ID lookups
+ * index an {@code int[]} remap table with vanilla's global block state ID and
+ * only take the lock the first time a state is seen.
  */
 public class Mapper {
 
+    private static final int MAX_STATE_ID = 1 << 20;
+    private static final int MAX_BIOME_ID = 1 << 9;
+
     // Block state mapping
+    // Fallback for states that are not in the global registry
     private final ConcurrentHashMap<BlockState, Integer> stateToId = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<Integer, BlockState> idToState = new ConcurrentHashMap<>();
+    // Global block state ID -> local ID, 0 = not yet mapped
+    private volatile int[] globalToLocal = new int[0];
+    private volatile AtomicReferenceArray<BlockState> idToState = new AtomicReferenceArray<>(256);
     private final AtomicInteger nextStateId = new AtomicInteger(1); // 0 = air
+    private final Object stateLock = new Object();
 
     // Biome mapping
     private final ConcurrentHashMap<Biome, Integer> biomeToId = new ConcurrentHashMap<>();
-    private final ConcurrentHashMap<Integer, BiomeEntry> biomeEntries = new ConcurrentHashMap<>();
+    private volatile AtomicReferenceArray<BiomeEntry> biomeEntries = new AtomicReferenceArray<>(64);
     private final AtomicInteger nextBiomeId = new AtomicInteger(0);
+    private final Object biomeLock = new Object();
 
     private Consumer<BiomeEntry> biomeCallback;
 
@@ -41,24 +60,69 @@ public class Mapper {
             return 0;
         }
 
-        return stateToId.computeIfAbsent(state, s -> {
-            int id = nextStateId.getAndIncrement();
-            if (id >= (1 << 20)) {
-                Logger.error("Block state ID overflow!");
-                return 0;
+        int globalId = Block.getId(state);
+        int[] remap = globalToLocal;
+        if (globalId >= 0 && globalId < remap.length) {
+            int id = remap[globalId];
+            if (id != 0) {
+                return id;
+            }
+        }
+
+        return mapStateSlow(state, globalId);
+    }
+
+    private int mapStateSlow(BlockState state, int globalId) {
+        synchronized (stateLock) {
+            int[] remap = globalToLocal;
+            if (globalId >= 0 && globalId < remap.length && remap[globalId] != 0) {
+                return remap[globalId];
+            }
+
+            int id = stateToId.computeIfAbsent(state, s -> {
+                int newId = nextStateId.get();
+                if (newId >= MAX_STATE_ID) {
+                    Logger.error("Block state ID overflow!");
+                    return 0;
+                }
+                nextStateId.set(newId + 1);
+                publishState(newId, s);
+                return newId;
+            });
+
+            if (id != 0 && globalId >= 0) {
+                if (globalId >= remap.length) {
+                    remap = Arrays.copyOf(remap, Math.max(globalId + 1, Math.max(remap.length * 2, Block.BLOCK_STATE_REGISTRY.size())));
+                }
+                remap[globalId] = id;
+                // Republish so readers observe the new entry
+                globalToLocal = remap;
             }
-            idToState.put(id, s);
             return id;
-        });
+        }
+    }
+
+    private void publishState(int id, BlockState state) {
+        AtomicReferenceArray<BlockState> table = idToState;
+        if (id >= table.length()) {
+            AtomicReferenceArray<BlockState> grown = new AtomicReferenceArray<>(Math.max(id + 1, table.length() * 2));
+            for (int i = 0; i < table.length(); i++) {
+                grown.set(i, table.get(i));
+            }
+            table = grown;
+        }
+        table.set(id, state);
+        idToState = table;
     }
 
     /**
      * Get block state from ID.
      */
     public BlockState getState(int id) {
-        if (id == 0)
+        if (id <= 0)
             return null;
-        return idToState.get(id);
+        AtomicReferenceArray<BlockState> table = idToState;
+        return id < table.length() ? table.get(id) : null;
     }
 
     /**
@@ -67,13 +131,13 @@ public class Mapper {
     public int getBiomeId(Biome biome) {
         return biomeToId.computeIfAbsent(biome, b -> {
             int id = nextBiomeId.getAndIncrement();
-            if (id >= (1 << 9)) {
+            if (id >= MAX_BIOME_ID) {
                 Logger.error("Biome ID overflow!");
                 return 0;
             }
 
             BiomeEntry entry = new BiomeEntry(id, biome);
-            biomeEntries.put(id, entry);
+            publishBiome(id, entry);
 
             if (biomeCallback != null) {
                 biomeCallback.accept(entry);
@@ -83,6 +147,29 @@ public class Mapper {
         });
     }
 
+    private void publishBiome(int id, BiomeEntry entry) {
+        synchronized (biomeLock) {
+            AtomicReferenceArray<BiomeEntry> table = biomeEntries;
+            if (id >= table.length()) {
+                AtomicReferenceArray<BiomeEntry> grown = new AtomicReferenceArray<>(Math.min(MAX_BIOME_ID, Math.max(id + 1, table.length() * 2)));
+                for (int i = 0; i < table.length(); i++) {
+                    grown.set(i, table.get(i));
+                }
+                table = grown;
+            }
+            table.set(id, entry);
+            biomeEntries = table;
+        }
+    }
+
+    /**
+     * Get biome entry from ID.
+     */
+    public BiomeEntry getBiomeEntry(int id) {
+        AtomicReferenceArray<BiomeEntry> table = biomeEntries;
+        return id >= 0 && id < table.length() ? table.get(id) : null;
+    }
+
     /**
      * Set callback for new biome registrations.
      */
@@ -94,7 +181,16 @@ public class Mapper {
      * Get all biome entries.
      */
     public BiomeEntry[] getBiomeEntries() {
-        return biomeEntries.values().toArray(new BiomeEntry[0]);
+        AtomicReferenceArray<BiomeEntry> table = biomeEntries;
+        int count = Math.min(nextBiomeId.get(), table.length());
+        List<BiomeEntry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            BiomeEntry entry = table.get(i);
+            if (entry != null) {
+                entries.add(entry);
+            }
+        }
+        return entries.toArray(new BiomeEntry[0]);
     }
 
     /**
@@ -127,7 +223,7 @@ public class Mapper {
             // Save biome mapping
             dos.writeInt(nextBiomeId.get());
             for (int i = 0; i < nextBiomeId.get(); i++) {
-                BiomeEntry entry = biomeEntries.get(i);
+                BiomeEntry entry = getBiomeEntry(i);
                 if (entry != null) {
                     dos.writeInt(entry.id());
                     dos.writeUTF(entry.biome().toString()); // Placeholder for biome identification
@@ -1,19 +1,18 @@
 package me.cortex.neovoxy.common.world.storage;
 
-import java.util.Collections;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import me.cortex.neovoxy.common.util.ConcurrentLongSet;
 
 /**
  * Tracks sections that are currently active or need updates.
+ * Positions are kept unboxed in striped primitive sets.
  */
 public class ActiveSectionTracker {
 
     // Set of sections that are currently "active" (loaded in memory/rendering)
-    private final Set<Long> activeSections = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final ConcurrentLongSet activeSections = new ConcurrentLongSet();
 
     // Set of sections that have been modified and need to be saved/re-meshed
-    private final Set<Long> dirtySections = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final ConcurrentLongSet dirtySections = new ConcurrentLongSet();
 
     public ActiveSectionTracker() {
     }
@@ -42,12 +41,26 @@ public class ActiveSectionTracker {
         return dirtySections.contains(sectionPos);
     }
 
-    public Set<Long> getDirtySections() {
-        return Collections.unmodifiableSet(dirtySections);
+    /**
+     * Get a snapshot of the dirty sections.
+     */
+    public long[] getDirtySections() {
+        return dirtySections.toArray();
+    }
+
+    /**
+     * Get a snapshot of the active sections.
+     */
+    public long[] getActiveSections() {
+        return activeSections.toArray();
+    }
+
+    public int getDirtyCount() {
+        return dirtySections.size();
     }
 
-    public Set<Long> getActiveSections() {
-        return Collections.unmodifiableSet(activeSections);
+    public int getActiveCount() {
+        return activeSections.size();
     }
 
     /**
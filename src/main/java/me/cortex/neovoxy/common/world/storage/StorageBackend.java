@@ -1,6 +1,9 @@
 package me.cortex.neovoxy.common.world.storage;
 
 import me.cortex.neovoxy.common.Logger;
+import me.cortex.neovoxy.common.jfr.StorageReadEvent;
+import me.cortex.neovoxy.common.jfr.StorageWriteEvent;
+import me.cortex.neovoxy.common.metrics.Metrics;
 import org.lwjgl.system.MemoryStack;
 import org.lwjgl.util.lmdb.*;
 
@@ -8,6 +11,8 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.lwjgl.system.MemoryStack.stackPush;
@@ -18,9 +23,25 @@ import static org.lwjgl.util.lmdb.LMDB.*;
  * Storage backend using LMDB for persistent section storage.
  * LMDB is available via LWJGL and doesn't require separate native library
  * bundling.
+ *
+ * <p>Safe to call from virtual threads. The environment is opened with
+ * {@code MDB_NOTLS} so reader slots belong to transactions rather than OS
+ * threads, readers are capped at the size of the reader table and writers are
+ * serialized by a Java semaphore, so callers queue by parking instead of
+ * blocking a carrier thread inside LMDB.
  */
 public class StorageBackend implements AutoCloseable {
     private static final long MAP_SIZE = 1024L * 1024L * 1024L * 10L; // 10 GB max
+    // LMDB reader table size, and the cap on concurrent read transactions
+    private static final int MAX_READERS = 126;
+    // Scratch needed by a single get/put: txn pointer, two MDBVals and the key
+    private static final int OPERATION_STACK_SIZE = 256;
+
+    private final Semaphore readPermits = new Semaphore(MAX_READERS);
+    private final Semaphore writePermit = new Semaphore(1);
+    // Scratch stacks for storage calls. The permits bound the calls in flight, so at
+    // most one stack per reader plus one for the writer is ever created
+    private final ConcurrentLinkedQueue<MemoryStack> stackPool = new ConcurrentLinkedQueue<>();
 
     private final long env;
     private final int dbi;
@@ -45,8 +66,14 @@ public class StorageBackend implements AutoCloseable {
                 throw new RuntimeException("Failed to set map size: " + mdb_strerror(rc));
             }
 
+            rc = mdb_env_set_maxreaders(env, MAX_READERS);
+            if (rc != MDB_SUCCESS) {
+                mdb_env_close(env);
+                throw new RuntimeException("Failed to set max readers: " + mdb_strerror(rc));
+            }
+
             // Open environment
-            rc = mdb_env_open(env, storagePath.toString(), MDB_NOSYNC | MDB_WRITEMAP, 0664);
+            rc = mdb_env_open(env, storagePath.toString(), MDB_NOSYNC | MDB_WRITEMAP | MDB_NOTLS, 0664);
             if (rc != MDB_SUCCESS) {
                 mdb_env_close(env);
                 throw new RuntimeException("Failed to open LMDB environment: " + mdb_strerror(rc));
@@ -87,12 +114,34 @@ public class StorageBackend implements AutoCloseable {
         if (isClosed.get())
             return;
 
-        try (MemoryStack stack = stackPush()) {
+        writePermit.acquireUninterruptibly();
+        try {
+            if (isClosed.get())
+                return;
+            StorageWriteEvent event = new StorageWriteEvent();
+            event.begin();
+            long start = Metrics.start();
+            boolean success = putSectionLocked(sectionPos, data);
+            Metrics.record(Metrics.Stage.STORE_PUT, start);
+            if (event.shouldCommit()) {
+                event.sectionPos = sectionPos;
+                event.bytes = data.length;
+                event.success = success;
+                event.commit();
+            }
+        } finally {
+            writePermit.release();
+        }
+    }
+
+    private boolean putSectionLocked(long sectionPos, byte[] data) {
+        MemoryStack stack = acquireStack();
+        try {
             var ppTxn = stack.callocPointer(1);
             int rc = mdb_txn_begin(env, NULL, 0, ppTxn);
             if (rc != MDB_SUCCESS) {
                 Logger.error("Failed to begin write transaction: {}", mdb_strerror(rc));
-                return;
+                return false;
             }
             long txn = ppTxn.get(0);
 
@@ -113,13 +162,17 @@ public class StorageBackend implements AutoCloseable {
             if (rc != MDB_SUCCESS) {
                 mdb_txn_abort(txn);
                 Logger.error("Failed to put section: {}", mdb_strerror(rc));
-                return;
+                return false;
             }
 
             rc = mdb_txn_commit(txn);
             if (rc != MDB_SUCCESS) {
                 Logger.error("Failed to commit write transaction: {}", mdb_strerror(rc));
+                return false;
             }
+            return true;
+        } finally {
+            releaseStack(stack);
         }
     }
 
@@ -130,7 +183,30 @@ public class StorageBackend implements AutoCloseable {
         if (isClosed.get())
             return null;
 
-        try (MemoryStack stack = stackPush()) {
+        readPermits.acquireUninterruptibly();
+        try {
+            if (isClosed.get())
+                return null;
+            StorageReadEvent event = new StorageReadEvent();
+            event.begin();
+            long start = Metrics.start();
+            byte[] data = getSectionLocked(sectionPos);
+            Metrics.record(Metrics.Stage.STORE_GET, start);
+            if (event.shouldCommit()) {
+                event.sectionPos = sectionPos;
+                event.bytes = data == null ? 0 : data.length;
+                event.found = data != null;
+                event.commit();
+            }
+            return data;
+        } finally {
+            readPermits.release();
+        }
+    }
+
+    private byte[] getSectionLocked(long sectionPos) {
+        MemoryStack stack = acquireStack();
+        try {
             var ppTxn = stack.callocPointer(1);
             int rc = mdb_txn_begin(env, NULL, MDB_RDONLY, ppTxn);
             if (rc != MDB_SUCCESS) {
@@ -163,9 +239,28 @@ public class StorageBackend implements AutoCloseable {
 
             mdb_txn_abort(txn); // Read-only txn, just abort
             return result;
+        } finally {
+            releaseStack(stack);
         }
     }
 
+    /**
+     * Take a scratch stack from the pool. Callers run on short-lived virtual threads,
+     * where a thread-local or freshly created stack would allocate a direct buffer per call.
+     */
+    private MemoryStack acquireStack() {
+        MemoryStack stack = stackPool.poll();
+        if (stack == null) {
+            stack = MemoryStack.create(OPERATION_STACK_SIZE);
+        }
+        return stack.push();
+    }
+
+    private void releaseStack(MemoryStack stack) {
+        stack.pop();
+        stackPool.add(stack);
+    }
+
     /**
      * Flush all pending writes to disk.
      */
@@ -180,6 +275,10 @@ public class StorageBackend implements AutoCloseable {
         if (isClosed.getAndSet(true))
             return;
 
+        // Wait for in-flight transactions; later calls see the closed flag
+        writePermit.acquireUninterruptibly();
+        readPermits.acquireUninterruptibly(MAX_READERS);
+
         mdb_dbi_close(env, dbi);
         mdb_env_close(env);
 
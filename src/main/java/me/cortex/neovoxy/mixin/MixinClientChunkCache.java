@@ -1,6 +1,8 @@
 package me.cortex.neovoxy.mixin;
 
 import me.cortex.neovoxy.common.Logger;
+import me.cortex.neovoxy.common.jfr.VoxelizeEvent;
+import me.cortex.neovoxy.common.metrics.Metrics;
 import me.cortex.neovoxy.common.voxelization.VoxelizedSection;
 import me.cortex.neovoxy.common.voxelization.WorldConversionFactory;
 import me.cortex.neovoxy.common.world.other.Mapper;
@@ -55,21 +57,40 @@ public class MixinClientChunkCache {
         }
         
         // Convert chunk sections to LOD data
+        long ingestStart = Metrics.start();
         int minSection = chunk.getLevel().getMinSection();
         int maxSection = chunk.getLevel().getMaxSection();
         
         for (int sectionY = minSection; sectionY < maxSection; sectionY++) {
             try {
+                VoxelizeEvent event = new VoxelizeEvent();
+                event.begin();
+                long voxelizeStart = Metrics.start();
                 VoxelizedSection voxelized = neovoxy$conversionFactory.convertSection(chunk, sectionY);
+                Metrics.record(Metrics.Stage.VOXELIZE, voxelizeStart);
+                if (event.shouldCommit()) {
+                    event.x = x;
+                    event.y = sectionY;
+                    event.z = z;
+                    event.empty = voxelized == null || voxelized.isEmpty();
+                    event.commit();
+                }
+                long packedPos = VoxelizedSection.packPosition(x, sectionY, z);
+
+                // Track border occupancy so neighbours can cull faces against this section
+                worldEngine.updateSectionBorder(packedPos, voxelized);
+
                 if (voxelized != null) {
+                    // Persist first so the remesh triggered below loads this data
+                    worldEngine.storeSection(voxelized);
                     // Notify world engine of new section data
-                    long packedPos = VoxelizedSection.packPosition(x, sectionY, z);
                     worldEngine.notifySectionDirty(packedPos);
                 }
             } catch (Exception e) {
                 Logger.error("Failed to voxelize section at ({}, {}, {})", x, sectionY, z, e);
             }
         }
+        Metrics.record(Metrics.Stage.INGEST, ingestStart);
     }
     
     /**
@@ -23,9 +23,9 @@ void main() {
     UnpackedNode node;
     unpackNode(node, nodeQueue[gl_InstanceID]);
 
-    vec4 base = VP*vec4(vec3(((node.pos<<node.lodLevel)-camSecPos)<<5)-camSubSecPos, 1);
+    vec4 base = VP*vec4(vec3(((node.pos<<node.lodLevel)-camSecPos)<<4)-camSubSecPos, 1);
 
-    vec4 pos = base + (VP*vec4(ivec3(gl_VertexID&1, (gl_VertexID>>2)&1, (gl_VertexID>>1)&1)<<(5+node.lodLevel), 1));
+    vec4 pos = base + (VP*vec4(ivec3(gl_VertexID&1, (gl_VertexID>>2)&1, (gl_VertexID>>1)&1)<<(4+node.lodLevel), 1));
 
     gl_Position = pos;
 
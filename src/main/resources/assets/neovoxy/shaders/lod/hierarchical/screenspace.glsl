@@ -58,9 +58,9 @@ void setupScreenspace(in UnpackedNode node) {
                     */
 
 
-    vec3 basePos = vec3(((node.pos<<node.lodLevel)-camSecPos)<<5)-camSubSecPos;
+    vec3 basePos = vec3(((node.pos<<node.lodLevel)-camSecPos)<<4)-camSubSecPos;
 
-    frustumCulled = outsideFrustum(frustum, basePos, float(32<<node.lodLevel));
+    frustumCulled = outsideFrustum(frustum, basePos, float(16<<node.lodLevel));
 
     //Fast exit
     if (frustumCulled) {
@@ -68,7 +68,7 @@ void setupScreenspace(in UnpackedNode node) {
     }
 
     vec4 P000 = VP * vec4(basePos, 1);
-    mat3x4 Axis = mat3x4(VP) * float(32<<node.lodLevel);
+    mat3x4 Axis = mat3x4(VP) * float(16<<node.lodLevel);
 
     vec4 P100 = Axis[0] + P000;
     vec4 P001 = Axis[2] + P000;
@@ -1,31 +1,47 @@
+//Quad layout, must match me.cortex.neovoxy.common.meshing.QuadFormat
+#define QUAD_FACE_SHIFT 0
+#define QUAD_WIDTH_SHIFT 3
+#define QUAD_HEIGHT_SHIFT 7
+#define QUAD_Z_SHIFT 11
+#define QUAD_Y_SHIFT 16
+#define QUAD_X_SHIFT 21
+#define QUAD_STATE_SHIFT 26
+#define QUAD_BIOME_SHIFT 46
+#define QUAD_LIGHT_SHIFT 55
+
+#define QUAD_SIZE_BITS 4
+#define QUAD_POSITION_BITS 5
+#define QUAD_STATE_BITS 20
+#define QUAD_BIOME_BITS 9
+#define QUAD_LIGHT_BITS 8
+
 #if defined(GL_ARB_gpu_shader_int64) || defined(VOXY_USE_INT64)
 #define Quad uint64_t
 
 #define Eu32(data, amountBits, shift) (uint((data)>>(shift))&((1u<<(amountBits))-1))
 
 vec3 extractPos(uint64_t quad) {
-    //TODO: pull out the majic constants into #defines (specifically the shift amount)
-    return vec3(Eu32(quad, 5, 21), Eu32(quad, 5, 16), Eu32(quad, 5, 11));
+    return vec3(Eu32(quad, QUAD_POSITION_BITS, QUAD_X_SHIFT), Eu32(quad, QUAD_POSITION_BITS, QUAD_Y_SHIFT), Eu32(quad, QUAD_POSITION_BITS, QUAD_Z_SHIFT));
 }
 
 ivec2 extractSize(uint64_t quad) {
-    return ivec2(Eu32(quad, 4, 3), Eu32(quad, 4, 7)) + ivec2(1);//the + 1 is cause you cant actually have a 0 size quad
+    return ivec2(Eu32(quad, QUAD_SIZE_BITS, QUAD_WIDTH_SHIFT), Eu32(quad, QUAD_SIZE_BITS, QUAD_HEIGHT_SHIFT)) + ivec2(1);//the + 1 is cause you cant actually have a 0 size quad
 }
 
 uint extractFace(uint64_t quad) {
-    return Eu32(quad, 3, 0);
+    return Eu32(quad, 3, QUAD_FACE_SHIFT);
 }
 
 uint extractStateId(uint64_t quad) {
-    return Eu32(quad, 16, 26);
+    return Eu32(quad, QUAD_STATE_BITS, QUAD_STATE_SHIFT);
 }
 
 uint extractBiomeId(uint64_t quad) {
-    return Eu32(quad, 9, 46);
+    return Eu32(quad, QUAD_BIOME_BITS, QUAD_BIOME_SHIFT);
 }
 
 uint extractLightId(uint64_t quad) {
-    return Eu32(quad, 8, 55);
+    return Eu32(quad, QUAD_LIGHT_BITS, QUAD_LIGHT_SHIFT);
 }
 
 bool isQuadEmpty(uint64_t quad) {
@@ -49,15 +65,15 @@ uint Eu32v(ivec2 data, int amount, int shift) {
 }
 
 vec3 extractPos(ivec2 quad) {
-    return vec3(Eu32v(quad, 5, 21), Eu32v(quad, 5, 16), Eu32v(quad, 5, 11));
+    return vec3(Eu32v(quad, QUAD_POSITION_BITS, QUAD_X_SHIFT), Eu32v(quad, QUAD_POSITION_BITS, QUAD_Y_SHIFT), Eu32v(quad, QUAD_POSITION_BITS, QUAD_Z_SHIFT));
 }
 
 ivec2 extractSize(ivec2 quad) {
-    return ivec2(Eu32v(quad, 4, 3), Eu32v(quad, 4, 7)) + ivec2(1);//the + 1 is cause you cant actually have a 0 size quad
+    return ivec2(Eu32v(quad, QUAD_SIZE_BITS, QUAD_WIDTH_SHIFT), Eu32v(quad, QUAD_SIZE_BITS, QUAD_HEIGHT_SHIFT)) + ivec2(1);//the + 1 is cause you cant actually have a 0 size quad
 }
 
 uint extractFace(ivec2 quad) {
-    return Eu32v(quad, 3, 0);
+    return Eu32v(quad, 3, QUAD_FACE_SHIFT);
 }
 
 uint extractStateId(ivec2 quad) {
@@ -66,11 +82,11 @@ uint extractStateId(ivec2 quad) {
 }
 
 uint extractBiomeId(ivec2 quad) {
-    return Eu32v(quad, 9, 46);
+    return Eu32v(quad, QUAD_BIOME_BITS, QUAD_BIOME_SHIFT);
 }
 
 uint extractLightId(ivec2 quad) {
-    return Eu32v(quad, 8, 55);
+    return Eu32v(quad, QUAD_LIGHT_BITS, QUAD_LIGHT_SHIFT);
 }
 
 bool isQuadEmpty(ivec2 quad) {
@@ -0,0 +1,100 @@
+package me.cortex.neovoxy.client.core.rendering.culling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrustumCullerTest {
+
+    /**
+     * Random boxes around the origin, one in eight of them a single point.
+     */
+    private static AabbBatch randomBoxes(Random random, int count) {
+        AabbBatch boxes = new AabbBatch(count);
+        for (int i = 0; i < count; i++) {
+            float x = (random.nextFloat() - 0.5f) * 2000;
+            float y = (random.nextFloat() - 0.5f) * 2000;
+            float z = (random.nextFloat() - 0.5f) * 2000;
+            float size = random.nextInt(8) == 0 ? 0 : random.nextFloat() * 256;
+            boxes.addCube(x, y, z, size);
+        }
+        return boxes;
+    }
+
+    private static float[] randomPlanes(Random random) {
+        float[] planes = new float[FrustumCuller.ALL_PLANES * 4];
+        for (int p = 0; p < FrustumCuller.ALL_PLANES; p++) {
+            float nx = random.nextFloat() * 2 - 1;
+            float ny = random.nextFloat() * 2 - 1;
+            float nz = random.nextFloat() * 2 - 1;
+            // Axis-aligned normals put zero components through the corner choice
+            if (random.nextInt(4) == 0) {
+                nx = 0;
+            }
+            float length = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+            planes[p * 4] = nx / length;
+            planes[p * 4 + 1] = ny / length;
+            planes[p * 4 + 2] = nz / length;
+            planes[p * 4 + 3] = (random.nextFloat() - 0.25f) * 1000;
+        }
+        return planes;
+    }
+
+    @Test
+    void vectorMatchesScalar() {
+        FrustumCuller scalar = new ScalarFrustumCuller();
+        FrustumCuller vector = new VectorFrustumCuller();
+        Random random = new Random(48);
+        // Empty, below one vector, every tail length up to the widest vector, and large batches
+        int[] sizes = new int[40];
+        for (int i = 0; i < 36; i++) {
+            sizes[i] = i;
+        }
+        sizes[36] = 63;
+        sizes[37] = 64;
+        sizes[38] = 65;
+        sizes[39] = 1001;
+
+        for (int size : sizes) {
+            for (int round = 0; round < 20; round++) {
+                AabbBatch boxes = randomBoxes(random, size);
+                float[] planes = randomPlanes(random);
+                int planeCount = round % 2 == 0 ? FrustumCuller.ALL_PLANES : FrustumCuller.WITHOUT_FAR_PLANE;
+
+                // Stale bits in the output must be cleared
+                long[] expected = new long[FrustumCuller.words(size) + 1];
+                long[] actual = new long[FrustumCuller.words(size) + 1];
+                Arrays.fill(actual, 0, FrustumCuller.words(size), -1L);
+                int expectedCount = scalar.cull(boxes, planes, planeCount, expected);
+                int actualCount = vector.cull(boxes, planes, planeCount, actual);
+
+                assertEquals(expectedCount, actualCount, "Count for " + size + " boxes");
+                assertArrayEquals(expected, actual, "Bits for " + size + " boxes");
+                int bits = 0;
+                for (long word : expected) {
+                    bits += Long.bitCount(word);
+                }
+                assertEquals(expectedCount, bits);
+            }
+        }
+    }
+
+    @Test
+    void boxOnThePlaneIsVisible() {
+        AabbBatch boxes = new AabbBatch();
+        boxes.add(-1, -1, 5, 1, 1, 6);
+        boxes.add(-1, -1, 5.5f, 1, 1, 6);
+        // Boxes reaching down to z = 5 pass, the first one exactly
+        float[] planes = {0, 0, -1, 5};
+        long[] visible = new long[1];
+
+        for (FrustumCuller culler : new FrustumCuller[]{new ScalarFrustumCuller(), new VectorFrustumCuller()}) {
+            assertEquals(1, culler.cull(boxes, planes, 1, visible), culler.name());
+            assertTrue(FrustumCuller.isVisible(visible, 0));
+            assertFalse(FrustumCuller.isVisible(visible, 1));
+        }
+    }
+}
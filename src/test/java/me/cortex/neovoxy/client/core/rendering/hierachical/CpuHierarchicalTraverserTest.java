@@ -0,0 +1,135 @@
+package me.cortex.neovoxy.client.core.rendering.hierachical;
+
+import me.cortex.neovoxy.client.core.rendering.Viewport;
+import me.cortex.neovoxy.client.core.rendering.culling.ScalarFrustumCuller;
+import org.joml.Matrix4f;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CpuHierarchicalTraverserTest {
+
+    // Subdivision sizes in pixels² that always and never descend
+    private static final float ALWAYS = 1e-6f;
+    private static final float NEVER = 1e12f;
+
+    /**
+     * Camera inside section (0, 0, 0) looking down -Z with a 90 degree field of view.
+     */
+    private static Viewport viewport() {
+        return new Viewport()
+                .setProjection(new Matrix4f().perspective((float) Math.toRadians(90), 1, 0.1f, 10000))
+                .setModelView(new Matrix4f())
+                .setCameraPosition(8, 8, 8)
+                .setDimensions(1024, 1024);
+    }
+
+    private static CpuHierarchicalTraverser traverser() {
+        return new CpuHierarchicalTraverser(1 << 12, 1 << 8, new ScalarFrustumCuller());
+    }
+
+    private static int[] sorted(int[] values, int count) {
+        int[] copy = Arrays.copyOf(values, count);
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    @Test
+    void nodesOutsideTheFrustumAreDropped() {
+        NodeStore store = new NodeStore(64);
+        int ahead = store.createRoot(0, 0, 0, -4);
+        int behind = store.createRoot(0, 0, 0, 4);
+        int aside = store.createRoot(0, -20, 0, -2);
+        store.setMesh(ahead, 1);
+        store.setMesh(behind, 2);
+        store.setMesh(aside, 3);
+
+        CpuHierarchicalTraverser.Result result = traverser().traverse(store, viewport(), NEVER, 1, false);
+
+        assertArrayEquals(new int[]{1}, sorted(result.getMeshes(), result.getRenderCount()));
+        assertArrayEquals(new int[]{ahead}, sorted(result.getDrawnNodes(), result.getDrawnCount()));
+        // All three are tested, only one passes
+        assertEquals(3, result.getVisitedPerLod()[0]);
+        assertEquals(1, result.getRenderedPerLod()[0]);
+    }
+
+    @Test
+    void largeNodesDescendAndSmallOnesDrawTheirOwnMesh() {
+        NodeStore store = new NodeStore(64);
+        int root = store.createRoot(2, 0, 0, -2);
+        store.setMesh(root, 100);
+        store.setChildren(root, 0xFF);
+        for (int octant = 0; octant < 8; octant++) {
+            store.setMesh(store.getChild(root, octant), octant);
+        }
+        CpuHierarchicalTraverser traverser = traverser();
+
+        CpuHierarchicalTraverser.Result coarse = traverser.traverse(store, viewport(), NEVER, 1, false);
+        assertArrayEquals(new int[]{100}, sorted(coarse.getMeshes(), coarse.getRenderCount()));
+        assertEquals(0, coarse.getVisitedPerLod()[1]);
+
+        CpuHierarchicalTraverser.Result fine = traverser.traverse(store, viewport(), ALWAYS, 2, false);
+        int[] meshes = sorted(fine.getMeshes(), fine.getRenderCount());
+        assertEquals(8, fine.getVisitedPerLod()[1]);
+        assertTrue(meshes.length > 0);
+        assertTrue(Arrays.stream(meshes).allMatch(mesh -> mesh < 8), "Drew the parent over its children");
+        assertEquals(meshes.length, fine.getRenderedPerLod()[1]);
+        assertEquals(0, fine.getRenderedPerLod()[2]);
+        assertEquals(2, fine.getFrame());
+    }
+
+    @Test
+    void childlessLargeNodesAreRequestedOnce() {
+        NodeStore store = new NodeStore(64);
+        int root = store.createRoot(3, 0, 0, -2);
+        store.setMesh(root, 7);
+        CpuHierarchicalTraverser traverser = traverser();
+
+        CpuHierarchicalTraverser.Result result = traverser.traverse(store, viewport(), ALWAYS, 1, true);
+
+        // Requested and drawn coarse until the children arrive
+        assertEquals(1, result.getRequestCount());
+        int[] encoded = new int[NodeStore.INTS_PER_NODE];
+        store.encode(root, encoded, 0);
+        assertEquals((encoded[0] & 0xFFFFFFFFL) | (long) encoded[1] << 32, result.getRequests()[0]);
+        assertArrayEquals(new int[]{7}, sorted(result.getMeshes(), result.getRenderCount()));
+        assertNotEquals(0, store.getFlags(root) & NodeStore.FLAG_REQUESTED);
+
+        result = traverser.traverse(store, viewport(), ALWAYS, 2, true);
+        assertEquals(0, result.getRequestCount());
+        assertEquals(1, result.getRenderCount());
+    }
+
+    @Test
+    void requestsLeaveFlagsAloneUnlessAsked() {
+        NodeStore store = new NodeStore(64);
+        int root = store.createRoot(3, 0, 0, -2);
+        CpuHierarchicalTraverser traverser = traverser();
+
+        assertEquals(1, traverser.traverse(store, viewport(), ALWAYS, 1, false).getRequestCount());
+        assertEquals(0, store.getFlags(root) & NodeStore.FLAG_REQUESTED);
+        assertEquals(1, traverser.traverse(store, viewport(), ALWAYS, 2, false).getRequestCount());
+    }
+
+    @Test
+    void levelZeroNodesWithoutMeshAreReportedDrawn() {
+        NodeStore store = new NodeStore(64);
+        int missing = store.createRoot(0, 0, 0, -2);
+        int empty = store.createRoot(0, 1, 0, -2);
+        int meshed = store.createRoot(0, -1, 0, -2);
+        store.setMesh(empty, NodeStore.EMPTY_MESH);
+        store.setMesh(meshed, 9);
+
+        CpuHierarchicalTraverser.Result result = traverser().traverse(store, viewport(), ALWAYS, 1, false);
+
+        // Only the real mesh is queued, but all three count as drawn for reloads and eviction
+        assertArrayEquals(new int[]{9}, sorted(result.getMeshes(), result.getRenderCount()));
+        int[] drawn = sorted(result.getDrawnNodes(), result.getDrawnCount());
+        int[] expected = {missing, empty, meshed};
+        Arrays.sort(expected);
+        assertArrayEquals(expected, drawn);
+        assertEquals(0, result.getRequestCount());
+    }
+}
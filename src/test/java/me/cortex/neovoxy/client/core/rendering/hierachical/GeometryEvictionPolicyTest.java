@@ -0,0 +1,213 @@
+package me.cortex.neovoxy.client.core.rendering.hierachical;
+
+import me.cortex.neovoxy.common.voxelization.VoxelizedSection;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GeometryEvictionPolicyTest {
+
+    private static final int QUADS = 16;
+    private static final long BYTES = QUADS * 8;
+
+    /**
+     * Stands in for the geometry buffer and the remesh pipeline: sections in
+     * view are drawn, loaded the first time and reloaded a frame after a
+     * request, as the render tracker readback and remesh scheduler do.
+     */
+    private static final class World {
+        final GeometryEvictionPolicy policy;
+        final long capacity;
+        final Map<Long, Long> resident = new HashMap<>();
+        final Map<Long, Integer> lastDrawn = new HashMap<>();
+        final List<Long> reloads = new ArrayList<>();
+        long usage;
+        long nextOffset;
+        int frame;
+        int maxWaitFrames;
+        final Map<Long, Integer> waitingSince = new HashMap<>();
+
+        World(GeometryEvictionPolicy policy, long capacity) {
+            this.policy = policy;
+            this.capacity = capacity;
+            policy.setReloader(reloads::add);
+        }
+
+        void load(long pos) {
+            long offset = nextOffset;
+            nextOffset += BYTES;
+            resident.put(pos, offset);
+            usage += BYTES;
+            policy.onResident(pos, offset, QUADS, BYTES, frame);
+        }
+
+        /**
+         * One frame with the camera at section (x, z) seeing every section within {@code radius}.
+         */
+        void frame(double x, double z, int radius) {
+            frame++;
+            policy.setCamera(x * 16 + 8, 4 * 16 + 8, z * 16 + 8);
+
+            // Rebuilds requested last frame land now
+            List<Long> landed = new ArrayList<>(reloads);
+            reloads.clear();
+            for (long pos : landed) {
+                assertFalse(resident.containsKey(pos), "Reloaded a resident section");
+                load(pos);
+            }
+
+            int cx = (int) Math.floor(x);
+            int cz = (int) Math.floor(z);
+            for (int sx = cx - radius; sx <= cx + radius; sx++) {
+                for (int sz = cz - radius; sz <= cz + radius; sz++) {
+                    if ((sx - cx) * (sx - cx) + (sz - cz) * (sz - cz) > radius * radius) {
+                        continue;
+                    }
+                    long pos = VoxelizedSection.packPosition(sx, 4, sz);
+                    if (resident.containsKey(pos)) {
+                        policy.onDrawn(pos, frame);
+                        lastDrawn.put(pos, frame);
+                        Integer since = waitingSince.remove(pos);
+                        if (since != null) {
+                            maxWaitFrames = Math.max(maxWaitFrames, frame - since);
+                        }
+                    } else if (policy.isEvicted(pos)) {
+                        policy.request(pos);
+                        waitingSince.putIfAbsent(pos, frame);
+                    } else {
+                        load(pos);
+                    }
+                }
+            }
+
+            policy.evict(usage, capacity, frame, (pos, offset, quadCount) -> {
+                assertEquals(offset, (long) resident.remove(pos));
+                assertEquals(QUADS, quadCount);
+                int drawn = lastDrawn.getOrDefault(pos, 0);
+                assertTrue(frame - drawn >= GeometryEvictionPolicy.DEFAULT_MIN_IDLE_FRAMES,
+                        "Evicted a section drawn " + (frame - drawn) + " frames ago");
+                usage -= BYTES;
+            });
+            assertTrue(usage <= capacity, "Geometry buffer overflowed");
+        }
+    }
+
+    @Test
+    void cameraPathKeepsViewResidentAndReloadsEvicted() {
+        int radius = 8;
+        // Room for about three views worth of sections
+        long capacity = 3 * (long) (Math.PI * radius * radius) * BYTES;
+        World world = new World(new GeometryEvictionPolicy(), capacity);
+
+        // Out along X, then back over the same ground
+        for (double x = 0; x < 120; x += 0.25) {
+            world.frame(x, 0, radius);
+        }
+        long evictionsOut = world.policy.getEvictionTotal();
+        for (double x = 120; x > 0; x -= 0.25) {
+            world.frame(x, 0, radius);
+        }
+
+        assertTrue(evictionsOut > 0, "Path never filled the buffer");
+        assertTrue(world.policy.getReloadTotal() > 0, "Evicted sections were never reloaded");
+        // Evicted sections coming back into view are drawn again the frame after
+        assertEquals(1, world.maxWaitFrames);
+        assertTrue(world.usage <= capacity * GeometryEvictionPolicy.DEFAULT_HIGH_WATER);
+    }
+
+    @Test
+    void evictsFarthestIdleSectionsFirst() {
+        GeometryEvictionPolicy policy = new GeometryEvictionPolicy(0.5, 0.25, 0);
+        long near = VoxelizedSection.packPosition(0, 0, 0);
+        long mid = VoxelizedSection.packPosition(10, 0, 0);
+        long far = VoxelizedSection.packPosition(40, 0, 0);
+        policy.setCamera(8, 8, 8);
+        policy.onResident(far, 0, QUADS, BYTES, 0);
+        policy.onResident(mid, BYTES, QUADS, BYTES, 0);
+        policy.onResident(near, 2 * BYTES, QUADS, BYTES, 0);
+
+        List<Long> evicted = new ArrayList<>();
+        // Three of four slots in use, down to one: two sections go
+        long freed = policy.evict(3 * BYTES, 4 * BYTES, 10, (pos, offset, quadCount) -> evicted.add(pos));
+
+        assertEquals(2 * BYTES, freed);
+        assertEquals(List.of(far, mid), evicted);
+        assertTrue(policy.isEvicted(far));
+        assertFalse(policy.isEvicted(near));
+    }
+
+    @Test
+    void recentlyDrawnSectionsAreKept() {
+        GeometryEvictionPolicy policy = new GeometryEvictionPolicy(0.5, 0.25, 30);
+        long old = VoxelizedSection.packPosition(1, 0, 0);
+        long recent = VoxelizedSection.packPosition(50, 0, 0);
+        policy.onResident(old, 0, QUADS, BYTES, 0);
+        policy.onResident(recent, BYTES, QUADS, BYTES, 0);
+        policy.onDrawn(recent, 90);
+
+        List<Long> evicted = new ArrayList<>();
+        policy.evict(2 * BYTES, 2 * BYTES, 100, (pos, offset, quadCount) -> evicted.add(pos));
+
+        // The far section was drawn 10 frames ago, so only the near idle one may go
+        assertEquals(List.of(old), evicted);
+    }
+
+    @Test
+    void requestReloadsEvictedSectionOnce() {
+        GeometryEvictionPolicy policy = new GeometryEvictionPolicy(0.5, 0.25, 0);
+        List<Long> reloads = new ArrayList<>();
+        policy.setReloader(reloads::add);
+        long pos = VoxelizedSection.packPosition(3, 2, 1);
+        policy.onResident(pos, 0, QUADS, BYTES, 0);
+        policy.evict(BYTES, BYTES, 5, (p, offset, quadCount) -> {});
+
+        assertFalse(policy.request(VoxelizedSection.packPosition(0, 0, 0)));
+        assertTrue(policy.request(pos));
+        assertFalse(policy.request(pos));
+        assertEquals(List.of(pos), reloads);
+        assertEquals(1, policy.getReloadTotal());
+
+        policy.onResident(pos, 64, QUADS, BYTES, 6);
+        assertFalse(policy.isEvicted(pos));
+        assertEquals(1, policy.getResidentCount());
+    }
+
+    @Test
+    void relocationFollowsGeometry() {
+        GeometryEvictionPolicy policy = new GeometryEvictionPolicy(0.5, 0.25, 0);
+        long a = VoxelizedSection.packPosition(0, 0, 0);
+        long b = VoxelizedSection.packPosition(1, 0, 0);
+        policy.onResident(a, 1000, QUADS, BYTES, 0);
+        policy.onResident(b, 2000, QUADS, BYTES, 0);
+        policy.onRelocated(2000, 500, BYTES);
+
+        Map<Long, Long> offsets = new HashMap<>();
+        policy.evict(2 * BYTES, 2 * BYTES, 1, (pos, offset, quadCount) -> offsets.put(pos, offset));
+        assertEquals(1000, (long) offsets.get(a));
+        assertEquals(500, (long) offsets.get(b));
+    }
+
+    @Test
+    void relocationMovesBackToBackAllocationsOverlappingTheirOldRange() {
+        GeometryEvictionPolicy policy = new GeometryEvictionPolicy(0.5, 0.25, 0);
+        long a = VoxelizedSection.packPosition(0, 0, 0);
+        long b = VoxelizedSection.packPosition(1, 0, 0);
+        long c = VoxelizedSection.packPosition(2, 0, 0);
+        policy.onResident(a, 3 * BYTES, QUADS, BYTES, 0);
+        policy.onResident(b, 4 * BYTES, 2 * QUADS, 2 * BYTES, 0);
+        policy.onResident(c, 6 * BYTES, QUADS, BYTES, 0);
+        // Down by two allocations, so the new range overlaps the old one
+        policy.onRelocated(3 * BYTES, BYTES, 3 * BYTES);
+
+        Map<Long, Long> offsets = new HashMap<>();
+        policy.evict(8 * BYTES, 8 * BYTES, 1, (pos, offset, quadCount) -> offsets.put(pos, offset));
+        assertEquals(BYTES, (long) offsets.get(a));
+        assertEquals(2 * BYTES, (long) offsets.get(b));
+        assertEquals(6 * BYTES, (long) offsets.get(c));
+    }
+}
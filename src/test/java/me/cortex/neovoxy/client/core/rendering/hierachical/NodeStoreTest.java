@@ -0,0 +1,186 @@
+package me.cortex.neovoxy.client.core.rendering.hierachical;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NodeStoreTest {
+
+    @Test
+    void childrenSitInOctantOrderWithTheirPositions() {
+        NodeStore store = new NodeStore(64);
+        int root = store.createRoot(2, 3, -1, 5);
+        assertTrue(store.setChildren(root, 0b1000_0001));
+
+        int low = store.getChild(root, 0);
+        int high = store.getChild(root, 7);
+        assertEquals(store.getChildPtr(root), low);
+        assertEquals(low + 1, high);
+        assertEquals(NodeStore.NULL_NODE, store.getChild(root, 3));
+        assertEquals(1, store.getLod(high));
+        assertEquals(7, store.getX(high));
+        assertEquals(-1, store.getY(high));
+        assertEquals(11, store.getZ(high));
+        assertEquals(root, store.getParent(high));
+        assertEquals(2, store.getChildCount(root));
+    }
+
+    @Test
+    void setChildrenKeepsStayingChildrenAndFreesRemovedOnes() {
+        NodeStore store = new NodeStore(64);
+        int root = store.createRoot(2, 0, 0, 0);
+        store.setChildren(root, 0b0000_0110);
+        store.setMesh(store.getChild(root, 1), 11);
+        store.setMesh(store.getChild(root, 2), 22);
+        store.setChildren(store.getChild(root, 2), 0b1);
+        assertEquals(4, store.getLiveCount());
+
+        // Octant 1 goes with nothing below it, octant 2 stays, octants 0 and 5 are new
+        assertTrue(store.setChildren(root, 0b0010_0101));
+
+        assertEquals(NodeStore.NULL_NODE, store.getChild(root, 1));
+        int kept = store.getChild(root, 2);
+        assertEquals(22, store.getMesh(kept));
+        assertEquals(1, store.getChildCount(kept));
+        assertEquals(NodeStore.NULL_MESH, store.getMesh(store.getChild(root, 0)));
+        assertEquals(NodeStore.NULL_MESH, store.getMesh(store.getChild(root, 5)));
+        assertEquals(5, store.getLiveCount());
+
+        // Dropping a child frees its subtree too
+        store.setChildren(root, 0b0000_0001);
+        assertEquals(2, store.getLiveCount());
+        store.freeRoot(root);
+        assertEquals(0, store.getLiveCount());
+        assertFalse(store.isAlive(root));
+    }
+
+    @Test
+    void movedNodesRepointTheirChildren() {
+        NodeStore store = new NodeStore(64);
+        int root = store.createRoot(3, 0, 0, 0);
+        store.setChildren(root, 0b0000_0010);
+        int child = store.getChild(root, 1);
+        store.setChildren(child, 0b0000_1001);
+
+        // Growing the list moves the child to new IDs
+        store.setChildren(root, 0b0000_0011);
+        int moved = store.getChild(root, 1);
+        assertNotEquals(child, moved);
+        assertFalse(store.isAlive(child));
+        assertEquals(root, store.getParent(moved));
+        for (int octant : new int[]{0, 3}) {
+            int grandchild = store.getChild(moved, octant);
+            assertTrue(store.isAlive(grandchild));
+            assertEquals(moved, store.getParent(grandchild));
+        }
+    }
+
+    @Test
+    void freedBlocksAreReusedBySmallerLists() {
+        NodeStore store = new NodeStore(64);
+        int root = store.createRoot(1, 0, 0, 0);
+        store.setChildren(root, 0xFF);
+        int limit = store.getIdLimit();
+
+        // Eight children down to three and then two: the old list's IDs take the second
+        store.setChildren(root, 0b0000_0111);
+        store.setChildren(root, 0b0000_0011);
+        assertTrue(store.getChildPtr(root) + 2 <= limit);
+        assertTrue(store.getIdLimit() <= limit);
+
+        // Freeing everything gives the whole range back
+        store.freeRoot(root);
+        assertEquals(0, store.getIdLimit());
+    }
+
+    @Test
+    void adjacentFreeBlocksMerge() {
+        NodeStore store = new NodeStore(64);
+        int parent = store.createRoot(1, 0, 0, 0);
+        int[] roots = new int[4];
+        for (int i = 0; i < roots.length; i++) {
+            roots[i] = store.createRoot(1, i, 0, 0);
+        }
+        int pin = store.createRoot(1, 9, 0, 0);
+        // Four single-ID holes next to each other serve a list of four
+        for (int root : roots) {
+            store.freeRoot(root);
+        }
+        store.setChildren(parent, 0b0000_1111);
+        assertEquals(roots[0], store.getChildPtr(parent));
+        assertEquals(pin + 1, store.getIdLimit());
+    }
+
+    @Test
+    void churnDoesNotGrowTheIdRange() {
+        NodeStore store = new NodeStore(1 << 16);
+        Random random = new Random(7);
+        List<Integer> roots = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            roots.add(store.createRoot(2, i, 0, 0));
+        }
+        int highest = 0;
+        for (int round = 0; round < 20_000; round++) {
+            int root = roots.get(random.nextInt(roots.size()));
+            store.setChildren(root, random.nextInt(256));
+            int child = store.getChildPtr(root);
+            if (child != NodeStore.NULL_NODE) {
+                store.setChildren(child, random.nextInt(256));
+            }
+            if (round == 1_000) {
+                highest = store.getIdLimit();
+            }
+        }
+        // Worst case every root holds 8 children of 8, 64 * 73 IDs
+        assertTrue(store.getIdLimit() <= 64 * 73, "ID range crept to " + store.getIdLimit());
+        assertTrue(store.getIdLimit() <= highest * 2, "ID range crept to " + store.getIdLimit());
+        int reachable = 0;
+        for (int root : roots) {
+            reachable += countSubtree(store, root);
+        }
+        assertEquals(store.getLiveCount(), reachable);
+        for (int root : roots) {
+            store.freeRoot(root);
+        }
+        assertEquals(0, store.getLiveCount());
+        assertEquals(0, store.getIdLimit());
+    }
+
+    private static int countSubtree(NodeStore store, int id) {
+        int count = 1;
+        for (int i = 0; i < store.getChildCount(id); i++) {
+            assertEquals(id, store.getParent(store.getChildPtr(id) + i));
+            count += countSubtree(store, store.getChildPtr(id) + i);
+        }
+        return count;
+    }
+
+    @Test
+    void drainChangesSplitsRuns() {
+        NodeStore store = new NodeStore(64);
+        int a = store.createRoot(1, 0, 0, 0);
+        int b = store.createRoot(1, 1, 0, 0);
+        int c = store.createRoot(1, 2, 0, 0);
+        int d = store.createRoot(1, 3, 0, 0);
+        store.drainChanges((first, packed) -> {});
+
+        store.setMesh(d, 4);
+        store.setMesh(a, 1);
+        store.setMesh(b, 2);
+        store.setMesh(a, 5);
+
+        List<int[]> runs = new ArrayList<>();
+        int count = store.drainChanges((first, packed) -> runs.add(new int[]{first, packed.length / NodeStore.INTS_PER_NODE, packed[2] & 0xFFFFFF}));
+        assertEquals(3, count);
+        assertEquals(2, runs.size());
+        assertArrayEquals(new int[]{a, 2, 5}, runs.get(0));
+        assertArrayEquals(new int[]{d, 1, 4}, runs.get(1));
+        assertEquals(0, store.getPendingChangeCount());
+        assertEquals(0, store.drainChanges((first, packed) -> fail("Nothing changed")));
+        assertTrue(store.isAlive(c));
+    }
+}
@@ -0,0 +1,247 @@
+package me.cortex.neovoxy.client.core.rendering.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UploadStreamTest {
+
+    /**
+     * Stands in for the GPU: copies are only carried out when the test completes
+     * the fence after them, reading the staging memory at that point. Reusing
+     * ring space too early therefore corrupts the destination.
+     */
+    private static final class FakeSink implements StagingSink<long[]> {
+        final ByteBuffer memory;
+        final List<long[]> queued = new ArrayList<>(); // target index, staging, target offset, size, fence
+        final List<long[][]> targets = new ArrayList<>();
+        final List<Long> liveFences = new ArrayList<>();
+        long nextFence = 1;
+        long completed;
+        int copyCalls;
+        boolean closed;
+
+        FakeSink(int capacity) {
+            this.memory = ByteBuffer.allocateDirect(capacity).order(ByteOrder.nativeOrder());
+        }
+
+        @Override
+        public ByteBuffer memory() {
+            return memory;
+        }
+
+        @Override
+        public void copy(long[] target, long stagingOffset, long targetOffset, long size) {
+            int index = indexOf(target);
+            queued.add(new long[] { index, stagingOffset, targetOffset, size, nextFence });
+            copyCalls++;
+        }
+
+        @Override
+        public long fence() {
+            liveFences.add(nextFence);
+            return nextFence++;
+        }
+
+        @Override
+        public boolean isSignalled(long fence) {
+            return fence <= completed;
+        }
+
+        @Override
+        public void deleteFence(long fence) {
+            assertTrue(liveFences.remove(Long.valueOf(fence)), "Fence deleted twice");
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        /**
+         * Run every copy issued so far and signal their fences.
+         */
+        void completeAll() {
+            for (long[] copy : queued) {
+                long[] target = targets.get((int) copy[0])[0];
+                assertEquals(0, copy[2] % Long.BYTES);
+                assertEquals(0, copy[3] % Long.BYTES);
+                for (long i = 0; i < copy[3]; i += Long.BYTES) {
+                    target[(int) ((copy[2] + i) / Long.BYTES)] = memory.getLong((int) (copy[1] + i));
+                }
+            }
+            queued.clear();
+            completed = nextFence - 1;
+        }
+
+        private int indexOf(long[] target) {
+            for (int i = 0; i < targets.size(); i++) {
+                if (targets.get(i)[0] == target) {
+                    return i;
+                }
+            }
+            targets.add(new long[][] { target });
+            return targets.size() - 1;
+        }
+    }
+
+    @Test
+    void writesLandAtTheirOffsets() {
+        FakeSink sink = new FakeSink(4096);
+        UploadStream<long[]> stream = new UploadStream<>(sink);
+        long[] target = new long[64];
+
+        stream.write(target, 8 * Long.BYTES, new long[] { 1, 2, 3 });
+        stream.write(target, 40 * Long.BYTES, new long[] { 4 });
+        assertEquals(4 * Long.BYTES, stream.getPendingBytes());
+        assertEquals(0, target[8]);
+
+        stream.flush(Long.MAX_VALUE);
+        sink.completeAll();
+
+        assertEquals(0, stream.getPendingBytes());
+        assertArrayEquals(new long[] { 1, 2, 3 }, new long[] { target[8], target[9], target[10] });
+        assertEquals(4, target[40]);
+    }
+
+    @Test
+    void contiguousWritesMergeIntoOneCopy() {
+        FakeSink sink = new FakeSink(4096);
+        UploadStream<long[]> stream = new UploadStream<>(sink);
+        long[] target = new long[64];
+
+        // Two longs each, so both ring and destination ranges line up with the 16-byte alignment
+        stream.write(target, 0, new long[] { 1, 2 });
+        stream.write(target, 16, new long[] { 3, 4 });
+        stream.write(target, 32, new long[] { 5, 6 });
+
+        assertEquals(1, stream.flush(Long.MAX_VALUE));
+        sink.completeAll();
+        assertArrayEquals(new long[] { 1, 2, 3, 4, 5, 6 }, Arrays.copyOf(target, 6));
+    }
+
+    @Test
+    void flushRespectsByteBudget() {
+        FakeSink sink = new FakeSink(4096);
+        UploadStream<long[]> stream = new UploadStream<>(sink);
+        long[] a = new long[16];
+        long[] b = new long[16];
+
+        stream.write(a, 0, new long[] { 1, 1 });
+        stream.write(b, 0, new long[] { 2, 2 });
+        stream.write(a, 64, new long[] { 3, 3 });
+
+        assertEquals(1, stream.flush(16));
+        assertEquals(32, stream.getPendingBytes());
+        assertEquals(2, stream.flush(1 << 20));
+        sink.completeAll();
+        assertEquals(1, a[0]);
+        assertEquals(2, b[0]);
+        assertEquals(3, a[8]);
+    }
+
+    @Test
+    void ringIsNotReusedBeforeFenceSignals() {
+        FakeSink sink = new FakeSink(256);
+        UploadStream<long[]> stream = new UploadStream<>(sink);
+        long[] target = new long[256];
+
+        // Fill the ring and issue it, but keep the GPU from finishing
+        for (int i = 0; i < 16; i++) {
+            stream.write(target, i * 16L, new long[] { i, i });
+        }
+        stream.flush(Long.MAX_VALUE);
+        assertEquals(256, stream.getRingUsage());
+
+        // No room until the fence signals: these go to the heap
+        for (int i = 16; i < 32; i++) {
+            stream.write(target, i * 16L, new long[] { i, i });
+        }
+        assertEquals(0, stream.flush(Long.MAX_VALUE));
+
+        sink.completeAll();
+        stream.flush(Long.MAX_VALUE);
+        sink.completeAll();
+
+        for (int i = 0; i < 32; i++) {
+            assertEquals(i, target[i * 2], "Slot " + i);
+            assertEquals(i, target[i * 2 + 1], "Slot " + i);
+        }
+    }
+
+    @Test
+    void writesLargerThanTheRingAreChunked() {
+        FakeSink sink = new FakeSink(256);
+        UploadStream<long[]> stream = new UploadStream<>(sink);
+        long[] target = new long[1024];
+        long[] data = new long[1000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = i * 31L;
+        }
+
+        stream.write(target, 0, data);
+        for (int frame = 0; frame < 100 && stream.getPendingBytes() > 0; frame++) {
+            stream.flush(Long.MAX_VALUE);
+            sink.completeAll();
+        }
+
+        assertEquals(0, stream.getPendingBytes());
+        assertArrayEquals(data, Arrays.copyOf(target, data.length));
+    }
+
+    @Test
+    void retargetFollowsRelocatedData() {
+        FakeSink sink = new FakeSink(4096);
+        UploadStream<long[]> stream = new UploadStream<>(sink);
+        long[] target = new long[64];
+        long[] other = new long[64];
+
+        stream.write(target, 256, new long[] { 7, 8 });
+        stream.write(other, 256, new long[] { 9, 9 });
+        stream.retarget(target, 256, 64, 64);
+        stream.flush(Long.MAX_VALUE);
+        sink.completeAll();
+
+        assertEquals(7, target[8]);
+        assertEquals(8, target[9]);
+        assertEquals(0, target[32]);
+        // Other buffers are left alone
+        assertEquals(9, other[32]);
+    }
+
+    @Test
+    void writeIntStagesSingleValue() {
+        FakeSink sink = new FakeSink(4096);
+        UploadStream<long[]> stream = new UploadStream<>(sink);
+        long[] target = new long[4];
+
+        stream.writeInt(target, 0, 5);
+        stream.writeInt(target, 4, 6);
+        assertEquals(8, stream.getPendingBytes());
+        stream.flush(Long.MAX_VALUE);
+
+        // Two 4-byte copies, not merged since the ring slots are 16-byte aligned
+        assertEquals(2, sink.queued.size());
+        assertEquals(4, sink.queued.get(0)[3]);
+        assertEquals(16, sink.queued.get(1)[1]);
+    }
+
+    @Test
+    void closeReleasesFencesAndSink() {
+        FakeSink sink = new FakeSink(4096);
+        UploadStream<long[]> stream = new UploadStream<>(sink);
+        stream.write(new long[8], 0, new long[] { 1, 2 });
+        stream.flush(Long.MAX_VALUE);
+        assertEquals(1, sink.liveFences.size());
+
+        stream.close();
+        assertTrue(sink.liveFences.isEmpty());
+        assertTrue(sink.closed);
+    }
+}
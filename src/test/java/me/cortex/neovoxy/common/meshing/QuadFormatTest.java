@@ -0,0 +1,129 @@
+package me.cortex.neovoxy.common.meshing;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pins the quad layout so the Java encoder and {@code lod/quad_format.glsl} cannot drift apart.
+ */
+class QuadFormatTest {
+
+    private static final String SHADER = "/assets/neovoxy/shaders/lod/quad_format.glsl";
+    private static final Pattern DEFINE = Pattern.compile("^#define\\s+(QUAD_\\w+)\\s+(\\d+)\\s*$", Pattern.MULTILINE);
+
+    @Test
+    void layoutMatchesGolden() {
+        assertEquals(0, QuadFormat.FACE_SHIFT);
+        assertEquals(3, QuadFormat.WIDTH_SHIFT);
+        assertEquals(7, QuadFormat.HEIGHT_SHIFT);
+        assertEquals(11, QuadFormat.Z_SHIFT);
+        assertEquals(16, QuadFormat.Y_SHIFT);
+        assertEquals(21, QuadFormat.X_SHIFT);
+        assertEquals(26, QuadFormat.STATE_SHIFT);
+        assertEquals(46, QuadFormat.BIOME_SHIFT);
+        assertEquals(55, QuadFormat.LIGHT_SHIFT);
+
+        assertEquals(3, QuadFormat.FACE_BITS);
+        assertEquals(4, QuadFormat.SIZE_BITS);
+        assertEquals(5, QuadFormat.POSITION_BITS);
+        assertEquals(20, QuadFormat.STATE_BITS);
+        assertEquals(9, QuadFormat.BIOME_BITS);
+        assertEquals(8, QuadFormat.LIGHT_BITS);
+    }
+
+    @Test
+    void layoutMatchesShader() throws IOException {
+        Map<String, Integer> defines = readShaderDefines();
+
+        assertEquals(QuadFormat.FACE_SHIFT, defines.get("QUAD_FACE_SHIFT"));
+        assertEquals(QuadFormat.WIDTH_SHIFT, defines.get("QUAD_WIDTH_SHIFT"));
+        assertEquals(QuadFormat.HEIGHT_SHIFT, defines.get("QUAD_HEIGHT_SHIFT"));
+        assertEquals(QuadFormat.Z_SHIFT, defines.get("QUAD_Z_SHIFT"));
+        assertEquals(QuadFormat.Y_SHIFT, defines.get("QUAD_Y_SHIFT"));
+        assertEquals(QuadFormat.X_SHIFT, defines.get("QUAD_X_SHIFT"));
+        assertEquals(QuadFormat.STATE_SHIFT, defines.get("QUAD_STATE_SHIFT"));
+        assertEquals(QuadFormat.BIOME_SHIFT, defines.get("QUAD_BIOME_SHIFT"));
+        assertEquals(QuadFormat.LIGHT_SHIFT, defines.get("QUAD_LIGHT_SHIFT"));
+
+        assertEquals(QuadFormat.SIZE_BITS, defines.get("QUAD_SIZE_BITS"));
+        assertEquals(QuadFormat.POSITION_BITS, defines.get("QUAD_POSITION_BITS"));
+        assertEquals(QuadFormat.STATE_BITS, defines.get("QUAD_STATE_BITS"));
+        assertEquals(QuadFormat.BIOME_BITS, defines.get("QUAD_BIOME_BITS"));
+        assertEquals(QuadFormat.LIGHT_BITS, defines.get("QUAD_LIGHT_BITS"));
+    }
+
+    @Test
+    void fieldsAreContiguousAndFit() {
+        assertEquals(QuadFormat.FACE_SHIFT + QuadFormat.FACE_BITS, QuadFormat.WIDTH_SHIFT);
+        assertEquals(QuadFormat.WIDTH_SHIFT + QuadFormat.SIZE_BITS, QuadFormat.HEIGHT_SHIFT);
+        assertEquals(QuadFormat.HEIGHT_SHIFT + QuadFormat.SIZE_BITS, QuadFormat.Z_SHIFT);
+        assertEquals(QuadFormat.Z_SHIFT + QuadFormat.POSITION_BITS, QuadFormat.Y_SHIFT);
+        assertEquals(QuadFormat.Y_SHIFT + QuadFormat.POSITION_BITS, QuadFormat.X_SHIFT);
+        assertEquals(QuadFormat.X_SHIFT + QuadFormat.POSITION_BITS, QuadFormat.STATE_SHIFT);
+        assertEquals(QuadFormat.STATE_SHIFT + QuadFormat.STATE_BITS, QuadFormat.BIOME_SHIFT);
+        assertEquals(QuadFormat.BIOME_SHIFT + QuadFormat.BIOME_BITS, QuadFormat.LIGHT_SHIFT);
+        assertTrue(QuadFormat.LIGHT_SHIFT + QuadFormat.LIGHT_BITS <= Long.SIZE);
+    }
+
+    @Test
+    void packRoundTrips() {
+        long quad = QuadFormat.pack(5, 16, 1, 31, 0, 17, (1 << 20) - 1, 300, 0xAB);
+
+        assertEquals(5, QuadFormat.getFace(quad));
+        assertEquals(2, QuadFormat.getAxis(quad));
+        assertEquals(16, QuadFormat.getWidth(quad));
+        assertEquals(1, QuadFormat.getHeight(quad));
+        assertEquals(31, QuadFormat.getX(quad));
+        assertEquals(0, QuadFormat.getY(quad));
+        assertEquals(17, QuadFormat.getZ(quad));
+        assertEquals((1 << 20) - 1, QuadFormat.getStateId(quad));
+        assertEquals(300, QuadFormat.getBiomeId(quad));
+        assertEquals(0xAB, QuadFormat.getLight(quad));
+    }
+
+    @Test
+    void packMatchesGoldenBits() {
+        // face 1, 2x3, pos (4, 5, 6), state 7, biome 8, light 9
+        long expected = 1L
+                | (1L << 3)
+                | (2L << 7)
+                | (6L << 11)
+                | (5L << 16)
+                | (4L << 21)
+                | (7L << 26)
+                | (8L << 46)
+                | (9L << 55);
+        assertEquals(expected, QuadFormat.pack(1, 2, 3, 4, 5, 6, 7, 8, 9));
+    }
+
+    @Test
+    void outOfRangeFieldsDoNotBleed() {
+        long quad = QuadFormat.pack(0, 1, 1, 32, 0, 0, 1 << 20, 0, 0);
+        assertEquals(0, QuadFormat.getX(quad));
+        assertEquals(0, QuadFormat.getStateId(quad));
+        assertEquals(0, QuadFormat.getBiomeId(quad));
+    }
+
+    private static Map<String, Integer> readShaderDefines() throws IOException {
+        String source;
+        try (InputStream in = QuadFormatTest.class.getResourceAsStream(SHADER)) {
+            assertNotNull(in, "Missing shader " + SHADER);
+            source = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        Map<String, Integer> defines = new HashMap<>();
+        Matcher matcher = DEFINE.matcher(source);
+        while (matcher.find()) {
+            defines.put(matcher.group(1), Integer.parseInt(matcher.group(2)));
+        }
+        return defines;
+    }
+}
@@ -0,0 +1,79 @@
+package me.cortex.neovoxy.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentLongSetTest {
+
+    @Test
+    void singleKeyOperations() {
+        ConcurrentLongSet set = new ConcurrentLongSet(5);
+        assertTrue(set.add(0));
+        assertFalse(set.add(0));
+        assertTrue(set.add(-3));
+        assertTrue(set.contains(0));
+        assertEquals(2, set.size());
+
+        long[] keys = set.toArray();
+        Arrays.sort(keys);
+        assertArrayEquals(new long[]{-3, 0}, keys);
+
+        assertTrue(set.remove(0));
+        assertFalse(set.remove(0));
+        set.clear();
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    void concurrentWritersKeepEveryKey() throws InterruptedException {
+        ConcurrentLongSet set = new ConcurrentLongSet();
+        int threads = 8;
+        int perThread = 20_000;
+        AtomicInteger failures = new AtomicInteger();
+        CyclicBarrier phase = new CyclicBarrier(threads);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            workers[t] = new Thread(() -> {
+                try {
+                    // Every thread adds every key, then removes the odd keys of its own share
+                    phase.await();
+                    for (int i = 0; i < perThread; i++) {
+                        set.add((long) i << 20);
+                    }
+                    phase.await();
+                    for (int i = id; i < perThread; i += threads) {
+                        if (i % 2 == 1 && !set.remove((long) i << 20)) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException | BrokenBarrierException e) {
+                    failures.incrementAndGet();
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertEquals(0, failures.get());
+        assertEquals(perThread / 2, set.size());
+        long[] keys = set.toArray();
+        assertEquals(perThread / 2, keys.length);
+        for (long key : keys) {
+            assertEquals(0, (key >> 20) % 2);
+        }
+        long[] sum = new long[1];
+        set.forEach(key -> sum[0] += key >> 20);
+        // Even keys 0, 2, .. perThread - 2
+        assertEquals((long) (perThread / 2) * (perThread / 2 - 1), sum[0]);
+        assertTrue(set.getTableBytes() > 0);
+    }
+}
@@ -0,0 +1,160 @@
+package me.cortex.neovoxy.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DefragPlannerTest {
+
+    @Test
+    void packedRangesNeedNoMoves() {
+        int[] offsets = { 0, 4, 10 };
+        int[] sizes = { 4, 6, 2 };
+        assertTrue(DefragPlanner.plan(offsets, sizes, 3, 8, 100).isEmpty());
+    }
+
+    @Test
+    void movesHighestRangeIntoLowestHole() {
+        // Hole of 5 at [3, 8), ranges above it
+        int[] offsets = { 0, 8, 20 };
+        int[] sizes = { 3, 4, 5 };
+        List<DefragPlanner.Move> moves = DefragPlanner.plan(offsets, sizes, 3, 1, 100);
+
+        assertEquals(1, moves.size());
+        assertEquals(new DefragPlanner.Move(20, 3, 5), moves.get(0));
+    }
+
+    @Test
+    void respectsBudgets() {
+        int[] offsets = { 0, 10, 20, 30 };
+        int[] sizes = { 2, 2, 2, 2 };
+
+        assertEquals(2, DefragPlanner.plan(offsets, sizes, 4, 2, 100).size());
+        // Only one range fits in the unit budget
+        assertEquals(1, DefragPlanner.plan(offsets, sizes, 4, 8, 3).size());
+        assertTrue(DefragPlanner.plan(offsets, sizes, 4, 0, 100).isEmpty());
+        assertTrue(DefragPlanner.plan(offsets, sizes, 4, 8, 0).isEmpty());
+    }
+
+    @Test
+    void movesNeverOverlapAndGoDown() {
+        int[] offsets = new int[256];
+        int[] sizes = new int[256];
+        int count = fragmentedLayout(offsets, sizes, 7);
+
+        List<DefragPlanner.Move> moves = DefragPlanner.plan(offsets, sizes, count, 64, 1 << 20);
+        assertFalse(moves.isEmpty());
+        for (int i = 0; i < moves.size(); i++) {
+            DefragPlanner.Move a = moves.get(i);
+            assertTrue(a.to() + a.size() <= a.from());
+            for (int j = i + 1; j < moves.size(); j++) {
+                DefragPlanner.Move b = moves.get(j);
+                assertFalse(overlaps(a.to(), b.to(), a.size(), b.size()), "Destinations overlap");
+                assertFalse(overlaps(a.to(), b.from(), a.size(), b.size()), "Destination overlaps a source");
+                assertFalse(overlaps(a.from(), b.to(), a.size(), b.size()), "Source overlaps a destination");
+            }
+        }
+    }
+
+    @Test
+    void planIsDeterministic() {
+        int[] offsets = new int[256];
+        int[] sizes = new int[256];
+        int count = fragmentedLayout(offsets, sizes, 11);
+
+        assertEquals(DefragPlanner.plan(offsets, sizes, count, 32, 4096),
+                DefragPlanner.plan(offsets, sizes, count, 32, 4096));
+    }
+
+    @Test
+    void compactionKeepsDataAndReducesFragmentation() {
+        int capacity = 1 << 14;
+        SizeClassAllocator allocator = new SizeClassAllocator(capacity);
+        // Owner of every unit, stands in for the geometry buffer contents
+        int[] buffer = new int[capacity];
+        int[] offsets = new int[1024];
+        int[] sizes = new int[1024];
+        int count = 0;
+
+        long seed = 99;
+        for (int i = 0; i < offsets.length; i++) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            int size = 1 + (int) ((seed >>> 33) % 40);
+            int offset = allocator.allocate(size);
+            if (offset < 0) {
+                break;
+            }
+            offsets[count] = offset;
+            sizes[count++] = size;
+        }
+        // Free every other allocation to leave holes everywhere
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if ((i & 1) == 0) {
+                assertTrue(allocator.free(offsets[i], sizes[i]));
+            } else {
+                offsets[kept] = offsets[i];
+                sizes[kept++] = sizes[i];
+            }
+        }
+        count = kept;
+        for (int i = 0; i < count; i++) {
+            fill(buffer, offsets[i], sizes[i], i + 1);
+        }
+        double before = allocator.getFragmentation();
+
+        int[] rangeOffsets = new int[allocator.getRangeCount()];
+        int[] rangeSizes = new int[rangeOffsets.length];
+        for (int frame = 0; frame < 200; frame++) {
+            int ranges = allocator.collectRanges(rangeOffsets, rangeSizes);
+            List<DefragPlanner.Move> moves = DefragPlanner.plan(rangeOffsets, rangeSizes, ranges, 8, 512);
+            if (moves.isEmpty()) {
+                break;
+            }
+            for (DefragPlanner.Move move : moves) {
+                assertTrue(allocator.relocate(move.from(), move.to()));
+                System.arraycopy(buffer, move.from(), buffer, move.to(), move.size());
+                // What a RelocationListener does for section metadata
+                for (int i = 0; i < count; i++) {
+                    if (offsets[i] >= move.from() && offsets[i] < move.from() + move.size()) {
+                        offsets[i] += move.to() - move.from();
+                    }
+                }
+            }
+        }
+
+        assertTrue(allocator.getFragmentation() < before);
+        for (int i = 0; i < count; i++) {
+            for (int u = 0; u < sizes[i]; u++) {
+                assertEquals(i + 1, buffer[offsets[i] + u], "Allocation " + i + " lost its data");
+            }
+            assertTrue(allocator.free(offsets[i], sizes[i]), "Allocation " + i + " not at its tracked offset");
+        }
+        assertEquals(0, allocator.getAllocatedUnits());
+    }
+
+    private static int fragmentedLayout(int[] offsets, int[] sizes, long seed) {
+        int end = 0;
+        for (int i = 0; i < offsets.length; i++) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            int roll = (int) (seed >>> 33);
+            end += roll % 12;
+            offsets[i] = end;
+            sizes[i] = 1 + (roll >>> 4) % 16;
+            end += sizes[i];
+        }
+        return offsets.length;
+    }
+
+    private static boolean overlaps(int a, int b, int sizeA, int sizeB) {
+        return a < b + sizeB && b < a + sizeA;
+    }
+
+    private static void fill(int[] buffer, int offset, int size, int value) {
+        for (int u = 0; u < size; u++) {
+            buffer[offset + u] = value;
+        }
+    }
+}
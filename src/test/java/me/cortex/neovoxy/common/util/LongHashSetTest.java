@@ -0,0 +1,104 @@
+package me.cortex.neovoxy.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongHashSetTest {
+
+    @Test
+    void removeShiftsProbeRunAcrossTheTableEnd() {
+        LongHashSet set = new LongHashSet(4);
+        assertEquals(16L * Long.BYTES, set.getTableBytes());
+        long[] wrapped = LongIntHashMapTest.keysHomedAt(15, 16, 3, 1);
+        long first = LongIntHashMapTest.keysHomedAt(0, 16, 1, 1)[0];
+        for (long key : wrapped) {
+            set.add(key);
+        }
+        set.add(first);
+
+        assertTrue(set.remove(wrapped[0]));
+        assertFalse(set.contains(wrapped[0]));
+        assertTrue(set.contains(wrapped[1]));
+        assertTrue(set.contains(wrapped[2]));
+        assertTrue(set.contains(first));
+
+        assertTrue(set.remove(wrapped[1]));
+        assertTrue(set.contains(wrapped[2]));
+        assertTrue(set.contains(first));
+        assertEquals(2, set.size());
+    }
+
+    @Test
+    void zeroKeyLivesOutsideTheTable() {
+        LongHashSet set = new LongHashSet();
+        assertFalse(set.contains(0));
+        assertTrue(set.add(0));
+        assertFalse(set.add(0));
+        set.add(9);
+        assertEquals(2, set.size());
+
+        long[] keys = set.toArray();
+        Arrays.sort(keys);
+        assertArrayEquals(new long[]{0, 9}, keys);
+
+        assertTrue(set.remove(0));
+        assertFalse(set.remove(0));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    void addAndRemoveReportChanges() {
+        LongHashSet set = new LongHashSet();
+        assertTrue(set.add(5));
+        assertFalse(set.add(5));
+        assertTrue(set.remove(5));
+        assertFalse(set.remove(5));
+        assertFalse(set.remove(6));
+        assertTrue(set.isEmpty());
+    }
+
+    @Test
+    void rehashKeepsEveryKey() {
+        LongHashSet set = new LongHashSet();
+        long initialBytes = set.getTableBytes();
+        for (int i = 1; i <= 10_000; i++) {
+            set.add(i * 0x10001L);
+        }
+        assertTrue(set.getTableBytes() > initialBytes);
+        assertEquals(10_000, set.size());
+        for (int i = 1; i <= 10_000; i++) {
+            assertTrue(set.contains(i * 0x10001L));
+        }
+
+        long[] out = new long[set.size() + 2];
+        assertEquals(set.size() + 2, set.copyTo(out, 2));
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(0x10001L));
+    }
+
+    @Test
+    void matchesHashSetUnderRandomChurn() {
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(45);
+        for (int i = 0; i < 200_000; i++) {
+            long key = random.nextInt(512) - 16;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), set.remove(key));
+            } else {
+                assertEquals(expected.add(key), set.add(key));
+            }
+        }
+        assertEquals(expected.size(), set.size());
+        Set<Long> visited = new HashSet<>();
+        set.forEach(visited::add);
+        assertEquals(expected, visited);
+    }
+}
@@ -0,0 +1,129 @@
+package me.cortex.neovoxy.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongIntHashMapTest {
+
+    private static final int MISSING = -1;
+
+    /**
+     * Find keys whose home slot in a table of {@code tableSize} is {@code home}.
+     */
+    static long[] keysHomedAt(int home, int tableSize, int count, long start) {
+        long[] keys = new long[count];
+        int found = 0;
+        for (long key = start; found < count; key++) {
+            if (key != 0 && (LongIntHashMap.mix(key) & (tableSize - 1)) == home) {
+                keys[found++] = key;
+            }
+        }
+        return keys;
+    }
+
+    @Test
+    void removeShiftsProbeRunAcrossTheTableEnd() {
+        // Expected size 4 gives the minimum table of 16 slots
+        LongIntHashMap map = new LongIntHashMap(4, MISSING);
+        assertEquals(16L * (Long.BYTES + Integer.BYTES), map.getTableBytes());
+        // Three keys homed at the last slot fill 15, 0 and 1; a key homed at 0 lands in 2
+        long[] wrapped = keysHomedAt(15, 16, 3, 1);
+        long first = keysHomedAt(0, 16, 1, 1)[0];
+        for (int i = 0; i < wrapped.length; i++) {
+            map.put(wrapped[i], i);
+        }
+        map.put(first, 10);
+
+        assertEquals(0, map.remove(wrapped[0]));
+        assertEquals(MISSING, map.get(wrapped[0]));
+        assertEquals(1, map.get(wrapped[1]));
+        assertEquals(2, map.get(wrapped[2]));
+        assertEquals(10, map.get(first));
+
+        assertEquals(2, map.remove(wrapped[2]));
+        assertEquals(1, map.get(wrapped[1]));
+        assertEquals(10, map.get(first));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    void zeroKeyLivesOutsideTheTable() {
+        LongIntHashMap map = new LongIntHashMap(MISSING);
+        assertFalse(map.containsKey(0));
+        assertEquals(MISSING, map.get(0));
+        assertEquals(MISSING, map.put(0, 5));
+        assertTrue(map.containsKey(0));
+        assertEquals(5, map.put(0, 6));
+        assertEquals(1, map.size());
+
+        int[] seen = new int[1];
+        map.forEach((key, value) -> {
+            assertEquals(0, key);
+            seen[0] = value;
+        });
+        assertEquals(6, seen[0]);
+
+        assertEquals(6, map.remove(0));
+        assertEquals(MISSING, map.remove(0));
+        assertTrue(map.isEmpty());
+    }
+
+    @Test
+    void putIfAbsentAndRemoveReturnValues() {
+        LongIntHashMap map = new LongIntHashMap(MISSING);
+        assertEquals(MISSING, map.putIfAbsent(42, 1));
+        assertEquals(1, map.putIfAbsent(42, 2));
+        assertEquals(1, map.get(42));
+        assertEquals(MISSING, map.putIfAbsent(0, 3));
+        assertEquals(3, map.putIfAbsent(0, 4));
+
+        assertEquals(1, map.remove(42));
+        assertEquals(MISSING, map.remove(42));
+        assertEquals(3, map.remove(0));
+        assertEquals(MISSING, map.remove(7));
+    }
+
+    @Test
+    void rehashKeepsEveryEntry() {
+        LongIntHashMap map = new LongIntHashMap(MISSING);
+        long initialBytes = map.getTableBytes();
+        for (int i = 0; i < 10_000; i++) {
+            map.put(i * 0x10001L, i);
+        }
+        assertTrue(map.getTableBytes() > initialBytes);
+        assertEquals(10_000, map.size());
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i, map.get(i * 0x10001L));
+        }
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertEquals(MISSING, map.get(0x10001L));
+    }
+
+    @Test
+    void matchesHashMapUnderRandomChurn() {
+        LongIntHashMap map = new LongIntHashMap(MISSING);
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(45);
+        for (int i = 0; i < 200_000; i++) {
+            // A small key range keeps probe runs long and removals frequent
+            long key = random.nextInt(512) - 16;
+            if (random.nextInt(3) == 0) {
+                Integer previous = expected.remove(key);
+                assertEquals(previous == null ? MISSING : previous, map.remove(key));
+            } else {
+                Integer previous = expected.put(key, i);
+                assertEquals(previous == null ? MISSING : previous, map.put(key, i));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        Map<Long, Integer> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(expected, visited);
+    }
+}
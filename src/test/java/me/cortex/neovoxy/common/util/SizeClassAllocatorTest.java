@@ -0,0 +1,96 @@
+package me.cortex.neovoxy.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SizeClassAllocatorTest {
+
+    @Test
+    void doubleFreeOfSlotIsRejected() {
+        SizeClassAllocator allocator = new SizeClassAllocator(1 << 16);
+        int a = allocator.allocate(4);
+        int b = allocator.allocate(4);
+
+        assertTrue(allocator.free(a, 4));
+        assertFalse(allocator.free(a, 4));
+        assertEquals(4, allocator.getAllocatedUnits());
+
+        // The slot is handed out once, not twice
+        int c = allocator.allocate(4);
+        int d = allocator.allocate(4);
+        assertNotEquals(c, d);
+        assertNotEquals(b, c);
+        assertNotEquals(b, d);
+        assertEquals(12, allocator.getAllocatedUnits());
+    }
+
+    @Test
+    void freeOfUnallocatedSlotIsRejected() {
+        SizeClassAllocator allocator = new SizeClassAllocator(1 << 16);
+        int a = allocator.allocate(8);
+
+        // Next slot of the same slab was never handed out
+        assertFalse(allocator.free(a + 8, 8));
+        // Misaligned inside the slot
+        assertFalse(allocator.free(a + 1, 8));
+        assertTrue(allocator.free(a, 8));
+        assertEquals(0, allocator.getAllocatedUnits());
+    }
+
+    @Test
+    void doubleFreeOfLargeRangeIsRejected() {
+        SizeClassAllocator allocator = new SizeClassAllocator(1 << 16);
+        int a = allocator.allocate(SizeClassAllocator.MAX_SMALL_UNITS + 1);
+
+        assertFalse(allocator.free(a, SizeClassAllocator.MAX_SMALL_UNITS + 2));
+        assertTrue(allocator.free(a, SizeClassAllocator.MAX_SMALL_UNITS + 1));
+        assertFalse(allocator.free(a, SizeClassAllocator.MAX_SMALL_UNITS + 1));
+        assertEquals(0, allocator.getAllocatedUnits());
+    }
+
+    @Test
+    void slotsNeverOverlap() {
+        SizeClassAllocator allocator = new SizeClassAllocator(1 << 16);
+        boolean[] used = new boolean[1 << 16];
+        int[] offsets = new int[4000];
+        int[] sizes = new int[4000];
+        int count = 0;
+        long seed = 12345;
+
+        for (int step = 0; step < 20000; step++) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            int roll = (int) (seed >>> 33);
+            if (count > 0 && (roll & 3) == 0) {
+                int i = (roll >>> 2) % count;
+                assertTrue(allocator.free(offsets[i], sizes[i]));
+                assertFalse(allocator.free(offsets[i], sizes[i]));
+                for (int u = 0; u < sizes[i]; u++) {
+                    used[offsets[i] + u] = false;
+                }
+                offsets[i] = offsets[--count];
+                sizes[i] = sizes[count];
+            } else if (count < offsets.length) {
+                int size = 1 + (roll >>> 2) % 48;
+                int offset = allocator.allocate(size);
+                if (offset < 0) {
+                    continue;
+                }
+                for (int u = 0; u < size; u++) {
+                    assertFalse(used[offset + u], "Overlapping allocation at " + (offset + u));
+                    used[offset + u] = true;
+                }
+                offsets[count] = offset;
+                sizes[count++] = size;
+            }
+        }
+
+        Set<Integer> distinct = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            assertTrue(distinct.add(offsets[i]));
+        }
+    }
+}
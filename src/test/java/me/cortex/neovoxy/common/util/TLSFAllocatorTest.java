@@ -0,0 +1,151 @@
+package me.cortex.neovoxy.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TLSFAllocatorTest {
+
+    @Test
+    void allocatesWholeCapacity() {
+        TLSFAllocator allocator = new TLSFAllocator(1000);
+        assertEquals(0, allocator.allocate(1000));
+        assertEquals(-1, allocator.allocate(1));
+        assertEquals(0, allocator.getFreeUnits());
+        assertEquals(1000, allocator.free(0));
+        assertEquals(1000, allocator.getLargestFreeBlock());
+    }
+
+    @Test
+    void findsFitInsideRoundedList() {
+        TLSFAllocator allocator = new TLSFAllocator(1 << 12);
+        assertEquals(0, allocator.allocate(102));
+        assertTrue(allocator.allocateAt(102, (1 << 12) - 102));
+        allocator.free(0);
+
+        // 101 rounds up past the list of the only free block (102), which still fits it
+        assertEquals(0, allocator.allocate(101));
+    }
+
+    @Test
+    void rejectsInvalidRequests() {
+        TLSFAllocator allocator = new TLSFAllocator(64);
+        assertEquals(-1, allocator.allocate(0));
+        assertEquals(-1, allocator.allocate(-5));
+        assertEquals(-1, allocator.allocate(65));
+        assertEquals(-1, allocator.free(3));
+        assertEquals(-1, allocator.sizeOf(3));
+    }
+
+    @Test
+    void doubleFreeIsRejected() {
+        TLSFAllocator allocator = new TLSFAllocator(256);
+        int a = allocator.allocate(10);
+        assertEquals(10, allocator.free(a));
+        assertEquals(-1, allocator.free(a));
+        assertEquals(0, allocator.getUsedUnits());
+    }
+
+    @Test
+    void freedNeighboursMerge() {
+        TLSFAllocator allocator = new TLSFAllocator(300);
+        int a = allocator.allocate(100);
+        int b = allocator.allocate(100);
+        int c = allocator.allocate(100);
+        assertEquals(0, allocator.getFreeBlockCount());
+
+        allocator.free(a);
+        allocator.free(c);
+        assertEquals(2, allocator.getFreeBlockCount());
+        assertEquals(-1, allocator.allocate(200));
+
+        allocator.free(b);
+        assertEquals(1, allocator.getFreeBlockCount());
+        assertEquals(300, allocator.getLargestFreeBlock());
+        assertEquals(0, allocator.getFragmentation());
+    }
+
+    @Test
+    void relocateMovesAllocation() {
+        TLSFAllocator allocator = new TLSFAllocator(100);
+        int a = allocator.allocate(10);
+        int b = allocator.allocate(10);
+        allocator.free(a);
+
+        // Overlapping move is refused
+        assertFalse(allocator.relocate(b, b + 5));
+        assertTrue(allocator.relocate(b, a));
+        assertEquals(10, allocator.sizeOf(a));
+        assertEquals(-1, allocator.sizeOf(b));
+        assertEquals(10, allocator.getUsedUnits());
+    }
+
+    @Test
+    void collectsAllocationsInOffsetOrder() {
+        TLSFAllocator allocator = new TLSFAllocator(1000);
+        int[] expected = new int[5];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = allocator.allocate(7 + i);
+        }
+        allocator.free(expected[2]);
+
+        int[] offsets = new int[allocator.getAllocationCount()];
+        int[] sizes = new int[offsets.length];
+        assertEquals(4, allocator.collectAllocations(offsets, sizes));
+        assertArrayEquals(new int[] { expected[0], expected[1], expected[3], expected[4] }, offsets);
+        assertArrayEquals(new int[] { 7, 8, 10, 11 }, sizes);
+    }
+
+    @Test
+    void randomWorkloadKeepsInvariants() {
+        int capacity = 1 << 16;
+        TLSFAllocator allocator = new TLSFAllocator(capacity);
+        boolean[] used = new boolean[capacity];
+        int[] offsets = new int[2048];
+        int[] sizes = new int[2048];
+        int count = 0;
+        long usedUnits = 0;
+        long seed = 42;
+
+        for (int step = 0; step < 50000; step++) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            int roll = (int) (seed >>> 33);
+            if (count > 0 && (count == offsets.length || (roll & 1) == 0)) {
+                int i = (roll >>> 1) % count;
+                assertEquals(sizes[i], allocator.free(offsets[i]));
+                for (int u = 0; u < sizes[i]; u++) {
+                    used[offsets[i] + u] = false;
+                }
+                usedUnits -= sizes[i];
+                offsets[i] = offsets[--count];
+                sizes[i] = sizes[count];
+            } else {
+                // Mostly small ranges with the occasional large one
+                int size = (roll & 0x70) == 0 ? 1 + (roll >>> 8) % 4096 : 1 + (roll >>> 8) % 64;
+                int offset = allocator.allocate(size);
+                if (offset < 0) {
+                    assertTrue(allocator.getLargestFreeBlock() < size, "Free block large enough was skipped");
+                    continue;
+                }
+                assertTrue(offset + size <= capacity);
+                for (int u = 0; u < size; u++) {
+                    assertFalse(used[offset + u], "Overlapping allocation at " + (offset + u));
+                    used[offset + u] = true;
+                }
+                usedUnits += size;
+                offsets[count] = offset;
+                sizes[count++] = size;
+            }
+            assertEquals(usedUnits, allocator.getUsedUnits());
+            assertEquals(count, allocator.getAllocationCount());
+        }
+
+        while (count > 0) {
+            count--;
+            assertEquals(sizes[count], allocator.free(offsets[count]));
+        }
+        assertEquals(0, allocator.getUsedUnits());
+        assertEquals(1, allocator.getFreeBlockCount());
+        assertEquals(capacity, allocator.getLargestFreeBlock());
+    }
+}
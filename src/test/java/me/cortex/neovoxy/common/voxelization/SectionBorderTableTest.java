@@ -0,0 +1,72 @@
+package me.cortex.neovoxy.common.voxelization;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SectionBorderTableTest {
+
+    @Test
+    void putReplacesAndRemoveReturnsPrevious() {
+        SectionBorderTable table = new SectionBorderTable();
+        long pos = VoxelizedSection.packPosition(3, -4, 7);
+        SectionBorder solid = solidBorder();
+
+        assertNull(table.put(pos, SectionBorder.EMPTY));
+        assertSame(SectionBorder.EMPTY, table.put(pos, solid));
+        assertSame(solid, table.get(pos));
+        assertEquals(1, table.size());
+
+        assertSame(solid, table.remove(pos));
+        assertNull(table.remove(pos));
+        assertNull(table.get(pos));
+        assertFalse(table.contains(pos));
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    void freedSlotsAreReused() {
+        SectionBorderTable table = new SectionBorderTable();
+        // More than the initial slot array, removed and added again many times
+        for (int round = 0; round < 8; round++) {
+            for (int i = 0; i < 1000; i++) {
+                table.put(VoxelizedSection.packPosition(i, round, -i), SectionBorder.EMPTY);
+            }
+            for (int i = 0; i < 1000; i++) {
+                assertNotNull(table.remove(VoxelizedSection.packPosition(i, round, -i)));
+            }
+        }
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    void removeColumnsDropsOnlyTheRange() {
+        SectionBorderTable table = new SectionBorderTable();
+        for (int x = -4; x < 4; x++) {
+            for (int z = -4; z < 4; z++) {
+                for (int y = -4; y < 20; y += 3) {
+                    table.put(VoxelizedSection.packPosition(x, y, z), SectionBorder.EMPTY);
+                }
+            }
+        }
+        int before = table.size();
+
+        // Every height of four columns
+        assertEquals(4 * 8, table.removeColumns(-2, 0, -1, 1));
+        assertEquals(before - 4 * 8, table.size());
+        for (int y = -4; y < 20; y += 3) {
+            assertFalse(table.contains(VoxelizedSection.packPosition(-2, y, 1)));
+            assertTrue(table.contains(VoxelizedSection.packPosition(-3, y, 1)));
+            assertTrue(table.contains(VoxelizedSection.packPosition(-2, y, 2)));
+        }
+        assertEquals(0, table.removeColumns(-2, 0, -1, 1));
+    }
+
+    private static SectionBorder solidBorder() {
+        int[] states = new int[16 * 16 * 16];
+        Arrays.fill(states, 1);
+        return SectionBorder.of(new VoxelizedSection(0, 0, 0, states, null, null, states.length));
+    }
+}